@@ -0,0 +1,45 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.css.compiler.benchmarks;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks as {@link org.openjdk.jmh.Main} does, with the same
+ * arguments, but measures every traversal of the pass pipeline in
+ * {@link PassBenchmark} unless {@code -p pass=...} selects some of them.
+ */
+public final class BenchmarkMain {
+
+  private BenchmarkMain() {}
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions options = new CommandLineOptions(args);
+    if (options.shouldHelp() || options.shouldList() || options.shouldListWithParams()
+        || options.shouldListProfilers() || options.shouldListResultFormats()) {
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+    OptionsBuilder builder = new OptionsBuilder();
+    builder.parent(options);
+    if (!options.getParameter("pass").hasValue()) {
+      builder.param("pass", PassBenchmark.getPassNames().toArray(new String[0]));
+    }
+    new Runner(builder.build()).run();
+  }
+}
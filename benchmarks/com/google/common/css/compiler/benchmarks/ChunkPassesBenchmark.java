@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.css.compiler.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.css.JobDescription;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssSelectorNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.DefaultTreeVisitor;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.GssParserException;
+import com.google.common.css.compiler.passes.DummyErrorManager;
+import com.google.common.css.compiler.passes.EliminateUselessRulesetNodes;
+import com.google.common.css.compiler.passes.MarkRemovableRulesetNodesForChunk;
+import com.google.common.css.compiler.passes.PassRunner;
+import com.google.common.css.compiler.passes.RunPassesForChunks;
+import com.google.common.css.compiler.passes.SplitRulesetNodes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time taken to eliminate the overridden rulesets of each chunk
+ * of a split tree, whose rulesets are spread over the chunks, by marking the
+ * whole tree for each chunk and with {@link RunPassesForChunks}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChunkPassesBenchmark {
+
+  /** Marks and removes the overridden rulesets of each chunk. */
+  private static final RunPassesForChunks.ChunkPassesFactory<Integer> ELIMINATE_DEAD_STYLES =
+      new RunPassesForChunks.ChunkPassesFactory<Integer>() {
+        @Override
+        public List<CssCompilerPass> createPasses(Integer chunk, CssTree chunkTree) {
+          return ImmutableList.<CssCompilerPass>of(
+              new MarkRemovableRulesetNodesForChunk<>(chunk, chunkTree, true),
+              new EliminateUselessRulesetNodes(chunkTree));
+        }
+      };
+
+  @Param({"10000"})
+  int rulesets;
+
+  @Param({"1", "60"})
+  int chunkCount;
+
+  private CssTree splitTree;
+  private List<Integer> chunks;
+  private ForkJoinPool pool;
+  private CssTree tree;
+
+  @Setup
+  public void setUp() throws GssParserException {
+    SourceCode input = SyntheticStylesheets.generate(rulesets);
+    JobDescription job =
+        SyntheticStylesheets.createJob(input, JobDescription.OutputFormat.COMPRESSED);
+    splitTree = new GssParser(input).parse();
+    new PassRunner(job, DummyErrorManager.getInstance()).runPasses(splitTree);
+    new SplitRulesetNodes(splitTree.getMutatingVisitController(), true).runPass();
+    chunks = new ArrayList<>(chunkCount);
+    for (int i = 0; i < chunkCount; i++) {
+      chunks.add(i);
+    }
+    // Consecutive rulesets usually come from the same file, so give each
+    // chunk a range of them.
+    final int selectorsPerChunk = splitTree.getRoot().getBody().numChildren() / chunkCount + 1;
+    splitTree.getVisitController().startVisit(new DefaultTreeVisitor() {
+      int selectors = 0;
+
+      @Override
+      public boolean enterSelector(CssSelectorNode selector) {
+        selector.setChunk(Math.min(selectors++ / selectorsPerChunk, chunkCount - 1));
+        return true;
+      }
+    });
+    pool = new ForkJoinPool();
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdownNow();
+  }
+
+  @Setup(Level.Invocation)
+  public void copyTree() {
+    tree = new CssTree(splitTree);
+  }
+
+  @Benchmark
+  public CssTree markWholeTreeForEachChunk() {
+    for (Integer chunk : chunks) {
+      new MarkRemovableRulesetNodesForChunk<>(chunk, tree, true).runPass();
+    }
+    new EliminateUselessRulesetNodes(tree).runPass();
+    return tree;
+  }
+
+  @Benchmark
+  public CssTree runPassesForChunks() {
+    new RunPassesForChunks<>(tree, chunks, ELIMINATE_DEAD_STYLES).runPass();
+    return tree;
+  }
+
+  @Benchmark
+  public CssTree runPassesForChunksInParallel() {
+    new RunPassesForChunks<>(tree, chunks, ELIMINATE_DEAD_STYLES).runPass(pool);
+    return tree;
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.css.JobDescription;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.GssParserException;
+import com.google.common.css.compiler.passes.CompactPrinter;
+import com.google.common.css.compiler.passes.DummyErrorManager;
+import com.google.common.css.compiler.passes.PassRunner;
+import com.google.common.css.compiler.passes.TemplateCompactPrinterForChunks;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time taken to compile inputs split into chunks, as the
+ * compiler does with {@link JobDescription#fileToChunk}: parsing, all the
+ * passes of {@link PassRunner}, whose dead code elimination runs on each
+ * chunk on its own, and the printing of the template of each chunk, on one
+ * thread or on {@code threads} threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChunkPipelineBenchmark {
+
+  @Param({"10000"})
+  int rulesets;
+
+  @Param({"8"})
+  int chunkCount;
+
+  @Param({"1", "4"})
+  int threads;
+
+  private JobDescription job;
+  private JobDescription jobWithoutChunks;
+
+  @Setup
+  public void setUp() {
+    ImmutableList.Builder<SourceCode> inputs = ImmutableList.builder();
+    ImmutableMap.Builder<String, String> fileToChunk = ImmutableMap.builder();
+    for (int i = 0; i < chunkCount; i++) {
+      String fileName = "chunk-" + i + ".gss";
+      inputs.add(new SourceCode(fileName,
+          SyntheticStylesheets.generate(rulesets / chunkCount).getFileContents()));
+      fileToChunk.put(fileName, "chunk-" + i);
+    }
+    job = SyntheticStylesheets.createJob(inputs.build(), JobDescription.OutputFormat.COMPRESSED)
+        .toBuilder()
+        .setAllowDefPropagation(true)
+        .setFileToChunk(fileToChunk.build())
+        .setNumThreads(threads)
+        .getJobDescription();
+    jobWithoutChunks = job.toBuilder()
+        .setFileToChunk(ImmutableMap.<String, String>of())
+        .getJobDescription();
+  }
+
+  /**
+   * Compiles the same inputs into a single output, eliminating the dead
+   * styles of the whole tree, for comparison.
+   */
+  @Benchmark
+  public String compileWithoutChunks() throws GssParserException {
+    CssTree tree = new GssParser(jobWithoutChunks.inputs).parse();
+    new PassRunner(jobWithoutChunks, DummyErrorManager.getInstance()).runPasses(tree);
+    CompactPrinter printer = new CompactPrinter(tree);
+    printer.runPass();
+    return printer.getCompactPrintedString();
+  }
+
+  @Benchmark
+  public ImmutableMap<String, String> compile() throws GssParserException {
+    CssTree tree = new GssParser(job.inputs).parse();
+    new PassRunner(job, DummyErrorManager.getInstance()).runPasses(tree);
+    TemplateCompactPrinterForChunks<String> printer =
+        new TemplateCompactPrinterForChunks<>(tree, job.getChunks());
+    if (threads == 1) {
+      printer.runPass();
+    } else {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      try {
+        printer.runPass(pool);
+      } finally {
+        pool.shutdownNow();
+      }
+    }
+    return printer.getCompactPrintedStrings();
+  }
+}
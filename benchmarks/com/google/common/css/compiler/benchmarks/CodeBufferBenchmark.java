@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.benchmarks;
+
+import com.google.common.css.JobDescription;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.GssParserException;
+import com.google.common.css.compiler.passes.CodeBuffer;
+import com.google.common.css.compiler.passes.DummyErrorManager;
+import com.google.common.css.compiler.passes.PassRunner;
+import com.google.common.css.compiler.passes.PrettyPrinter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link CodeBuffer} alone, replaying the strings the pretty printer
+ * appends for a compiled stylesheet, along with the source map queries and
+ * deletions the printers make. Run with {@code -prof gc} to see the
+ * allocation rate of the buffer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodeBufferBenchmark {
+
+  /** Splits the output into the kind of tokens the printers append. */
+  private static final Pattern TOKEN = Pattern.compile("\n *|[{}:;,]|[^{}:;,\n]+");
+
+  @Param({"1000", "10000"})
+  int rulesets;
+
+  private String[] tokens;
+
+  @Setup
+  public void setUp() throws GssParserException {
+    SourceCode input = SyntheticStylesheets.generate(rulesets);
+    JobDescription job =
+        SyntheticStylesheets.createJob(input, JobDescription.OutputFormat.PRETTY_PRINTED);
+    CssTree tree = new GssParser(input).parse();
+    new PassRunner(job, DummyErrorManager.getInstance()).runPasses(tree);
+    PrettyPrinter printer = new PrettyPrinter(tree.getVisitController());
+    printer.runPass();
+
+    List<String> tokens = new ArrayList<>();
+    Matcher matcher = TOKEN.matcher(printer.getPrettyPrintedString());
+    while (matcher.find()) {
+      tokens.add(matcher.group());
+    }
+    this.tokens = tokens.toArray(new String[0]);
+  }
+
+  @Benchmark
+  public int append() {
+    CodeBuffer buffer = new CodeBuffer();
+    int positions = 0;
+    for (String token : tokens) {
+      if (token.length() == 1) {
+        buffer.append(token.charAt(0));
+      } else {
+        buffer.append(token);
+      }
+      if (token.equals(";")) {
+        // What the source map generator asks for at the end of every node.
+        positions += buffer.getLastLineIndex() + buffer.getLastCharIndex();
+      } else if (token.equals("}")) {
+        buffer.deleteLastCharIfCharIs('}');
+        buffer.deleteEndingIfEndingIs(";\n");
+        buffer.append('}');
+      }
+    }
+    return positions + buffer.getCurrentLength();
+  }
+}
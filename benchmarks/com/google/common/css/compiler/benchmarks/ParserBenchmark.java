@@ -0,0 +1,96 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.css.compiler.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.AbstractCharStream;
+import com.google.common.css.compiler.ast.CssBlockNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.GssParserCC;
+import com.google.common.css.compiler.ast.GssParserException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the throughput of {@link GssParser} alone, on one large input and
+ * on many small ones parsed separately, as when compiling one file at a time,
+ * and of {@link GssParserCC} reading the large input from a UTF-8 buffer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+  @Param({"1000", "10000"})
+  int rulesets;
+
+  private SourceCode input;
+  private ByteBuffer inputBytes;
+  private List<SourceCode> smallInputs;
+
+  @Setup
+  public void setUp() {
+    input = SyntheticStylesheets.generate(rulesets);
+    byte[] bytes = input.getFileContents().getBytes(UTF_8);
+    inputBytes = ByteBuffer.allocateDirect(bytes.length);
+    inputBytes.put(bytes).flip();
+    smallInputs = new ArrayList<>();
+    for (int i = 0; i < rulesets; i++) {
+      smallInputs.add(new SourceCode("small-" + i + ".gss",
+          "/* Input " + i + ". */\n"
+          + ".goog-item-" + i + " {\n  color: #ff0000;\n  margin: 0px " + i + "px;\n}\n"));
+    }
+  }
+
+  @Benchmark
+  public CssTree parse() throws GssParserException {
+    return new GssParser(input).parse();
+  }
+
+  @Benchmark
+  public void parseSmallInputs(Blackhole blackhole) throws GssParserException {
+    for (SourceCode smallInput : smallInputs) {
+      blackhole.consume(new GssParser(smallInput).parse());
+    }
+  }
+
+  @Benchmark
+  public CssBlockNode parseUtf8Buffer() throws GssParserException {
+    CssBlockNode globalBlock = new CssBlockNode(false);
+    new GssParserCC(AbstractCharStream.forUtf8(inputBytes), globalBlock, input).parse();
+    return globalBlock;
+  }
+}
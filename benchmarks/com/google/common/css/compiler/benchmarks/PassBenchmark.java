@@ -0,0 +1,151 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.css.compiler.benchmarks;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multiset;
+import com.google.common.css.JobDescription;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.GssParserException;
+import com.google.common.css.compiler.passes.CssClassRenaming;
+import com.google.common.css.compiler.passes.DummyErrorManager;
+import com.google.common.css.compiler.passes.PassPipeline;
+import com.google.common.css.compiler.passes.PassRunner;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of each traversal of the {@link PassPipeline} of
+ * {@link PassRunner}, on the tree left by the traversals that run before it,
+ * and of the class renaming pass that follows them.
+ *
+ * <p>The traversals to measure are named as in {@link #getPassNames}, which
+ * {@link BenchmarkMain} passes to JMH unless {@code -p pass=...} selects some
+ * of them, so that the benchmark follows the pipeline as it changes.
+ *
+ * <p>Passes mutate the tree, so every invocation runs the traversal on a
+ * fresh copy of the parsed tree, which the traversals before it run on in an
+ * untimed setup. As that setup is much slower than the traversal, each
+ * iteration runs a few invocations only.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PassBenchmark {
+
+  /**
+   * The name of {@link CssClassRenaming}, which {@link PassRunner} runs after
+   * the pipeline.
+   */
+  private static final String CLASS_RENAMING = "CssClassRenaming";
+
+  @Param({"1000", "10000"})
+  int rulesets;
+
+  /**
+   * The traversal to measure. JMH requires a default, but the names are
+   * provided by {@link BenchmarkMain}.
+   */
+  @Param(CLASS_RENAMING)
+  String pass;
+
+  private JobDescription job;
+  private PassRunner passRunner;
+  private CssTree parsedTree;
+
+  /** The index of the traversal to measure. */
+  private int traversal;
+
+  private CssTree tree;
+  private PassPipeline.Execution execution;
+
+  /**
+   * Returns the names of the traversals of the pipeline run on the
+   * benchmarked stylesheets, in order, followed by the name of the class
+   * renaming pass. Fused passes are named by joining their names with
+   * {@code +}, and a traversal that runs again is numbered, as in
+   * {@code EliminateUselessRulesetNodes#2}.
+   */
+  static ImmutableList<String> getPassNames() {
+    SourceCode input = SyntheticStylesheets.generate(1);
+    JobDescription job =
+        SyntheticStylesheets.createJob(input, JobDescription.OutputFormat.COMPRESSED);
+    return getPassNames(new PassRunner(job, DummyErrorManager.getInstance()).getPipeline());
+  }
+
+  private static ImmutableList<String> getPassNames(PassPipeline pipeline) {
+    ImmutableList.Builder<String> names = ImmutableList.builder();
+    Multiset<String> runs = HashMultiset.create();
+    for (ImmutableList<PassPipeline.Step> steps : pipeline.getTraversals()) {
+      String name = Joiner.on('+').join(steps);
+      int run = runs.add(name, 1) + 1;
+      names.add(run == 1 ? name : name + "#" + run);
+    }
+    return names.add(CLASS_RENAMING).build();
+  }
+
+  @Setup
+  public void setUp() throws GssParserException {
+    SourceCode input = SyntheticStylesheets.generate(rulesets);
+    job = SyntheticStylesheets.createJob(input, JobDescription.OutputFormat.COMPRESSED);
+    ImmutableList<String> passNames =
+        getPassNames(new PassRunner(job, DummyErrorManager.getInstance()).getPipeline());
+    traversal = passNames.indexOf(pass);
+    Preconditions.checkArgument(traversal >= 0, "Unknown pass %s, expected one of %s",
+        pass, passNames);
+    parsedTree = new GssParser(input).parse();
+  }
+
+  @Setup(Level.Invocation)
+  public void runPreviousTraversals() {
+    // A new runner, so that classes are renamed with an empty renaming map.
+    passRunner = new PassRunner(job, DummyErrorManager.getInstance());
+    tree = new CssTree(parsedTree);
+    execution = passRunner.getPipeline().start(tree, null /* listener */);
+    for (int i = 0; i < traversal && execution.hasNext(); i++) {
+      execution.runNext();
+    }
+  }
+
+  @Benchmark
+  public CssTree runPass() {
+    if (execution.hasNext()) {
+      execution.runNext();
+    } else {
+      passRunner.runRenamingPass(tree);
+    }
+    return tree;
+  }
+}
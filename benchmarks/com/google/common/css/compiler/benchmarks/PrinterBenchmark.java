@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.css.compiler.benchmarks;
+
+import com.google.common.css.JobDescription;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.GssParserException;
+import com.google.common.css.compiler.passes.CompactPrinter;
+import com.google.common.css.compiler.passes.DefaultGssSourceMapGenerator;
+import com.google.common.css.compiler.passes.DummyErrorManager;
+import com.google.common.css.compiler.passes.GssSourceMapGenerator;
+import com.google.common.css.compiler.passes.NullGssSourceMapGenerator;
+import com.google.common.css.compiler.passes.PassRunner;
+import com.google.common.css.compiler.passes.PrettyPrinter;
+import com.google.common.css.compiler.passes.StreamingGssSourceMapGenerator;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the throughput of printing a compiled tree, with the compact and
+ * pretty printers, without a source map and with each source map generator.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrinterBenchmark {
+
+  @Param({"1000", "10000"})
+  int rulesets;
+
+  @Param({"COMPRESSED", "PRETTY_PRINTED"})
+  JobDescription.OutputFormat outputFormat;
+
+  /** The source map generator: none, closure-compiler's or the streaming one. */
+  @Param({"NONE", "DEFAULT", "STREAMING"})
+  String sourceMap;
+
+  private JobDescription job;
+  private CssTree tree;
+
+  @Setup
+  public void setUp() throws GssParserException {
+    SourceCode input = SyntheticStylesheets.generate(rulesets);
+    job = SyntheticStylesheets.createJob(input, outputFormat);
+    tree = new GssParser(input).parse();
+    new PassRunner(job, DummyErrorManager.getInstance()).runPasses(tree);
+  }
+
+  @Benchmark
+  public void print(Blackhole blackhole) throws IOException {
+    GssSourceMapGenerator sourceMapGenerator;
+    if (sourceMap.equals("DEFAULT")) {
+      sourceMapGenerator = new DefaultGssSourceMapGenerator(job.sourceMapLevel);
+    } else if (sourceMap.equals("STREAMING")) {
+      sourceMapGenerator = new StreamingGssSourceMapGenerator(job.sourceMapLevel);
+    } else {
+      sourceMapGenerator = new NullGssSourceMapGenerator();
+    }
+    if (outputFormat == JobDescription.OutputFormat.COMPRESSED) {
+      CompactPrinter printer = new CompactPrinter(tree, sourceMapGenerator);
+      printer.runPass();
+      blackhole.consume(printer.getCompactPrintedString());
+    } else {
+      PrettyPrinter printer = new PrettyPrinter(tree.getVisitController(),
+          null /* use external buffer */, sourceMapGenerator);
+      printer.runPass();
+      blackhole.consume(printer.getPrettyPrintedString());
+    }
+    if (!sourceMap.equals("NONE")) {
+      StringBuilder out = new StringBuilder();
+      sourceMapGenerator.appendOutputTo(out, "synthetic.css.map");
+      blackhole.consume(out);
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.css.JobDescription;
+import com.google.common.css.JobDescriptionBuilder;
+import com.google.common.css.MinimalSubstitutionMap;
+import com.google.common.css.SourceCode;
+import com.google.common.css.SplittingSubstitutionMap;
+import com.google.common.css.SubstitutionMap;
+import com.google.common.css.SubstitutionMapProvider;
+import com.google.common.css.compiler.gssfunctions.DefaultGssFunctionMapProvider;
+import java.util.List;
+
+/**
+ * Generates large, deterministic GSS stylesheets that exercise most of the
+ * compiler: constants, mixins, loops, nested conditionals, functions,
+ * shorthand properties that can be abbreviated, and rulesets that can be
+ * split, merged and eliminated.
+ */
+final class SyntheticStylesheets {
+
+  /** The number of nested {@code @if} blocks. */
+  private static final int CONDITIONAL_DEPTH = 4;
+
+  private SyntheticStylesheets() {}
+
+  /**
+   * Returns a stylesheet with roughly {@code rulesets} top level rulesets.
+   */
+  static SourceCode generate(int rulesets) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("/* Generated stylesheet with ").append(rulesets).append(" rulesets. */\n");
+    for (int i = 0; i < 10; i++) {
+      sb.append("@def COLOR_").append(i).append(" #").append(hexColor(i)).append(";\n");
+      sb.append("@def PADDING_").append(i).append(' ').append(i).append("px;\n");
+    }
+    sb.append("@def DARK_COLOR darken(COLOR_1, 10%);\n");
+    sb.append("@def WIDE_PADDING add(PADDING_2, PADDING_3);\n");
+    sb.append("@defmixin size(W, H) { width: W; height: H; }\n");
+    sb.append("@defmixin border(WIDTH, COLOR) { border: WIDTH solid COLOR; }\n");
+    sb.append("@for $i from 1 to 12 { .goog-col-$i { z-index: $i; } }\n");
+
+    for (int i = 0; i < rulesets; i++) {
+      if (i % 50 == 0) {
+        appendConditional(sb, i, 0);
+      }
+      appendRuleset(sb, i);
+    }
+    return new SourceCode("synthetic-" + rulesets + ".gss", sb.toString());
+  }
+
+  private static void appendRuleset(StringBuilder sb, int i) {
+    int c = i % 10;
+    sb.append(".goog-component-").append(i % 200).append(" .goog-item-").append(i)
+        .append(", .goog-widget-").append(i % 100).append(":hover > a");
+    sb.append(" {\n");
+    sb.append("  color: COLOR_").append(c).append(";\n");
+    sb.append("  margin: 0px PADDING_").append(c).append(" 0px PADDING_").append(c)
+        .append(";\n");
+    sb.append("  padding: WIDE_PADDING;\n");
+    switch (i % 4) {
+      case 0:
+        sb.append("  @mixin size(").append(10 + c).append("px, 0em);\n");
+        break;
+      case 1:
+        sb.append("  @mixin border(1px, DARK_COLOR);\n");
+        break;
+      case 2:
+        sb.append("  background-color: #ffffff;\n");
+        sb.append("  float: left;\n");
+        break;
+      default:
+        sb.append("  font: 12px/1.5 arial, sans-serif;\n");
+        sb.append("  text-align: right;\n");
+    }
+    sb.append("}\n");
+    if (i % 3 == 0) {
+      // Same declarations as the previous ruleset, so that it can be merged.
+      sb.append(".goog-merged-").append(i).append(" { color: COLOR_").append(c).append("; }\n");
+      sb.append(".goog-merged-").append(i + 1).append(" { color: COLOR_").append(c)
+          .append("; }\n");
+    }
+  }
+
+  private static void appendConditional(StringBuilder sb, int i, int depth) {
+    if (depth == CONDITIONAL_DEPTH) {
+      sb.append(".goog-conditional-").append(i).append('-').append(depth)
+          .append(" { padding-left: PADDING_").append(depth).append("; }\n");
+      return;
+    }
+    sb.append("@if (COND_").append(depth).append(") {\n");
+    appendConditional(sb, i, depth + 1);
+    sb.append("} @elseif (!COND_").append(depth + 1).append(") {\n");
+    sb.append(".goog-elseif-").append(i).append('-').append(depth)
+        .append(" { margin-right: PADDING_").append(depth).append("; }\n");
+    sb.append("} @else {\n");
+    appendConditional(sb, i, depth + 1);
+    sb.append("}\n");
+  }
+
+  private static String hexColor(int i) {
+    return String.format("%02x%02x%02x", (i * 37) & 0xff, (i * 91) & 0xff, (i * 53) & 0xff);
+  }
+
+  /**
+   * Returns a job that turns on every optional pass, so that benchmarks of the
+   * whole pipeline cover all of them.
+   */
+  static JobDescription createJob(SourceCode input, JobDescription.OutputFormat outputFormat) {
+    return createJob(ImmutableList.of(input), outputFormat);
+  }
+
+  /**
+   * Returns a job that turns on every optional pass for the given inputs.
+   */
+  static JobDescription createJob(
+      List<SourceCode> inputs, JobDescription.OutputFormat outputFormat) {
+    return new JobDescriptionBuilder()
+        .setInputs(inputs)
+        .setOutputFormat(outputFormat)
+        .setOutputOrientation(JobDescription.OutputOrientation.RTL)
+        .setTrueConditionNames(ImmutableList.of("COND_1", "COND_3"))
+        .setSimplifyCss(true)
+        .setEliminateDeadStyles(true)
+        .setGssFunctionMapProvider(new DefaultGssFunctionMapProvider())
+        .setCssSubstitutionMapProvider(new SubstitutionMapProvider() {
+          @Override
+          public SubstitutionMap get() {
+            return new SplittingSubstitutionMap(new MinimalSubstitutionMap());
+          }
+        })
+        .setCreateSourceMap(true)
+        .getJobDescription();
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.css.compiler.benchmarks;
+
+import com.google.common.css.JobDescription;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssSelectorNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.DefaultTreeVisitor;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.GssParserException;
+import com.google.common.css.compiler.passes.DummyErrorManager;
+import com.google.common.css.compiler.passes.PassRunner;
+import com.google.common.css.compiler.passes.TemplateCompactPrinter;
+import com.google.common.css.compiler.passes.TemplateCompactPrinterForChunks;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the throughput of printing the templates of all the chunks of a
+ * compiled tree, whose rulesets are spread over the chunks, with a
+ * {@link TemplateCompactPrinter} per chunk and with a
+ * {@link TemplateCompactPrinterForChunks}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplatePrinterBenchmark {
+
+  @Param({"10000"})
+  int rulesets;
+
+  @Param({"1", "60"})
+  int chunkCount;
+
+  private CssTree tree;
+  private List<Integer> chunks;
+
+  @Setup
+  public void setUp() throws GssParserException {
+    SourceCode input = SyntheticStylesheets.generate(rulesets);
+    JobDescription job =
+        SyntheticStylesheets.createJob(input, JobDescription.OutputFormat.COMPRESSED);
+    tree = new GssParser(input).parse();
+    new PassRunner(job, DummyErrorManager.getInstance()).runPasses(tree);
+    chunks = new ArrayList<>(chunkCount);
+    for (int i = 0; i < chunkCount; i++) {
+      chunks.add(i);
+    }
+    // Consecutive rulesets usually come from the same file, so give each
+    // chunk a range of them.
+    final int selectorsPerChunk = rulesets / chunkCount + 1;
+    tree.getVisitController().startVisit(new DefaultTreeVisitor() {
+      int selectors = 0;
+
+      @Override
+      public boolean enterSelector(CssSelectorNode selector) {
+        selector.setChunk(Math.min(selectors++ / selectorsPerChunk, chunkCount - 1));
+        return true;
+      }
+    });
+  }
+
+  @Benchmark
+  public void printEachChunk(Blackhole blackhole) {
+    for (Integer chunk : chunks) {
+      TemplateCompactPrinter<Integer> printer = new TemplateCompactPrinter<>(tree, chunk);
+      printer.runPass();
+      blackhole.consume(printer.getCompactPrintedString());
+    }
+  }
+
+  @Benchmark
+  public void printAllChunks(Blackhole blackhole) {
+    TemplateCompactPrinterForChunks<Integer> printer =
+        new TemplateCompactPrinterForChunks<>(tree, chunks);
+    printer.runPass();
+    blackhole.consume(printer.getCompactPrintedStrings());
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.css.compiler.benchmarks;
+
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.GssParserException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the heap retained by a large parsed {@link CssTree}, which is
+ * mostly made of nodes without comments and of their locations. The retained
+ * size is reported in the {@code retainedBytes} secondary result, the heap in
+ * use after a full collection with the tree minus the heap in use before
+ * parsing; the time of the parse is only a by-product.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+// JMH adds up the counters of the iterations, so there is only one.
+@Measurement(iterations = 1, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class TreeFootprintBenchmark {
+
+  @Param({"10000"})
+  int rulesets;
+
+  private SourceCode input;
+  private CssTree tree;
+
+  /** The heap retained by the last tree parsed. */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Footprint {
+    public long retainedBytes;
+  }
+
+  @Setup
+  public void setUp() {
+    input = SyntheticStylesheets.generate(rulesets);
+  }
+
+  @Benchmark
+  public void parse(Footprint footprint) throws GssParserException {
+    tree = null;
+    long before = usedHeap();
+    tree = new GssParser(input).parse();
+    footprint.retainedBytes = usedHeap() - before;
+  }
+
+  @TearDown(Level.Iteration)
+  public void checkTree() {
+    if (tree == null) {
+      throw new IllegalStateException("The tree was not kept");
+    }
+  }
+
+  /** Returns the heap in use after collecting all the garbage it can. */
+  private static long usedHeap() {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    long used = Long.MAX_VALUE;
+    // Collect until the heap stops shrinking, as a single System.gc() may not
+    // reclaim everything.
+    for (int i = 0; i < 10; i++) {
+      System.gc();
+      long now = memory.getHeapMemoryUsage().getUsed();
+      if (now >= used) {
+        break;
+      }
+      used = now;
+    }
+    return used;
+  }
+}
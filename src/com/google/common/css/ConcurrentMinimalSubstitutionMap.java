@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Striped;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A thread-safe {@link MinimalSubstitutionMap}. Lookups of known keys do not
+ * lock; a new key only locks the stripe it hashes to, and takes its name from
+ * an atomic counter, so unrelated keys can be renamed concurrently.
+ *
+ * <p>Names are unique and skip the output value blacklist, but which key gets
+ * which name depends on the order in which the threads first look up their
+ * keys. Use {@link ConcurrentRecordingSubstitutionMap#forCompilationUnit} to
+ * get the same names as a sequential compilation.
+ */
+public class ConcurrentMinimalSubstitutionMap
+    implements SubstitutionMap.Initializable {
+
+  private static final int LOCK_STRIPES = 64;
+
+  /** Only used for its {@link MinimalSubstitutionMap#toShortString}. */
+  private final MinimalSubstitutionMap nameGenerator;
+
+  /** Next index to pass to {@link MinimalSubstitutionMap#toShortString}. */
+  private final AtomicInteger nextIndex = new AtomicInteger();
+
+  private final ConcurrentMap<String, String> renamedCssClasses =
+      new ConcurrentHashMap<>();
+
+  private final Striped<Lock> locks = Striped.lock(LOCK_STRIPES);
+
+  /**
+   * A set of CSS class names that may not be output from this substitution map.
+   */
+  private volatile ImmutableSet<String> outputValueBlacklist;
+
+  public ConcurrentMinimalSubstitutionMap() {
+    this(ImmutableSet.<String>of());
+  }
+
+  /**
+   * @param outputValueBlacklist A set of CSS class names that may not be
+   *     returned as the output from a substitution lookup.
+   */
+  public ConcurrentMinimalSubstitutionMap(Set<String> outputValueBlacklist) {
+    this(new MinimalSubstitutionMap(), outputValueBlacklist);
+  }
+
+  /**
+   * Creates a new map that generates CSS class names from the specified set of
+   * characters.
+   */
+  @VisibleForTesting
+  ConcurrentMinimalSubstitutionMap(
+      char[] startChars, char[] chars, Set<String> outputValueBlacklist) {
+    this(new MinimalSubstitutionMap(startChars, chars), outputValueBlacklist);
+  }
+
+  private ConcurrentMinimalSubstitutionMap(
+      MinimalSubstitutionMap nameGenerator, Set<String> outputValueBlacklist) {
+    this.nameGenerator = nameGenerator;
+    this.outputValueBlacklist =
+        ImmutableSet.copyOf(Preconditions.checkNotNull(outputValueBlacklist));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String get(String key) {
+    String value = renamedCssClasses.get(key);
+    if (value != null) {
+      return value;
+    }
+    Lock lock = locks.get(key);
+    lock.lock();
+    try {
+      value = renamedCssClasses.get(key);
+      if (value == null) {
+        value = nextName();
+        renamedCssClasses.put(key, value);
+      }
+      return value;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private String nextName() {
+    String value;
+    do {
+      value = nameGenerator.toShortString(nextIndex.getAndIncrement());
+    } while (outputValueBlacklist.contains(value));
+    return value;
+  }
+
+  @Override
+  public synchronized void initializeWithMappings(
+      Map<? extends String, ? extends String> m) {
+    Preconditions.checkState(renamedCssClasses.isEmpty());
+    this.outputValueBlacklist =
+        ImmutableSet.<String>builder().addAll(outputValueBlacklist).addAll(m.values()).build();
+    this.renamedCssClasses.putAll(m);
+  }
+}
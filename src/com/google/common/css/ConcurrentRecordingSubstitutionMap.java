@@ -0,0 +1,268 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.css.MultipleMappingSubstitutionMap.ValueWithMappings;
+import com.google.common.util.concurrent.Striped;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A thread-safe {@link RecordingSubstitutionMap}, so that the classes of many
+ * concurrent compilations can be renamed against one namespace. The delegate
+ * must itself be thread-safe, for instance a
+ * {@link ConcurrentMinimalSubstitutionMap} optionally wrapped in a
+ * {@link SplittingSubstitutionMap} or a {@link PrefixingSubstitutionMap}.
+ *
+ * <p>By default, mappings are created in whatever order the threads look up
+ * their keys. For a deterministic result, each compilation unit can use the
+ * view returned by {@link #forCompilationUnit}, which assigns new names in
+ * the order a sequential compilation of the units would.
+ */
+public final class ConcurrentRecordingSubstitutionMap
+    implements SubstitutionMap.Initializable {
+
+  private static final int LOCK_STRIPES = 64;
+
+  private final SubstitutionMap delegate;
+
+  private final Predicate<? super String> shouldRecordMappingForCodeGeneration;
+
+  private final ConcurrentMap<String, String> mappings = new ConcurrentHashMap<>();
+
+  /** Keys of {@link #mappings} in the order they were recorded. */
+  private final Queue<String> recordedKeys = new ConcurrentLinkedQueue<>();
+
+  private final Striped<Lock> locks = Striped.lock(LOCK_STRIPES);
+
+  /**
+   * Guards {@link #currentCompilationUnit} and
+   * {@link #nextCompilationUnitView}.
+   */
+  private final Object compilationUnitLock = new Object();
+
+  /** The only compilation unit whose views may create new mappings. */
+  private int currentCompilationUnit = 0;
+
+  /** The compilation unit whose view is created next. */
+  private int nextCompilationUnitView = 0;
+
+  private ConcurrentRecordingSubstitutionMap(
+      SubstitutionMap map, Predicate<? super String> shouldRecordMappingForCodeGeneration) {
+    this.delegate = map;
+    this.shouldRecordMappingForCodeGeneration = shouldRecordMappingForCodeGeneration;
+  }
+
+  /**
+   * {@inheritDoc}
+   * @throws NullPointerException if key is null.
+   */
+  @Override
+  public String get(String key) {
+    Preconditions.checkNotNull(key);
+    if (!shouldRecordMappingForCodeGeneration.apply(key)) {
+      return key;
+    }
+
+    if (delegate instanceof MultipleMappingSubstitutionMap) {
+      // As in RecordingSubstitutionMap, the value can't be memoized.
+      ValueWithMappings valueWithMappings =
+          ((MultipleMappingSubstitutionMap) delegate).getValueWithMappings(key);
+      for (Map.Entry<String, String> mapping : valueWithMappings.mappings.entrySet()) {
+        record(mapping.getKey(), mapping.getValue());
+      }
+      return valueWithMappings.value;
+    }
+
+    String value = mappings.get(key);
+    if (value != null) {
+      return value;
+    }
+    Lock lock = locks.get(key);
+    lock.lock();
+    try {
+      value = mappings.get(key);
+      if (value == null) {
+        value = delegate.get(key);
+        record(key, value);
+      }
+      return value;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void record(String key, String value) {
+    if (mappings.putIfAbsent(key, value) == null) {
+      recordedKeys.add(key);
+    }
+  }
+
+  /**
+   * Returns a view of this map for the compilation unit with the specified
+   * index. Lookups of keys that are already mapped return immediately, but a
+   * lookup that may create a mapping waits until the units with a lower index
+   * have been {@linkplain #completeCompilationUnit completed}. Names are then
+   * assigned in the same order as if the units had been renamed one after the
+   * other, while the units can still be parsed and optimized concurrently.
+   *
+   * <p>Each unit must be completed exactly once, in increasing index order
+   * starting from 0, even if it never uses its view.
+   *
+   * <p>As a unit blocks its thread until the units before it are completed,
+   * the units must not wait for threads taken by units after them. The views
+   * must therefore be created exactly once, in increasing index order starting
+   * from 0, by the thread that hands the units to the threads renaming them,
+   * and the units must be run in that order, either each on a thread of its
+   * own or on an executor that starts its tasks in the order they were
+   * submitted, such as {@link java.util.concurrent.Executors#newFixedThreadPool}.
+   * An executor that may run later tasks first, such as a
+   * {@link java.util.concurrent.ForkJoinPool}, can deadlock.
+   *
+   * @throws IllegalStateException if the view of the previous unit was not
+   *     created yet or the view of this unit was already created
+   */
+  public SubstitutionMap forCompilationUnit(final int index) {
+    synchronized (compilationUnitLock) {
+      Preconditions.checkState(index == nextCompilationUnitView,
+          "Expected the view of compilation unit %s to be created but got %s",
+          nextCompilationUnitView, index);
+      nextCompilationUnitView++;
+    }
+    return new SubstitutionMap() {
+      @Override
+      public String get(String key) {
+        Preconditions.checkNotNull(key);
+        if (!(delegate instanceof MultipleMappingSubstitutionMap)) {
+          String value = mappings.get(key);
+          if (value != null) {
+            return value;
+          }
+        }
+        awaitCompilationUnit(index);
+        return ConcurrentRecordingSubstitutionMap.this.get(key);
+      }
+    };
+  }
+
+  /**
+   * Marks the compilation unit with the specified index as done, allowing the
+   * next one to create mappings through its
+   * {@linkplain #forCompilationUnit view}.
+   */
+  public void completeCompilationUnit(int index) {
+    synchronized (compilationUnitLock) {
+      Preconditions.checkState(index == currentCompilationUnit,
+          "Expected compilation unit %s to complete but got %s",
+          currentCompilationUnit, index);
+      currentCompilationUnit++;
+      compilationUnitLock.notifyAll();
+    }
+  }
+
+  private void awaitCompilationUnit(int index) {
+    boolean interrupted = false;
+    synchronized (compilationUnitLock) {
+      while (currentCompilationUnit < index) {
+        try {
+          compilationUnitLock.wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      Preconditions.checkState(currentCompilationUnit == index,
+          "Compilation unit %s was already completed", index);
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * @return The recorded mappings in the order they were created. This output may be used with
+   *     {@link OutputRenamingMapFormat#writeRenamingMap}
+   */
+  public Map<String, String> getMappings() {
+    ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+    for (String key : recordedKeys) {
+      builder.put(key, mappings.get(key));
+    }
+    return builder.build();
+  }
+
+  @Override
+  public synchronized void initializeWithMappings(
+      Map<? extends String, ? extends String> newMappings) {
+    Preconditions.checkState(mappings.isEmpty());
+    if (!newMappings.isEmpty()) {
+      for (Map.Entry<? extends String, ? extends String> mapping : newMappings.entrySet()) {
+        record(mapping.getKey(), mapping.getValue());
+      }
+      ((SubstitutionMap.Initializable) delegate).initializeWithMappings(newMappings);
+    }
+  }
+
+  /** A-la-carte builder. */
+  public static final class Builder {
+    private SubstitutionMap delegate = new IdentitySubstitutionMap();
+    private Predicate<? super String> shouldRecordMappingForCodeGeneration =
+        Predicates.alwaysTrue();
+    private Map<String, String> mappings = Maps.newLinkedHashMap();
+
+    /** Specifies the underlying map, which must be thread-safe. Multiple calls clobber. */
+    public Builder withSubstitutionMap(SubstitutionMap d) {
+      this.delegate = Preconditions.checkNotNull(d);
+      return this;
+    }
+
+    /**
+     * True keys that should be treated mapped to themselves instead of passing through Multiple
+     * calls AND.
+     */
+    public Builder shouldRecordMappingForCodeGeneration(Predicate<? super String> p) {
+      shouldRecordMappingForCodeGeneration =
+          Predicates.and(shouldRecordMappingForCodeGeneration, p);
+      return this;
+    }
+
+    /**
+     * Specifies mappings to {@linkplain Initializable initialize} the delegate with. Multiple calls
+     * putAll.
+     */
+    public Builder withMappings(Map<? extends String, ? extends String> m) {
+      this.mappings.putAll(m);
+      return this;
+    }
+
+    /** Builds the substitution map based on previous operations on this builder. */
+    public ConcurrentRecordingSubstitutionMap build() {
+      ConcurrentRecordingSubstitutionMap built =
+          new ConcurrentRecordingSubstitutionMap(delegate, shouldRecordMappingForCodeGeneration);
+      built.initializeWithMappings(mappings);
+      return built;
+    }
+  }
+}
@@ -70,6 +70,13 @@ public class JobDescription {
   public final boolean createSourceMap;
   public final SourceMapDetailLevel sourceMapLevel;
   public final boolean preserveImportantComments;
+  public final int numThreads;
+  /**
+   * The chunk of each input, by file name, in the order of the chunks. When
+   * it is not empty, dead styles are eliminated for each chunk on its own and
+   * a template is printed for each chunk.
+   */
+  public final ImmutableMap<String, String> fileToChunk;
 
   static final String CONDITION_FOR_LTR = "GSS_LTR";
   static final String CONDITION_FOR_RTL = "GSS_RTL";
@@ -142,7 +149,8 @@ public class JobDescription {
       boolean suppressDependencyCheck, Map<String, Integer> compileConstants,
       boolean createSourceMap,
       SourceMapDetailLevel sourceMapLevel,
-      boolean preserveImportantComments) {
+      boolean preserveImportantComments, int numThreads,
+      Map<String, String> fileToChunk) {
     this.allowUndefinedConstants = allowUndefinedConstants;
     Preconditions.checkArgument(!inputs.contains(null));
     Preconditions.checkNotNull(outputFormat);
@@ -153,6 +161,13 @@ public class JobDescription {
     Preconditions.checkNotNull(allowedAtRules);
     Preconditions.checkNotNull(excludedClassesFromRenaming);
     Preconditions.checkNotNull(compileConstants);
+    Preconditions.checkArgument(numThreads > 0);
+    if (!fileToChunk.isEmpty()) {
+      for (SourceCode input : inputs) {
+        Preconditions.checkArgument(fileToChunk.containsKey(input.getFileName()),
+            "Input %s does not have a chunk", input.getFileName());
+      }
+    }
     this.inputs = ImmutableList.copyOf(inputs);
     this.copyrightNotice = copyrightNotice;
     this.outputFormat = outputFormat;
@@ -191,10 +206,14 @@ public class JobDescription {
     this.createSourceMap = createSourceMap;
     this.sourceMapLevel = sourceMapLevel;
     this.preserveImportantComments = preserveImportantComments;
+    this.numThreads = numThreads;
+    this.fileToChunk = ImmutableMap.copyOf(fileToChunk);
   }
 
   /**
-   * @return the total length of all the inputs' contents
+   * @return the total length of all the inputs' contents, the size of their
+   *     files being used instead for the inputs read lazily that haven't been
+   *     read yet
    */
   public int getAllInputsLength() {
     int totalLength = 0;
@@ -204,6 +223,14 @@ public class JobDescription {
     return totalLength;
   }
 
+  /**
+   * Returns the chunks of {@link #fileToChunk}, in the order in which they
+   * first appear.
+   */
+  public ImmutableSet<String> getChunks() {
+    return ImmutableSet.copyOf(fileToChunk.values());
+  }
+
   /**
    * Whether an input orientation is the same as an output orientation, meaning
    * that no flipping is required.
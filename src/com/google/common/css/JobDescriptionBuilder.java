@@ -71,6 +71,8 @@ public class JobDescriptionBuilder {
   boolean suppressDependencyCheck;
   Map<String, Integer> compileConstants;
   boolean preserveImportantComments;
+  int numThreads;
+  Map<String, String> fileToChunk;
 
   JobDescription job = null;
   boolean createSourceMap;
@@ -112,6 +114,8 @@ public class JobDescriptionBuilder {
     this.createSourceMap = false;
     this.sourceMapLevel = SourceMapDetailLevel.DEFAULT;
     this.preserveImportantComments = false;
+    this.numThreads = 1;
+    this.fileToChunk = ImmutableMap.of();
   }
 
   public JobDescriptionBuilder copyFrom(JobDescription jobToCopy) {
@@ -152,6 +156,8 @@ public class JobDescriptionBuilder {
     this.createSourceMap = jobToCopy.createSourceMap;
     this.sourceMapLevel = jobToCopy.sourceMapLevel;
     this.preserveImportantComments = jobToCopy.preserveImportantComments;
+    this.numThreads = jobToCopy.numThreads;
+    this.fileToChunk = jobToCopy.fileToChunk;
     return this;
   }
 
@@ -465,6 +471,31 @@ public class JobDescriptionBuilder {
     return setPreserveImportantComments(true);
   }
 
+  /**
+   * Sets the number of threads used to compile the inputs. Inputs are only
+   * compiled concurrently when {@code @def} propagation is disabled, since
+   * each input then gets its own {@link
+   * com.google.common.css.compiler.ast.CssTree}. Otherwise, the chunks set
+   * with {@link #setFileToChunk} are optimized and printed concurrently.
+   */
+  public JobDescriptionBuilder setNumThreads(int numThreads) {
+    checkJobIsNotAlreadyCreated();
+    Preconditions.checkArgument(numThreads > 0);
+    this.numThreads = numThreads;
+    return this;
+  }
+
+  /**
+   * Sets the chunk of each input, by file name. Every input must have a
+   * chunk, and the chunks are ordered by the first input that maps to them.
+   */
+  public JobDescriptionBuilder setFileToChunk(Map<String, String> fileToChunk) {
+    checkJobIsNotAlreadyCreated();
+    Preconditions.checkNotNull(fileToChunk);
+    this.fileToChunk = ImmutableMap.copyOf(fileToChunk);
+    return this;
+  }
+
   public JobDescription getJobDescription() {
     if (job != null) {
       return job;
@@ -495,7 +526,8 @@ public class JobDescriptionBuilder {
         gssFunctionMapProvider, cssSubstitutionMapProvider,
         outputRenamingMapFormat, inputRenamingMap, preserveComments,
         suppressDependencyCheck, compileConstants,
-        createSourceMap, sourceMapLevel, preserveImportantComments);
+        createSourceMap, sourceMapLevel, preserveImportantComments, numThreads,
+        fileToChunk);
     return job;
   }
 
@@ -26,7 +26,8 @@ import java.util.Set;
 
 /**
  * MinimalSubstitutionMap is a SubstitutionMap that renames CSS classes to the
- * shortest string possible.
+ * shortest string possible. It is not thread-safe; see
+ * {@link ConcurrentMinimalSubstitutionMap}.
  *
  * @author bolinfest@google.com (Michael Bolin)
  */
@@ -27,6 +27,7 @@ import java.util.Map;
 
 /**
  * A decorator for a {@link SubstitutionMap} that records which values it maps.
+ * It is not thread-safe; see {@link ConcurrentRecordingSubstitutionMap}.
  *
  * @author bolinfest@google.com (Michael Bolin)
  */
@@ -16,7 +16,16 @@
 
 package com.google.common.css;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import com.google.common.base.Preconditions;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 
 import javax.annotation.Nullable;
 
@@ -25,12 +34,33 @@ import javax.annotation.Nullable;
  * both the file name and the file contents, so that the parser does not have
  * to deal with IO.
  *
- * <p>Instances of this class are immutable.
+ * <p>The contents can also be read lazily from a file, when first needed. The
+ * parser reads a UTF-8 file in place from its mapping into memory, without
+ * making a string of it, and read contents can be released once they are no
+ * longer needed. They are read again if they are needed later, for instance
+ * to report an error.
+ *
+ * <p>Instances of this class are immutable, except that the contents of a
+ * lazily read file can be read and released.
  *
  */
 public final class SourceCode {
   private final String fileName;
-  private final String fileContents;
+
+  /** The file the contents are read from, {@code null} if they are given. */
+  @Nullable private final File file;
+  @Nullable private final Charset charset;
+
+  /** The size of the file when this object was created, in bytes. */
+  private final long fileSize;
+
+  private volatile String fileContents;
+
+  /**
+   * The character indices at which the lines of the contents start, set by
+   * the parser or computed when first needed by {@link SourceCodeLocation}.
+   */
+  private volatile int[] lineStarts;
 
   /**
    * Constructs a {@code SourceCode}. At least one of fileName and fileContents
@@ -45,6 +75,24 @@ public final class SourceCode {
     Preconditions.checkArgument(fileName != null || fileContents != null);
     this.fileName = fileName;
     this.fileContents = fileContents;
+    this.file = null;
+    this.charset = null;
+    this.fileSize = 0;
+  }
+
+  /**
+   * Constructs a {@code SourceCode} whose contents are read from a file when
+   * first needed.
+   *
+   * @param fileName the name of the source code file
+   * @param file the file to read the contents from
+   * @param charset the encoding of the file
+   */
+  public SourceCode(String fileName, File file, Charset charset) {
+    this.fileName = Preconditions.checkNotNull(fileName);
+    this.file = file;
+    this.charset = charset;
+    this.fileSize = file.length();
   }
 
   public String getFileName() {
@@ -52,10 +100,116 @@ public final class SourceCode {
   }
 
   public String getFileContents() {
-    return fileContents;
+    String result = fileContents;
+    if (result == null && file != null) {
+      result = readFileContents();
+    }
+    return result;
+  }
+
+  /**
+   * Returns whether the contents are read lazily from a file.
+   */
+  public boolean isReadLazily() {
+    return file != null;
   }
 
+  /**
+   * Maps a lazily read UTF-8 file into memory, so that the parser can read it
+   * in place, or returns {@code null} if the contents are given, already
+   * read, or in another encoding.
+   */
+  @Nullable
+  public ByteBuffer mapFileContents() {
+    if (file == null || fileContents != null || !UTF_8.equals(charset)) {
+      return null;
+    }
+    try {
+      return Files.map(file);
+    } catch (IOException e) {
+      throw new RuntimeException(String.format("File %s can not be read", fileName), e);
+    }
+  }
+
+  /**
+   * Sets the character indices at which the lines of the contents start, as
+   * returned by {@link #getLineStarts}, unless they are already known. This is
+   * called by the parser, which indexes the lines of a mapped file.
+   *
+   * @param lineStarts the line starts, which must not be modified afterwards
+   */
+  public void setLineStarts(int[] lineStarts) {
+    if (this.lineStarts == null) {
+      this.lineStarts = lineStarts;
+    }
+  }
+
+  /**
+   * Releases the contents of a lazily read file, which are read again if
+   * they are needed later. The line starts, which source code locations need,
+   * are computed first and kept.
+   */
+  public void releaseFileContents() {
+    if (file != null && fileContents != null) {
+      getLineStarts();
+      fileContents = null;
+    }
+  }
+
+  private synchronized String readFileContents() {
+    String result = fileContents;
+    if (result == null) {
+      try {
+        result = Files.asCharSource(file, charset).read();
+      } catch (IOException e) {
+        throw new RuntimeException(String.format("File %s can not be read", fileName), e);
+      }
+      fileContents = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the length of the contents, or the size of the file if they are
+   * read lazily and haven't been read yet, which is at least their length
+   * for the usual encodings.
+   */
   int getFileContentsLength() {
-    return fileContents.length();
+    String contents = fileContents;
+    if (contents == null && file != null) {
+      return (int) Math.min(fileSize, Integer.MAX_VALUE);
+    }
+    return contents.length();
+  }
+
+  /**
+   * Returns the character indices at which the lines of the contents start,
+   * the first line starting at 0, or {@code null} if the contents are not
+   * known. Lines are ended by {@code '\n'}, as in the parser. The array must
+   * not be modified.
+   */
+  @Nullable
+  int[] getLineStarts() {
+    int[] result = lineStarts;
+    if (result != null) {
+      return result;
+    }
+    String contents = getFileContents();
+    if (contents == null) {
+      return null;
+    }
+    result = new int[16];
+    int lines = 0;
+    int index = 0;
+    do {
+      if (lines == result.length) {
+        result = Arrays.copyOf(result, 2 * lines);
+      }
+      result[lines++] = index;
+      index = contents.indexOf('\n', index) + 1;
+    } while (index > 0);
+    result = Arrays.copyOf(result, lines);
+    lineStarts = result;
+    return result;
   }
 }
@@ -21,6 +21,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
 import com.google.common.primitives.Ints;
+import java.util.Arrays;
 import java.util.Iterator;
 import javax.annotation.Nullable;
 
@@ -39,7 +40,11 @@ import javax.annotation.Nullable;
  * error has been detected at that point but there is no information regarding
  * the actual token that caused the error.
  *
- * <p>Instances of this class are immutable.
+ * <p>Instances of this class are immutable. A location only keeps the
+ * character indices of its begin and end points when their line numbers and
+ * indexes in the line follow from the contents of the source code, as they do
+ * for the locations made by the parser; the points are then computed when
+ * first asked for.
  *
  */
 public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
@@ -89,26 +94,10 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
     private final int indexInLine;
 
     SourceCodePoint(int characterIndex, int lineNumber, int indexInLine) {
+      checkCoordinates(characterIndex, lineNumber, indexInLine);
       this.lineNumber = lineNumber;
       this.indexInLine = indexInLine;
       this.characterIndex = characterIndex;
-      if (!hasValidKnownCoordinates()
-          && !hasValidUnknownCoordinates()) {
-        throw new IllegalArgumentException(
-          String.format(
-              "The location passed "
-              + "(lineNumber %d, indexInLine %d, characterIndex %d) "
-              + "is not valid.",
-              lineNumber, indexInLine, characterIndex));
-      }
-      if (!hasPlausibleCoordinates()) {
-        throw new IllegalArgumentException(
-          String.format(
-              "The location passed "
-              + "(lineNumber %d, indexInLine %d, characterIndex %d) "
-              + "is not plausible.",
-              lineNumber, indexInLine, characterIndex));
-      }
     }
 
     SourceCodePoint(SourceCodePoint that) {
@@ -116,17 +105,56 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
     }
 
     boolean hasValidKnownCoordinates() {
-      return lineNumber >= 1 && indexInLine >= 1 && characterIndex >= 0;
+      return hasValidKnownCoordinates(characterIndex, lineNumber, indexInLine);
     }
 
     boolean hasValidUnknownCoordinates() {
-      return characterIndex == -1 && lineNumber == 0 && indexInLine == 0;
+      return hasValidUnknownCoordinates(characterIndex, lineNumber, indexInLine);
     }
 
     boolean hasPlausibleCoordinates() {
+      return hasPlausibleCoordinates(characterIndex, lineNumber, indexInLine);
+    }
+
+    private static boolean hasValidKnownCoordinates(
+        int characterIndex, int lineNumber, int indexInLine) {
+      return lineNumber >= 1 && indexInLine >= 1 && characterIndex >= 0;
+    }
+
+    private static boolean hasValidUnknownCoordinates(
+        int characterIndex, int lineNumber, int indexInLine) {
+      return characterIndex == -1 && lineNumber == 0 && indexInLine == 0;
+    }
+
+    private static boolean hasPlausibleCoordinates(
+        int characterIndex, int lineNumber, int indexInLine) {
       return characterIndex >= lineNumber - 1 + indexInLine - 1;
     }
 
+    /**
+     * Checks that the given coordinates make a valid point, without creating
+     * one.
+     */
+    static void checkCoordinates(int characterIndex, int lineNumber, int indexInLine) {
+      if (!hasValidKnownCoordinates(characterIndex, lineNumber, indexInLine)
+          && !hasValidUnknownCoordinates(characterIndex, lineNumber, indexInLine)) {
+        throw new IllegalArgumentException(
+          String.format(
+              "The location passed "
+              + "(lineNumber %d, indexInLine %d, characterIndex %d) "
+              + "is not valid.",
+              lineNumber, indexInLine, characterIndex));
+      }
+      if (!hasPlausibleCoordinates(characterIndex, lineNumber, indexInLine)) {
+        throw new IllegalArgumentException(
+          String.format(
+              "The location passed "
+              + "(lineNumber %d, indexInLine %d, characterIndex %d) "
+              + "is not plausible.",
+              lineNumber, indexInLine, characterIndex));
+      }
+    }
+
     int getCharacterIndex() {
       return characterIndex;
     }
@@ -203,8 +231,8 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
         0 /* endLineNumber */,
         0 /* endIndexInLine */);
     Preconditions.checkState(result.isUnknown());
-    Preconditions.checkState(result.begin.hasValidUnknownCoordinates());
-    Preconditions.checkState(result.end.hasValidUnknownCoordinates());
+    Preconditions.checkState(result.getBegin().hasValidUnknownCoordinates());
+    Preconditions.checkState(result.getEnd().hasValidUnknownCoordinates());
     return result;
   }
 
@@ -229,11 +257,9 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
     return new SourceCodeLocation(
         beginLocation.sourceCode,
         beginLocation.getBeginCharacterIndex(),
-        beginLocation.getBeginLineNumber(),
-        beginLocation.getBeginIndexInLine(),
+        beginLocation.begin,
         endLocation.getEndCharacterIndex(),
-        endLocation.getEndLineNumber(),
-        endLocation.getEndIndexInLine());
+        endLocation.end);
   }
 
   /**
@@ -253,21 +279,22 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
     }
 
     SourceCode sourceCode = loc.sourceCode;
-    SourceCodePoint begin = loc.begin;
-    SourceCodePoint end = loc.end;
+    SourceCodeLocation first = loc;
+    SourceCodeLocation last = loc;
     while (i.hasNext()) {
       loc = i.next();
       if (loc == null || loc.isUnknown() || !loc.sourceCode.equals(sourceCode)) {
         continue;
       }
-      if (loc.begin.compareTo(begin) < 0) {
-        begin = loc.begin;
+      if (loc.getBeginCharacterIndex() < first.getBeginCharacterIndex()) {
+        first = loc;
       }
-      if (loc.end.compareTo(end) > 0) {
-        end = loc.end;
+      if (loc.getEndCharacterIndex() > last.getEndCharacterIndex()) {
+        last = loc;
       }
     }
-    return new SourceCodeLocation(sourceCode, begin, end);
+    return new SourceCodeLocation(sourceCode,
+        first.getBeginCharacterIndex(), first.begin, last.getEndCharacterIndex(), last.end);
   }
 
   /**
@@ -281,23 +308,35 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
   private final SourceCode sourceCode;
 
   /**
-   * The sequence starts at the character immediately following the begin point.
+   * The character indices of the begin point, in the high 32 bits, and of the
+   * end point, in the low 32 bits.
    */
-  private final SourceCodePoint begin;
+  private final long characterIndices;
+
+  /**
+   * The sequence starts at the character immediately following the begin
+   * point. {@code null} until {@link #getBegin} is called, unless the line
+   * number and the index in the line of the point differ from the ones that
+   * follow from its character index, see {@link #isBeginPoint}.
+   */
+  private SourceCodePoint begin;
 
   /**
    * The sequence ends at the character immediately before the end point. The
    * character immediately after the end point (the one indicated by the end's
    * {@link SourceCodePoint#characterIndex}) is not part of the sequence. The
    * empty sequence's begin point and end point are the same:
-   * {@code begin.equals(end)}.
+   * {@code begin.equals(end)}. {@code null} until {@link #getEnd} is called,
+   * unless the line number and the index in the line of the point differ from
+   * the ones that follow from its character index, see {@link #isEndPoint}.
    */
-  private final SourceCodePoint end;
+  private SourceCodePoint end;
 
   @VisibleForTesting
   public SourceCodeLocation(SourceCode sourceCode, SourceCodePoint begin, SourceCodePoint end) {
     Preconditions.checkNotNull(sourceCode);
     this.sourceCode = sourceCode;
+    this.characterIndices = pack(begin.getCharacterIndex(), end.getCharacterIndex());
     this.begin = begin;
     this.end = end;
     Preconditions.checkArgument(begin.compareTo(end) <= 0,
@@ -313,10 +352,36 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
       int endCharacterIndex,
       int endLineNumber,
       int endIndexInLine) {
-    this(
-        sourceCode,
-        new SourceCodePoint(beginCharacterIndex, beginLineNumber, beginIndexInLine),
-        new SourceCodePoint(endCharacterIndex, endLineNumber, endIndexInLine));
+    Preconditions.checkNotNull(sourceCode);
+    SourceCodePoint.checkCoordinates(beginCharacterIndex, beginLineNumber, beginIndexInLine);
+    SourceCodePoint.checkCoordinates(endCharacterIndex, endLineNumber, endIndexInLine);
+    Preconditions.checkArgument(beginCharacterIndex <= endCharacterIndex,
+        "Beginning location must come before the end location.");
+    this.sourceCode = sourceCode;
+    this.characterIndices = pack(beginCharacterIndex, endCharacterIndex);
+    // Only the character indices are kept when the rest can be computed
+    // again, which is the case for the locations made by the parser.
+    int[] lineStarts = sourceCode.getLineStarts();
+    if (!isBeginPoint(lineStarts, beginCharacterIndex, beginLineNumber, beginIndexInLine)) {
+      this.begin = new SourceCodePoint(beginCharacterIndex, beginLineNumber, beginIndexInLine);
+    }
+    if (!isEndPoint(lineStarts, endCharacterIndex, endLineNumber, endIndexInLine)) {
+      this.end = new SourceCodePoint(endCharacterIndex, endLineNumber, endIndexInLine);
+    }
+  }
+
+  /**
+   * Creates a location from the points of other locations, given by their
+   * character indices and, if they can't be computed from those, the points
+   * themselves.
+   */
+  private SourceCodeLocation(SourceCode sourceCode,
+      int beginCharacterIndex, @Nullable SourceCodePoint begin,
+      int endCharacterIndex, @Nullable SourceCodePoint end) {
+    this.sourceCode = sourceCode;
+    this.characterIndices = pack(beginCharacterIndex, endCharacterIndex);
+    this.begin = begin;
+    this.end = end;
   }
 
   public SourceCode getSourceCode() {
@@ -324,12 +389,13 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
   }
 
   public boolean isUnknown() {
-    Preconditions.checkState(begin.isUnknown() == end.isUnknown());
-    return begin.isUnknown();
+    boolean beginIsUnknown = getBeginCharacterIndex() == -1;
+    Preconditions.checkState(beginIsUnknown == (getEndCharacterIndex() == -1));
+    return beginIsUnknown;
   }
 
   public int getBeginCharacterIndex() {
-    return begin.getCharacterIndex();
+    return (int) (characterIndices >> 32);
   }
 
   /**
@@ -337,7 +403,7 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
    * means the location is not known.
    */
   public int getBeginLineNumber() {
-    return begin.getLineNumber();
+    return getBegin().getLineNumber();
   }
 
   /**
@@ -345,11 +411,11 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
    * means the location is not known.
    */
   public int getBeginIndexInLine() {
-    return begin.getIndexInLine();
+    return getBegin().getIndexInLine();
   }
 
   public int getEndCharacterIndex() {
-    return end.getCharacterIndex();
+    return (int) characterIndices;
   }
 
   /**
@@ -357,7 +423,7 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
    * the location is not known.
    */
   public int getEndLineNumber() {
-    return end.getLineNumber();
+    return getEnd().getLineNumber();
   }
 
   /**
@@ -365,7 +431,7 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
    * means the location is not known.
    */
   public int getEndIndexInLine() {
-    return end.getIndexInLine();
+    return getEnd().getIndexInLine();
   }
 
   public int getCharacterIndex() {
@@ -381,11 +447,84 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
   }
 
   public SourceCodePoint getBegin() {
-    return begin;
+    SourceCodePoint result = begin;
+    if (result == null) {
+      result = createPoint(getBeginCharacterIndex(), false /* isEnd */);
+      begin = result;
+    }
+    return result;
   }
 
   public SourceCodePoint getEnd() {
-    return end;
+    SourceCodePoint result = end;
+    if (result == null) {
+      result = createPoint(getEndCharacterIndex(), true /* isEnd */);
+      end = result;
+    }
+    return result;
+  }
+
+  /**
+   * Creates the point at the given character index of the source code, which
+   * was either given to the constructor or computed by it, see
+   * {@link #isBeginPoint} and {@link #isEndPoint}.
+   */
+  private SourceCodePoint createPoint(int characterIndex, boolean isEnd) {
+    if (characterIndex == -1) {
+      return new SourceCodePoint(-1, 0, 0);
+    }
+    int[] lineStarts = sourceCode.getLineStarts();
+    // The last line starting at or, for end points, before the point.
+    int line = Arrays.binarySearch(lineStarts, characterIndex);
+    if (line < 0) {
+      line = -line - 2;
+    } else if (isEnd && line > 0) {
+      line--;
+    }
+    return new SourceCodePoint(
+        characterIndex, line + 1, characterIndex - lineStarts[line] + 1);
+  }
+
+  /**
+   * Returns whether the given coordinates are the ones {@link #createPoint}
+   * computes for a begin point: the point is on the line that starts at or
+   * before its character index, and before the next line.
+   */
+  private static boolean isBeginPoint(@Nullable int[] lineStarts,
+      int characterIndex, int lineNumber, int indexInLine) {
+    if (characterIndex == -1) {
+      return true;
+    }
+    return lineStarts != null
+        && lineNumber <= lineStarts.length
+        && lineStarts[lineNumber - 1] + indexInLine - 1 == characterIndex
+        && (lineNumber == lineStarts.length || characterIndex < lineStarts[lineNumber]);
+  }
+
+  /**
+   * Returns whether the given coordinates are the ones {@link #createPoint}
+   * computes for an end point. Unlike a begin point, an end point at the
+   * start of a line is at the end of the previous line, where the parser puts
+   * the end of tokens that end with a new line.
+   */
+  private static boolean isEndPoint(@Nullable int[] lineStarts,
+      int characterIndex, int lineNumber, int indexInLine) {
+    if (characterIndex == -1) {
+      return true;
+    }
+    if (characterIndex == 0) {
+      // The start of the first line, which is kept when there are no lines.
+      return lineStarts != null;
+    }
+    return lineStarts != null
+        && lineNumber <= lineStarts.length
+        && indexInLine > 1
+        && lineStarts[lineNumber - 1] + indexInLine - 1 == characterIndex
+        && (lineNumber == lineStarts.length || characterIndex <= lineStarts[lineNumber]);
+  }
+
+  private static long pack(int beginCharacterIndex, int endCharacterIndex) {
+    return ((long) beginCharacterIndex << 32) | (endCharacterIndex & 0xFFFFFFFFL);
   }
 
   @Override
@@ -397,13 +536,19 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
       return false;
     }
     SourceCodeLocation other = (SourceCodeLocation) o;
-    return sourceCode == other.sourceCode && begin.equals(other.begin)
-        && end.equals(other.end);
+    if (sourceCode != other.sourceCode) {
+      return false;
+    }
+    if (begin == null && end == null && other.begin == null && other.end == null) {
+      // The points follow from the character indices.
+      return characterIndices == other.characterIndices;
+    }
+    return getBegin().equals(other.getBegin()) && getEnd().equals(other.getEnd());
   }
 
   @Override
   public int hashCode() {
-    return sourceCode.hashCode() ^ begin.hashCode() ^ (end.hashCode() << 16);
+    return sourceCode.hashCode() ^ getBeginCharacterIndex() ^ (getEndCharacterIndex() << 16);
   }
 
   /**
@@ -426,11 +571,12 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
         return sourceCode.hashCode() - o.sourceCode.hashCode();
       }
     }
-    int startPointsComparison = begin.compareTo(o.begin);
+    int startPointsComparison =
+        Ints.compare(getBeginCharacterIndex(), o.getBeginCharacterIndex());
     if (startPointsComparison != 0) {
       return startPointsComparison;
     }
-    return end.compareTo(o.end);
+    return Ints.compare(getEndCharacterIndex(), o.getEndCharacterIndex());
   }
 
   @Override
@@ -438,9 +584,9 @@ public class SourceCodeLocation implements Comparable<SourceCodeLocation> {
     return String.format(
         "%s: [line %d, col %d -> line %d, col %d)", // half-open interval notation
         sourceCode.getFileName(),
-        begin.getLineNumber(),
-        begin.getIndexInLine(),
-        end.getLineNumber(),
-        end.getIndexInLine());
+        getBeginLineNumber(),
+        getBeginIndexInLine(),
+        getEndLineNumber(),
+        getEndIndexInLine());
   }
 }
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.ast;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Base {@link CharStream} implementation for inputs whose characters can be
+ * read at any index, such as a {@code String} or a buffer. The whole input is
+ * available, so no characters are buffered, and the starts of its lines are
+ * indexed once so that the parser can compute the character index of any
+ * token location.
+ *
+ * <p>Subclasses give access to the characters of the input and call
+ * {@link #reset(int)} whenever they are given a new one.
+ */
+public abstract class AbstractCharStream implements CharStream {
+
+  private static final IOException END_OF_STREAM = new IOException();
+
+  private int length;
+  private int charPos;
+  private int line;
+  private int column;
+  private char lastChar;
+
+  private int tokenStart;
+  private int beginLine;
+  private int beginColumn;
+
+  private int tabSize = 1;
+  private boolean trackLineColumn;
+
+  /**
+   * This array (working as a map: lineNumber -> characterIndex) helps to
+   * compute token locations efficiently. First element is not used as line
+   * numbers are 1 based. Only the first {@code line count + 1} elements are
+   * meaningful, as the array is reused by {@link #reset}.
+   */
+  private int[] lineToCharIndex = new int[16];
+
+  /** The number of lines of the input. */
+  private int lineCount;
+
+  /**
+   * Returns a character stream for the UTF-8 encoded bytes between the
+   * position and the limit of the given buffer, which must not change while
+   * the stream is used. If they are all ASCII, as is usual for stylesheets,
+   * the stream reads the bytes themselves; otherwise they are decoded first.
+   * The position of the buffer is left unchanged.
+   *
+   * @param bytes UTF-8 encoded input for the stream
+   */
+  public static AbstractCharStream forUtf8(ByteBuffer bytes) {
+    if (AsciiCharStream.isAscii(bytes)) {
+      return new AsciiCharStream(bytes);
+    }
+    return new CharBufferCharStream(UTF_8.decode(bytes.duplicate()));
+  }
+
+  /**
+   * Returns the character at the given index of the input.
+   */
+  protected abstract char charAt(int index);
+
+  /**
+   * Returns the characters of the input between the given indices.
+   */
+  protected abstract String substring(int start, int end);
+
+  /**
+   * Copies the characters of the input between the given indices to the
+   * start of {@code dst}.
+   */
+  protected void getChars(int start, int end, char[] dst) {
+    for (int i = start; i < end; i++) {
+      dst[i - start] = charAt(i);
+    }
+  }
+
+  /**
+   * Returns the index of the first {@code '\n'} of the input at or after
+   * {@code fromIndex}, or -1 if there is none.
+   */
+  protected int indexOfNewline(int fromIndex) {
+    for (int i = fromIndex; i < length; i++) {
+      if (charAt(i) == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Makes this stream read a new input of the given length from its start,
+   * reusing the memory of the previous input. Subclasses must give access to
+   * the characters of the new input before calling this.
+   *
+   * @param inputLength number of characters of the new input
+   */
+  protected final void reset(int inputLength) {
+    length = inputLength;
+
+    lastChar = '\u0000';
+    charPos = -1;
+    column = 0;
+    line = 1;
+
+    tokenStart = charPos;
+    beginLine = line;
+    beginColumn = column;
+
+    initCharIndex();
+  }
+
+  private void initCharIndex() {
+    int[] index = lineToCharIndex;
+    int lines = 0;
+    int charIndex = -1;
+    index[lines++] = charIndex;
+    do {
+      charIndex++;
+      if (lines == index.length) {
+        index = Arrays.copyOf(index, lines * 2);
+      }
+      index[lines++] = charIndex;
+      charIndex = indexOfNewline(charIndex);
+    } while (charIndex >= 0);
+    lineToCharIndex = index;
+    lineCount = lines - 1;
+  }
+
+  /**
+   * Returns the character indices at which the lines of the input start, the
+   * first line starting at 0, as {@link com.google.common.css.SourceCode}
+   * indexes the lines of its contents.
+   */
+  public int[] getLineStarts() {
+    return Arrays.copyOfRange(lineToCharIndex, 1, lineCount + 1);
+  }
+
+  /**
+   * Returns an absolute character location for given line and column location.
+   *
+   * @param lineNumber line number (1 based)
+   * @param indexInLine column number (1 based)
+   * @return 0 based absolute character index in the input
+   */
+  public int convertToCharacterIndex(int lineNumber, int indexInLine) {
+    return lineToCharIndex[lineNumber] + indexInLine - 1;
+  }
+
+  /**
+   * @return index of last read character
+   */
+  public int getCharIndex() {
+    return charPos;
+  }
+
+  /**
+   * @return index of the first character of a token
+   */
+  @VisibleForTesting
+  int getTokenStart() {
+    return tokenStart;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public char readChar() throws IOException {
+    if (charPos + 1 == length) {
+      throw END_OF_STREAM;
+    }
+
+    if (lastChar == '\n') {
+      line++;
+      column = 0;
+    }
+    if (lastChar == '\t') {
+      column += (tabSize - (column % tabSize));
+    } else {
+      column++;
+    }
+    lastChar = charAt(++charPos);
+    return lastChar;
+  }
+
+  /** {@inheritDoc} */
+  @Deprecated
+  @Override
+  public int getColumn() {
+    return getEndColumn();
+  }
+
+  /** {@inheritDoc} */
+  @Deprecated
+  @Override
+  public int getLine() {
+    return getEndLine();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int getEndColumn() {
+    return column;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int getEndLine() {
+    return line;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int getBeginColumn() {
+    return beginColumn;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int getBeginLine() {
+    return beginLine;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void backup(int amount) {
+    charPos -= amount;
+    while (line > 1 && lineToCharIndex[line] > charPos) {
+      line--;
+    }
+    column = charPos - lineToCharIndex[line] + 1;
+    lastChar = charPos < 0 ? '\u0000' : charAt(charPos);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public char BeginToken() throws IOException {
+    readChar();
+    tokenStart = charPos;
+    beginLine = line;
+    beginColumn = column;
+    return lastChar;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String GetImage() {
+    return substring(tokenStart, charPos + 1);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public char[] GetSuffix(int len) {
+    int end = charPos + 1;
+    int start = end - len;
+    char[] chars = new char[end - start];
+    getChars(start, end, chars);
+    return chars;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void Done() {
+    // Does nothing since no resources need to be freed.
+  }
+
+  @Override
+  public void setTabSize(int tabSize) {
+    throw new UnsupportedOperationException("setTabSize() is not supported.");
+  }
+
+  @Override
+  public int getTabSize() {
+    return tabSize;
+  }
+
+  @Override
+  public boolean getTrackLineColumn() {
+    return trackLineColumn;
+  }
+
+  @Override
+  public void setTrackLineColumn(boolean trackLineColumn) {
+    this.trackLineColumn = trackLineColumn;
+  }
+}
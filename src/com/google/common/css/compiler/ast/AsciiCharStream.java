@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.ast;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link CharStream} implementation that reads ASCII bytes in place, each
+ * byte being a character, so that an ASCII input, which is also valid UTF-8,
+ * is parsed without decoding it.
+ *
+ * @see AbstractCharStream#forUtf8
+ */
+class AsciiCharStream extends AbstractCharStream {
+
+  private static final long NON_ASCII_BITS = 0x8080808080808080L;
+
+  /** The input bytes, from index 0 to the limit. */
+  private final ByteBuffer input;
+
+  /**
+   * Creates a character stream for the bytes between the position and the
+   * limit of the given buffer, which must all be ASCII.
+   */
+  AsciiCharStream(ByteBuffer bytes) {
+    input = bytes.slice();
+    reset(input.limit());
+  }
+
+  /**
+   * Returns whether the bytes between the position and the limit of the
+   * given buffer are all ASCII.
+   */
+  static boolean isAscii(ByteBuffer bytes) {
+    int i = bytes.position();
+    int limit = bytes.limit();
+    // Checks eight bytes at a time.
+    for (; i + 8 <= limit; i += 8) {
+      if ((bytes.getLong(i) & NON_ASCII_BITS) != 0) {
+        return false;
+      }
+    }
+    for (; i < limit; i++) {
+      if (bytes.get(i) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  protected char charAt(int index) {
+    return (char) input.get(index);
+  }
+
+  @Override
+  protected String substring(int start, int end) {
+    if (input.hasArray()) {
+      return new String(input.array(), input.arrayOffset() + start, end - start, US_ASCII);
+    }
+    byte[] bytes = new byte[end - start];
+    for (int i = start; i < end; i++) {
+      bytes[i - start] = input.get(i);
+    }
+    return new String(bytes, US_ASCII);
+  }
+}
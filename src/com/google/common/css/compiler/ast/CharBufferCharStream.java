@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.ast;
+
+import java.nio.CharBuffer;
+
+/**
+ * {@link CharStream} implementation that reads the characters of a
+ * {@code CharBuffer} in place, so that a pooled or decoded buffer can be
+ * parsed without copying it into a {@code String}.
+ */
+public class CharBufferCharStream extends AbstractCharStream {
+
+  /** The input characters, from index 0 to the limit. */
+  private CharBuffer input;
+
+  /**
+   * Creates a character stream for the characters between the position and
+   * the limit of the given buffer, which must not change while the stream is
+   * used. The position of the buffer is left unchanged.
+   *
+   * @param buffer input characters for this stream
+   */
+  public CharBufferCharStream(CharBuffer buffer) {
+    reset(buffer);
+  }
+
+  /**
+   * Makes this stream read the characters of {@code buffer} from its start,
+   * reusing the memory of the previous input.
+   *
+   * @param buffer input characters for this stream
+   */
+  public void reset(CharBuffer buffer) {
+    input = buffer.slice();
+    reset(input.limit());
+  }
+
+  @Override
+  protected char charAt(int index) {
+    return input.get(index);
+  }
+
+  @Override
+  protected String substring(int start, int end) {
+    return input.subSequence(start, end).toString();
+  }
+}
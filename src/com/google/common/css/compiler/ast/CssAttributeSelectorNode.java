@@ -19,6 +19,8 @@ package com.google.common.css.compiler.ast;
 import com.google.common.css.SourceCodeLocation;
 import com.google.common.css.compiler.ast.CssSelectorNode.Specificity;
 
+import javax.annotation.Nullable;
+
 /**
  * A {@link CssRefinerNode} implementation that represents an attribute
  * selector. For example: {@code [hreflang|="en"]}
@@ -89,6 +91,31 @@ public class CssAttributeSelectorNode extends CssRefinerNode {
     return value;
   }
 
+  @Override
+  protected int computeFingerprint() {
+    int result = 31 * matchType.ordinal() + attributeName.hashCode();
+    return 31 * result + value.toString().hashCode();
+  }
+
+  /**
+   * Returns whether this attribute selector is printed the same as the given
+   * one. Unlike the string representations, which leave out the attribute,
+   * this compares the attribute names and values.
+   */
+  @Override
+  public boolean isEquivalentTo(@Nullable CssNode other) {
+    if (other == this) {
+      return true;
+    }
+    if (!mayBeEquivalentTo(other)) {
+      return false;
+    }
+    CssAttributeSelectorNode attributeSelector = (CssAttributeSelectorNode) other;
+    return matchType == attributeSelector.matchType
+        && attributeName.equals(attributeSelector.attributeName)
+        && value.toString().equals(attributeSelector.value.toString());
+  }
+
   @Override
   public Specificity getSpecificity() {
     // c++ (c = the number of class selectors, attributes selectors,
@@ -18,6 +18,8 @@ package com.google.common.css.compiler.ast;
 
 import com.google.common.css.SourceCodeLocation;
 
+import javax.annotation.Nullable;
+
 /**
  * A node representing a combinator of selectors in the AST.
  *
@@ -110,6 +112,26 @@ public class CssCombinatorNode extends CssNode {
     return type;
   }
 
+  @Override
+  protected int computeFingerprint() {
+    return 31 * type.ordinal() + (selector == null ? 0 : selector.getFingerprint());
+  }
+
+  @Override
+  public boolean isEquivalentTo(@Nullable CssNode other) {
+    if (other == this) {
+      return true;
+    }
+    if (!mayBeEquivalentTo(other)) {
+      return false;
+    }
+    CssCombinatorNode combinator = (CssCombinatorNode) other;
+    return type == combinator.type
+        && (selector == null
+            ? combinator.selector == null
+            : selector.isEquivalentTo(combinator.selector));
+  }
+
   @Override
   public String toString() {
     return type.getCanonicalName() + selector;
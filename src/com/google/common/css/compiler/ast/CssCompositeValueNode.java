@@ -30,7 +30,8 @@ import javax.annotation.Nullable;
  *
  * @author oana@google.com (Oana Florescu)
  */
-public class CssCompositeValueNode extends CssValueNode {
+public class CssCompositeValueNode extends CssValueNode
+    implements Proxiable<CssCompositeValueNode> {
   private final List<CssValueNode> values;
   private final Operator operator;
   private final boolean hasParenthesis;
@@ -149,6 +150,27 @@ public class CssCompositeValueNode extends CssValueNode {
     return new CssCompositeValueNode(this);
   }
 
+  /**
+   * Creates a proxy for this node: a composite value with a list of its own,
+   * holding proxies of the values that are {@link Proxiable} and copies of the
+   * others, see {@link CssValueNode#proxyOrDeepCopy}. Subclasses get deep
+   * copies instead.
+   *
+   * @return the proxy for this node
+   */
+  @Override
+  public CssCompositeValueNode createProxy() {
+    if (getClass() != CssCompositeValueNode.class) {
+      return deepCopy();
+    }
+    List<CssValueNode> proxies = new ArrayList<>(values.size());
+    for (CssValueNode value : values) {
+      proxies.add(proxyOrDeepCopy(value));
+    }
+    return new CssCompositeValueNode(
+        proxies, operator, hasParenthesis, getSourceCodeLocation());
+  }
+
   public List<CssValueNode> getValues() {
     return values;
   }
@@ -167,6 +189,26 @@ public class CssCompositeValueNode extends CssValueNode {
     return hasParenthesis;
   }
 
+  @Override
+  protected int computeFingerprint() {
+    int result = 31 * operator.ordinal() + (hasParenthesis ? 1 : 0);
+    return 31 * result + fingerprintOf(values);
+  }
+
+  @Override
+  public boolean isEquivalentTo(@Nullable CssNode other) {
+    if (other == this) {
+      return true;
+    }
+    if (!mayBeEquivalentTo(other)) {
+      return false;
+    }
+    CssCompositeValueNode composite = (CssCompositeValueNode) other;
+    return operator == composite.operator
+        && hasParenthesis == composite.hasParenthesis
+        && areEquivalent(values, composite.values);
+  }
+
   @Override
   public String toString() {
     String value = Joiner.on(operator.getOperatorName()).join(values);
@@ -29,8 +29,7 @@ import javax.annotation.Nullable;
  * @author oana@google.com (Oana Florescu)
  * @author dgajda@google.com (Damian Gajda)
  */
-public class CssCustomFunctionNode extends CssFunctionNode
-    implements Proxiable<CssCustomFunctionNode> {
+public class CssCustomFunctionNode extends CssFunctionNode {
 
   private final String gssFunctionName;
   protected List<CssValueNode> resultNodes;
@@ -85,6 +84,17 @@ public class CssCustomFunctionNode extends CssFunctionNode
     return gssFunctionName;
   }
 
+  @Override
+  protected int computeFingerprint() {
+    return 31 * gssFunctionName.hashCode() + super.computeFingerprint();
+  }
+
+  @Override
+  public boolean isEquivalentTo(@Nullable CssNode other) {
+    return super.isEquivalentTo(other)
+        && gssFunctionName.equals(((CssCustomFunctionNode) other).gssFunctionName);
+  }
+
   @Override
   public String toString() {
     return gssFunctionName + super.toString();
@@ -166,6 +176,11 @@ public class CssCustomFunctionNode extends CssFunctionNode
       super.setArguments(arguments);
     }
 
+    @Override
+    Class<? extends CssNode> getNodeClass() {
+      return CssCustomFunctionNode.class;
+    }
+
     /** {@inheritDoc} */
     @Override
     public CssCustomFunctionNode createProxy() {
@@ -145,6 +145,7 @@ public class CssDeclarationNode extends CssNode {
    */
   public void setStarHack(boolean hasStarHack) {
     this.hasStarHack = hasStarHack;
+    invalidateFingerprint();
   }
 
   /**
@@ -161,6 +162,29 @@ public class CssDeclarationNode extends CssNode {
    */
   public boolean isCustomDeclaration() { return this.propertyName.isCustom(); }
 
+  @Override
+  protected int computeFingerprint() {
+    int result = hasStarHack ? 1 : 0;
+    result = 31 * result + propertyName.getValue().hashCode();
+    return 31 * result + propertyValue.getFingerprint();
+  }
+
+  @Override
+  public boolean isEquivalentTo(@Nullable CssNode other) {
+    if (other == this) {
+      return true;
+    }
+    if (!mayBeEquivalentTo(other)) {
+      return false;
+    }
+    CssDeclarationNode declaration = (CssDeclarationNode) other;
+    // Like toString(), ignores the comments of star hacked declarations.
+    return hasStarHack == declaration.hasStarHack
+        && (hasStarHack || areEquivalent(getComments(), declaration.getComments()))
+        && propertyName.getValue().equals(declaration.propertyName.getValue())
+        && propertyValue.isEquivalentTo(declaration.propertyValue);
+  }
+
   /**
    * For debugging only.
    */
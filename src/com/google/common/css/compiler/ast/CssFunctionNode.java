@@ -16,6 +16,7 @@
 
 package com.google.common.css.compiler.ast;
 
+import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.css.SourceCodeLocation;
@@ -30,7 +31,8 @@ import javax.annotation.Nullable;
  *
  * @author oana@google.com (Oana Florescu)
  */
-public class CssFunctionNode extends CssValueNode implements ChunkAware {
+public class CssFunctionNode extends CssValueNode
+    implements ChunkAware, Proxiable<CssFunctionNode> {
 
   /**
    * Contains the list of recognized CSS functions.
@@ -223,6 +225,8 @@ public class CssFunctionNode extends CssValueNode implements ChunkAware {
 
   private final Function function;
   private CssFunctionArgumentsNode arguments;
+  /** Whether proxies of this node share its arguments node. */
+  private boolean argumentsShared;
   private Object chunk;
 
   /**
@@ -292,9 +296,42 @@ public class CssFunctionNode extends CssValueNode implements ChunkAware {
   public void setArguments(CssFunctionArgumentsNode arguments) {
     removeAsParentOfNode(this.arguments);
     this.arguments = arguments;
+    argumentsShared = false;
     becomeParentForNode(this.arguments);
   }
 
+  /**
+   * Returns the arguments of this node to be changed in place. If they are
+   * shared with proxies, this node first gets a copy of its own, so that the
+   * change is not seen through the other nodes sharing them.
+   */
+  CssFunctionArgumentsNode getArgumentsToChange() {
+    if (argumentsShared) {
+      setArguments(getArguments().deepCopy());
+    }
+    return getArguments();
+  }
+
+  @Override
+  protected int computeFingerprint() {
+    String name = function.getFunctionName();
+    int result = name == null ? 0 : name.hashCode();
+    return 31 * result + fingerprintOf(getArguments().getChildren());
+  }
+
+  @Override
+  public boolean isEquivalentTo(@Nullable CssNode other) {
+    if (other == this) {
+      return true;
+    }
+    if (!mayBeEquivalentTo(other)) {
+      return false;
+    }
+    CssFunctionNode functionNode = (CssFunctionNode) other;
+    return Objects.equal(function.getFunctionName(), functionNode.function.getFunctionName())
+        && areEquivalent(getArguments().getChildren(), functionNode.getArguments().getChildren());
+  }
+
   @Override
   public String toString() {
     StringBuffer output = new StringBuffer();
@@ -326,4 +363,83 @@ public class CssFunctionNode extends CssValueNode implements ChunkAware {
   public String getValue() {
     return toString();
   }
+
+  /**
+   * Creates a copy-on-write proxy for this node, which shares the arguments of
+   * this node until either of them changes them. Subclasses that don't
+   * override this method get deep copies instead, so that the proxy has the
+   * class of the proxied node.
+   *
+   * @return the copy-on-write proxy for this node
+   */
+  @Override
+  public CssFunctionNode createProxy() {
+    if (getClass() != CssFunctionNode.class) {
+      return deepCopy();
+    }
+    return new CssFunctionNodeProxy(this);
+  }
+
+  /**
+   * A copy-on-write proxy of a function node. The proxy uses the arguments
+   * node the proxied node had when the proxy was created, so any number of
+   * references to a constant holding a function share one arguments subtree
+   * instead of one copy each.
+   *
+   * <p>The shared arguments are never changed: before a
+   * {@link MutatingVisitController} visits the arguments of the proxy, or of
+   * the proxied node, that node copies them. Setting new arguments on the
+   * proxy also ends the sharing.
+   */
+  public static class CssFunctionNodeProxy extends CssFunctionNode {
+
+    /** The arguments shared with the proxied node, or null once copied. */
+    private CssFunctionArgumentsNode sharedArguments;
+
+    /**
+     * Constructs the node proxy. It uses a special super class constructor
+     * which avoids unnecessary initialization of arguments node.
+     *
+     * @param function the proxied node
+     */
+    public CssFunctionNodeProxy(CssFunctionNode function) {
+      super(function.getSourceCodeLocation(), function.getFunction());
+      this.sharedArguments = function.getArguments();
+      function.argumentsShared = true;
+      setIsDefault(function.getIsDefault());
+      setChunk(function.getChunk());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CssFunctionArgumentsNode getArguments() {
+      return sharedArguments != null ? sharedArguments : super.getArguments();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setArguments(CssFunctionArgumentsNode arguments) {
+      sharedArguments = null;
+      super.setArguments(arguments);
+    }
+
+    @Override
+    CssFunctionArgumentsNode getArgumentsToChange() {
+      if (sharedArguments != null) {
+        setArguments(sharedArguments.deepCopy());
+      }
+      return super.getArgumentsToChange();
+    }
+
+    @Override
+    Class<? extends CssNode> getNodeClass() {
+      return CssFunctionNode.class;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CssFunctionNode createProxy() {
+      return new CssFunctionNodeProxy(this);
+    }
+  }
 }
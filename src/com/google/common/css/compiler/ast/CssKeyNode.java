@@ -73,6 +73,7 @@ public class CssKeyNode extends CssNode implements ChunkAware {
 
   public void setKeyValue(String keyValue) {
     this.keyValue = keyValue;
+    invalidateFingerprint();
   }
 
   public String getKeyValue() {
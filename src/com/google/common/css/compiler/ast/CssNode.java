@@ -22,6 +22,7 @@ import com.google.common.collect.UnmodifiableIterator;
 import com.google.common.css.Locatable;
 import com.google.common.css.SourceCodeLocation;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -35,14 +36,22 @@ import javax.annotation.Nullable;
  *
  */
 public abstract class CssNode implements Locatable {
+  /**
+   * The comments of the nodes that have none. Few nodes have comments, so
+   * their list is only created when the first one is added.
+   */
+  private static final List<CssCommentNode> NO_COMMENTS = Collections.emptyList();
+
   /** The parent of this node. */
   private CssNode parent;
   /** The source code corresponding to this node. */
   private SourceCodeLocation sourceCodeLocation;
-  /** List of comments/annotations. */
+  /** List of comments/annotations, {@link #NO_COMMENTS} if there are none. */
   private List<CssCommentNode> comments;
   /** Annotation of a node to show whether it should be flipped. */
   private boolean shouldBeFlipped = true;
+  /** The cached {@link #getFingerprint fingerprint}, or 0 if not computed. */
+  private int fingerprint;
 
   /**
    * Constructor of a node.
@@ -92,11 +101,7 @@ public abstract class CssNode implements Locatable {
           @Nullable SourceCodeLocation sourceCodeLocation) {
     this.parent = parent;
     this.sourceCodeLocation = sourceCodeLocation;
-    if (comments == null) {
-      this.comments = Lists.newArrayListWithExpectedSize(0);
-    } else {
-      this.comments = Lists.newArrayList(comments);
-    }
+    this.comments = copyComments(comments);
     becomeParentForNodes(this.comments);
   }
 
@@ -135,6 +140,7 @@ public abstract class CssNode implements Locatable {
    * @param child
    */
   void removeAsParentOfNode(CssNode child) {
+    invalidateFingerprint();
     if (child == null) {
       return;
     }
@@ -149,6 +155,7 @@ public abstract class CssNode implements Locatable {
    * @param children
    */
   void removeAsParentOfNodes(List<? extends CssNode> children) {
+    invalidateFingerprint();
     if (children == null) {
       return;
     }
@@ -163,6 +170,7 @@ public abstract class CssNode implements Locatable {
    * @param child
    */
   final void becomeParentForNode(@Nullable CssNode child) {
+    invalidateFingerprint();
     if (child == null) {
       return;
     }
@@ -176,6 +184,7 @@ public abstract class CssNode implements Locatable {
    */
   final void becomeParentForNodes(List<? extends CssNode> children) {
     Preconditions.checkNotNull(children);
+    invalidateFingerprint();
     if (children.size() == 0) {
       // otherwise we'll spend a lot of CPU collecting garbage due to
       // the empty iterators we use below (as of June 2012, javac
@@ -188,6 +197,9 @@ public abstract class CssNode implements Locatable {
   }
 
   public void appendComment(CssCommentNode comment) {
+    if (comments == NO_COMMENTS) {
+      comments = Lists.newArrayListWithCapacity(1);
+    }
     comments.add(comment);
     becomeParentForNode(comment);
   }
@@ -195,14 +207,28 @@ public abstract class CssNode implements Locatable {
   public void setComments(List<CssCommentNode> comments) {
     Preconditions.checkNotNull(this.comments);
     removeAsParentOfNodes(this.comments);
-    this.comments = Lists.newArrayList(comments);
+    this.comments = copyComments(comments);
     becomeParentForNodes(this.comments);
   }
 
+  /**
+   * Returns the comments of this node. A node without comments returns an
+   * immutable empty list shared by all such nodes, so adding to the returned
+   * list throws {@link UnsupportedOperationException}: change the comments
+   * with {@link #appendComment} and {@link #setComments} instead.
+   */
   public List<CssCommentNode> getComments() {
     return comments;
   }
 
+  private static List<CssCommentNode> copyComments(
+      @Nullable List<CssCommentNode> comments) {
+    if (comments == null || comments.isEmpty()) {
+      return NO_COMMENTS;
+    }
+    return Lists.newArrayList(comments);
+  }
+
   /**
    * Returns whether one of the comments attached to this node exactly matches
    * the given string.
@@ -280,6 +306,113 @@ public abstract class CssNode implements Locatable {
     return super.toString();
   }
 
+  /**
+   * Returns a hash of the content of this node and of its descendants, which
+   * is cached until one of them changes. Equivalent nodes (see
+   * {@link #isEquivalentTo}) have the same fingerprint, so nodes with
+   * different fingerprints can be told apart without comparing or printing
+   * them.
+   */
+  public final int getFingerprint() {
+    int result = fingerprint;
+    if (result == 0) {
+      result = computeFingerprint();
+      if (result == 0) {
+        // 0 marks the fingerprint as not computed.
+        result = 1;
+      }
+      fingerprint = result;
+    }
+    return result;
+  }
+
+  /**
+   * Computes the {@link #getFingerprint fingerprint} of this node. Subclasses
+   * that override {@link #isEquivalentTo} override this too, hashing the
+   * same content, and call {@link #invalidateFingerprint} whenever that
+   * content changes. Changes to the children are noticed when the parent
+   * links are updated.
+   */
+  protected int computeFingerprint() {
+    return toString().hashCode();
+  }
+
+  /**
+   * Discards the cached fingerprint of this node and of its ancestors.
+   */
+  protected final void invalidateFingerprint() {
+    // The ancestors cannot be skipped when this node has no fingerprint, as
+    // the ones that hash their string representation don't cache the
+    // fingerprints of their descendants.
+    for (CssNode node = this; node != null; node = node.parent) {
+      node.fingerprint = 0;
+    }
+  }
+
+  /**
+   * Returns whether this node has the same content as the given node, in the
+   * sense the optimization passes compare nodes: declarations are equivalent
+   * when they have the same string representation, selectors when they are
+   * printed the same. Source code locations are ignored.
+   *
+   * <p>The default implementation compares the string representations of
+   * the nodes.
+   */
+  public boolean isEquivalentTo(@Nullable CssNode other) {
+    return other == this
+        || (other != null
+            && other.getNodeClass() == getNodeClass()
+            && other.getFingerprint() == getFingerprint()
+            && other.toString().equals(toString()));
+  }
+
+  /**
+   * Returns whether the given node is of the same class as this one and has
+   * the same fingerprint, the cheap part of {@link #isEquivalentTo}.
+   */
+  final boolean mayBeEquivalentTo(@Nullable CssNode other) {
+    return other != null
+        && other.getNodeClass() == getNodeClass()
+        && other.getFingerprint() == getFingerprint();
+  }
+
+  /**
+   * Returns the class of this node as far as {@link #isEquivalentTo} is
+   * concerned. {@link Proxiable} nodes return the class of the nodes they
+   * proxy, so that a proxy is equivalent to a copy of the proxied node.
+   */
+  Class<? extends CssNode> getNodeClass() {
+    return getClass();
+  }
+
+  /**
+   * Returns whether the given lists have pairwise {@link #isEquivalentTo
+   * equivalent} nodes.
+   */
+  static boolean areEquivalent(
+      List<? extends CssNode> nodes, List<? extends CssNode> otherNodes) {
+    if (nodes.size() != otherNodes.size()) {
+      return false;
+    }
+    for (int i = 0; i < nodes.size(); i++) {
+      if (!nodes.get(i).isEquivalentTo(otherNodes.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Combines the fingerprints of the given nodes in order.
+   */
+  static int fingerprintOf(List<? extends CssNode> nodes) {
+    int result = nodes.size();
+    for (int i = 0; i < nodes.size(); i++) {
+      result = 31 * result + nodes.get(i).getFingerprint();
+    }
+    return result;
+  }
+
   /**
    * This node and the transitive closure of its {@link #parent}s.
    */
@@ -321,7 +454,7 @@ public abstract class CssNode implements Locatable {
   }
 
   public VisitController getVisitController() {
-    return new DefaultVisitController(this, false /* allowMutating */);
+    return new ReadOnlyVisitController(this);
   }
 
   public static <N extends CssNode> List<N> deepCopyNodes(List<N> nodes) {
@@ -24,6 +24,7 @@ import com.google.common.css.SourceCodeLocation;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import javax.annotation.Nullable;
 
@@ -142,6 +143,26 @@ public abstract class CssNodesListNode<T extends CssNode> extends CssNode {
     becomeParentForNodes(newChildren);
   }
 
+  /**
+   * Removes the given children in one pass over the list. Removing many
+   * children one at a time, as {@link MutatingVisitController#removeCurrentNode}
+   * does, takes time quadratic in the length of the list.
+   *
+   * @param childrenToRemove the nodes to remove, the ones that are not
+   *     children of this list being ignored
+   */
+  public void removeChildren(Set<? extends CssNode> childrenToRemove) {
+    List<T> remainingChildren = Lists.newArrayListWithCapacity(children.size());
+    for (T child : children) {
+      if (childrenToRemove.contains(child)) {
+        removeAsParentOfNode(child);
+      } else {
+        remainingChildren.add(child);
+      }
+    }
+    children = remainingChildren;
+  }
+
   public T getChildAt(int index) {
     Preconditions.checkState(index >= 0 && index < children.size());
     return children.get(index);
@@ -191,6 +212,24 @@ public abstract class CssNodesListNode<T extends CssNode> extends CssNode {
     return output.toString();
   }
 
+  @Override
+  protected int computeFingerprint() {
+    return fingerprintOf(children);
+  }
+
+  @Override
+  public boolean isEquivalentTo(@Nullable CssNode other) {
+    if (other == this) {
+      return true;
+    }
+    if (!mayBeEquivalentTo(other)) {
+      return false;
+    }
+    CssNodesListNode<?> list = (CssNodesListNode<?>) other;
+    return areEquivalent(children, list.children)
+        && areEquivalent(getComments(), list.getComments());
+  }
+
   @Override
   public SourceCodeLocation getSourceCodeLocation() {
     SourceCodeLocation location = super.getSourceCodeLocation();
@@ -83,6 +83,7 @@ public class CssNumericNode extends CssValueNode {
 
   public void setUnit(String unit) {
     this.unit = unit;
+    invalidateFingerprint();
   }
 
   public String getNumericPart() {
@@ -91,6 +92,7 @@ public class CssNumericNode extends CssValueNode {
 
   public void setNumericPart(String numericPart) {
     this.numericPart = numericPart;
+    invalidateFingerprint();
   }
 
   @Override
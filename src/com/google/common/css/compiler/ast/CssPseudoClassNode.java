@@ -21,6 +21,8 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.css.SourceCodeLocation;
 import com.google.common.css.compiler.ast.CssSelectorNode.Specificity;
 
+import javax.annotation.Nullable;
+
 /**
  * A {@link CssRefinerNode} implementation that represents a pseudo-class.
  * For example: {@code :visited}, {@code :nth-child(2n)}
@@ -111,6 +113,7 @@ public class CssPseudoClassNode extends CssRefinerNode {
 
   public void setArgument(String argument) {
     this.argument = argument;
+    invalidateFingerprint();
   }
 
   public CssSelectorNode getNotSelector() {
@@ -153,6 +156,41 @@ public class CssPseudoClassNode extends CssRefinerNode {
     }
   }
 
+  /**
+   * Returns the argument the way the printers output it.
+   */
+  private String getPrintedArgument() {
+    if (argument == null) {
+      return "";
+    }
+    return functionType == FunctionType.NTH ? argument.replace(" ", "") : argument;
+  }
+
+  @Override
+  protected int computeFingerprint() {
+    // The selector of ':not' is left out, as it isn't a child of this node
+    // and so its changes don't invalidate the fingerprint.
+    int result = 31 * functionType.ordinal() + refinerName.hashCode();
+    return 31 * result + getPrintedArgument().hashCode();
+  }
+
+  @Override
+  public boolean isEquivalentTo(@Nullable CssNode other) {
+    if (other == this) {
+      return true;
+    }
+    if (!mayBeEquivalentTo(other)) {
+      return false;
+    }
+    CssPseudoClassNode pseudoClass = (CssPseudoClassNode) other;
+    return functionType == pseudoClass.functionType
+        && refinerName.equals(pseudoClass.refinerName)
+        && getPrintedArgument().equals(pseudoClass.getPrintedArgument())
+        && (notSelector == null
+            ? pseudoClass.notSelector == null
+            : notSelector.isEquivalentTo(pseudoClass.notSelector));
+  }
+
   @Override
   public String toString() {
     // TODO(fbenz): toString should not be used to print a node. However,
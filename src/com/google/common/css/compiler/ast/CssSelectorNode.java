@@ -105,6 +105,7 @@ public class CssSelectorNode extends CssNode implements ChunkAware {
 
   public void setSelectorName(String selectorName) {
     this.selectorName = selectorName;
+    invalidateFingerprint();
   }
 
   public String getSelectorName() {
@@ -125,6 +126,33 @@ public class CssSelectorNode extends CssNode implements ChunkAware {
     return chunk;
   }
 
+  @Override
+  protected int computeFingerprint() {
+    int result = selectorName == null ? 0 : selectorName.hashCode();
+    result = 31 * result + fingerprintOf(refiners.getChildren());
+    return 31 * result + (combinator == null ? 0 : combinator.getFingerprint());
+  }
+
+  /**
+   * Returns whether this selector is printed the same as the given one,
+   * including its refiners and combinators.
+   */
+  @Override
+  public boolean isEquivalentTo(@Nullable CssNode other) {
+    if (other == this) {
+      return true;
+    }
+    if (!mayBeEquivalentTo(other)) {
+      return false;
+    }
+    CssSelectorNode selector = (CssSelectorNode) other;
+    return Objects.equal(selectorName, selector.selectorName)
+        && areEquivalent(refiners.getChildren(), selector.refiners.getChildren())
+        && (combinator == null
+            ? selector.combinator == null
+            : combinator.isEquivalentTo(selector.combinator));
+  }
+
   /**
    * For debugging only.
    */
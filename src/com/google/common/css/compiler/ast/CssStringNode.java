@@ -113,13 +113,27 @@ public class CssStringNode extends CssValueNode {
    * @param location The location in source code corresponding to this node
    */
   public CssStringNode(Type type, SourceCodeLocation location) {
+    this(type, location, location.getSourceCode().getFileContents()
+                         .substring(location.getBeginCharacterIndex()
+                                    // for the quote
+                                    + 1,
+                                    // we end after the quote, so adjust
+                                    location.getEndCharacterIndex() - 1));
+  }
+
+  /**
+   * Constructor of a string node whose concrete CSS syntax is already known,
+   * as when it is parsed.
+   *
+   * @param type CSS provides multiple syntax alternatives for strings;
+   *     which was used for this term?
+   * @param location The location in source code corresponding to this node
+   * @param concreteValue the characters between the quotes in the source
+   *     code, see {@link #setConcreteValue}
+   */
+  public CssStringNode(Type type, SourceCodeLocation location, String concreteValue) {
     super("", location);
-    setConcreteValue(location.getSourceCode().getFileContents()
-                     .substring(location.getBeginCharacterIndex()
-                                // for the quote
-                                + 1,
-                                // we end after the quote, so adjust
-                                location.getEndCharacterIndex() - 1));
+    setConcreteValue(concreteValue);
     this.type = type;
   }
 
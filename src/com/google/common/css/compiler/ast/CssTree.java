@@ -110,8 +110,12 @@ public class CssTree {
     return new DefaultVisitController(this, true /* allowMutating */);
   }
 
+  /**
+   * Returns a controller for visitors that don't change the structure of the
+   * tree, which visits it faster than {@link #getMutatingVisitController}.
+   */
   public VisitController getVisitController() {
-    return new DefaultVisitController(this, false /* allowMutating */);
+    return new ReadOnlyVisitController(this);
   }
 
   // TODO(user): Add a method that merges two trees and produces a new one as
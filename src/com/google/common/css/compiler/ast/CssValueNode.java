@@ -92,6 +92,7 @@ public abstract class CssValueNode extends CssNode {
   public void setValue(String value) {
     Preconditions.checkNotNull(value);
     this.value = value;
+    invalidateFingerprint();
   }
 
   public void setIsDefault(boolean isDefault) {
@@ -102,6 +103,21 @@ public abstract class CssValueNode extends CssNode {
     return isDefault;
   }
 
+  /**
+   * Returns a node with the same content as the given one, to be added to
+   * another part of the tree: a proxy if the node is {@link Proxiable}, which
+   * shares the subtree of the node until it is changed, or a deep copy
+   * otherwise.
+   */
+  public static CssValueNode proxyOrDeepCopy(CssValueNode node) {
+    if (node instanceof Proxiable) {
+      @SuppressWarnings("unchecked")
+      Proxiable<? extends CssValueNode> proxiable = (Proxiable<? extends CssValueNode>) node;
+      return proxiable.createProxy();
+    }
+    return node.deepCopy();
+  }
+
   /**
    * Visit just the leaves in the subtrees from the given roots.
    */
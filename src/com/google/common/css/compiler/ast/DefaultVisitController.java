@@ -1484,6 +1484,7 @@ class DefaultVisitController implements MutatingVisitController {
     @Override
     public void removeCurrentChild() {
       children.remove(currentIndex);
+      node.invalidateFingerprint();
       intervalueStateIsNext = false;
       doNotIncreaseIndex = true;
       if (currentIndex == children.size()) {
@@ -1578,7 +1579,8 @@ class DefaultVisitController implements MutatingVisitController {
     public void transitionToNextState() {
       if (!visitedChildren) {
         if (shouldVisitChildren) {
-          stateStack.push(new VisitFunctionArgumentsNodeState(node.getArguments()));
+          stateStack.push(new VisitFunctionArgumentsNodeState(
+              allowMutating ? node.getArgumentsToChange() : node.getArguments()));
         }
         visitedChildren = true;
       } else {
@@ -27,6 +27,19 @@ import java.util.List;
  */
 public class GssParser extends AbstractGssParser {
 
+  /**
+   * The parser of each thread. A parser resets its token manager and
+   * character stream for every source it parses, so reusing it saves
+   * allocating them, and the lookahead tables, again for every source.
+   */
+  private static final ThreadLocal<GssParserCC> PARSERS =
+      new ThreadLocal<GssParserCC>() {
+        @Override
+        protected GssParserCC initialValue() {
+          return new GssParserCC(EMPTY_CHAR_STREAM);
+        }
+      };
+
   private final List<SourceCode> sources;
   private ImmutableList<GssParserException> handledErrors = ImmutableList.of();
 
@@ -57,6 +70,6 @@ public class GssParser extends AbstractGssParser {
 
   @Override
   protected GssParserCC getParser() {
-    return new GssParserCC(EMPTY_CHAR_STREAM);
+    return PARSERS.get();
   }
 }
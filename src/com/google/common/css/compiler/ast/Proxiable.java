@@ -35,7 +35,15 @@ package com.google.common.css.compiler.ast;
  * proxies. This way the original node is hidden and all modifications go
  * through proxies. The example implementation:
  * {@link CssCustomFunctionNode.CssCustomFunctionNodeProxy#createProxy()}.
- *q
+ *
+ * <p>Nodes with children share them this way: a function node proxy shares
+ * the arguments of the proxied node until a {@link MutatingVisitController}
+ * visits them in either node, which then copies them, and a composite value
+ * proxy has its own list of values, holding proxies of the values that can be
+ * proxied. Use
+ * {@link CssValueNode#proxyOrDeepCopy} to get a proxy where there is one and a
+ * deep copy otherwise.
+ *
  * @author dgajda@google.com (Damian Gajda)
  *
  * @param <T> the type of the proxy object, it should be the same as of proxied
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.ast;
+
+/**
+ * A {@link GssFunction} whose calls may be memoized. Given arguments of the
+ * same types that print the same, every instance of the implementing class
+ * must return equivalent results, so the results of one call can be copied
+ * for the others. Such a function must not depend on any other state, and it
+ * may only report errors when it fails by throwing a
+ * {@link GssFunctionException}, since failed calls are never memoized.
+ *
+ * <p>The source code locations of the results of a memoized call are mapped
+ * onto the arguments or the call they came from, so results should only be
+ * located at one of those, or nowhere.
+ */
+public interface PureGssFunction extends GssFunction {
+}
@@ -0,0 +1,898 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.ast;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A visit controller for visitors that don't change the structure of the
+ * tree. It calls the visitor in exactly the same order as
+ * {@link DefaultVisitController}, but instead of a stack of visit state
+ * objects, one per visited node, it keeps the visited nodes on a stack of
+ * frames made of parallel arrays: the node, the kind of visit, which is one of
+ * the visit states of {@link DefaultVisitController}, the index of the child
+ * being visited and a few flags. Visiting a tree allocates nothing once the
+ * stack is as deep as the tree.
+ *
+ * <p>Like {@link DefaultVisitController}, the controller looks up the
+ * children of a node as it goes, so visitors may still change the nodes
+ * themselves.
+ */
+class ReadOnlyVisitController implements VisitController {
+
+  // The kinds of frames. Each one does what the visit state of
+  // DefaultVisitController with the same name does.
+  private static final int NONE = -1;
+  private static final int ROOT_BEFORE_CHILDREN = 0;
+  private static final int ROOT_IMPORT_BLOCK = 1;
+  private static final int ROOT_BODY = 2;
+  private static final int ROOT_AFTER_CHILDREN = 3;
+  private static final int IMPORT_BLOCK_CHILDREN = 4;
+  private static final int IMPORT_RULE = 5;
+  private static final int PROVIDE = 6;
+  private static final int REQUIRE = 7;
+  private static final int BLOCK_CHILDREN = 8;
+  private static final int DEFINITION = 9;
+  private static final int DEFINITION_PARAMETERS = 10;
+  private static final int MEDIA_RULE = 11;
+  private static final int MEDIA_TYPE_LIST_DELIMITER = 12;
+  private static final int PAGE_RULE = 13;
+  private static final int PAGE_SELECTOR = 14;
+  private static final int FONT_FACE = 15;
+  private static final int CONDITIONAL_BLOCK = 16;
+  private static final int CONDITIONAL_BLOCK_CHILDREN = 17;
+  private static final int CONDITIONAL_RULE = 18;
+  private static final int RULESET = 19;
+  private static final int KEYFRAME_RULESET = 20;
+  private static final int SELECTOR_BLOCK = 21;
+  private static final int SELECTOR_BLOCK_CHILDREN = 22;
+  private static final int KEY_BLOCK = 23;
+  private static final int KEY_BLOCK_CHILDREN = 24;
+  private static final int SELECTOR = 25;
+  private static final int KEY = 26;
+  private static final int REFINER = 27;
+  private static final int COMBINATOR = 28;
+  private static final int DECLARATION_BLOCK = 29;
+  private static final int DECLARATION = 30;
+  private static final int MIXIN = 31;
+  private static final int PROPERTY_VALUE = 32;
+  private static final int VALUE = 33;
+  private static final int COMPOSITE_VALUE = 34;
+  private static final int COMPOSITE_VALUE_OPERATOR = 35;
+  private static final int FUNCTION = 36;
+  private static final int FUNCTION_ARGUMENTS = 37;
+  private static final int FUNCTION_ARGUMENT = 38;
+  private static final int COMPONENT = 39;
+  private static final int FOR_LOOP = 40;
+  private static final int UNKNOWN_AT_RULE = 41;
+  private static final int AT_RULE_BLOCK = 42;
+  private static final int KEYFRAMES = 43;
+  private static final int MIXIN_DEFINITION = 44;
+
+  // The flags of frames.
+  /** The children were visited, or are being visited. */
+  private static final int VISITED_CHILDREN = 1;
+  /** The visitor asked not to visit the children. */
+  private static final int SKIP_CHILDREN = 2;
+  /** A child of a property value is being visited. */
+  private static final int VISITING_CHILDREN = 4;
+  /** The declaration block was entered. */
+  private static final int STARTED = 8;
+  /** The children of the declaration block were all visited. */
+  private static final int FINISHED = 16;
+  /** The operator of the composite value comes next. */
+  private static final int OPERATOR_IS_NEXT = 32;
+
+  /** The (sub)tree to be visited. */
+  private final CssNode subtree;
+
+  /** The visitor of the tree. */
+  private CssTreeVisitor visitor;
+
+  private CssNode[] nodes = new CssNode[32];
+  private int[] kinds = new int[32];
+  private int[] indices = new int[32];
+  private int[] flags = new int[32];
+  /** The number of frames on the stack. */
+  private int size;
+
+  @SuppressWarnings("serial")
+  private static class StopVisitRequestedException extends RuntimeException {}
+
+  ReadOnlyVisitController(CssNode subtree) {
+    Preconditions.checkNotNull(subtree);
+    this.subtree = subtree;
+  }
+
+  ReadOnlyVisitController(CssTree tree) {
+    this(tree.getRoot());
+  }
+
+  @Override
+  public void startVisit(CssTreeVisitor treeVisitor) {
+    Preconditions.checkNotNull(treeVisitor);
+    this.visitor = treeVisitor;
+
+    int kind = kindOf(subtree);
+    Preconditions.checkArgument(kind != NONE, "Cannot visit %s", subtree);
+    size = 0;
+    push(kind, subtree);
+
+    try {
+      while (size > 0) {
+        int top = size - 1;
+        doVisit(top);
+        transitionToNextState(top);
+      }
+    } catch (StopVisitRequestedException e) {
+      // We stop visiting.
+    } finally {
+      // Don't keep the nodes alive.
+      Arrays.fill(nodes, 0, size, null);
+      size = 0;
+    }
+  }
+
+  @Override
+  public void stopVisit() {
+    throw new StopVisitRequestedException();
+  }
+
+  private void push(int kind, CssNode node) {
+    if (size == nodes.length) {
+      nodes = Arrays.copyOf(nodes, 2 * size);
+      kinds = Arrays.copyOf(kinds, 2 * size);
+      indices = Arrays.copyOf(indices, 2 * size);
+      flags = Arrays.copyOf(flags, 2 * size);
+    }
+    set(size++, kind, node);
+  }
+
+  private void pop() {
+    nodes[--size] = null;
+  }
+
+  /** Replaces the frame on top of the stack, like {@code transitionTo}. */
+  private void set(int frame, int kind, CssNode node) {
+    nodes[frame] = node;
+    kinds[frame] = kind;
+    indices[frame] = -1;
+    flags[frame] = 0;
+  }
+
+  private boolean hasFlag(int frame, int flag) {
+    return (flags[frame] & flag) != 0;
+  }
+
+  private void setFlag(int frame, int flag) {
+    flags[frame] |= flag;
+  }
+
+  /**
+   * Calls the visitor for the frame on top of the stack, as the
+   * {@code doVisit} methods of the visit states do.
+   */
+  private void doVisit(int top) {
+    CssNode node = nodes[top];
+    boolean visitedChildren = hasFlag(top, VISITED_CHILDREN);
+    switch (kinds[top]) {
+      case ROOT_BEFORE_CHILDREN:
+        visitor.enterTree((CssRootNode) node);
+        break;
+      case ROOT_IMPORT_BLOCK: {
+        CssImportBlockNode block = ((CssRootNode) node).getImportRules();
+        if (!visitedChildren) {
+          enterOptionalChildren(top, visitor.enterImportBlock(block));
+        } else {
+          visitor.leaveImportBlock(block);
+        }
+        break;
+      }
+      case ROOT_BODY: {
+        CssBlockNode body = ((CssRootNode) node).getBody();
+        if (!visitedChildren) {
+          enterOptionalChildren(top, visitor.enterBlock(body));
+        } else {
+          visitor.leaveBlock(body);
+        }
+        break;
+      }
+      case ROOT_AFTER_CHILDREN:
+        visitor.leaveTree((CssRootNode) node);
+        break;
+      case IMPORT_RULE:
+        if (visitor.enterImportRule((CssImportRuleNode) node)) {
+          visitor.leaveImportRule((CssImportRuleNode) node);
+        }
+        break;
+      case PROVIDE:
+        visitor.enterProvideNode((CssProvideNode) node);
+        visitor.leaveProvideNode((CssProvideNode) node);
+        break;
+      case REQUIRE:
+        visitor.enterRequireNode((CssRequireNode) node);
+        visitor.leaveRequireNode((CssRequireNode) node);
+        break;
+      case DEFINITION:
+        if (!visitedChildren) {
+          enterOptionalChildren(top, visitor.enterDefinition((CssDefinitionNode) node));
+        } else {
+          visitor.leaveDefinition((CssDefinitionNode) node);
+        }
+        break;
+      case MEDIA_RULE:
+        if (!visitedChildren && indices[top] == -1) {
+          enterOptionalChildren(top, visitor.enterMediaRule((CssMediaRuleNode) node));
+        } else if (visitedChildren) {
+          visitor.leaveMediaRule((CssMediaRuleNode) node);
+        }
+        break;
+      case MEDIA_TYPE_LIST_DELIMITER:
+        visitor.enterMediaTypeListDelimiter((CssNodesListNode<?>) node);
+        visitor.leaveMediaTypeListDelimiter((CssNodesListNode<?>) node);
+        break;
+      case PAGE_RULE:
+        if (!visitedChildren) {
+          enterOptionalChildren(top, visitor.enterPageRule((CssPageRuleNode) node));
+        } else {
+          visitor.leavePageRule((CssPageRuleNode) node);
+        }
+        break;
+      case PAGE_SELECTOR:
+        if (!visitedChildren) {
+          enterOptionalChildren(top, visitor.enterPageSelector((CssPageSelectorNode) node));
+        } else {
+          visitor.leavePageSelector((CssPageSelectorNode) node);
+        }
+        break;
+      case FONT_FACE:
+        if (!visitedChildren) {
+          enterOptionalChildren(top, visitor.enterFontFace((CssFontFaceNode) node));
+        } else {
+          visitor.leaveFontFace((CssFontFaceNode) node);
+        }
+        break;
+      case CONDITIONAL_BLOCK:
+        if (!visitedChildren) {
+          visitor.enterConditionalBlock((CssConditionalBlockNode) node);
+        } else {
+          visitor.leaveConditionalBlock((CssConditionalBlockNode) node);
+        }
+        break;
+      case CONDITIONAL_RULE:
+        if (!visitedChildren) {
+          enterOptionalChildren(
+              top, visitor.enterConditionalRule((CssConditionalRuleNode) node));
+        } else {
+          visitor.leaveConditionalRule((CssConditionalRuleNode) node);
+        }
+        break;
+      case RULESET:
+        if (!visitedChildren) {
+          enterOptionalChildren(top, visitor.enterRuleset((CssRulesetNode) node));
+        } else {
+          visitor.leaveRuleset((CssRulesetNode) node);
+        }
+        break;
+      case KEYFRAME_RULESET:
+        if (!visitedChildren) {
+          enterOptionalChildren(
+              top, visitor.enterKeyframeRuleset((CssKeyframeRulesetNode) node));
+        } else {
+          visitor.leaveKeyframeRuleset((CssKeyframeRulesetNode) node);
+        }
+        break;
+      case SELECTOR_BLOCK: {
+        CssSelectorListNode block = ((CssRulesetNode) node).getSelectors();
+        if (!visitedChildren) {
+          visitor.enterSelectorBlock(block);
+        } else {
+          visitor.leaveSelectorBlock(block);
+        }
+        break;
+      }
+      case KEY_BLOCK: {
+        CssKeyListNode block = ((CssKeyframeRulesetNode) node).getKeys();
+        if (!visitedChildren) {
+          visitor.enterKeyBlock(block);
+        } else {
+          visitor.leaveKeyBlock(block);
+        }
+        break;
+      }
+      case SELECTOR:
+        if (!visitedChildren) {
+          visitor.enterSelector((CssSelectorNode) node);
+        } else {
+          visitor.leaveSelector((CssSelectorNode) node);
+        }
+        break;
+      case KEY:
+        if (!visitedChildren) {
+          visitor.enterKey((CssKeyNode) node);
+        } else {
+          visitor.leaveKey((CssKeyNode) node);
+        }
+        break;
+      case REFINER:
+        if (!visitedChildren) {
+          enterRefiner((CssRefinerNode) node);
+        } else {
+          leaveRefiner((CssRefinerNode) node);
+        }
+        break;
+      case COMBINATOR:
+        if (!visitedChildren) {
+          visitor.enterCombinator((CssCombinatorNode) node);
+        } else {
+          visitor.leaveCombinator((CssCombinatorNode) node);
+        }
+        break;
+      case DECLARATION_BLOCK:
+        if (!hasFlag(top, STARTED)) {
+          visitor.enterDeclarationBlock((CssDeclarationBlockNode) node);
+          setFlag(top, STARTED);
+        } else if (hasFlag(top, FINISHED)) {
+          visitor.leaveDeclarationBlock((CssDeclarationBlockNode) node);
+        }
+        break;
+      case DECLARATION:
+        if (!visitedChildren) {
+          visitor.enterDeclaration((CssDeclarationNode) node);
+        } else {
+          visitor.leaveDeclaration((CssDeclarationNode) node);
+        }
+        break;
+      case MIXIN:
+        if (!visitedChildren) {
+          visitor.enterMixin((CssMixinNode) node);
+        } else {
+          visitor.leaveMixin((CssMixinNode) node);
+        }
+        break;
+      case PROPERTY_VALUE:
+        if (!hasFlag(top, VISITING_CHILDREN)) {
+          if (!visitedChildren) {
+            visitor.enterPropertyValue((CssPropertyValueNode) node);
+          } else {
+            visitor.leavePropertyValue((CssPropertyValueNode) node);
+          }
+        }
+        break;
+      case VALUE:
+        visitor.enterValueNode((CssValueNode) node);
+        visitor.leaveValueNode((CssValueNode) node);
+        break;
+      case COMPOSITE_VALUE: {
+        CssCompositeValueNode composite = (CssCompositeValueNode) node;
+        if (indices[top] < 0) {
+          enterOptionalChildren(top, visitor.enterCompositeValueNode(composite));
+        } else if (indices[top] == composite.getValues().size() - 1) {
+          visitor.leaveCompositeValueNode(composite);
+        }
+        break;
+      }
+      case COMPOSITE_VALUE_OPERATOR:
+        visitor.enterCompositeValueNodeOperator((CssCompositeValueNode) node);
+        visitor.leaveCompositeValueNodeOperator((CssCompositeValueNode) node);
+        break;
+      case FUNCTION:
+        if (!visitedChildren) {
+          enterOptionalChildren(top, visitor.enterFunctionNode((CssFunctionNode) node));
+        } else {
+          visitor.leaveFunctionNode((CssFunctionNode) node);
+        }
+        break;
+      case FUNCTION_ARGUMENT:
+        visitor.enterArgumentNode((CssValueNode) node);
+        visitor.leaveArgumentNode((CssValueNode) node);
+        break;
+      case COMPONENT:
+        if (!visitedChildren) {
+          enterOptionalChildren(top, visitor.enterComponent((CssComponentNode) node));
+        } else {
+          visitor.leaveComponent((CssComponentNode) node);
+        }
+        break;
+      case FOR_LOOP:
+        if (!visitedChildren) {
+          enterOptionalChildren(top, visitor.enterForLoop((CssForLoopRuleNode) node));
+        } else {
+          visitor.leaveForLoop((CssForLoopRuleNode) node);
+        }
+        break;
+      case UNKNOWN_AT_RULE:
+        if (!visitedChildren && indices[top] == -1) {
+          enterOptionalChildren(
+              top, visitor.enterUnknownAtRule((CssUnknownAtRuleNode) node));
+        } else if (visitedChildren) {
+          visitor.leaveUnknownAtRule((CssUnknownAtRuleNode) node);
+        }
+        break;
+      case AT_RULE_BLOCK:
+        if (node instanceof CssBlockNode) {
+          if (!visitedChildren) {
+            enterOptionalChildren(top, visitor.enterBlock((CssBlockNode) node));
+          } else {
+            visitor.leaveBlock((CssBlockNode) node);
+          }
+        }
+        break;
+      case KEYFRAMES:
+        if (!visitedChildren) {
+          enterOptionalChildren(top, visitor.enterKeyframesRule((CssKeyframesNode) node));
+        } else {
+          visitor.leaveKeyframesRule((CssKeyframesNode) node);
+        }
+        break;
+      case MIXIN_DEFINITION:
+        if (!visitedChildren) {
+          visitor.enterMixinDefinition((CssMixinDefinitionNode) node);
+        } else {
+          visitor.leaveMixinDefinition((CssMixinDefinitionNode) node);
+        }
+        break;
+      default:
+        // The lists of children have nothing to do.
+        break;
+    }
+  }
+
+  private void enterOptionalChildren(int top, boolean visitChildren) {
+    if (!visitChildren) {
+      setFlag(top, SKIP_CHILDREN);
+    }
+  }
+
+  /**
+   * Moves to the next frame, as the {@code transitionToNextState} methods of
+   * the visit states do: pushes the frame of the next child to visit, or pops
+   * the frame on top of the stack or replaces it with the next part of the
+   * node to visit.
+   */
+  private void transitionToNextState(int top) {
+    CssNode node = nodes[top];
+    boolean visitedChildren = hasFlag(top, VISITED_CHILDREN);
+    boolean skipChildren = hasFlag(top, SKIP_CHILDREN);
+    switch (kinds[top]) {
+      case ROOT_BEFORE_CHILDREN:
+        set(top, ROOT_IMPORT_BLOCK, node);
+        break;
+      case ROOT_IMPORT_BLOCK:
+        if (!visitedChildren && !skipChildren) {
+          setFlag(top, VISITED_CHILDREN);
+          push(IMPORT_BLOCK_CHILDREN, ((CssRootNode) node).getImportRules());
+        } else {
+          set(top, ROOT_BODY, node);
+        }
+        break;
+      case ROOT_BODY:
+        if (!visitedChildren && !skipChildren) {
+          setFlag(top, VISITED_CHILDREN);
+          push(BLOCK_CHILDREN, ((CssRootNode) node).getBody());
+        } else {
+          set(top, ROOT_AFTER_CHILDREN, node);
+        }
+        break;
+      case IMPORT_BLOCK_CHILDREN:
+        visitNextChild(top, IMPORT_RULE);
+        break;
+      case CONDITIONAL_BLOCK_CHILDREN:
+        visitNextChild(top, CONDITIONAL_RULE);
+        break;
+      case SELECTOR_BLOCK_CHILDREN:
+        visitNextChild(top, SELECTOR);
+        break;
+      case KEY_BLOCK_CHILDREN:
+        visitNextChild(top, KEY);
+        break;
+      case BLOCK_CHILDREN:
+        visitNextChildOrSkip(top, NONE);
+        break;
+      case DEFINITION_PARAMETERS:
+        visitNextChildOrSkip(top, VALUE);
+        break;
+      case FUNCTION_ARGUMENTS:
+        visitNextChildOrSkip(top, FUNCTION_ARGUMENT);
+        break;
+      case DEFINITION:
+        visitOptionalChild(top, DEFINITION_PARAMETERS, node);
+        break;
+      case MEDIA_RULE:
+      case UNKNOWN_AT_RULE:
+        visitNextParameterOrBlock(top, (CssAtRuleNode) node);
+        break;
+      case PAGE_RULE:
+        visitOptionalChild(top, AT_RULE_BLOCK, ((CssPageRuleNode) node).getBlock());
+        break;
+      case PAGE_SELECTOR:
+        visitOptionalChild(top, AT_RULE_BLOCK, ((CssPageSelectorNode) node).getBlock());
+        break;
+      case FONT_FACE:
+        visitOptionalChild(top, AT_RULE_BLOCK, ((CssFontFaceNode) node).getBlock());
+        break;
+      case CONDITIONAL_BLOCK:
+        visitChild(top, CONDITIONAL_BLOCK_CHILDREN, node);
+        break;
+      case CONDITIONAL_RULE:
+        visitOptionalChild(top, BLOCK_CHILDREN, ((CssConditionalRuleNode) node).getBlock());
+        break;
+      case RULESET:
+        visitOptionalChild(top, SELECTOR_BLOCK, node);
+        break;
+      case KEYFRAME_RULESET:
+        visitOptionalChild(top, KEY_BLOCK, node);
+        break;
+      case SELECTOR_BLOCK:
+        if (!visitedChildren) {
+          setFlag(top, VISITED_CHILDREN);
+          push(SELECTOR_BLOCK_CHILDREN, ((CssRulesetNode) node).getSelectors());
+        } else {
+          set(top, DECLARATION_BLOCK, ((CssRulesetNode) node).getDeclarations());
+        }
+        break;
+      case KEY_BLOCK:
+        if (!visitedChildren) {
+          setFlag(top, VISITED_CHILDREN);
+          push(KEY_BLOCK_CHILDREN, ((CssKeyframeRulesetNode) node).getKeys());
+        } else {
+          set(top, DECLARATION_BLOCK, ((CssKeyframeRulesetNode) node).getDeclarations());
+        }
+        break;
+      case SELECTOR:
+        if (!visitedChildren) {
+          setFlag(top, VISITED_CHILDREN);
+          // The refiners are visited first and then the combinator if there
+          // is one.
+          CssSelectorNode selector = (CssSelectorNode) node;
+          if (selector.getCombinator() != null) {
+            push(COMBINATOR, selector.getCombinator());
+          }
+          push(BLOCK_CHILDREN, selector.getRefiners());
+        } else {
+          pop();
+        }
+        break;
+      case KEY:
+        if (!visitedChildren) {
+          setFlag(top, VISITED_CHILDREN);
+        } else {
+          pop();
+        }
+        break;
+      case REFINER:
+        if (!visitedChildren) {
+          setFlag(top, VISITED_CHILDREN);
+          if (node instanceof CssPseudoClassNode
+              && ((CssPseudoClassNode) node).getNotSelector() != null) {
+            push(SELECTOR, ((CssPseudoClassNode) node).getNotSelector());
+          }
+        } else {
+          pop();
+        }
+        break;
+      case COMBINATOR:
+        visitChild(top, SELECTOR, ((CssCombinatorNode) node).getSelector());
+        break;
+      case DECLARATION_BLOCK:
+        visitNextDeclaration(top, (CssDeclarationBlockNode) node);
+        break;
+      case DECLARATION:
+        visitChild(top, PROPERTY_VALUE, ((CssDeclarationNode) node).getPropertyValue());
+        break;
+      case MIXIN:
+        visitChild(top, FUNCTION_ARGUMENTS, ((CssMixinNode) node).getArguments());
+        break;
+      case PROPERTY_VALUE:
+        visitNextPropertyValue(top, (CssPropertyValueNode) node);
+        break;
+      case COMPOSITE_VALUE:
+        visitNextCompositeValue(top, (CssCompositeValueNode) node);
+        break;
+      case FUNCTION:
+        if (!visitedChildren) {
+          setFlag(top, VISITED_CHILDREN);
+          if (!skipChildren) {
+            push(FUNCTION_ARGUMENTS, ((CssFunctionNode) node).getArguments());
+          }
+        } else {
+          pop();
+        }
+        break;
+      case COMPONENT:
+        visitOptionalChild(top, BLOCK_CHILDREN, ((CssComponentNode) node).getBlock());
+        break;
+      case FOR_LOOP:
+        visitOptionalChild(top, BLOCK_CHILDREN, ((CssForLoopRuleNode) node).getBlock());
+        break;
+      case AT_RULE_BLOCK:
+        if (!visitedChildren && !skipChildren) {
+          setFlag(top, VISITED_CHILDREN);
+          if (node instanceof CssBlockNode) {
+            push(BLOCK_CHILDREN, node);
+          } else if (node instanceof CssDeclarationBlockNode) {
+            push(DECLARATION_BLOCK, node);
+          }
+        } else {
+          pop();
+        }
+        break;
+      case KEYFRAMES:
+        if (!visitedChildren && !skipChildren) {
+          setFlag(top, VISITED_CHILDREN);
+          CssKeyframesNode keyframes = (CssKeyframesNode) node;
+          if (keyframes.getType().hasBlock()) {
+            push(AT_RULE_BLOCK, keyframes.getBlock());
+          }
+        } else {
+          pop();
+        }
+        break;
+      case MIXIN_DEFINITION:
+        visitChild(top, DECLARATION_BLOCK, ((CssMixinDefinitionNode) node).getBlock());
+        break;
+      default:
+        // ROOT_AFTER_CHILDREN and the nodes without children.
+        pop();
+        break;
+    }
+  }
+
+  /** Visits the child and then leaves the node. */
+  private void visitChild(int top, int kind, CssNode child) {
+    if (!hasFlag(top, VISITED_CHILDREN)) {
+      setFlag(top, VISITED_CHILDREN);
+      push(kind, child);
+    } else {
+      pop();
+    }
+  }
+
+  /**
+   * Visits the child and then leaves the node, unless the visitor asked not to
+   * visit the children, in which case the node is not left either.
+   */
+  private void visitOptionalChild(int top, int kind, CssNode child) {
+    if (!hasFlag(top, VISITED_CHILDREN) && !hasFlag(top, SKIP_CHILDREN)) {
+      setFlag(top, VISITED_CHILDREN);
+      push(kind, child);
+    } else {
+      pop();
+    }
+  }
+
+  /** Visits the next child of a list, as {@code VisitChildrenState} does. */
+  private void visitNextChild(int top, int kind) {
+    CssNodesListNode<?> list = (CssNodesListNode<?>) nodes[top];
+    if (indices[top] == list.numChildren() - 1) {
+      pop();
+      return;
+    }
+    int index = ++indices[top];
+    push(kind, list.getChildAt(index));
+  }
+
+  /**
+   * Visits the next child of a list, as {@code VisitReplaceChildrenState}
+   * does: the children that have no visit state of their own are visited as
+   * the given kind, or skipped if it is {@link #NONE}.
+   */
+  private void visitNextChildOrSkip(int top, int fallbackKind) {
+    CssNodesListNode<?> list = (CssNodesListNode<?>) nodes[top];
+    int numChildren = list.numChildren();
+    if (indices[top] == numChildren - 1 || indices[top] == numChildren) {
+      pop();
+      return;
+    }
+    int index = ++indices[top];
+    pushChild(list.getChildAt(index), fallbackKind);
+  }
+
+  private void visitNextDeclaration(int top, CssDeclarationBlockNode block) {
+    if (hasFlag(top, FINISHED)) {
+      pop();
+      return;
+    }
+    int numChildren = block.numChildren();
+    if (indices[top] == numChildren - 1 || indices[top] == numChildren) {
+      setFlag(top, FINISHED);
+      return;
+    }
+    int index = ++indices[top];
+    pushChild(block.getChildAt(index), NONE);
+  }
+
+  private void visitNextPropertyValue(int top, CssPropertyValueNode value) {
+    int numChildren = value.numChildren();
+    if (indices[top] == numChildren - 1 || indices[top] == numChildren) {
+      if (hasFlag(top, VISITED_CHILDREN)) {
+        pop();
+      } else {
+        flags[top] = (flags[top] & ~VISITING_CHILDREN) | VISITED_CHILDREN;
+      }
+      return;
+    }
+    setFlag(top, VISITING_CHILDREN);
+    int index = ++indices[top];
+    pushChild(value.getChildAt(index), VALUE);
+  }
+
+  private void visitNextCompositeValue(int top, CssCompositeValueNode composite) {
+    List<CssValueNode> values = composite.getValues();
+    if (indices[top] == values.size() - 1) {
+      pop();
+      return;
+    }
+    if (hasFlag(top, SKIP_CHILDREN)) {
+      indices[top] = values.size() - 1;
+      return;
+    }
+    if (hasFlag(top, OPERATOR_IS_NEXT)) {
+      flags[top] &= ~OPERATOR_IS_NEXT;
+      push(COMPOSITE_VALUE_OPERATOR, composite);
+      return;
+    }
+    int index = ++indices[top];
+    setFlag(top, OPERATOR_IS_NEXT);
+    pushChild(values.get(index), VALUE);
+  }
+
+  /**
+   * Visits the parameters of a media rule or of an unknown at-rule, with a
+   * delimiter between them, and then its block.
+   */
+  private void visitNextParameterOrBlock(int top, CssAtRuleNode atRule) {
+    if (hasFlag(top, VISITED_CHILDREN) || hasFlag(top, SKIP_CHILDREN)) {
+      pop();
+      return;
+    }
+    int index = ++indices[top];
+    List<CssValueNode> parameters = atRule.getParameters();
+    int parametersCount = parameters.size();
+    if (index < parametersCount) {
+      if (index < parametersCount - 1) {
+        push(MEDIA_TYPE_LIST_DELIMITER, atRule);
+      }
+      CssValueNode parameter = parameters.get(index);
+      push(parameter instanceof CssCompositeValueNode ? COMPOSITE_VALUE : VALUE, parameter);
+    } else {
+      setFlag(top, VISITED_CHILDREN);
+      if (atRule.getType().hasBlock()) {
+        push(AT_RULE_BLOCK, atRule.getBlock());
+      }
+    }
+  }
+
+  private void pushChild(CssNode child, int fallbackKind) {
+    int kind = kindOf(child);
+    if (kind == NONE) {
+      kind = fallbackKind;
+    }
+    if (kind != NONE) {
+      push(kind, child);
+    }
+  }
+
+  private void enterRefiner(CssRefinerNode node) {
+    if (node instanceof CssClassSelectorNode) {
+      visitor.enterClassSelector((CssClassSelectorNode) node);
+    } else if (node instanceof CssIdSelectorNode) {
+      visitor.enterIdSelector((CssIdSelectorNode) node);
+    } else if (node instanceof CssPseudoClassNode) {
+      visitor.enterPseudoClass((CssPseudoClassNode) node);
+    } else if (node instanceof CssPseudoElementNode) {
+      visitor.enterPseudoElement((CssPseudoElementNode) node);
+    } else if (node instanceof CssAttributeSelectorNode) {
+      visitor.enterAttributeSelector((CssAttributeSelectorNode) node);
+    }
+  }
+
+  private void leaveRefiner(CssRefinerNode node) {
+    if (node instanceof CssClassSelectorNode) {
+      visitor.leaveClassSelector((CssClassSelectorNode) node);
+    } else if (node instanceof CssIdSelectorNode) {
+      visitor.leaveIdSelector((CssIdSelectorNode) node);
+    } else if (node instanceof CssPseudoClassNode) {
+      visitor.leavePseudoClass((CssPseudoClassNode) node);
+    } else if (node instanceof CssPseudoElementNode) {
+      visitor.leavePseudoElement((CssPseudoElementNode) node);
+    } else if (node instanceof CssAttributeSelectorNode) {
+      visitor.leaveAttributeSelector((CssAttributeSelectorNode) node);
+    }
+  }
+
+  /**
+   * Returns the kind of frame that visits the node, or {@link #NONE} if it
+   * depends on its parent. The tests are in the same order as in
+   * {@code DefaultVisitController.createVisitStateInternal}.
+   */
+  private static int kindOf(CssNode child) {
+    if (child instanceof CssProvideNode) {
+      return PROVIDE;
+    }
+    if (child instanceof CssRequireNode) {
+      return REQUIRE;
+    }
+    if (child instanceof CssMediaRuleNode) {
+      return MEDIA_RULE;
+    }
+    if (child instanceof CssPageRuleNode) {
+      return PAGE_RULE;
+    }
+    if (child instanceof CssPageSelectorNode) {
+      return PAGE_SELECTOR;
+    }
+    if (child instanceof CssFontFaceNode) {
+      return FONT_FACE;
+    }
+    if (child instanceof CssImportRuleNode) {
+      return IMPORT_RULE;
+    }
+    if (child instanceof CssComponentNode) {
+      return COMPONENT;
+    }
+    if (child instanceof CssRefinerNode) {
+      return REFINER;
+    }
+    if (child instanceof CssDeclarationNode) {
+      return DECLARATION;
+    }
+    if (child instanceof CssMixinNode) {
+      return MIXIN;
+    }
+    if (child instanceof CssForLoopRuleNode) {
+      return FOR_LOOP;
+    }
+    if (child instanceof CssUnknownAtRuleNode) {
+      return UNKNOWN_AT_RULE;
+    }
+    if (child instanceof CssKeyframesNode) {
+      return KEYFRAMES;
+    }
+    if (child instanceof CssKeyframeRulesetNode) {
+      return KEYFRAME_RULESET;
+    }
+    if (child instanceof CssConditionalBlockNode) {
+      return CONDITIONAL_BLOCK;
+    }
+    if (child instanceof CssRulesetNode) {
+      return RULESET;
+    }
+    if (child instanceof CssDefinitionNode) {
+      return DEFINITION;
+    }
+    if (child instanceof CssFunctionNode) {
+      return FUNCTION;
+    }
+    if (child instanceof CssMixinDefinitionNode) {
+      return MIXIN_DEFINITION;
+    }
+    if (child instanceof CssCompositeValueNode) {
+      return COMPOSITE_VALUE;
+    }
+    if (child instanceof CssPropertyValueNode) {
+      return PROPERTY_VALUE;
+    }
+    if (child instanceof CssRootNode) {
+      return ROOT_BEFORE_CHILDREN;
+    }
+    return NONE;
+  }
+}
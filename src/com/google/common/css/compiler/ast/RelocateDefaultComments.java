@@ -16,6 +16,8 @@
 
 package com.google.common.css.compiler.ast;
 
+import com.google.common.collect.ImmutableList;
+
 import java.util.List;
 
 /**
@@ -37,24 +39,26 @@ public class RelocateDefaultComments extends DefaultTreeVisitor
   public boolean enterDefinition(CssDefinitionNode node) {
     //TODO(user): Now it moves up every comment to the CssDefinitionNode.
     // Later we should move only the annotations "@default".
-    List<CssCommentNode> comments = node.getComments();
     CssLiteralNode name = node.getName();
     List<CssValueNode> params = node.getParameters();
-    List<CssCommentNode> nameComments = name.getComments();
-    for (CssCommentNode c : nameComments) {
-      comments.add(c);
-    }
-    nameComments.clear();
+    moveComments(name, node);
     for (CssValueNode valueNode : params) {
-      List<CssCommentNode> commentsList = valueNode.getComments();
-      for (CssCommentNode c : commentsList) {
-        comments.add(c);
-      }
-      commentsList.clear();
+      moveComments(valueNode, node);
     }
     return true;
   }
 
+  private static void moveComments(CssNode from, CssNode to) {
+    List<CssCommentNode> comments = from.getComments();
+    if (comments.isEmpty()) {
+      return;
+    }
+    from.setComments(ImmutableList.<CssCommentNode>of());
+    for (CssCommentNode c : comments) {
+      to.appendComment(c);
+    }
+  }
+
   @Override
   public void runPass() {
     visitController.startVisit(this);
@@ -16,43 +16,15 @@
 
 package com.google.common.css.compiler.ast;
 
-import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Lists;
-import com.google.common.primitives.Ints;
-
-import java.io.IOException;
-import java.util.List;
-
 /**
  * Efficient {@code String} based {@link CharStream} implementation.
  *
  * @author dgajda@google.com (Damian Gajda)
  */
-public class StringCharStream implements CharStream {
-
-  private static final IOException END_OF_STREAM = new IOException();
+public class StringCharStream extends AbstractCharStream {
 
   /** The input string. */
-  private final String input;
-  private final int length;
-  private int charPos;
-  private int line;
-  private int column;
-  private char lastChar;
-
-  private int tokenStart;
-  private int beginLine;
-  private int beginColumn;
-
-  private int tabSize = 1;
-  private boolean trackLineColumn;
-
-  /**
-   * This array (working as a map: lineNumber -> characterIndex) helps to
-   * compute token locations efficiently. First element is not used as line
-   * numbers are 1 based.
-   */
-  private int[] lineToCharIndex;
+  private String input;
 
   /**
    * Creates a character stream for a given string.
@@ -60,177 +32,38 @@ public class StringCharStream implements CharStream {
    * @param inputString input string for this stream
    */
   public StringCharStream(String inputString) {
-    input = inputString;
-    length = input.length();
-
-    lastChar = '\u0000';
-    charPos = -1;
-    column = 0;
-    line = 1;
-
-    tokenStart = charPos;
-    beginLine = line;
-    beginColumn = column;
-
-    initCharIndex(input);
-  }
-
-  private void initCharIndex(String source) {
-    List<Integer> lineToCharIndexList = Lists.newArrayList();
-    int charIndex = -1;
-    lineToCharIndexList.add(charIndex);
-    do {
-      charIndex++;
-      lineToCharIndexList.add(charIndex);
-      charIndex = source.indexOf('\n', charIndex);
-    } while (charIndex >= 0);
-    lineToCharIndex = Ints.toArray(lineToCharIndexList);
+    reset(inputString);
   }
 
   /**
-   * Returns an absolute character location for given line and column location.
+   * Makes this stream read {@code inputString} from its start, reusing the
+   * memory of the previous input, so that a parser can be reused for many
+   * inputs.
    *
-   * @param lineNumber line number (1 based)
-   * @param indexInLine column number (1 based)
-   * @return 0 based absolute character index in the input string
-   */
-  public int convertToCharacterIndex(int lineNumber, int indexInLine) {
-    return lineToCharIndex[lineNumber] + indexInLine - 1;
-  }
-
-  /**
-   * @return index of last read character
-   */
-  public int getCharIndex() {
-    return charPos;
-  }
-
-  /**
-   * @return index of the first character of a token
+   * @param inputString input string for this stream
    */
-  @VisibleForTesting
-  int getTokenStart() {
-    return tokenStart;
-  }
-
-  /** {@inheritDoc} */
-  @Override
-  public char readChar() throws IOException {
-    if (charPos + 1 == length) {
-      throw END_OF_STREAM;
-    }
-
-    if (lastChar == '\n') {
-      line++;
-      column = 0;
-    }
-    if (lastChar == '\t') {
-      column += (tabSize - (column % tabSize));
-    } else {
-      column++;
-    }
-    lastChar = input.charAt(++charPos);
-    return lastChar;
-  }
-
-  /** {@inheritDoc} */
-  @Deprecated
-  @Override
-  public int getColumn() {
-    return getEndColumn();
-  }
-
-  /** {@inheritDoc} */
-  @Deprecated
-  @Override
-  public int getLine() {
-    return getEndLine();
-  }
-
-  /** {@inheritDoc} */
-  @Override
-  public int getEndColumn() {
-    return column;
-  }
-
-  /** {@inheritDoc} */
-  @Override
-  public int getEndLine() {
-    return line;
-  }
-
-  /** {@inheritDoc} */
-  @Override
-  public int getBeginColumn() {
-    return beginColumn;
-  }
-
-  /** {@inheritDoc} */
-  @Override
-  public int getBeginLine() {
-    return beginLine;
-  }
-
-  /** {@inheritDoc} */
-  @Override
-  public void backup(int amount) {
-    charPos -= amount;
-    while (line > 1 && lineToCharIndex[line] > charPos) {
-      line--;
-    }
-    column = charPos - lineToCharIndex[line] + 1;
-    lastChar = charPos < 0 ? '\u0000' : input.charAt(charPos);
-  }
-
-  /** {@inheritDoc} */
-  @Override
-  public char BeginToken() throws IOException {
-    readChar();
-    tokenStart = charPos;
-    beginLine = line;
-    beginColumn = column;
-    return lastChar;
-  }
-
-  /** {@inheritDoc} */
-  @Override
-  public String GetImage() {
-    return input.substring(tokenStart, charPos + 1);
-  }
-
-  /** {@inheritDoc} */
-  @Override
-  public char[] GetSuffix(int len) {
-    int end = charPos + 1;
-    int start = end - len;
-    char[] chars = new char[end - start];
-    input.getChars(start, end, chars, 0);
-    return chars;
-  }
-
-  /** {@inheritDoc} */
-  @Override
-  public void Done() {
-    // Does nothing since no resources need to be freed.
+  public void reset(String inputString) {
+    input = inputString;
+    reset(input.length());
   }
 
   @Override
-  public void setTabSize(int tabSize) {
-    throw new UnsupportedOperationException("setTabSize() is not supported.");
+  protected char charAt(int index) {
+    return input.charAt(index);
   }
 
   @Override
-  public int getTabSize() {
-    return tabSize;
+  protected String substring(int start, int end) {
+    return input.substring(start, end);
   }
 
   @Override
-  public boolean getTrackLineColumn() {
-    return trackLineColumn;
+  protected void getChars(int start, int end, char[] dst) {
+    input.getChars(start, end, dst, 0);
   }
 
   @Override
-  public void setTrackLineColumn(boolean trackLineColumn) {
-    this.trackLineColumn = trackLineColumn;
+  protected int indexOfNewline(int fromIndex) {
+    return input.indexOf('\n', fromIndex);
   }
 }
@@ -20,6 +20,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
@@ -36,6 +37,7 @@ import com.google.common.css.OutputRenamingMapFormat;
 import com.google.common.css.SourceCode;
 import com.google.common.css.Vendor;
 import com.google.common.css.compiler.ast.ErrorManager;
+import com.google.common.css.compiler.passes.PassProfiler;
 import com.google.common.io.Files;
 import java.io.File;
 import java.io.IOException;
@@ -43,7 +45,10 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
@@ -158,6 +163,15 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
         + " from one file to propagate to other files.")
     private boolean allowDefPropagation = true;
 
+    // args4j cannot set a boolean option to false, so propagation, which is
+    // on by default, is turned off by a flag of its own.
+    @Option(name = "--no-allow-def-propagation", usage = "Compiles every"
+        + " input on its own, without propagating @defs and @mixins between"
+        + " files.")
+    private void disallowDefPropagation(boolean disallow) {
+      allowDefPropagation = !disallow;
+    }
+
     @Option(name = "--allow-unrecognized-functions", usage =
         "Allow unrecognized functions.")
     private boolean allowUnrecognizedFunctions = false;
@@ -216,6 +230,32 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
         + "/*! */, @license, or @preserve.")
     private boolean preserveImportantComments = false;
 
+    @Option(name = "--num-threads", usage = "The number of threads used to"
+        + " parse, optimize and print the inputs concurrently with"
+        + " --no-allow-def-propagation, as each input is then compiled on its"
+        + " own, or to optimize and print the chunks given with --chunk"
+        + " concurrently otherwise.")
+    private int numThreads = 1;
+
+    @Option(name = "--chunk", usage = "Puts input files in a chunk, as"
+        + " NAME:FILE[,FILE...]. Invoke for each chunk. When chunks are given,"
+        + " every input must be in one of them, dead styles are eliminated"
+        + " within each chunk and a template is printed for each chunk.")
+    private List<String> chunks = Lists.newArrayList();
+
+    @Option(name = "--chunk-template-dir", usage = "The directory to write the"
+        + " template of each chunk to, as NAME.tmpl.")
+    private String chunkTemplateDir = null;
+
+    @Option(name = "--profile-passes", usage = "The file to write the time, CPU"
+        + " time, allocated bytes and node counts of every compiler pass to.")
+    private String profileFile = null;
+
+    @Option(name = "--profile-passes-format", usage = "How to format the"
+        + " --profile-passes report: as JSON or as a Chrome trace that can be"
+        + " loaded in chrome://tracing.")
+    private PassProfiler.Format profileFormat = PassProfiler.Format.JSON;
+
     /**
      * All remaining arguments are considered input CSS files.
      */
@@ -254,6 +294,8 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
       builder.setOutputRenamingMapFormat(outputRenamingMapFormat);
       builder.setCompileConstants(parseCompileConstants(compileConstants));
       builder.setPreserveImportantComments(preserveImportantComments);
+      builder.setNumThreads(numThreads);
+      builder.setFileToChunk(parseChunks());
 
       GssFunctionMapProvider gssFunctionMapProvider =
           getGssFunctionMapProviderForName(gssFunctionMapProviderClassName);
@@ -285,22 +327,52 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
               "Input file %s does not exist", fileName));
         }
 
-        String fileContents;
-        try {
-          fileContents = Files.asCharSource(file, UTF_8).read();
-        } catch (IOException e) {
-          throw new RuntimeException(e);
-        }
-        builder.addInput(new SourceCode(fileName, fileContents));
+        // The contents are read when the file is parsed.
+        builder.addInput(new SourceCode(fileName, file, UTF_8));
       }
       return builder.getJobDescription();
     }
 
-    private OutputInfo createOutputInfo() {
+    OutputInfo createOutputInfo() {
       return new OutputInfo(
           (outputFile == null) ? null : new File(outputFile),
           (renameFile == null) ? null : new File(renameFile),
-          (sourceMapFile == null) ? null : new File(sourceMapFile));
+          (sourceMapFile == null) ? null : new File(sourceMapFile),
+          (profileFile == null) ? null : new File(profileFile),
+          profileFormat,
+          (chunkTemplateDir == null) ? null : new File(chunkTemplateDir));
+    }
+
+    /**
+     * Parses the values of the chunk flags to the chunk of each file, or
+     * returns {@code null} if one of them is malformed or puts a file in a
+     * second chunk.
+     */
+    @Nullable
+    private Map<String, String> parseChunks() {
+      Map<String, String> fileToChunk = new LinkedHashMap<>();
+      for (String chunk : chunks) {
+        int colon = chunk.indexOf(':');
+        if (colon <= 0 || colon == chunk.length() - 1) {
+          return null;
+        }
+        String name = chunk.substring(0, colon);
+        for (String file : Splitter.on(',').split(chunk.substring(colon + 1))) {
+          if (fileToChunk.put(file, name) != null) {
+            return null;
+          }
+        }
+      }
+      return fileToChunk;
+    }
+
+    /**
+     * Returns whether every input is in exactly one of the chunks, if any.
+     */
+    private boolean hasValidChunks() {
+      Map<String, String> fileToChunk = parseChunks();
+      return fileToChunk != null
+          && (fileToChunk.isEmpty() || fileToChunk.keySet().containsAll(arguments));
     }
 
     /**
@@ -352,15 +424,33 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
     }
   }
 
-  private static class OutputInfo {
+  static class OutputInfo {
     @Nullable public final File outputFile;
     @Nullable public final File renameFile;
     @Nullable public final File sourceMapFile;
+    @Nullable public final File profileFile;
+    public final PassProfiler.Format profileFormat;
+    @Nullable public final File chunkTemplateDir;
 
-    private OutputInfo(File outputFile, File renameFile, File sourceMapFile) {
+    private OutputInfo(File outputFile, File renameFile, File sourceMapFile,
+        File profileFile, PassProfiler.Format profileFormat, File chunkTemplateDir) {
       this.outputFile = outputFile;
       this.renameFile = renameFile;
       this.sourceMapFile = sourceMapFile;
+      this.profileFile = profileFile;
+      this.profileFormat = profileFormat;
+      this.chunkTemplateDir = chunkTemplateDir;
+    }
+  }
+
+  /**
+   * Writes the template of each chunk to {@code dir}, as NAME.tmpl.
+   */
+  static void writeChunkTemplates(File dir, Map<String, String> chunkTemplates)
+      throws IOException {
+    for (Map.Entry<String, String> entry : chunkTemplates.entrySet()) {
+      Files.asCharSink(new File(dir, entry.getKey() + ".tmpl"), UTF_8)
+          .write(entry.getValue());
     }
   }
 
@@ -370,18 +460,72 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
 
     ClosureCommandLineCompiler compiler =
         new ClosureCommandLineCompiler(job, exitCodeHandler, errorManager);
+    PassProfiler profiler = null;
+    if (outputInfo.profileFile != null) {
+      profiler = new PassProfiler();
+      compiler.setPassListener(profiler);
+    }
 
-    String compilerOutput = compiler.execute(outputInfo.renameFile, outputInfo.sourceMapFile);
-
+    String compilerOutput = null;
+    boolean completed;
     if (outputInfo.outputFile == null) {
-      System.out.print(compilerOutput);
+      compilerOutput = compiler.execute(outputInfo.renameFile, outputInfo.sourceMapFile);
+      completed = compilerOutput != null;
     } else {
+      completed = executeToFile(compiler, outputInfo, exitCodeHandler);
+    }
+
+    if (completed && outputInfo.chunkTemplateDir != null) {
       try {
-        Files.asCharSink(outputInfo.outputFile, UTF_8).write(compilerOutput);
+        writeChunkTemplates(outputInfo.chunkTemplateDir, compiler.getChunkTemplates());
+      } catch (IOException e) {
+        AbstractCommandLineCompiler.exitOnUnhandledException(e, exitCodeHandler);
+      }
+    }
+
+    if (profiler != null) {
+      try (Writer profileWriter = Files.newWriter(outputInfo.profileFile, UTF_8)) {
+        profiler.writeTo(profileWriter, outputInfo.profileFormat);
       } catch (IOException e) {
         AbstractCommandLineCompiler.exitOnUnhandledException(e, exitCodeHandler);
       }
     }
+
+    if (outputInfo.outputFile == null) {
+      System.out.print(compilerOutput);
+    }
+  }
+
+  /**
+   * Executes the job, streaming the compiled CSS to the output file as it is
+   * printed. It is written to a temporary file next to the output file first,
+   * which replaces the output file once the job has completed, so that a
+   * failed job leaves no partial output behind.
+   *
+   * @return whether the job ran to completion
+   */
+  private static boolean executeToFile(ClosureCommandLineCompiler compiler,
+      OutputInfo outputInfo, ExitCodeHandler exitCodeHandler) {
+    File outputFile = outputInfo.outputFile.getAbsoluteFile();
+    try {
+      File tempFile = File.createTempFile(outputFile.getName(), ".tmp",
+          outputFile.getParentFile());
+      tempFile.deleteOnExit();
+      boolean completed;
+      try (Writer out = Files.newWriter(tempFile, UTF_8)) {
+        completed = compiler.execute(out, outputInfo.renameFile, outputInfo.sourceMapFile);
+      }
+      if (completed) {
+        java.nio.file.Files.move(tempFile.toPath(), outputFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+      } else {
+        tempFile.delete();
+      }
+      return completed;
+    } catch (IOException e) {
+      AbstractCommandLineCompiler.exitOnUnhandledException(e, exitCodeHandler);
+    }
+    return false;
   }
 
   /**
@@ -417,7 +561,20 @@ public class ClosureCommandLineCompiler extends DefaultCommandLineCompiler {
       return null;
     }
 
-    if (flags.arguments.isEmpty()) {
+    if (flags.numThreads < 1) {
+      System.err.println("\nERROR: --num-threads must be at least 1.\n");
+      argsParser.printUsage(System.err);
+      exitCodeHandler.processExitCode(
+          AbstractCommandLineCompiler.ERROR_MESSAGE_EXIT_CODE);
+      return null;
+    } else if (!flags.hasValidChunks()) {
+      System.err.println("\nERROR: --chunk must be NAME:FILE[,FILE...], and every"
+          + " input must be in exactly one chunk.\n");
+      argsParser.printUsage(System.err);
+      exitCodeHandler.processExitCode(
+          AbstractCommandLineCompiler.ERROR_MESSAGE_EXIT_CODE);
+      return null;
+    } else if (flags.arguments.isEmpty()) {
       System.err.println("\nERROR: No input files specified.\n");
       argsParser.printUsage(System.err);
       exitCodeHandler.processExitCode(
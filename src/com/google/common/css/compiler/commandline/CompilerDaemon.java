@@ -0,0 +1,333 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.commandline;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.css.AbstractCommandLineCompiler;
+import com.google.common.css.ExitCodeHandler;
+import com.google.common.css.JobDescription;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.BasicErrorManager;
+import com.google.common.css.compiler.ast.CssBlockNode;
+import com.google.common.css.compiler.ast.CssCommentNode;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssRootNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.ErrorManager;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.GssParserException;
+import com.google.common.css.compiler.passes.GssFunctionCache;
+import com.google.common.css.compiler.passes.PassProfiler;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * {@link CompilerDaemon} keeps a {@link ClosureCommandLineCompiler} resident
+ * across many compilations, so that class loading, JIT warm-up and the static
+ * tables of the compiler are only paid for once. It also caches the parsed
+ * {@link CssTree} of every input, keyed by file name and content hash, and
+ * reuses it while the input is unchanged, and it memoizes the calls of pure
+ * GSS functions across compilations.
+ *
+ * <p>The protocol is line based: each line read from standard input is a JSON
+ * {@link Request} holding the same arguments as the command line compiler,
+ * and each request is answered by one line of JSON {@link Response} on
+ * standard output. The compiled CSS, renaming map, source map, chunk
+ * templates and pass profile are returned in the response, and are also
+ * written to the files named by {@code --output-file},
+ * {@code --output-renaming-map}, {@code --output-source-map},
+ * {@code --chunk-template-dir} and {@code --profile-passes}, as the command
+ * line compiler does.
+ */
+public class CompilerDaemon {
+
+  private static final int DEFAULT_MAX_CACHED_TREES = 10000;
+
+  private static final SourceCode GLOBAL_SOURCE_CODE = new SourceCode("global", null);
+
+  /**
+   * Parse trees as returned by the parser. These must never be handed to the
+   * compiler, as the passes mutate the tree: only deep copies are.
+   */
+  private final Cache<String, CssTree> parsedTrees;
+
+  private final GssFunctionCache functionCache = new GssFunctionCache();
+
+  private final Gson gson = new Gson();
+
+  public CompilerDaemon() {
+    this(DEFAULT_MAX_CACHED_TREES);
+  }
+
+  /**
+   * @param maxCachedTrees the maximum number of parsed inputs to keep
+   */
+  public CompilerDaemon(int maxCachedTrees) {
+    this.parsedTrees = CacheBuilder.newBuilder()
+        .maximumSize(maxCachedTrees)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * A compilation request.
+   */
+  @VisibleForTesting
+  static class Request {
+    /** The arguments, as they would be passed to the command line compiler. */
+    List<String> arguments = new ArrayList<>();
+  }
+
+  /**
+   * The result of a {@link Request}.
+   */
+  @VisibleForTesting
+  static class Response {
+    /** One of the exit codes of {@link AbstractCommandLineCompiler}. */
+    int exitCode = AbstractCommandLineCompiler.SUCCESS_EXIT_CODE;
+    /** The compiled CSS, unless compilation failed. */
+    @Nullable String output;
+    /** The renaming map, in the requested format, if classes are renamed. */
+    @Nullable String renamingMap;
+    /** The source map, if {@code --output-source-map} was specified. */
+    @Nullable String sourceMap;
+    /** The template of each chunk, if {@code --chunk} was specified. */
+    @Nullable Map<String, String> chunkTemplates;
+    /** The pass profile, if {@code --profile-passes} was specified. */
+    @Nullable String profile;
+    /** Errors and warnings, formatted as the command line compiler prints them. */
+    String messages = "";
+  }
+
+  /**
+   * Answers the requests read from {@code in}, one per line, until the end of
+   * the input is reached.
+   */
+  public void serve(Reader in, Writer out) throws IOException {
+    BufferedReader reader = new BufferedReader(in);
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.trim().isEmpty()) {
+        continue;
+      }
+      Response response;
+      try {
+        response = handle(gson.fromJson(line, Request.class));
+      } catch (JsonParseException e) {
+        response = new Response();
+        response.exitCode = AbstractCommandLineCompiler.ERROR_MESSAGE_EXIT_CODE;
+        response.messages = "Malformed request: " + e.getMessage();
+      }
+      out.write(gson.toJson(response));
+      out.write('\n');
+      out.flush();
+    }
+  }
+
+  /**
+   * Compiles a single request.
+   */
+  @VisibleForTesting
+  Response handle(Request request) {
+    Response response = new Response();
+    RecordingExitCodeHandler exitCodeHandler = new RecordingExitCodeHandler();
+    ClosureCommandLineCompiler.Flags flags = ClosureCommandLineCompiler.parseArgs(
+        request.arguments.toArray(new String[0]), exitCodeHandler);
+    if (flags == null) {
+      response.exitCode = exitCodeHandler.exitCode;
+      response.messages = "Invalid arguments: " + request.arguments;
+      return response;
+    }
+
+    CollectingErrorManager errorManager = new CollectingErrorManager();
+    try {
+      JobDescription job = flags.createJobDescription();
+      ClosureCommandLineCompiler.OutputInfo outputInfo = flags.createOutputInfo();
+      CachingCompiler compiler = new CachingCompiler(job, exitCodeHandler, errorManager);
+      compiler.setGssFunctionCache(functionCache);
+      PassProfiler profiler = null;
+      if (outputInfo.profileFile != null) {
+        profiler = new PassProfiler();
+        compiler.setPassListener(profiler);
+      }
+      String output = compiler.compile();
+      errorManager.generateReport();
+      if (errorManager.hasErrors()) {
+        response.exitCode = AbstractCommandLineCompiler.ERROR_MESSAGE_EXIT_CODE;
+      } else {
+        response.output = output;
+        writeOutput(outputInfo.outputFile, response.output);
+        Map<String, String> renamingMappings = compiler.getRenamingMappings();
+        if (renamingMappings != null) {
+          StringWriter renamingMap = new StringWriter();
+          job.outputRenamingMapFormat.writeRenamingMap(renamingMappings, renamingMap);
+          response.renamingMap = renamingMap.toString();
+          writeOutput(outputInfo.renameFile, response.renamingMap);
+        }
+        if (job.createSourceMap) {
+          StringBuilder sourceMap = new StringBuilder();
+          compiler.appendSourceMapTo(sourceMap, outputInfo.sourceMapFile.getName());
+          response.sourceMap = sourceMap.toString();
+          writeOutput(outputInfo.sourceMapFile, response.sourceMap);
+        }
+        if (!job.fileToChunk.isEmpty()) {
+          response.chunkTemplates = compiler.getChunkTemplates();
+          if (outputInfo.chunkTemplateDir != null) {
+            ClosureCommandLineCompiler.writeChunkTemplates(
+                outputInfo.chunkTemplateDir, response.chunkTemplates);
+          }
+        }
+      }
+      if (profiler != null) {
+        StringBuilder profile = new StringBuilder();
+        profiler.writeTo(profile, outputInfo.profileFormat);
+        response.profile = profile.toString();
+        writeOutput(outputInfo.profileFile, response.profile);
+      }
+    } catch (GssParserException e) {
+      errorManager.print("Compiler parsing error: " + e.getMessage());
+      response.exitCode = AbstractCommandLineCompiler.ERROR_MESSAGE_EXIT_CODE;
+    } catch (IOException e) {
+      errorManager.print("The compiler encountered an unhandled error condition. " + e);
+      response.exitCode = AbstractCommandLineCompiler.UNHANDLED_EXCEPTION_EXIT_CODE;
+    } catch (RuntimeException e) {
+      errorManager.print("Compiler internal error: " + e.getMessage());
+      response.exitCode = AbstractCommandLineCompiler.INTERNAL_ERROR_EXIT_CODE;
+    }
+    response.messages = errorManager.getMessages();
+    return response;
+  }
+
+  private static void writeOutput(@Nullable File file, String contents) throws IOException {
+    if (file != null) {
+      Files.asCharSink(file, UTF_8).write(contents);
+    }
+  }
+
+  /**
+   * Returns a tree for the specified sources that the caller may mutate,
+   * reusing the cached parse of every source that has been parsed before.
+   */
+  @VisibleForTesting
+  CssTree parse(List<SourceCode> sources) throws GssParserException {
+    if (sources.size() == 1) {
+      return new CssTree(getParsedTree(sources.get(0)));
+    }
+    // The parser appends the top level nodes of all the sources to a single
+    // global block, so do the same with copies of the cached ones.
+    List<CssNode> children = new ArrayList<>();
+    List<CssCommentNode> comments = new ArrayList<>();
+    for (SourceCode source : sources) {
+      CssBlockNode body = getParsedTree(source).getRoot().getBody();
+      for (CssNode child : body.childIterable()) {
+        children.add(child.deepCopy());
+      }
+      comments.addAll(body.getComments());
+    }
+    CssBlockNode globalBlock = new CssBlockNode(false /* isEnclosedWithBraces */, children);
+    for (CssCommentNode comment : comments) {
+      globalBlock.appendComment(comment.deepCopy());
+    }
+    return new CssTree(GLOBAL_SOURCE_CODE, new CssRootNode(globalBlock));
+  }
+
+  private CssTree getParsedTree(SourceCode source) throws GssParserException {
+    String key = source.getFileName() + ':'
+        + Hashing.sha256().hashString(source.getFileContents(), UTF_8);
+    CssTree tree = parsedTrees.getIfPresent(key);
+    if (tree == null) {
+      tree = new GssParser(source).parse();
+      parsedTrees.put(key, tree);
+    }
+    return tree;
+  }
+
+  @VisibleForTesting
+  long getCacheHitCount() {
+    return parsedTrees.stats().hitCount();
+  }
+
+  @VisibleForTesting
+  GssFunctionCache getFunctionCache() {
+    return functionCache;
+  }
+
+  /**
+   * A compiler that gets its trees from the cache of the daemon.
+   */
+  private class CachingCompiler extends ClosureCommandLineCompiler {
+    CachingCompiler(JobDescription job, ExitCodeHandler exitCodeHandler,
+        ErrorManager errorManager) {
+      super(job, exitCodeHandler, errorManager);
+    }
+
+    @Override
+    protected CssTree parse(List<SourceCode> sources) throws GssParserException {
+      return CompilerDaemon.this.parse(sources);
+    }
+  }
+
+  private static final class RecordingExitCodeHandler implements ExitCodeHandler {
+    int exitCode = AbstractCommandLineCompiler.SUCCESS_EXIT_CODE;
+
+    @Override
+    public void processExitCode(int exitCode) {
+      this.exitCode = exitCode;
+    }
+  }
+
+  /**
+   * Collects the report of the errors instead of printing it, as standard
+   * output is used by the protocol.
+   */
+  private static final class CollectingErrorManager extends BasicErrorManager {
+    private final StringBuilder messages = new StringBuilder();
+
+    @Override
+    public void print(String msg) {
+      messages.append(msg).append('\n');
+    }
+
+    String getMessages() {
+      return messages.toString();
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    new CompilerDaemon().serve(
+        new InputStreamReader(System.in, UTF_8),
+        new OutputStreamWriter(System.out, UTF_8));
+  }
+}
@@ -20,6 +20,9 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.css.AbstractCommandLineCompiler;
 import com.google.common.css.ExitCodeHandler;
 import com.google.common.css.JobDescription;
@@ -27,22 +30,40 @@ import com.google.common.css.JobDescription.OutputFormat;
 import com.google.common.css.RecordingSubstitutionMap;
 import com.google.common.css.SourceCode;
 import com.google.common.css.compiler.ast.BasicErrorManager;
+import com.google.common.css.compiler.ast.CssNode;
 import com.google.common.css.compiler.ast.CssTree;
 import com.google.common.css.compiler.ast.ErrorManager;
 import com.google.common.css.compiler.ast.GssError;
 import com.google.common.css.compiler.ast.GssParser;
 import com.google.common.css.compiler.ast.GssParserException;
+import com.google.common.css.compiler.passes.CodeBuffer;
 import com.google.common.css.compiler.passes.CompactPrinter;
-import com.google.common.css.compiler.passes.DefaultGssSourceMapGenerator;
+import com.google.common.css.compiler.passes.GssFunctionCache;
 import com.google.common.css.compiler.passes.GssSourceMapGenerator;
 import com.google.common.css.compiler.passes.NullGssSourceMapGenerator;
+import com.google.common.css.compiler.passes.PassListener;
 import com.google.common.css.compiler.passes.PassRunner;
 import com.google.common.css.compiler.passes.PrettyPrinter;
+import com.google.common.css.compiler.passes.SourceMappingRecorder;
+import com.google.common.css.compiler.passes.StreamingGssSourceMapGenerator;
+import com.google.common.css.compiler.passes.TemplateCompactPrinterForChunks;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import javax.annotation.Nullable;
 
 /**
@@ -62,6 +83,15 @@ public class DefaultCommandLineCompiler extends AbstractCommandLineCompiler<JobD
   private final ErrorManager errorManager;
   private final PassRunner passRunner;
   private final GssSourceMapGenerator gssSourceMapGenerator;
+  private final Map<String, StringBuilder> chunkTemplates = new LinkedHashMap<>();
+
+  /**
+   * The line and the character index in that line at which the next part of
+   * the output starts, so that the source mappings of the inputs printed on
+   * their own land where the inputs are in the whole output.
+   */
+  private int outputLineIndex = 0;
+  private int outputCharIndex = 0;
 
   /**
    * Constructs a {@code DefaultCommandLineCompiler}.
@@ -73,15 +103,36 @@ public class DefaultCommandLineCompiler extends AbstractCommandLineCompiler<JobD
       ExitCodeHandler exitCodeHandler, ErrorManager errorManager) {
     super(job, exitCodeHandler);
     this.errorManager = errorManager;
-    this.passRunner = new PassRunner(job, errorManager);
+    this.passRunner = new PassRunner(job, job.numThreads > 1
+        ? new SynchronizedErrorManager(errorManager) : errorManager);
     this.gssSourceMapGenerator = createSourceMapGenerator(job);
+    for (String chunk : job.getChunks()) {
+      chunkTemplates.put(chunk, new StringBuilder());
+    }
   }
 
   private GssSourceMapGenerator createSourceMapGenerator(JobDescription job) {
     if (!job.createSourceMap) {
       return new NullGssSourceMapGenerator();
     }
-    return new DefaultGssSourceMapGenerator(job.sourceMapLevel);
+    return new StreamingGssSourceMapGenerator(job.sourceMapLevel);
+  }
+
+  /**
+   * Sets the listener to notify around every compiler pass, or {@code null}
+   * for none. It must be thread-safe when {@link JobDescription#numThreads}
+   * is more than one.
+   */
+  public void setPassListener(@Nullable PassListener passListener) {
+    passRunner.setPassListener(passListener);
+  }
+
+  /**
+   * Sets the cache memoizing the calls of pure GSS functions, so that it can
+   * be shared with other compilations.
+   */
+  public void setGssFunctionCache(GssFunctionCache gssFunctionCache) {
+    passRunner.setGssFunctionCache(gssFunctionCache);
   }
 
   /**
@@ -91,60 +142,305 @@ public class DefaultCommandLineCompiler extends AbstractCommandLineCompiler<JobD
    * @return the resulting stylesheet in string format
    */
   public String compile() throws GssParserException {
+    StringBuilder result = new StringBuilder(getOutputLengthHint());
+    try {
+      compileTo(result);
+    } catch (IOException e) {
+      throw new AssertionError(e); // StringBuilder does not throw.
+    }
+    return result.toString();
+  }
+
+  /**
+   * Parses all the inputs, reports error messages and combines the parsed
+   * inputs into one stylesheet, which is written to {@code out} as it is
+   * printed rather than built in memory first.
+   */
+  public void compileTo(Appendable out) throws GssParserException, IOException {
     Preconditions.checkState(!compilerWasUsed);
     compilerWasUsed = true;
 
-    // Reserving the input length might not be enough for pretty printed output,
-    // but it will certainly save resizing the buffers for compressed output.
-    // The length of the copyright notice is also included in the total length.
-    int copyrightNoticeSize = job.copyrightNotice != null
-        ? job.copyrightNotice.length() : 0;
-    StringBuilder result = new StringBuilder(job.getAllInputsLength()
-        + copyrightNoticeSize);
     if (job.copyrightNotice != null) {
-      result.append(job.copyrightNotice);
+      out.append(job.copyrightNotice);
+      advanceOutputPosition(job.copyrightNotice);
     }
 
     if (job.allowDefPropagation) {
-      GssParser parser = new GssParser(job.inputs);
-      parseAndPrint(result, parser);
+      parseAndPrint(out, job.inputs);
+    } else if (job.numThreads > 1 && job.inputs.size() > 1) {
+      parseAndPrintInParallel(out);
     } else {
       for (SourceCode source : job.inputs) {
-        GssParser parser = new GssParser(source);
-        parseAndPrint(result, parser);
+        parseAndPrint(out, ImmutableList.of(source));
       }
     }
+  }
 
-    return result.toString();
+  /**
+   * Returns the initial capacity of a buffer for the whole output.
+   */
+  private int getOutputLengthHint() {
+    // Reserving the input length might not be enough for pretty printed output,
+    // but it will certainly save resizing the buffers for compressed output.
+    // The length of the copyright notice is also included in the total length.
+    int copyrightNoticeSize = job.copyrightNotice != null
+        ? job.copyrightNotice.length() : 0;
+    return job.getAllInputsLength() + copyrightNoticeSize;
   }
 
   /**
    * Helper method for parsing and outputting the result.
    */
-  private void parseAndPrint(StringBuilder result, GssParser parser)
-      throws GssParserException {
-    cssTree = parser.parse();
+  private void parseAndPrint(Appendable out, List<SourceCode> sources)
+      throws GssParserException, IOException {
+    cssTree = parse(sources);
+    releaseFileContents(sources);
     if (job.outputFormat != OutputFormat.DEBUG) {
       passRunner.runPasses(cssTree);
     }
+    CodeBuffer buffer = new CodeBuffer(out);
+    SourceMappingRecorder sourceMapGenerator = outputLineIndex == 0 && outputCharIndex == 0
+        ? gssSourceMapGenerator
+        : new OffsetSourceMappingRecorder(gssSourceMapGenerator, outputLineIndex, outputCharIndex);
+    print(job, cssTree, sourceMapGenerator, buffer);
+    buffer.flush();
+    advanceOutputPosition(buffer.getNextLineIndex(), buffer.getNextCharIndex());
+    appendChunkTemplates(printChunkTemplates(cssTree, sources));
+  }
+
+  /**
+   * Parses the specified sources into one tree. Subclasses may override this
+   * to reuse trees across compilations, as long as every call returns a tree
+   * that is not shared with any other call, since the passes mutate it. This
+   * is called concurrently when {@link JobDescription#numThreads} is greater
+   * than one.
+   */
+  protected CssTree parse(List<SourceCode> sources) throws GssParserException {
+    return new GssParser(sources).parse();
+  }
+
+  /**
+   * Releases the contents of the specified sources once they are parsed,
+   * unless a source map is created. Lazily read contents are read again if
+   * they are needed later, for instance to report an error.
+   */
+  private void releaseFileContents(List<SourceCode> sources) {
+    if (!job.createSourceMap) {
+      for (SourceCode source : sources) {
+        source.releaseFileContents();
+      }
+    }
+  }
+
+  /**
+   * Parses, optimizes and prints each input on a pool of
+   * {@link JobDescription#numThreads} threads. Class renaming and the
+   * concatenation of the printed inputs happen in input order on the calling
+   * thread, so that the output, the renaming map and the source map are the
+   * same as the ones of a sequential compilation.
+   */
+  private void parseAndPrintInParallel(Appendable out)
+      throws GssParserException, IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(job.numThreads, job.inputs.size()));
+    try {
+      List<Future<CssTree>> trees = new ArrayList<>(job.inputs.size());
+      for (final SourceCode source : job.inputs) {
+        trees.add(executor.submit(new Callable<CssTree>() {
+          @Override
+          public CssTree call() throws GssParserException {
+            CssTree tree = parse(ImmutableList.of(source));
+            releaseFileContents(ImmutableList.of(source));
+            if (job.outputFormat != OutputFormat.DEBUG) {
+              passRunner.runPassesExceptRenaming(tree);
+            }
+            return tree;
+          }
+        }));
+      }
+
+      List<Future<String>> outputs = new ArrayList<>(job.inputs.size());
+      List<SourceMappingBuffer> sourceMaps =
+          new ArrayList<>(job.inputs.size());
+      List<Future<Map<String, String>>> templates = new ArrayList<>(job.inputs.size());
+      for (int i = 0; i < trees.size(); i++) {
+        final CssTree tree = getResult(trees.get(i));
+        if (job.outputFormat != OutputFormat.DEBUG) {
+          passRunner.runRenamingPass(tree);
+        }
+        final SourceMappingBuffer sourceMap = new SourceMappingBuffer();
+        sourceMaps.add(sourceMap);
+        outputs.add(executor.submit(new Callable<String>() {
+          @Override
+          public String call() {
+            return print(tree, sourceMap);
+          }
+        }));
+        final List<SourceCode> sources = ImmutableList.of(job.inputs.get(i));
+        templates.add(executor.submit(new Callable<Map<String, String>>() {
+          @Override
+          public Map<String, String> call() {
+            return printChunkTemplates(tree, sources);
+          }
+        }));
+        cssTree = tree;
+      }
+
+      for (int i = 0; i < outputs.size(); i++) {
+        String output = getResult(outputs.get(i));
+        out.append(output);
+        sourceMaps.get(i).replayTo(gssSourceMapGenerator, outputLineIndex, outputCharIndex);
+        advanceOutputPosition(output);
+        appendChunkTemplates(getResult(templates.get(i)));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Prints the templates of the chunks of the specified sources, which were
+   * compiled into {@code tree}, unless the job has no chunks.
+   */
+  private Map<String, String> printChunkTemplates(CssTree tree, List<SourceCode> sources) {
+    if (chunkTemplates.isEmpty() || job.outputFormat == OutputFormat.DEBUG) {
+      return ImmutableMap.of();
+    }
+    Set<String> chunks = new LinkedHashSet<>();
+    for (SourceCode source : sources) {
+      chunks.add(job.fileToChunk.get(source.getFileName()));
+    }
+    TemplateCompactPrinterForChunks<String> printer =
+        new TemplateCompactPrinterForChunks<>(tree, chunks);
+    printer.setPreserveMarkedComments(job.preserveImportantComments);
+    // The inputs compiled on their own are already printed in parallel.
+    if (job.numThreads > 1 && chunks.size() > 1) {
+      ForkJoinPool pool = new ForkJoinPool(job.numThreads);
+      try {
+        printer.runPass(pool);
+      } finally {
+        pool.shutdownNow();
+      }
+    } else {
+      printer.runPass();
+    }
+    return printer.getCompactPrintedStrings();
+  }
+
+  private void appendChunkTemplates(Map<String, String> templates) {
+    for (Map.Entry<String, String> entry : templates.entrySet()) {
+      chunkTemplates.get(entry.getKey()).append(entry.getValue());
+    }
+  }
+
+  /**
+   * Waits for the result of a task, rethrowing whatever the task threw.
+   */
+  /** Moves the output position past {@code output}. */
+  private void advanceOutputPosition(String output) {
+    int lastNewline = output.lastIndexOf('\n');
+    int lines = 0;
+    for (int i = lastNewline; i >= 0; i = output.lastIndexOf('\n', i - 1)) {
+      lines++;
+    }
+    advanceOutputPosition(lines, output.length() - lastNewline - 1);
+  }
+
+  /**
+   * Moves the output position past a part of the output that has the
+   * specified number of line breaks and ends at {@code charIndex} in its last
+   * line.
+   */
+  private void advanceOutputPosition(int lines, int charIndex) {
+    if (lines == 0) {
+      outputCharIndex += charIndex;
+    } else {
+      outputLineIndex += lines;
+      outputCharIndex = charIndex;
+    }
+  }
+
+  private static <V> V getResult(Future<V> future) throws GssParserException {
+    try {
+      return Uninterruptibles.getUninterruptibly(future);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), GssParserException.class);
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  /**
+   * Prints the specified tree according to the output format of the job.
+   */
+  private String print(CssTree tree, SourceMappingRecorder sourceMapGenerator) {
+    return print(job, tree, sourceMapGenerator);
+  }
+
+  /**
+   * Prints the specified tree according to the output format of {@code job}.
+   */
+  static String print(JobDescription job, CssTree tree,
+      SourceMappingRecorder sourceMapGenerator) {
+    CodeBuffer buffer = new CodeBuffer();
+    print(job, tree, sourceMapGenerator, buffer);
+    return buffer.getOutput();
+  }
 
+  /**
+   * Prints the specified tree to {@code buffer} according to the output
+   * format of {@code job}.
+   */
+  static void print(JobDescription job, CssTree tree,
+      SourceMappingRecorder sourceMapGenerator, CodeBuffer buffer) {
     if (job.outputFormat == OutputFormat.COMPRESSED) {
-      CompactPrinter compactPrinterPass = new CompactPrinter(cssTree, gssSourceMapGenerator);
+      CompactPrinter compactPrinterPass = new CompactPrinter(tree, buffer, sourceMapGenerator);
       compactPrinterPass.setPreserveMarkedComments(job.preserveImportantComments);
       compactPrinterPass.runPass();
-      result.append(compactPrinterPass.getCompactPrintedString());
     } else {
-      PrettyPrinter prettyPrinterPass = new PrettyPrinter(cssTree
+      PrettyPrinter prettyPrinterPass = new PrettyPrinter(tree
           .getVisitController(),
-          null /* use external buffer */,
-          gssSourceMapGenerator);
+          buffer,
+          sourceMapGenerator);
       prettyPrinterPass
           .setPreserveComments(job.preserveComments)
           .runPass();
-      result.append(prettyPrinterPass.getPrettyPrintedString());
     }
   }
 
+  /**
+   * Returns the class renaming mappings recorded while compiling, or
+   * {@code null} if the job does not rename classes.
+   */
+  @Nullable protected Map<String, String> getRenamingMappings() {
+    RecordingSubstitutionMap recordingSubstitutionMap = passRunner
+        .getRecordingSubstitutionMap();
+    return recordingSubstitutionMap == null
+        ? null : recordingSubstitutionMap.getMappings();
+  }
+
+  /**
+   * Returns the template printed for each chunk of the job, in the order of
+   * {@link JobDescription#getChunks}. Only meaningful after {@link #compile}.
+   */
+  protected ImmutableMap<String, String> getChunkTemplates() {
+    ImmutableMap.Builder<String, String> templates = ImmutableMap.builder();
+    for (Map.Entry<String, StringBuilder> entry : chunkTemplates.entrySet()) {
+      templates.put(entry.getKey(), entry.getValue().toString());
+    }
+    return templates.build();
+  }
+
+  /**
+   * Appends the source map of the compiled output to {@code out}. Only
+   * meaningful after {@link #compile} when the job creates a source map.
+   *
+   * @param name filename to be written inside the source map
+   */
+  protected void appendSourceMapTo(Appendable out, String name)
+      throws IOException {
+    gssSourceMapGenerator.appendOutputTo(out, name);
+  }
+
   /**
    * Executes the job associated with this compiler and returns the compiled CSS
    * as a string. If {@code renameFile} is specified along with a
@@ -152,8 +448,23 @@ public class DefaultCommandLineCompiler extends AbstractCommandLineCompiler<JobD
    * as well.
    */
   protected String execute(@Nullable File renameFile, @Nullable File sourcemapFile) {
+    StringBuilder compilerOutput = new StringBuilder(getOutputLengthHint());
+    return execute(compilerOutput, renameFile, sourcemapFile)
+        ? compilerOutput.toString() : null;
+  }
+
+  /**
+   * Executes the job associated with this compiler and writes the compiled
+   * CSS to {@code out} as it is printed. If {@code renameFile} is specified
+   * along with a {@link RecordingSubstitutionMap}, then the renaming file will
+   * be written, as well.
+   *
+   * @return whether the job ran to completion, even if it reported errors
+   */
+  protected boolean execute(Appendable out, @Nullable File renameFile,
+      @Nullable File sourcemapFile) {
     try {
-      String compilerOutput = compile();
+      compileTo(out);
 
       // Print any errors or warnings.
       errorManager.generateReport();
@@ -185,7 +496,7 @@ public class DefaultCommandLineCompiler extends AbstractCommandLineCompiler<JobD
         sourceMapWriter.close();
       }
 
-      return compilerOutput;
+      return true;
     } catch (IOException e) {
       AbstractCommandLineCompiler.exitOnUnhandledException(e, exitCodeHandler);
     } catch (GssParserException e) {
@@ -202,7 +513,7 @@ public class DefaultCommandLineCompiler extends AbstractCommandLineCompiler<JobD
 
     // This line is unreachable because all paths through the above code block
     // result in calling System.exit().
-    return null;
+    return false;
   }
 
   /**
@@ -220,6 +531,67 @@ public class DefaultCommandLineCompiler extends AbstractCommandLineCompiler<JobD
         renamingMapWriter);
   }
 
+  /**
+   * Serializes the calls to an error manager shared by the worker threads.
+   */
+  /**
+   * Hands the source mappings of a part of the output printed on its own to
+   * the source map generator of the whole output, moved to where the part
+   * starts.
+   */
+  private static final class OffsetSourceMappingRecorder implements SourceMappingRecorder {
+    private final SourceMappingRecorder generator;
+    private final int lineOffset;
+    private final int charIndexOffset;
+
+    OffsetSourceMappingRecorder(
+        SourceMappingRecorder generator, int lineOffset, int charIndexOffset) {
+      this.generator = generator;
+      this.lineOffset = lineOffset;
+      this.charIndexOffset = charIndexOffset;
+    }
+
+    @Override
+    public void startSourceMapping(CssNode node, int startLine, int startCharIndex) {
+      generator.startSourceMapping(node, startLine + lineOffset,
+          startLine == 0 ? startCharIndex + charIndexOffset : startCharIndex);
+    }
+
+    @Override
+    public void endSourceMapping(CssNode node, int endLine, int endCharIndex) {
+      generator.endSourceMapping(node, endLine + lineOffset,
+          endLine == 0 ? endCharIndex + charIndexOffset : endCharIndex);
+    }
+  }
+
+  private static final class SynchronizedErrorManager implements ErrorManager {
+    private final ErrorManager delegate;
+
+    SynchronizedErrorManager(ErrorManager delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized void report(GssError error) {
+      delegate.report(error);
+    }
+
+    @Override
+    public synchronized void reportWarning(GssError warning) {
+      delegate.reportWarning(warning);
+    }
+
+    @Override
+    public synchronized void generateReport() {
+      delegate.generateReport();
+    }
+
+    @Override
+    public synchronized boolean hasErrors() {
+      return delegate.hasErrors();
+    }
+  }
+
   /**
    * An error message handler.
    */
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.commandline;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.css.JobDescription;
+import com.google.common.css.JobDescription.OutputFormat;
+import com.google.common.css.RecordingSubstitutionMap;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssAtRuleNode;
+import com.google.common.css.compiler.ast.CssBlockNode;
+import com.google.common.css.compiler.ast.CssCommentNode;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssRootNode;
+import com.google.common.css.compiler.ast.CssStringNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.CssUnknownAtRuleNode;
+import com.google.common.css.compiler.ast.CssValueNode;
+import com.google.common.css.compiler.ast.ErrorManager;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.GssParserException;
+import com.google.common.css.compiler.passes.DummyErrorManager;
+import com.google.common.css.compiler.passes.GssSourceMapGenerator;
+import com.google.common.css.compiler.passes.NullGssSourceMapGenerator;
+import com.google.common.css.compiler.passes.PassRunner;
+import com.google.common.css.compiler.passes.StreamingGssSourceMapGenerator;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * {@link IncrementalCompiler} compiles a changing set of inputs over and over,
+ * only recompiling the inputs whose contents or dependencies changed since the
+ * previous {@link #compile}.
+ *
+ * <p>Each input is compiled on its own, as with
+ * {@link JobDescription#allowDefPropagation} disabled, except that the
+ * {@code @def} constants and {@code @defmixin} mixins of the inputs it
+ * transitively {@code @require}s are visible to it. The compiled CSS of every
+ * input is cached together with its source mappings, keyed on the content
+ * hashes of the input and of its dependencies, and the output is the
+ * concatenation of the compiled inputs in input order.
+ *
+ * <p>Class renaming uses one {@link RecordingSubstitutionMap} for the lifetime
+ * of the compiler, so a class keeps its renamed value across compilations.
+ * Warnings are only reported when an input is actually recompiled.
+ */
+public class IncrementalCompiler {
+
+  private static final SourceCode GLOBAL_SOURCE_CODE = new SourceCode("global", null);
+
+  private static final String PROVIDE = CssAtRuleNode.Type.PROVIDE.getCanonicalName();
+  private static final String REQUIRE = CssAtRuleNode.Type.REQUIRE.getCanonicalName();
+
+  /** At-rules of a dependency that are copied into the inputs requiring it. */
+  private static final ImmutableSet<String> DEFINITIONS = ImmutableSet.of(
+      CssAtRuleNode.Type.DEF.getCanonicalName(),
+      CssAtRuleNode.Type.DEFMIXIN.getCanonicalName(),
+      PROVIDE);
+
+  private final JobDescription job;
+
+  @Nullable private final RecordingSubstitutionMap recordingSubstitutionMap;
+
+  /** Key: file name. */
+  private final Map<String, ParsedInput> parsedInputs = new HashMap<>();
+
+  /** Key: file name. */
+  private final Map<String, CompiledInput> compiledInputs = new HashMap<>();
+
+  /**
+   * @param job the options to compile with. Its inputs are ignored, the
+   *     inputs are passed to {@link #compile} instead.
+   */
+  public IncrementalCompiler(JobDescription job) {
+    this.job = job;
+    this.recordingSubstitutionMap =
+        new PassRunner(job, DummyErrorManager.getInstance()).getRecordingSubstitutionMap();
+  }
+
+  /**
+   * Compiles the specified inputs, reusing the compiled CSS of the inputs that
+   * did not change since the previous call.
+   *
+   * @param inputs the inputs, which must have distinct file names
+   * @param errorManager the error manager to report errors to
+   */
+  public Result compile(List<SourceCode> inputs, ErrorManager errorManager)
+      throws GssParserException {
+    Map<String, ParsedInput> currentInputs = new LinkedHashMap<>();
+    Map<String, ParsedInput> providers = new HashMap<>();
+    for (SourceCode source : inputs) {
+      ParsedInput input = getParsedInput(source);
+      currentInputs.put(input.fileName, input);
+      if (input.provide != null) {
+        providers.put(input.provide, input);
+      }
+    }
+    parsedInputs.keySet().retainAll(currentInputs.keySet());
+    compiledInputs.keySet().retainAll(currentInputs.keySet());
+
+    PassRunner passRunner = new PassRunner(job, errorManager, recordingSubstitutionMap);
+    GssSourceMapGenerator sourceMapGenerator = job.createSourceMap
+        ? new StreamingGssSourceMapGenerator(job.sourceMapLevel)
+        : new NullGssSourceMapGenerator();
+    OutputBuilder output = new OutputBuilder();
+    if (job.copyrightNotice != null) {
+      output.append(job.copyrightNotice);
+    }
+
+    ImmutableList.Builder<String> recompiledInputs = ImmutableList.builder();
+    for (ParsedInput input : currentInputs.values()) {
+      List<ParsedInput> dependencies = getTransitiveDependencies(input, providers);
+      String key = getCompiledInputKey(input, dependencies);
+      CompiledInput compiled = compiledInputs.get(input.fileName);
+      if (compiled == null || !compiled.key.equals(key)) {
+        boolean hadErrors = errorManager.hasErrors();
+        compiled = compileInput(input, dependencies, key, passRunner);
+        recompiledInputs.add(input.fileName);
+        if (hadErrors || errorManager.hasErrors()) {
+          compiledInputs.remove(input.fileName);
+        } else {
+          compiledInputs.put(input.fileName, compiled);
+        }
+      }
+      compiled.sourceMap.replayTo(
+          sourceMapGenerator, output.nextLineIndex, output.nextCharIndex);
+      output.append(compiled.output);
+    }
+
+    return new Result(
+        output.sb.toString(),
+        recordingSubstitutionMap == null ? null : recordingSubstitutionMap.getMappings(),
+        recompiledInputs.build(),
+        sourceMapGenerator);
+  }
+
+  private ParsedInput getParsedInput(SourceCode source) throws GssParserException {
+    String contentHash = Hashing.sha256().hashString(source.getFileContents(), UTF_8).toString();
+    ParsedInput input = parsedInputs.get(source.getFileName());
+    if (input == null || !input.contentHash.equals(contentHash)) {
+      input = new ParsedInput(source.getFileName(), contentHash, new GssParser(source).parse());
+      parsedInputs.put(input.fileName, input);
+    }
+    return input;
+  }
+
+  /**
+   * Returns the inputs providing the namespaces required by {@code input},
+   * directly or not, so that every input comes after its own dependencies.
+   * Namespaces that nobody provides are left for
+   * {@link com.google.common.css.compiler.passes.CheckDependencyNodes} to
+   * report.
+   */
+  private static List<ParsedInput> getTransitiveDependencies(
+      ParsedInput input, Map<String, ParsedInput> providers) {
+    Set<ParsedInput> dependencies = new LinkedHashSet<>();
+    Set<ParsedInput> visited = new HashSet<>();
+    visited.add(input);
+    addDependencies(input, providers, dependencies, visited);
+    return ImmutableList.copyOf(dependencies);
+  }
+
+  private static void addDependencies(ParsedInput input, Map<String, ParsedInput> providers,
+      Set<ParsedInput> dependencies, Set<ParsedInput> visited) {
+    for (String require : input.requires) {
+      ParsedInput dependency = providers.get(require);
+      if (dependency != null && visited.add(dependency)) {
+        addDependencies(dependency, providers, dependencies, visited);
+        dependencies.add(dependency);
+      }
+    }
+  }
+
+  private static String getCompiledInputKey(ParsedInput input, List<ParsedInput> dependencies) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(input.contentHash, UTF_8);
+    for (ParsedInput dependency : dependencies) {
+      hasher.putString(dependency.fileName, UTF_8);
+      hasher.putString(dependency.contentHash, UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  private CompiledInput compileInput(ParsedInput input, List<ParsedInput> dependencies,
+      String key, PassRunner passRunner) {
+    // The parsed trees are kept for the next compilation, so only copies of
+    // their nodes go into the tree that the passes mutate.
+    List<CssNode> children = new ArrayList<>();
+    for (ParsedInput dependency : dependencies) {
+      for (CssNode child : dependency.getBody().childIterable()) {
+        if (child instanceof CssUnknownAtRuleNode
+            && DEFINITIONS.contains(((CssUnknownAtRuleNode) child).getName().getValue())) {
+          children.add(child.deepCopy());
+        }
+      }
+    }
+    for (CssNode child : input.getBody().childIterable()) {
+      children.add(child.deepCopy());
+    }
+    CssBlockNode globalBlock = new CssBlockNode(false /* isEnclosedWithBraces */, children);
+    for (CssCommentNode comment : input.getBody().getComments()) {
+      globalBlock.appendComment(comment.deepCopy());
+    }
+    CssTree tree = new CssTree(GLOBAL_SOURCE_CODE, new CssRootNode(globalBlock));
+
+    if (job.outputFormat != OutputFormat.DEBUG) {
+      passRunner.runPasses(tree);
+    }
+    SourceMappingBuffer sourceMap = new SourceMappingBuffer();
+    String output = DefaultCommandLineCompiler.print(job, tree, sourceMap);
+    return new CompiledInput(key, output, sourceMap);
+  }
+
+  /**
+   * The result of {@link IncrementalCompiler#compile}.
+   */
+  public static final class Result {
+    private final String output;
+    @Nullable private final Map<String, String> renamingMappings;
+    private final List<String> recompiledInputs;
+    private final GssSourceMapGenerator sourceMapGenerator;
+
+    private Result(String output, @Nullable Map<String, String> renamingMappings,
+        List<String> recompiledInputs, GssSourceMapGenerator sourceMapGenerator) {
+      this.output = output;
+      this.renamingMappings = renamingMappings;
+      this.recompiledInputs = recompiledInputs;
+      this.sourceMapGenerator = sourceMapGenerator;
+    }
+
+    /** Returns the compiled CSS. */
+    public String getOutput() {
+      return output;
+    }
+
+    /**
+     * Returns all the class renaming mappings recorded so far by the
+     * compiler, or {@code null} if the job does not rename classes.
+     */
+    @Nullable public Map<String, String> getRenamingMappings() {
+      return renamingMappings;
+    }
+
+    /** Returns the file names of the inputs that were not taken from the cache. */
+    public List<String> getRecompiledInputs() {
+      return recompiledInputs;
+    }
+
+    /**
+     * Appends the source map of the output to {@code out}, if the job creates
+     * one.
+     *
+     * @param name filename to be written inside the source map
+     */
+    public void appendSourceMapTo(Appendable out, String name) throws IOException {
+      sourceMapGenerator.appendOutputTo(out, name);
+    }
+  }
+
+  private static final class ParsedInput {
+    final String fileName;
+    final String contentHash;
+    /** As returned by the parser. Must not be mutated. */
+    final CssTree tree;
+    @Nullable final String provide;
+    final List<String> requires;
+
+    ParsedInput(String fileName, String contentHash, CssTree tree) {
+      this.fileName = fileName;
+      this.contentHash = contentHash;
+      this.tree = tree;
+      String provide = null;
+      ImmutableList.Builder<String> requires = ImmutableList.builder();
+      for (CssNode child : getBody().childIterable()) {
+        if (child instanceof CssUnknownAtRuleNode) {
+          CssUnknownAtRuleNode atRule = (CssUnknownAtRuleNode) child;
+          String name = atRule.getName().getValue();
+          String namespace = getNamespace(atRule);
+          if (namespace == null) {
+            continue;
+          }
+          if (PROVIDE.equals(name)) {
+            provide = namespace;
+          } else if (REQUIRE.equals(name)) {
+            requires.add(namespace);
+          }
+        }
+      }
+      this.provide = provide;
+      this.requires = requires.build();
+    }
+
+    CssBlockNode getBody() {
+      return tree.getRoot().getBody();
+    }
+
+    @Nullable private static String getNamespace(CssUnknownAtRuleNode atRule) {
+      List<CssValueNode> parameters = atRule.getParameters();
+      if (parameters.isEmpty() || !(parameters.get(0) instanceof CssStringNode)) {
+        return null;
+      }
+      return ((CssStringNode) parameters.get(0)).getValue();
+    }
+  }
+
+  private static final class CompiledInput {
+    final String key;
+    final String output;
+    final SourceMappingBuffer sourceMap;
+
+    CompiledInput(String key, String output, SourceMappingBuffer sourceMap) {
+      this.key = key;
+      this.output = output;
+      this.sourceMap = sourceMap;
+    }
+  }
+
+  /**
+   * Concatenates the compiled inputs, keeping track of the position of the
+   * next character as {@link com.google.common.css.compiler.passes.CodeBuffer}
+   * does.
+   */
+  private static final class OutputBuilder {
+    final StringBuilder sb = new StringBuilder();
+    int nextLineIndex = 0;
+    int nextCharIndex = 0;
+
+    void append(String s) {
+      sb.append(s);
+      for (int i = 0; i < s.length(); i++) {
+        if (s.charAt(i) == '\n') {
+          nextLineIndex++;
+          nextCharIndex = 0;
+        } else {
+          nextCharIndex++;
+        }
+      }
+    }
+  }
+}
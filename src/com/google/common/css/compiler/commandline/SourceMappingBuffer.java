@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.commandline;
+
+import com.google.common.css.SourceCodeLocation;
+import com.google.common.css.compiler.ast.CssLiteralNode;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.passes.SourceMappingRecorder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Records the source mappings of one printed input so that they can be handed
+ * to the source map generator of the whole output later, for instance in
+ * input order after the inputs were printed concurrently, or after a cached
+ * input was placed at a new position in the output.
+ *
+ * <p>Only the source code locations of the nodes are kept, not the nodes, so
+ * that a buffer kept around does not keep the printed tree alive. The
+ * mappings are replayed for stand-in nodes that have the same locations.
+ */
+final class SourceMappingBuffer implements SourceMappingRecorder {
+  private final List<SourceMappingEvent> events = new ArrayList<>();
+
+  /** The source code locations of the started mappings. */
+  private final List<SourceCodeLocation> locations = new ArrayList<>();
+
+  /**
+   * The nodes whose mappings are started but not finished yet, innermost
+   * first, with the indices of their mappings. The printers finish every
+   * mapping they start, so no node is left here once printing is done.
+   */
+  private final Deque<CssNode> openNodes = new ArrayDeque<>();
+  private final Deque<Integer> openMappings = new ArrayDeque<>();
+
+  @Override
+  public void startSourceMapping(CssNode node, int startLine, int startCharIndex) {
+    int mapping = locations.size();
+    locations.add(node.getSourceCodeLocation());
+    openNodes.push(node);
+    openMappings.push(mapping);
+    events.add(new SourceMappingEvent(mapping, startLine, startCharIndex, true));
+  }
+
+  @Override
+  public void endSourceMapping(CssNode node, int endLine, int endCharIndex) {
+    // As in the generators, only the innermost mapping can be finished.
+    if (!openNodes.isEmpty() && openNodes.peek() == node) {
+      openNodes.pop();
+      events.add(new SourceMappingEvent(openMappings.pop(), endLine, endCharIndex, false));
+    }
+  }
+
+  /**
+   * Replays the recorded mappings into {@code generator}, as if the recorded
+   * output started at the specified line and character index.
+   */
+  void replayTo(SourceMappingRecorder generator, int lineOffset, int charIndexOffset) {
+    CssNode[] nodes = new CssNode[locations.size()];
+    for (SourceMappingEvent event : events) {
+      int line = event.line + lineOffset;
+      int charIndex = event.line == 0 ? event.charIndex + charIndexOffset : event.charIndex;
+      if (event.start) {
+        nodes[event.mapping] = new CssLiteralNode("", locations.get(event.mapping));
+        generator.startSourceMapping(nodes[event.mapping], line, charIndex);
+      } else {
+        generator.endSourceMapping(nodes[event.mapping], line, charIndex);
+      }
+    }
+  }
+
+  private static final class SourceMappingEvent {
+    final int mapping;
+    final int line;
+    final int charIndex;
+    final boolean start;
+
+    SourceMappingEvent(int mapping, int line, int charIndex, boolean start) {
+      this.mapping = mapping;
+      this.line = line;
+      this.charIndex = charIndex;
+      this.start = start;
+    }
+  }
+}
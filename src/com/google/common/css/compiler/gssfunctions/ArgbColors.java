@@ -0,0 +1,222 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.gssfunctions;
+
+/**
+ * Colors packed into an {@code int} as {@code 0xAARRGGBB}, with the
+ * conversions between the RGB, HSB and HSL color spaces that the color
+ * functions need. Nothing here allocates except for the formatting methods,
+ * so the color functions don't need {@code java.awt} or {@code float[]}
+ * arrays.
+ *
+ * <p>The HSB conversions give the same results as the ones of
+ * {@code java.awt.Color}. Hue, saturation, brightness and lightness are
+ * floats in the range 0 to 1.
+ */
+public final class ArgbColors {
+
+  /** Opaque black. */
+  public static final int BLACK = 0xFF000000;
+
+  /** Opaque white. */
+  public static final int WHITE = 0xFFFFFFFF;
+
+  private static final char[] UPPER_CASE_DIGITS = "0123456789ABCDEF".toCharArray();
+  private static final char[] LOWER_CASE_DIGITS = "0123456789abcdef".toCharArray();
+
+  /**
+   * Packs the given components, each in the range 0 to 255, into a color.
+   */
+  public static int argb(int alpha, int red, int green, int blue) {
+    return ((alpha & 0xFF) << 24) | ((red & 0xFF) << 16) | ((green & 0xFF) << 8) | (blue & 0xFF);
+  }
+
+  /**
+   * Packs the given components, each in the range 0 to 255, into an opaque
+   * color.
+   */
+  public static int rgb(int red, int green, int blue) {
+    return argb(0xFF, red, green, blue);
+  }
+
+  public static int alpha(int color) {
+    return color >>> 24;
+  }
+
+  public static int red(int color) {
+    return (color >> 16) & 0xFF;
+  }
+
+  public static int green(int color) {
+    return (color >> 8) & 0xFF;
+  }
+
+  public static int blue(int color) {
+    return color & 0xFF;
+  }
+
+  /** Returns the hue of the color, which is the same in HSB and HSL. */
+  public static float hue(int color) {
+    int r = red(color);
+    int g = green(color);
+    int b = blue(color);
+    int cmax = Math.max(r, Math.max(g, b));
+    int cmin = Math.min(r, Math.min(g, b));
+    if (cmax == cmin) {
+      return 0;
+    }
+    float redc = ((float) (cmax - r)) / ((float) (cmax - cmin));
+    float greenc = ((float) (cmax - g)) / ((float) (cmax - cmin));
+    float bluec = ((float) (cmax - b)) / ((float) (cmax - cmin));
+    float hue;
+    if (r == cmax) {
+      hue = bluec - greenc;
+    } else if (g == cmax) {
+      hue = 2.0f + redc - bluec;
+    } else {
+      hue = 4.0f + greenc - redc;
+    }
+    hue = hue / 6.0f;
+    if (hue < 0) {
+      hue = hue + 1.0f;
+    }
+    return hue;
+  }
+
+  /** Returns the saturation of the color in HSB color space. */
+  public static float saturation(int color) {
+    int r = red(color);
+    int g = green(color);
+    int b = blue(color);
+    int cmax = Math.max(r, Math.max(g, b));
+    int cmin = Math.min(r, Math.min(g, b));
+    return cmax == 0 ? 0 : ((float) (cmax - cmin)) / ((float) cmax);
+  }
+
+  /** Returns the brightness of the color in HSB color space. */
+  public static float brightness(int color) {
+    return ((float) Math.max(red(color), Math.max(green(color), blue(color)))) / 255.0f;
+  }
+
+  /** Returns the saturation of the color in HSL color space. */
+  public static float hslSaturation(int color) {
+    float saturation = saturation(color);
+    float brightness = brightness(color);
+    float lightness = brightness * (2 - saturation) / 2;
+    return brightness * saturation / (1 - Math.abs(2 * lightness - 1));
+  }
+
+  /** Returns the lightness of the color in HSL color space. */
+  public static float lightness(int color) {
+    return brightness(color) * (2 - saturation(color)) / 2;
+  }
+
+  /**
+   * Returns the opaque color with the given HSB components. Only the
+   * fractional part of the hue is used, so that hues wrap around.
+   */
+  public static int hsb(float hue, float saturation, float brightness) {
+    int r;
+    int g;
+    int b;
+    if (saturation == 0) {
+      r = g = b = (int) (brightness * 255.0f + 0.5f);
+    } else {
+      float h = (hue - (float) Math.floor(hue)) * 6.0f;
+      float f = h - (float) Math.floor(h);
+      float p = brightness * (1.0f - saturation);
+      float q = brightness * (1.0f - saturation * f);
+      float t = brightness * (1.0f - (saturation * (1.0f - f)));
+      switch ((int) h) {
+        case 0:
+          r = (int) (brightness * 255.0f + 0.5f);
+          g = (int) (t * 255.0f + 0.5f);
+          b = (int) (p * 255.0f + 0.5f);
+          break;
+        case 1:
+          r = (int) (q * 255.0f + 0.5f);
+          g = (int) (brightness * 255.0f + 0.5f);
+          b = (int) (p * 255.0f + 0.5f);
+          break;
+        case 2:
+          r = (int) (p * 255.0f + 0.5f);
+          g = (int) (brightness * 255.0f + 0.5f);
+          b = (int) (t * 255.0f + 0.5f);
+          break;
+        case 3:
+          r = (int) (p * 255.0f + 0.5f);
+          g = (int) (q * 255.0f + 0.5f);
+          b = (int) (brightness * 255.0f + 0.5f);
+          break;
+        case 4:
+          r = (int) (t * 255.0f + 0.5f);
+          g = (int) (p * 255.0f + 0.5f);
+          b = (int) (brightness * 255.0f + 0.5f);
+          break;
+        case 5:
+          r = (int) (brightness * 255.0f + 0.5f);
+          g = (int) (p * 255.0f + 0.5f);
+          b = (int) (q * 255.0f + 0.5f);
+          break;
+        default:
+          r = g = b = 0;
+          break;
+      }
+    }
+    // Not masked, to stay bit for bit compatible with java.awt.Color.
+    return 0xFF000000 | (r << 16) | (g << 8) | b;
+  }
+
+  /**
+   * Returns the opaque color with the given HSL components. Only the
+   * fractional part of the hue is used, so that hues wrap around.
+   */
+  public static int hsl(float hue, float saturation, float lightness) {
+    float brightness = (2 * lightness + saturation * (1 - Math.abs(2 * lightness - 1))) / 2;
+    return hsb(hue, 2 * (brightness - lightness) / brightness, brightness);
+  }
+
+  /**
+   * Formats the red, green and blue components of the color as an upper case
+   * CSS hex color, such as {@code #FF8000}.
+   */
+  public static String toHexString(int color) {
+    return formatHex(color, UPPER_CASE_DIGITS);
+  }
+
+  /**
+   * Formats the red, green and blue components of the color as a lower case
+   * CSS hex color, such as {@code #ff8000}.
+   */
+  public static String toLowerCaseHexString(int color) {
+    return formatHex(color, LOWER_CASE_DIGITS);
+  }
+
+  private static String formatHex(int color, char[] digits) {
+    char[] chars = new char[7];
+    chars[0] = '#';
+    for (int i = 6; i > 0; i--) {
+      chars[i] = digits[color & 0xF];
+      color >>= 4;
+    }
+    return new String(chars);
+  }
+
+  // Utility class, static methods only.
+  private ArgbColors() {
+  }
+}
@@ -16,19 +16,16 @@
 
 package com.google.common.css.compiler.gssfunctions;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
-import java.awt.Color;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * A parser that recognizes all color formats allowed by the CSS Level 2
- * and SVG 1.0 specifications.
+ * and SVG 1.0 specifications. The colors are packed into ints as described in
+ * {@link ArgbColors}.
  *
  * <p>See <a href="http://www.w3.org/TR/CSS21/syndata.html#color-units">the CSS
  * 2.1 colors</a>.
@@ -55,340 +52,287 @@ import java.util.regex.Pattern;
  *     ColorParser.Format.CSS_RGB,
  *     ColorParser.Format.CSS_KEYWORDS);
  * // Parse a color:
- * Color red = parser.parse("rgb(255, 0, 0)");
+ * int red = parser.parse("rgb(255, 0, 0)");
  * </pre>
  *
  * <p>Also see the {@link #parseAny} static convenience method.
  *
+ * <p>The formats are recognized by hand rather than with regular expressions,
+ * so that parsing the common colors allocates nothing. The numbers in the
+ * "rgb(...)" formats follow the CSS2 spec:
+ *
+ * <blockquote>
+ * An &lt;integer&gt; consists of one or more digits "0" to "9".
+ * A &lt;number&gt; can either be an &lt;integer&gt;, or it can be zero
+ * or more digits followed by a dot (.) followed by one or more
+ * digits. Both integers and real numbers may be preceded by a "-"
+ * or "+" to indicate the sign.
+ *
+ * <p>The format of a percentage value is an optional sign character
+ * ('+' or '-', with '+' being the default) immediately followed by a
+ * &lt;number&gt; immediately followed by '%'.
+ * </blockquote>
+ *
  * @author chrisn@google.com (Chris Nokleberg)
  */
 final class ColorParser {
 
-  /** Pattern for matching #RRGGBB */
-  private static final Pattern HEX6_PATTERN = formatHexadecimalPattern(6);
-
-  /** Pattern for matching #RRGGBBAA */
-  private static final Pattern HEX8_PATTERN = formatHexadecimalPattern(8);
-
-  /** Pattern for matching #RGBA */
-  private static final Pattern HEX4_PATTERN = formatHexadecimalPattern(4);
-
-  /** Pattern for matching rgb(r, g, b) [0-255] */
-  private static final Pattern CSS_RGB_PATTERN;
-
-  /** Pattern for matching rgb(r, g, b) [0-100%] */
-  private static final Pattern CSS_PERCENT_PATTERN;
-
-  /** Pattern for matching rgba(r, g, b, a) [0-255, a = 0-1] */
-  private static final Pattern CSS_RGBA_PATTERN;
-
-  /** Pattern for matching rgba(r, g, b, a) [0-100%, a = 0-1] */
-  private static final Pattern CSS_RGBA_PERCENT_PATTERN;
-
-  // Initialize the patterns to recognize "rgb(...)" colors.
-  static {
-    /*
-      From CSS2 spec:
-
-      An <integer> consists of one or more digits "0" to "9".
-      A <number> can either be an <integer>, or it can be zero
-      or more digits followed by a dot (.) followed by one or more
-      digits. Both integers and real numbers may be preceded by a "-"
-      or "+" to indicate the sign.
-
-      The format of a percentage value is an optional sign character
-      ('+' or '-', with '+' being the default) immediately followed by a
-      <number> immediately followed by '%'.
-    */
-    String integerPattern = "([+-]?[0-9]+)";
-    String numberPattern = "([+-]?[0-9]+|[+-]?[0-9]*\\.[0-9]+)";
-    String rgbTemplate = "^rgb\\(\\s*%1$s\\s*,\\s*%1$s\\s*,\\s*%1$s\\s*\\)$";
-    CSS_RGB_PATTERN = Pattern.compile(
-        String.format(rgbTemplate, integerPattern));
-    CSS_PERCENT_PATTERN = Pattern.compile(
-        String.format(rgbTemplate, numberPattern + "%"));
-
-    String rgbaTemplate =
-        "^rgba\\(\\s*%1$s\\s*,\\s*%1$s\\s*,\\s*%1$s\\s*\\,\\s*%2$s\\s*\\)$";
-    CSS_RGBA_PATTERN = Pattern.compile(
-        String.format(rgbaTemplate, integerPattern, numberPattern));
-    CSS_RGBA_PERCENT_PATTERN = Pattern.compile(
-        String.format(rgbaTemplate, numberPattern + "%", numberPattern));
-  }
+  /**
+   * What {@link Format#parse} returns when the format cannot parse the value.
+   * The parsed colors are returned as non-negative longs, so it is distinct
+   * from all of them.
+   */
+  static final long NO_MATCH = -1;
+
+  /**
+   * Integers at least this large are clipped by all the formats, so there is
+   * no need to parse them exactly.
+   */
+  private static final int LARGE_INTEGER = 1000000;
 
   /** Map of the 16 allowed colors defined in HTML 4.01. */
-  private static final ImmutableMap<String, Color> HTML_COLOR_MAP =
-      new ImmutableMap.Builder<String, Color>()
-          .put("aqua", new Color(0x00FFFF))
-          .put("black", new Color(0x000000))
-          .put("blue", new Color(0x0000FF))
-          .put("fuchsia", new Color(0xFF00FF))
-          .put("gray", new Color(0x808080))
-          .put("green", new Color(0x008000))
-          .put("lime", new Color(0x00FF00))
-          .put("maroon", new Color(0x800000))
-          .put("navy", new Color(0x000080))
-          .put("olive", new Color(0x808000))
-          .put("purple", new Color(0x800080))
-          .put("red", new Color(0xFF0000))
-          .put("silver", new Color(0xC0C0C0))
-          .put("teal", new Color(0x008080))
-          .put("white", new Color(0xFFFFFF))
-          .put("yellow", new Color(0xFFFF00))
+  private static final ImmutableMap<String, Integer> HTML_COLOR_MAP =
+      new ImmutableMap.Builder<String, Integer>()
+          .put("aqua", 0xFF00FFFF)
+          .put("black", 0xFF000000)
+          .put("blue", 0xFF0000FF)
+          .put("fuchsia", 0xFFFF00FF)
+          .put("gray", 0xFF808080)
+          .put("green", 0xFF008000)
+          .put("lime", 0xFF00FF00)
+          .put("maroon", 0xFF800000)
+          .put("navy", 0xFF000080)
+          .put("olive", 0xFF808000)
+          .put("purple", 0xFF800080)
+          .put("red", 0xFFFF0000)
+          .put("silver", 0xFFC0C0C0)
+          .put("teal", 0xFF008080)
+          .put("white", 0xFFFFFFFF)
+          .put("yellow", 0xFFFFFF00)
           .build();
 
   /** All the named colors defined in CSS 2.1 */
-  private static final ImmutableMap<String, Color> CSS_COLOR_MAP =
-      new ImmutableMap.Builder<String, Color>()
+  private static final ImmutableMap<String, Integer> CSS_COLOR_MAP =
+      new ImmutableMap.Builder<String, Integer>()
           .putAll(HTML_COLOR_MAP)
-          .put("orange", new Color(0xFFA500))
+          .put("orange", 0xFFFFA500)
           .build();
 
   /** All the named colors defined in SVG 1.0 */
-  private static final ImmutableMap<String, Color> SVG_COLOR_MAP =
-      new ImmutableMap.Builder<String, Color>()
+  private static final ImmutableMap<String, Integer> SVG_COLOR_MAP =
+      new ImmutableMap.Builder<String, Integer>()
           .putAll(CSS_COLOR_MAP)
-          .put("aliceblue", new Color(0xF0F8FF))
-          .put("antiquewhite", new Color(0xFAEBD7))
-          .put("aquamarine", new Color(0x7FFFD4))
-          .put("azure", new Color(0xF0FFFF))
-          .put("beige", new Color(0xF5F5DC))
-          .put("bisque", new Color(0xFFE4C4))
-          .put("blanchedalmond", new Color(0xFFEBCD))
-          .put("blueviolet", new Color(0x8A2BE2))
-          .put("brown", new Color(0xA52A2A))
-          .put("burlywood", new Color(0xDEB887))
-          .put("cadetblue", new Color(0x5F9EA0))
-          .put("chartreuse", new Color(0x7FFF00))
-          .put("chocolate", new Color(0xD2691E))
-          .put("coral", new Color(0xFF7F50))
-          .put("cornflowerblue", new Color(0x6495ED))
-          .put("cornsilk", new Color(0xFFF8DC))
-          .put("crimson", new Color(0xDC143C))
-          .put("cyan", new Color(0x00FFFF))
-          .put("darkblue", new Color(0x00008B))
-          .put("darkcyan", new Color(0x008B8B))
-          .put("darkgoldenrod", new Color(0xB8860B))
-          .put("darkgray", new Color(0xA9A9A9))
-          .put("darkgreen", new Color(0x006400))
-          .put("darkgrey", new Color(0xA9A9A9))
-          .put("darkkhaki", new Color(0xBDB76B))
-          .put("darkmagenta", new Color(0x8B008B))
-          .put("darkolivegreen", new Color(0x556B2F))
-          .put("darkorange", new Color(0xFF8C00))
-          .put("darkorchid", new Color(0x9932CC))
-          .put("darkred", new Color(0x8B0000))
-          .put("darksalmon", new Color(0xE9967A))
-          .put("darkseagreen", new Color(0x8FBC8F))
-          .put("darkslateblue", new Color(0x483D8B))
-          .put("darkslategray", new Color(0x2F4F4F))
-          .put("darkslategrey", new Color(0x2F4F4F))
-          .put("darkturquoise", new Color(0x00CED1))
-          .put("darkviolet", new Color(0x9400D3))
-          .put("deeppink", new Color(0xFF1493))
-          .put("deepskyblue", new Color(0x00BFFF))
-          .put("dimgray", new Color(0x696969))
-          .put("dimgrey", new Color(0x696969))
-          .put("dodgerblue", new Color(0x1E90FF))
-          .put("firebrick", new Color(0xB22222))
-          .put("floralwhite", new Color(0xFFFAF0))
-          .put("forestgreen", new Color(0x228B22))
-          .put("gainsboro", new Color(0xDCDCDC))
-          .put("ghostwhite", new Color(0xF8F8FF))
-          .put("gold", new Color(0xFFD700))
-          .put("goldenrod", new Color(0xDAA520))
-          .put("greenyellow", new Color(0xADFF2F))
-          .put("grey", new Color(0x808080))
-          .put("honeydew", new Color(0xF0FFF0))
-          .put("hotpink", new Color(0xFF69B4))
-          .put("indianred", new Color(0xCD5C5C))
-          .put("indigo", new Color(0x4B0082))
-          .put("ivory", new Color(0xFFFFF0))
-          .put("khaki", new Color(0xF0E68C))
-          .put("lavender", new Color(0xE6E6FA))
-          .put("lavenderblush", new Color(0xFFF0F5))
-          .put("lawngreen", new Color(0x7CFC00))
-          .put("lemonchiffon", new Color(0xFFFACD))
-          .put("lightblue", new Color(0xADD8E6))
-          .put("lightcoral", new Color(0xF08080))
-          .put("lightcyan", new Color(0xE0FFFF))
-          .put("lightgoldenrodyellow", new Color(0xFAFAD2))
-          .put("lightgray", new Color(0xD3D3D3))
-          .put("lightgreen", new Color(0x90EE90))
-          .put("lightgrey", new Color(0xD3D3D3))
-          .put("lightpink", new Color(0xFFB6C1))
-          .put("lightsalmon", new Color(0xFFA07A))
-          .put("lightseagreen", new Color(0x20B2AA))
-          .put("lightskyblue", new Color(0x87CEFA))
-          .put("lightslategray", new Color(0x778899))
-          .put("lightslategrey", new Color(0x778899))
-          .put("lightsteelblue", new Color(0xB0C4DE))
-          .put("lightyellow", new Color(0xFFFFE0))
-          .put("limegreen", new Color(0x32CD32))
-          .put("linen", new Color(0xFAF0E6))
-          .put("magenta", new Color(0xFF00FF))
-          .put("mediumaquamarine", new Color(0x66CDAA))
-          .put("mediumblue", new Color(0x0000CD))
-          .put("mediumorchid", new Color(0xBA55D3))
-          .put("mediumpurple", new Color(0x9370DB))
-          .put("mediumseagreen", new Color(0x3CB371))
-          .put("mediumslateblue", new Color(0x7B68EE))
-          .put("mediumspringgreen", new Color(0x00FA9A))
-          .put("mediumturquoise", new Color(0x48D1CC))
-          .put("mediumvioletred", new Color(0xC71585))
-          .put("midnightblue", new Color(0x191970))
-          .put("mintcream", new Color(0xF5FFFA))
-          .put("mistyrose", new Color(0xFFE4E1))
-          .put("moccasin", new Color(0xFFE4B5))
-          .put("navajowhite", new Color(0xFFDEAD))
-          .put("oldlace", new Color(0xFDF5E6))
-          .put("olivedrab", new Color(0x6B8E23))
-          .put("orangered", new Color(0xFF4500))
-          .put("orchid", new Color(0xDA70D6))
-          .put("palegoldenrod", new Color(0xEEE8AA))
-          .put("palegreen", new Color(0x98FB98))
-          .put("paleturquoise", new Color(0xAFEEEE))
-          .put("palevioletred", new Color(0xDB7093))
-          .put("papayawhip", new Color(0xFFEFD5))
-          .put("peachpuff", new Color(0xFFDAB9))
-          .put("peru", new Color(0xCD853F))
-          .put("pink", new Color(0xFFC0CB))
-          .put("plum", new Color(0xDDA0DD))
-          .put("powderblue", new Color(0xB0E0E6))
-          .put("rosybrown", new Color(0xBC8F8F))
-          .put("royalblue", new Color(0x4169E1))
-          .put("saddlebrown", new Color(0x8B4513))
-          .put("salmon", new Color(0xFA8072))
-          .put("sandybrown", new Color(0xF4A460))
-          .put("seagreen", new Color(0x2E8B57))
-          .put("seashell", new Color(0xFFF5EE))
-          .put("sienna", new Color(0xA0522D))
-          .put("skyblue", new Color(0x87CEEB))
-          .put("slateblue", new Color(0x6A5ACD))
-          .put("slategray", new Color(0x708090))
-          .put("slategrey", new Color(0x708090))
-          .put("snow", new Color(0xFFFAFA))
-          .put("springgreen", new Color(0x00FF7F))
-          .put("steelblue", new Color(0x4682B4))
-          .put("tan", new Color(0xD2B48C))
-          .put("thistle", new Color(0xD8BFD8))
-          .put("tomato", new Color(0xFF6347))
-          .put("turquoise", new Color(0x40E0D0))
-          .put("violet", new Color(0xEE82EE))
-          .put("wheat", new Color(0xF5DEB3))
-          .put("whitesmoke", new Color(0xF5F5F5))
-          .put("yellowgreen", new Color(0x9ACD32))
+          .put("aliceblue", 0xFFF0F8FF)
+          .put("antiquewhite", 0xFFFAEBD7)
+          .put("aquamarine", 0xFF7FFFD4)
+          .put("azure", 0xFFF0FFFF)
+          .put("beige", 0xFFF5F5DC)
+          .put("bisque", 0xFFFFE4C4)
+          .put("blanchedalmond", 0xFFFFEBCD)
+          .put("blueviolet", 0xFF8A2BE2)
+          .put("brown", 0xFFA52A2A)
+          .put("burlywood", 0xFFDEB887)
+          .put("cadetblue", 0xFF5F9EA0)
+          .put("chartreuse", 0xFF7FFF00)
+          .put("chocolate", 0xFFD2691E)
+          .put("coral", 0xFFFF7F50)
+          .put("cornflowerblue", 0xFF6495ED)
+          .put("cornsilk", 0xFFFFF8DC)
+          .put("crimson", 0xFFDC143C)
+          .put("cyan", 0xFF00FFFF)
+          .put("darkblue", 0xFF00008B)
+          .put("darkcyan", 0xFF008B8B)
+          .put("darkgoldenrod", 0xFFB8860B)
+          .put("darkgray", 0xFFA9A9A9)
+          .put("darkgreen", 0xFF006400)
+          .put("darkgrey", 0xFFA9A9A9)
+          .put("darkkhaki", 0xFFBDB76B)
+          .put("darkmagenta", 0xFF8B008B)
+          .put("darkolivegreen", 0xFF556B2F)
+          .put("darkorange", 0xFFFF8C00)
+          .put("darkorchid", 0xFF9932CC)
+          .put("darkred", 0xFF8B0000)
+          .put("darksalmon", 0xFFE9967A)
+          .put("darkseagreen", 0xFF8FBC8F)
+          .put("darkslateblue", 0xFF483D8B)
+          .put("darkslategray", 0xFF2F4F4F)
+          .put("darkslategrey", 0xFF2F4F4F)
+          .put("darkturquoise", 0xFF00CED1)
+          .put("darkviolet", 0xFF9400D3)
+          .put("deeppink", 0xFFFF1493)
+          .put("deepskyblue", 0xFF00BFFF)
+          .put("dimgray", 0xFF696969)
+          .put("dimgrey", 0xFF696969)
+          .put("dodgerblue", 0xFF1E90FF)
+          .put("firebrick", 0xFFB22222)
+          .put("floralwhite", 0xFFFFFAF0)
+          .put("forestgreen", 0xFF228B22)
+          .put("gainsboro", 0xFFDCDCDC)
+          .put("ghostwhite", 0xFFF8F8FF)
+          .put("gold", 0xFFFFD700)
+          .put("goldenrod", 0xFFDAA520)
+          .put("greenyellow", 0xFFADFF2F)
+          .put("grey", 0xFF808080)
+          .put("honeydew", 0xFFF0FFF0)
+          .put("hotpink", 0xFFFF69B4)
+          .put("indianred", 0xFFCD5C5C)
+          .put("indigo", 0xFF4B0082)
+          .put("ivory", 0xFFFFFFF0)
+          .put("khaki", 0xFFF0E68C)
+          .put("lavender", 0xFFE6E6FA)
+          .put("lavenderblush", 0xFFFFF0F5)
+          .put("lawngreen", 0xFF7CFC00)
+          .put("lemonchiffon", 0xFFFFFACD)
+          .put("lightblue", 0xFFADD8E6)
+          .put("lightcoral", 0xFFF08080)
+          .put("lightcyan", 0xFFE0FFFF)
+          .put("lightgoldenrodyellow", 0xFFFAFAD2)
+          .put("lightgray", 0xFFD3D3D3)
+          .put("lightgreen", 0xFF90EE90)
+          .put("lightgrey", 0xFFD3D3D3)
+          .put("lightpink", 0xFFFFB6C1)
+          .put("lightsalmon", 0xFFFFA07A)
+          .put("lightseagreen", 0xFF20B2AA)
+          .put("lightskyblue", 0xFF87CEFA)
+          .put("lightslategray", 0xFF778899)
+          .put("lightslategrey", 0xFF778899)
+          .put("lightsteelblue", 0xFFB0C4DE)
+          .put("lightyellow", 0xFFFFFFE0)
+          .put("limegreen", 0xFF32CD32)
+          .put("linen", 0xFFFAF0E6)
+          .put("magenta", 0xFFFF00FF)
+          .put("mediumaquamarine", 0xFF66CDAA)
+          .put("mediumblue", 0xFF0000CD)
+          .put("mediumorchid", 0xFFBA55D3)
+          .put("mediumpurple", 0xFF9370DB)
+          .put("mediumseagreen", 0xFF3CB371)
+          .put("mediumslateblue", 0xFF7B68EE)
+          .put("mediumspringgreen", 0xFF00FA9A)
+          .put("mediumturquoise", 0xFF48D1CC)
+          .put("mediumvioletred", 0xFFC71585)
+          .put("midnightblue", 0xFF191970)
+          .put("mintcream", 0xFFF5FFFA)
+          .put("mistyrose", 0xFFFFE4E1)
+          .put("moccasin", 0xFFFFE4B5)
+          .put("navajowhite", 0xFFFFDEAD)
+          .put("oldlace", 0xFFFDF5E6)
+          .put("olivedrab", 0xFF6B8E23)
+          .put("orangered", 0xFFFF4500)
+          .put("orchid", 0xFFDA70D6)
+          .put("palegoldenrod", 0xFFEEE8AA)
+          .put("palegreen", 0xFF98FB98)
+          .put("paleturquoise", 0xFFAFEEEE)
+          .put("palevioletred", 0xFFDB7093)
+          .put("papayawhip", 0xFFFFEFD5)
+          .put("peachpuff", 0xFFFFDAB9)
+          .put("peru", 0xFFCD853F)
+          .put("pink", 0xFFFFC0CB)
+          .put("plum", 0xFFDDA0DD)
+          .put("powderblue", 0xFFB0E0E6)
+          .put("rosybrown", 0xFFBC8F8F)
+          .put("royalblue", 0xFF4169E1)
+          .put("saddlebrown", 0xFF8B4513)
+          .put("salmon", 0xFFFA8072)
+          .put("sandybrown", 0xFFF4A460)
+          .put("seagreen", 0xFF2E8B57)
+          .put("seashell", 0xFFFFF5EE)
+          .put("sienna", 0xFFA0522D)
+          .put("skyblue", 0xFF87CEEB)
+          .put("slateblue", 0xFF6A5ACD)
+          .put("slategray", 0xFF708090)
+          .put("slategrey", 0xFF708090)
+          .put("snow", 0xFFFFFAFA)
+          .put("springgreen", 0xFF00FF7F)
+          .put("steelblue", 0xFF4682B4)
+          .put("tan", 0xFFD2B48C)
+          .put("thistle", 0xFFD8BFD8)
+          .put("tomato", 0xFFFF6347)
+          .put("turquoise", 0xFF40E0D0)
+          .put("violet", 0xFFEE82EE)
+          .put("wheat", 0xFFF5DEB3)
+          .put("whitesmoke", 0xFFF5F5F5)
+          .put("yellowgreen", 0xFF9ACD32)
           .build();
 
   /** Optional formats that each parser instance can accept. */
   public static enum Format {
     /** #RRGGBB format */
     HEX6 {
-      @Override Color parse(String value) {
-        return (HEX6_PATTERN.matcher(value).matches())
-            ? new Color(Integer.parseInt(value.substring(1), 16)) : null;
+      @Override long parse(String value) {
+        if (value.length() != 7 || value.charAt(0) != '#') {
+          return NO_MATCH;
+        }
+        int rgb = parseHex(value, 1, 7);
+        return rgb < 0 ? NO_MATCH : toLong(0xFF000000 | rgb);
       }
     },
 
     /** #RGB format */
     HEX3 {
-      @Override Color parse(String value) {
-        return HEX4.parse(value + "F");
+      @Override long parse(String value) {
+        if (value.length() != 4 || value.charAt(0) != '#') {
+          return NO_MATCH;
+        }
+        int rgb = parseHex(value, 1, 4);
+        return rgb < 0 ? NO_MATCH : toLong(expandRgba((rgb << 4) | 0xF));
       }
     },
 
     /** #RGBA format */
     HEX4 {
-      @Override Color parse(String value) {
-        if (HEX4_PATTERN.matcher(value).matches()) {
-          int r = Integer.parseInt(value.substring(1, 2), 16);
-          int g = Integer.parseInt(value.substring(2, 3), 16);
-          int b = Integer.parseInt(value.substring(3, 4), 16);
-          int a = Integer.parseInt(value.substring(4, 5), 16);
-          return
-              new Color((r << 4) | r, (g << 4) | g, (b << 4) | b, (a << 4) | a);
+      @Override long parse(String value) {
+        if (value.length() != 5 || value.charAt(0) != '#') {
+          return NO_MATCH;
         }
-        return null;
+        int rgba = parseHex(value, 1, 5);
+        return rgba < 0 ? NO_MATCH : toLong(expandRgba(rgba));
       }
     },
 
     /** #RRGGBBAA format */
     HEX8 {
-      @Override Color parse(String value) {
-        if (HEX8_PATTERN.matcher(value).matches()) {
-          int rgb = Integer.parseInt(value.substring(1, 7), 16);
-          int a = Integer.parseInt(value.substring(7, 9), 16);
-          return new Color(a << 24 | rgb, true);
+      @Override long parse(String value) {
+        if (value.length() != 9 || value.charAt(0) != '#') {
+          return NO_MATCH;
         }
-        return null;
+        int rgb = parseHex(value, 1, 7);
+        int a = parseHex(value, 7, 9);
+        return rgb < 0 || a < 0 ? NO_MATCH : toLong(a << 24 | rgb);
       }
     },
 
     /** rgb(R, G, B) format (R/G/B = 0-255 or 0-100%) */
     CSS_RGB {
-      @Override Color parse(String value) {
-        // Try to parse with 255-based values...
-        Matcher matcher = CSS_RGB_PATTERN.matcher(value);
-        if (matcher.matches()) {
-          return newColor(matcher, 255);
-        } else {
-          // ... or with percent-based values.
-          matcher = CSS_PERCENT_PATTERN.matcher(value);
-          return matcher.matches() ? newColor(matcher, 100) : null;
-        }
-      }
-
-      /** Creates a new color from a regexp match. */
-      private Color newColor(Matcher matcher, float max) {
-        return new Color(
-            clipRangeAndNormalize(matcher.group(1), max),
-            clipRangeAndNormalize(matcher.group(2), max),
-            clipRangeAndNormalize(matcher.group(3), max));
+      @Override long parse(String value) {
+        return parseRgb(value, "rgb(", false);
       }
     },
 
     /** rgba(R, G, B, A) format (R/G/B = 0-255 or 0-100%, A = 0.0-1.0) */
     CSS_RGBA {
-      @Override Color parse(String value) {
-        // Try to parse with 255-based values...
-        Matcher matcher = CSS_RGBA_PATTERN.matcher(value);
-        if (matcher.matches()) {
-          return newColor(matcher, 255);
-        } else {
-          // ... or with percent-based values.
-          matcher = CSS_RGBA_PERCENT_PATTERN.matcher(value);
-          return matcher.matches() ? newColor(matcher, 100) : null;
-        }
-      }
-
-      /** Creates a new color from a regexp match. */
-      private Color newColor(Matcher matcher, float max) {
-        return new Color(
-            clipRangeAndNormalize(matcher.group(1), max),
-            clipRangeAndNormalize(matcher.group(2), max),
-            clipRangeAndNormalize(matcher.group(3), max),
-            clipRangeAndNormalize(matcher.group(4), 1));
+      @Override long parse(String value) {
+        return parseRgb(value, "rgba(", true);
       }
     },
 
     /** HTML 4.0 color keywords (16 colors) */
     HTML_KEYWORDS {
-      @Override Color parse(String value) {
-        return HTML_COLOR_MAP.get(value.toLowerCase());
+      @Override long parse(String value) {
+        return toLong(HTML_COLOR_MAP.get(value.toLowerCase()));
       }
     },
 
     /** CSS 2.1 color keywords (HTML + "orange") */
     CSS_KEYWORDS {
-      @Override Color parse(String value) {
-        return CSS_COLOR_MAP.get(value.toLowerCase());
+      @Override long parse(String value) {
+        return toLong(CSS_COLOR_MAP.get(value.toLowerCase()));
       }
     },
 
     /** SVG 1.0 color keywords */
     SVG_KEYWORDS {
-      @Override Color parse(String value) {
-        return SVG_COLOR_MAP.get(value.toLowerCase());
+      @Override long parse(String value) {
+        return toLong(SVG_COLOR_MAP.get(value.toLowerCase()));
       }
     };
 
@@ -396,16 +340,179 @@ final class ColorParser {
      * Parses the given color description.
      *
      * @param value the value to parse
-     * @return the parsed color, or null if this format cannot parse the value
+     * @return the parsed color in the low 32 bits, or {@link #NO_MATCH} if
+     *     this format cannot parse the value
+     */
+    abstract long parse(String value);
+
+    private static long toLong(int color) {
+      return color & 0xFFFFFFFFL;
+    }
+
+    private static long toLong(Integer color) {
+      return color == null ? NO_MATCH : toLong(color.intValue());
+    }
+
+    /**
+     * Parses the hexadecimal digits between start and end, returning -1 if
+     * any of them isn't one. At most 7 digits may be parsed.
+     */
+    private static int parseHex(String value, int start, int end) {
+      int result = 0;
+      for (int i = start; i < end; i++) {
+        char c = value.charAt(i);
+        int digit;
+        if (c >= '0' && c <= '9') {
+          digit = c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+          digit = c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+          digit = c - 'A' + 10;
+        } else {
+          return -1;
+        }
+        result = (result << 4) | digit;
+      }
+      return result;
+    }
+
+    /** Expands the 4-bit components of a {@code 0xRGBA} value to 8 bits. */
+    private static int expandRgba(int rgba) {
+      return ArgbColors.argb(
+          (rgba & 0xF) * 0x11,
+          (rgba >> 12) * 0x11,
+          ((rgba >> 8) & 0xF) * 0x11,
+          ((rgba >> 4) & 0xF) * 0x11);
+    }
+
+    /**
+     * Parses the "rgb(...)" and "rgba(...)" formats. The red, green and blue
+     * values are either all integers or all percentages, and the alpha value
+     * is a number.
+     */
+    private static long parseRgb(String value, String prefix, boolean hasAlpha) {
+      if (!value.startsWith(prefix)) {
+        return NO_MATCH;
+      }
+      int length = value.length();
+      int i = prefix.length();
+      boolean percentages = false;
+      int color = 0;
+      for (int component = 0; component < 3; component++) {
+        i = skipWhitespace(value, i);
+        int start = i;
+        int end = skipNumber(value, i);
+        if (end < 0) {
+          return NO_MATCH;
+        }
+        boolean percentage = end < length && value.charAt(end) == '%';
+        if (component == 0) {
+          percentages = percentage;
+        } else if (percentage != percentages) {
+          return NO_MATCH;
+        }
+        if (!percentage && !isInteger(value, start, end)) {
+          return NO_MATCH;
+        }
+        color = (color << 8) | clipRangeAndScale(
+            parseNumber(value, start, end), percentages ? 100 : 255);
+        i = skipWhitespace(value, percentage ? end + 1 : end);
+        if (i == length || value.charAt(i) != (component < 2 || hasAlpha ? ',' : ')')) {
+          return NO_MATCH;
+        }
+        i++;
+      }
+      int alpha = 0xFF;
+      if (hasAlpha) {
+        i = skipWhitespace(value, i);
+        int start = i;
+        int end = skipNumber(value, i);
+        if (end < 0) {
+          return NO_MATCH;
+        }
+        alpha = clipRangeAndScale(parseNumber(value, start, end), 1);
+        i = skipWhitespace(value, end);
+        if (i == length || value.charAt(i) != ')') {
+          return NO_MATCH;
+        }
+        i++;
+      }
+      return i == length ? toLong(alpha << 24 | color) : NO_MATCH;
+    }
+
+    /** Skips the characters that {@code \s} matches in a regular expression. */
+    private static int skipWhitespace(String value, int i) {
+      while (i < value.length()) {
+        char c = value.charAt(i);
+        if (c != ' ' && c != '\t' && c != '\n' && c != '\u000B' && c != '\f' && c != '\r') {
+          break;
+        }
+        i++;
+      }
+      return i;
+    }
+
+    /**
+     * Returns the end of the number that starts at the given index, or -1 if
+     * there is no number there.
      */
-    abstract Color parse(String value);
+    private static int skipNumber(String value, int i) {
+      int length = value.length();
+      if (i < length && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+        i++;
+      }
+      int digitsStart = i;
+      i = skipDigits(value, i);
+      if (i < length && value.charAt(i) == '.') {
+        int fractionStart = i + 1;
+        int fractionEnd = skipDigits(value, fractionStart);
+        if (fractionEnd > fractionStart) {
+          return fractionEnd;
+        }
+      }
+      return i > digitsStart ? i : -1;
+    }
+
+    private static int skipDigits(String value, int i) {
+      while (i < value.length() && value.charAt(i) >= '0' && value.charAt(i) <= '9') {
+        i++;
+      }
+      return i;
+    }
+
+    private static boolean isInteger(String value, int start, int end) {
+      for (int i = start; i < end; i++) {
+        if (value.charAt(i) == '.') {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Parses the number between start and end. Integers are parsed without
+     * creating a substring.
+     */
+    private static float parseNumber(String value, int start, int end) {
+      if (!isInteger(value, start, end)) {
+        return Float.parseFloat(value.substring(start, end));
+      }
+      boolean negative = value.charAt(start) == '-';
+      int i = negative || value.charAt(start) == '+' ? start + 1 : start;
+      int result = 0;
+      for (; i < end && result < LARGE_INTEGER; i++) {
+        result = result * 10 + (value.charAt(i) - '0');
+      }
+      return negative ? -result : result;
+    }
 
     /**
-     * Parses value as float, clips to [0, max], and returns the
-     * clipped value divided by the maximum value.
+     * Clips the value to [0, max], and scales it from [0, max] to a color
+     * component in [0, 255].
      */
-    private static float clipRangeAndNormalize(String value, float max) {
-      return Math.max(0, Math.min(max, Float.parseFloat(value))) / max;
+    private static int clipRangeAndScale(float value, float max) {
+      float normalized = Math.max(0, Math.min(max, value)) / max;
+      return (int) (normalized * 255 + 0.5);
     }
   }
 
@@ -424,7 +531,7 @@ final class ColorParser {
    * @return the parsed color
    * @throws IllegalArgumentException if the value cannot be parsed
    */
-  public static Color parseAny(String value) {
+  public static int parseAny(String value) {
     return ANY_COLOR_PARSER.parse(value);
   }
 
@@ -447,28 +554,16 @@ final class ColorParser {
    * @return the parsed color
    * @throws IllegalArgumentException if the value cannot be parsed
    */
-  public Color parse(String value) {
+  public int parse(String value) {
     value = value.trim();
     for (Format format : formats) {
-      Color result = format.parse(value);
-      if (result != null) {
-        return result;
+      long result = format.parse(value);
+      if (result != NO_MATCH) {
+        return (int) result;
       }
     }
     // If we get to this point, we're unable to parse the color.
     throw new IllegalArgumentException("Illegal color value, does not match "
         + "any of " + formats + ": " + value);
   }
-
-  /**
-   * Formats a hexadecimal color pattern with the given number of digits. For
-   * example, a pattern made from 6 digits matches strings such as "#AB4D9F".
-   *
-   * @param numberOfDigits The number of digits that the pattern should match
-   * @return The requested pattern.
-   */
-  @VisibleForTesting
-  static Pattern formatHexadecimalPattern(int numberOfDigits) {
-    return Pattern.compile(String.format("^#[0-9a-fA-F]{%d}$", numberOfDigits));
-  }
 }
@@ -16,105 +16,16 @@
 
 package com.google.common.css.compiler.gssfunctions;
 
-import java.awt.Color;
 import java.lang.Math;
 
 /**
- * Utility functions to deal with colors.
+ * Utility functions to deal with colors, which are packed into ints as
+ * described in {@link ArgbColors}.
  *
  * @author dgajda@google.com (Damian Gajda)
  */
 class ColorUtil {
 
-  /** Index of Hue in HSB and HSL array. */
-  static final int H = 0;
-  /** Index of Saturation in HSB and HSL array. */
-  static final int S = 1;
-  /** Index of Brightness in HSB array. */
-  static final int B = 2;
-  /** Index of Lightness in HSL array. */
-  static final int L = 2;
-
-  static float[] toHsb(Color color) {
-    return Color.RGBtoHSB(
-        color.getRed(), color.getGreen(), color.getBlue(), null);
-  }
-
-  static String formatColor(Color color) {
-    return String.format("#%02X%02X%02X",
-        color.getRed(), color.getGreen(), color.getBlue());
-  }
-
-  static Color hsbToColor(float[] inputHsb) {
-    return Color.getHSBColor(inputHsb[H], inputHsb[S], inputHsb[B]);
-  }
-
-  /**
-   * Convert a color in HSB color space to one in HSL color space.
-   *
-   * @param inputHsb HSB color in a array of three floats, 0 is Hue, 1 is
-   *     Saturation and 2 is Brightness
-   * @return HSL color in array of three floats, 0 is Hue, 1 is
-   *     Saturation and 2 is Lightness
-   */
-  static float[] hsbToHsl(float[] inputHsb) {
-    float hHsb = inputHsb[H];
-    float sHsb = inputHsb[S];
-    float bHsb = inputHsb[B];
-
-    float hHsl = hHsb;
-    float lHsl = bHsb * (2 - sHsb) / 2;
-    float sHsl = bHsb * sHsb / (1 - Math.abs(2 * lHsl - 1));
-
-    float[] hsl = {hHsl, sHsl, lHsl};
-
-    return hsl;
-  }
-
-  /**
-   * Get the HSL values of a color.
-   *
-   * @param color Color to get the HSL values
-   * @return array of floats representing the color in HSL color space
-   */
-  static float[] toHsl(Color color) {
-    return hsbToHsl(toHsb(color));
-  }
-
-  /**
-   * Convert a color in HSL color space to one in HSB color space.
-   *
-   * @param inputHsl HSL color in a array of three floats, 0 is Hue, 1 is
-   *     Saturation and 2 is Lightness
-   * @return HSB color in array of three floats, 0 is Hue, 1 is
-   *     Saturation and 2 is Brightness
-   */
-  static float[] hslToHsb(float[] inputHsl) {
-    float hHsl = inputHsl[H];
-    float sHsl = inputHsl[S];
-    float lHsl = inputHsl[L];
-
-    float hHsb = hHsl;
-    float bHsb = (2 * lHsl + sHsl * (1 - Math.abs(2 * lHsl - 1))) / 2;
-    float sHsb = 2 * (bHsb - lHsl) / bHsb;
-
-    float[] hsb = {hHsb, sHsb, bHsb};
-
-    return hsb;
-  }
-
-  /**
-   * Get the color from the HSL floats
-   *
-   * @param inputHsl HSL color
-   * @return Java color
-   */
-  static Color hslToColor(float[] inputHsl) {
-    float[] hsb = hslToHsb(inputHsl);
-
-    return Color.getHSBColor(hsb[H], hsb[S], hsb[B]);
-  }
-
   /**
    * Tests whether the given colors are contrasting colors, according to the
    * test described in the W3C accessibility evaluation working draft
@@ -133,7 +44,7 @@ class ColorUtil {
    * @return whether the given colors are considered contrasting, taking the
    *     leniency margin into account
    */
-  static boolean testContrast(Color color1, Color color2, float margin) {
+  static boolean testContrast(int color1, int color2, float margin) {
     float differenceFraction = 1f - margin;
     return luminanceDiff(color1, color2) > 125 * differenceFraction
         && colorDiff(color1, color2) > 500 * differenceFraction;
@@ -148,7 +59,7 @@ class ColorUtil {
    * @param color2 the second of the two checked colors
    * @return whether the given colors are considered contrasting
    */
-  static boolean testContrast(Color color1, Color color2) {
+  static boolean testContrast(int color1, int color2) {
     return luminanceDiff(color1, color2) > 125
         && colorDiff(color1, color2) > 500;
   }
@@ -158,7 +69,7 @@ class ColorUtil {
    * It is the luminance value equal to the Y component of the YIQ or the YUV
    * color space models.
    */
-  static int luminanceDiff(Color c1, Color c2) {
+  static int luminanceDiff(int c1, int c2) {
     return Math.abs(luminance(c1) - luminance(c2));
   }
 
@@ -167,8 +78,9 @@ class ColorUtil {
    * It is the luminance value equal to the Y component of the YIQ or the YUV
    * color space models.
    */
-  static int luminance(Color color) {
-    return luminance(color.getRed(), color.getGreen(), color.getBlue());
+  static int luminance(int color) {
+    return luminance(
+        ArgbColors.red(color), ArgbColors.green(color), ArgbColors.blue(color));
   }
 
   /**
@@ -184,10 +96,10 @@ class ColorUtil {
    * Calculates the Manhattan distance of two colors in the RGB color space
    * (a value in range 0-(255*3)).
    */
-  static int colorDiff(Color color1, Color color2) {
+  static int colorDiff(int color1, int color2) {
     return colorDiff(
-        color1.getRed(), color1.getGreen(), color1.getBlue(),
-        color2.getRed(), color2.getGreen(), color2.getBlue());
+        ArgbColors.red(color1), ArgbColors.green(color1), ArgbColors.blue(color1),
+        ArgbColors.red(color2), ArgbColors.green(color2), ArgbColors.blue(color2));
   }
 
   /**
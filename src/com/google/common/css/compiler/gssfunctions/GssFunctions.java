@@ -16,12 +16,7 @@
 
 package com.google.common.css.compiler.gssfunctions;
 
-import static com.google.common.css.compiler.gssfunctions.ColorUtil.formatColor;
-import static com.google.common.css.compiler.gssfunctions.ColorUtil.hsbToColor;
-import static com.google.common.css.compiler.gssfunctions.ColorUtil.hslToColor;
 import static com.google.common.css.compiler.gssfunctions.ColorUtil.testContrast;
-import static com.google.common.css.compiler.gssfunctions.ColorUtil.toHsb;
-import static com.google.common.css.compiler.gssfunctions.ColorUtil.toHsl;
 
 import com.google.common.base.CharMatcher;
 import com.google.common.collect.ImmutableList;
@@ -40,10 +35,9 @@ import com.google.common.css.compiler.ast.ErrorManager;
 import com.google.common.css.compiler.ast.GssError;
 import com.google.common.css.compiler.ast.GssFunction;
 import com.google.common.css.compiler.ast.GssFunctionException;
-import java.awt.Color;
+import com.google.common.css.compiler.ast.PureGssFunction;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -164,7 +158,7 @@ public class GssFunctions {
    * Base implementation of the color blending GSS function. Returns a color
    * half way between the two colors supplied as arguments.
    */
-  public abstract static class BaseBlendColors implements GssFunction {
+  public abstract static class BaseBlendColors implements PureGssFunction {
 
     /**
      * Returns the number of expected arguments of this GSS function.
@@ -223,20 +217,20 @@ public class GssFunctions {
     @Override
     // TODO(dgajda): Hide it, this function is only visible because
     public String blend(String startColorStr, String endColorStr) {
-      Color midColor = blendHsb(
+      int midColor = blendHsb(
           ColorParser.parseAny(startColorStr),
           ColorParser.parseAny(endColorStr));
-      return formatColor(midColor);
+      return ArgbColors.toHexString(midColor);
     }
   }
 
-  private static Color blendHsb(Color startColor, Color endColor) {
+  private static int blendHsb(int startColor, int endColor) {
 
-    float[] startColorHsb = toHsb(startColor);
-    float[] endColorHsb = toHsb(endColor);
+    float startHue = ArgbColors.hue(startColor);
+    float endHue = ArgbColors.hue(endColor);
 
-    float diffHue = Math.abs(startColorHsb[0] - endColorHsb[0]);
-    float sumHue = startColorHsb[0] + endColorHsb[0];
+    float diffHue = Math.abs(startHue - endHue);
+    float sumHue = startHue + endHue;
     float midHue = (diffHue <= 0.5)
         ? sumHue / 2
         : (sumHue + 1) / 2;  // Hue values range 0 to 1 and wrap (i.e. 0 == 1)
@@ -244,10 +238,10 @@ public class GssFunctions {
       midHue -= 1;
     }
 
-    return Color.getHSBColor(
+    return ArgbColors.hsb(
         midHue,
-        (startColorHsb[1] + endColorHsb[1]) / 2,
-        (startColorHsb[2] + endColorHsb[2]) / 2);
+        (ArgbColors.saturation(startColor) + ArgbColors.saturation(endColor)) / 2,
+        (ArgbColors.brightness(startColor) + ArgbColors.brightness(endColor)) / 2);
   }
 
   /**
@@ -267,15 +261,15 @@ public class GssFunctions {
     @Override
     // TODO(dgajda): Hide it, this function is only visible because
     public String blend(String startColorStr, String endColorStr) {
-      Color startColor = ColorParser.parseAny(startColorStr);
-      Color endColor = ColorParser.parseAny(endColorStr);
+      int startColor = ColorParser.parseAny(startColorStr);
+      int endColor = ColorParser.parseAny(endColorStr);
 
-      Color midColor = new Color(
-          (startColor.getRed() + endColor.getRed()) / 2,
-          (startColor.getGreen() + endColor.getGreen()) / 2,
-          (startColor.getBlue() + endColor.getBlue()) / 2);
+      int midColor = ArgbColors.rgb(
+          (ArgbColors.red(startColor) + ArgbColors.red(endColor)) / 2,
+          (ArgbColors.green(startColor) + ArgbColors.green(endColor)) / 2,
+          (ArgbColors.blue(startColor) + ArgbColors.blue(endColor)) / 2);
 
-      return formatColor(midColor);
+      return ArgbColors.toHexString(midColor);
     }
   }
 
@@ -315,7 +309,7 @@ public class GssFunctions {
   /**
    * Implementation of the addHsbToCssColor GSS function.
    */
-  public static class AddHsbToCssColor implements GssFunction {
+  public static class AddHsbToCssColor implements PureGssFunction {
 
     @Override
     public Integer getNumExpectedArguments() {
@@ -408,47 +402,46 @@ public class GssFunctions {
         return baseColorString;
       }
 
-      Color baseColor = ColorParser.parseAny(baseColorString);
-      Color newColor = addValuesToHsbComponents(baseColor,
-                                                hueToAdd,
-                                                saturationToAdd,
-                                                brightnessToAdd);
+      int baseColor = ColorParser.parseAny(baseColorString);
+      int newColor = addValuesToHsbComponents(baseColor,
+                                              hueToAdd,
+                                              saturationToAdd,
+                                              brightnessToAdd);
 
-      return formatColor(newColor);
+      return ArgbColors.toHexString(newColor);
     }
 
     /**
      * Adds the specified amount to the specified HSB (Hue, Saturation,
      * Brightness) parameter of the given color. The amount can be negative.
      *
-     * @param baseColor The color to modify
+     * @param baseColor The color to modify, packed as described in
+     *     {@link ArgbColors}
      * @param hueToAdd The amount of hue to add
      * @param saturationToAdd The amount of saturation to add
      * @param brightnessToAdd The amount of brightness to add
-     * @return The modified color
+     * @return The modified color, packed as described in {@link ArgbColors}
      */
-    public Color addValuesToHsbComponents(Color baseColor,
-                                          int hueToAdd,
-                                          int saturationToAdd,
-                                          int brightnessToAdd) {
-
-      float[] hsbValues = toHsb(baseColor);
+    public int addValuesToHsbComponents(int baseColor,
+                                        int hueToAdd,
+                                        int saturationToAdd,
+                                        int brightnessToAdd) {
 
       // In HSB color space, Hue goes from 0 to 360, Saturation and Brightness
       // from 0 to 100. However, in Java all three parameters vary from 0.0 to
       // 1.0, so we need some basic conversion.
-      hsbValues[0] = (float) (hsbValues[0] + hueToAdd / 360.0);
+      float hue = (float) (ArgbColors.hue(baseColor) + hueToAdd / 360.0);
       // The hue needs to wrap around, so just keep hue - floor(hue).
-      hsbValues[0] -= (float) Math.floor(hsbValues[0]);
+      hue -= (float) Math.floor(hue);
 
       // For saturation and brightness, no wrapping around, we just make sure
       // we don't go over 1.0 or under 0.0
-      hsbValues[1] = (float) Math.min(1.0, Math.max(0,
-          hsbValues[1] + saturationToAdd / 100.0));
-      hsbValues[2] = (float) Math.min(1.0, Math.max(0,
-          hsbValues[2] + brightnessToAdd / 100.0));
+      float saturation = (float) Math.min(1.0, Math.max(0,
+          ArgbColors.saturation(baseColor) + saturationToAdd / 100.0));
+      float brightness = (float) Math.min(1.0, Math.max(0,
+          ArgbColors.brightness(baseColor) + brightnessToAdd / 100.0));
 
-      return Color.getHSBColor(hsbValues[0], hsbValues[1], hsbValues[2]);
+      return ArgbColors.hsb(hue, saturation, brightness);
     }
   }
 
@@ -526,13 +519,13 @@ public class GssFunctions {
         return baseColorString;
       }
 
-      Color baseColor = ColorParser.parseAny(baseColorString);
-      Color newColor = addValuesToHslComponents(baseColor,
-                                                hueToAdd,
-                                                saturationToAdd,
-                                                lightnessToAdd);
+      int baseColor = ColorParser.parseAny(baseColorString);
+      int newColor = addValuesToHslComponents(baseColor,
+                                              hueToAdd,
+                                              saturationToAdd,
+                                              lightnessToAdd);
 
-      return formatColor(newColor);
+      return ArgbColors.toHexString(newColor);
     }
 
     /**
@@ -545,28 +538,26 @@ public class GssFunctions {
      * @param lightnessToAdd The amount of lightness to add
      * @return The modified color
      */
-    private Color addValuesToHslComponents(Color baseColor,
-                                          int hueToAdd,
-                                          int saturationToAdd,
-                                          int lightnessToAdd) {
-
-      float[] hslValues = toHsl(baseColor);
+    private int addValuesToHslComponents(int baseColor,
+                                         int hueToAdd,
+                                         int saturationToAdd,
+                                         int lightnessToAdd) {
 
       // In HSL color space, Hue goes from 0 to 360, Saturation and Lightness
       // from 0 to 100. However, in Java all three parameters vary from 0.0 to
       // 1.0, so we need some basic conversion.
-      hslValues[0] = (float) (hslValues[0] + hueToAdd / 360.0);
+      float hue = (float) (ArgbColors.hue(baseColor) + hueToAdd / 360.0);
       // The hue needs to wrap around, so just keep hue - floor(hue).
-      hslValues[0] -= (float) Math.floor(hslValues[0]);
+      hue -= (float) Math.floor(hue);
 
       // For saturation and lightness, no wrapping around, we just make sure
       // we don't go over 1.0 or under 0.0
-      hslValues[1] = (float) Math.min(1.0, Math.max(0,
-          hslValues[1] + saturationToAdd / 100.0));
-      hslValues[2] = (float) Math.min(1.0, Math.max(0,
-          hslValues[2] + lightnessToAdd / 100.0));
+      float saturation = (float) Math.min(1.0, Math.max(0,
+          ArgbColors.hslSaturation(baseColor) + saturationToAdd / 100.0));
+      float lightness = (float) Math.min(1.0, Math.max(0,
+          ArgbColors.lightness(baseColor) + lightnessToAdd / 100.0));
 
-      return hslToColor(hslValues);
+      return ArgbColors.hsl(hue, saturation, lightness);
     }
   }
 
@@ -575,7 +566,7 @@ public class GssFunctions {
    * color, second is the absolute amount of saturation in HSL color space
    * to add (from 0 to 100).
    */
-  public static class SaturateColor extends BaseHslColorManipulation implements GssFunction {
+  public static class SaturateColor extends BaseHslColorManipulation implements PureGssFunction {
     @Override
     public Integer getNumExpectedArguments() {
       return 2;
@@ -629,7 +620,7 @@ public class GssFunctions {
    * color, second is the absolute amount of saturation in HSL color space
    * to substract (from 0 to 100).
    */
-  public static class DesaturateColor extends BaseHslColorManipulation implements GssFunction {
+  public static class DesaturateColor extends BaseHslColorManipulation implements PureGssFunction {
 
     @Override
     public Integer getNumExpectedArguments() {
@@ -679,7 +670,7 @@ public class GssFunctions {
   /**
    * Convert the color to a grayscale (desaturation with amount of 100).
    */
-  public static class Greyscale extends BaseHslColorManipulation implements GssFunction {
+  public static class Greyscale extends BaseHslColorManipulation implements PureGssFunction {
     @Override
     public Integer getNumExpectedArguments() {
       return 1;
@@ -729,7 +720,7 @@ public class GssFunctions {
    * Increase the lightness of a color. First argument is the color, second
    * is the lighten to add, between 0 and 100.
    */
-  public static class Lighten extends BaseHslColorManipulation implements GssFunction {
+  public static class Lighten extends BaseHslColorManipulation implements PureGssFunction {
 
     @Override
     public Integer getNumExpectedArguments() {
@@ -783,7 +774,7 @@ public class GssFunctions {
    * Decrease the lightness of a color. First argument is the color, second
    * is the lighten to remove, between 0 and 100.
    */
-  public static class Darken extends BaseHslColorManipulation implements GssFunction {
+  public static class Darken extends BaseHslColorManipulation implements PureGssFunction {
     @Override
     public Integer getNumExpectedArguments() {
       return 2;
@@ -837,7 +828,7 @@ public class GssFunctions {
    * is the hue to add or remove, between 0 and 360.
    * It's like rotating the color on a color wheel and hue is the angle to apply.
    */
-  public static class Spin extends BaseHslColorManipulation implements GssFunction {
+  public static class Spin extends BaseHslColorManipulation implements PureGssFunction {
     @Override
     public Integer getNumExpectedArguments() {
       return 2;
@@ -893,7 +884,7 @@ public class GssFunctions {
    * link color this should be a muted version of and optionally the loss of
    * saturation for muted tone (0 <= loss <= 1).
    */
-  public static class MakeMutedColor implements GssFunction {
+  public static class MakeMutedColor implements PureGssFunction {
 
     private final float LOSS_OF_SATURATION_FOR_MUTED_TONE = 0.2f;
     private final String ARGUMENT_COUNT_ERROR_MESSAGE = "makeMutedColor " +
@@ -955,11 +946,8 @@ public class GssFunctions {
           || "transparent".equalsIgnoreCase(foregroundColorStr)) {
         return foregroundColorStr;
       }
-      Color backgroundColor = ColorParser.parseAny(backgroundColorStr);
-      Color foregroundColor = ColorParser.parseAny(foregroundColorStr);
-
-      float[] backgroundColorHsb = toHsb(backgroundColor);
-      float[] foregroundColorHsb = toHsb(foregroundColor);
+      int backgroundColor = ColorParser.parseAny(backgroundColorStr);
+      int foregroundColor = ColorParser.parseAny(foregroundColorStr);
       float lossOfSaturationForMutedTone = Float.valueOf(lossStr);
 
       // Make sure that 0 <= lossOfSaturationForMutedTone <= 1
@@ -974,16 +962,16 @@ public class GssFunctions {
       // For example, if the background has a brightness of 50, and 100 for the
       // foreground, the muted color will have 75. If we have a dark background,
       // it should be the reverse.
-      float mutedHue = foregroundColorHsb[0];
+      float mutedHue = ArgbColors.hue(foregroundColor);
       float mutedSaturation = Math.max(
-          foregroundColorHsb[1] - lossOfSaturationForMutedTone, 0);
-      float mutedBrightness = (foregroundColorHsb[2] + backgroundColorHsb[2]) /
-          2;
+          ArgbColors.saturation(foregroundColor) - lossOfSaturationForMutedTone, 0);
+      float mutedBrightness = (ArgbColors.brightness(foregroundColor)
+          + ArgbColors.brightness(backgroundColor)) / 2;
 
-      Color mutedColor
-          = Color.getHSBColor(mutedHue, mutedSaturation, mutedBrightness);
+      int mutedColor
+          = ArgbColors.hsb(mutedHue, mutedSaturation, mutedBrightness);
 
-      return formatColor(mutedColor);
+      return ArgbColors.toHexString(mutedColor);
     }
 
     protected String makeMutedColor(
@@ -1009,7 +997,7 @@ public class GssFunctions {
    * Implementation of the concat(…) GssFunction. It concatenates a variable number of strings.
    * e.g. concat('a', 'b') yields 'ab'. Mainly useful for use with constants.
    */
-  public static class Concat implements GssFunction {
+  public static class Concat implements PureGssFunction {
 
     @Override
     public Integer getNumExpectedArguments() {
@@ -1047,7 +1035,7 @@ public class GssFunctions {
   /**
    * Abstract class implementing the shared logic for the arithmetic functions.
    */
-  private static abstract class LeftAssociativeOperator implements GssFunction {
+  private static abstract class LeftAssociativeOperator implements PureGssFunction {
 
     /**
      * Returns the number of expected arguments of this GSS function.
@@ -1281,7 +1269,7 @@ public class GssFunctions {
    * as close as possible to what is being requested. See the unit test for
    * some examples.
    */
-  public static class AdjustBrightness implements GssFunction {
+  public static class AdjustBrightness implements PureGssFunction {
 
     /**
      * Returns the number of expected arguments of this GSS function.
@@ -1329,10 +1317,10 @@ public class GssFunctions {
       return value;
     }
 
-    private String formatColorWithAdjustedBrightness (float[] originalHsb,
+    private String formatColorWithAdjustedBrightness(int originalColor,
         float adjustedBrightness) {
-      return formatColor(Color.getHSBColor(originalHsb[0],
-          originalHsb[1], adjustedBrightness));
+      return ArgbColors.toHexString(ArgbColors.hsb(ArgbColors.hue(originalColor),
+          ArgbColors.saturation(originalColor), adjustedBrightness));
     }
 
     protected String adjustBrightness(String originalColorStr,
@@ -1343,16 +1331,16 @@ public class GssFunctions {
       if ("transparent".equalsIgnoreCase(originalColorStr)) {
         return originalColorStr;
       }
-      Color originalColor = ColorParser.parseAny(originalColorStr);
+      int originalColor = ColorParser.parseAny(originalColorStr);
       float brightnessFloat = Float.parseFloat(brightnessStr) / (float) 100.0;
 
-      float[] originalColorHsb = toHsb(originalColor);
-      float requestedBrightness = originalColorHsb[2] + brightnessFloat;
+      float originalBrightness = ArgbColors.brightness(originalColor);
+      float requestedBrightness = originalBrightness + brightnessFloat;
 
       // If we're not "saturating" to white or black, then we can meet
       // exactly what the caller requests.
       if (requestedBrightness >= 0.0 && requestedBrightness <= 1.0) {
-        return formatColorWithAdjustedBrightness(originalColorHsb,
+        return formatColorWithAdjustedBrightness(originalColor,
             requestedBrightness);
       }
 
@@ -1360,16 +1348,16 @@ public class GssFunctions {
       // be as close as possible to the requested brightness difference.
       requestedBrightness = normalize(requestedBrightness);
       float oppositeDirectionBrightness =
-          normalize(originalColorHsb[2] - brightnessFloat);
+          normalize(originalBrightness - brightnessFloat);
 
       // Calculate the distance between what the caller requests and the two
       // possibilites we have, then return the closest.
       float chosenBrightness = Math.abs(brightnessFloat -
-          (originalColorHsb[2] - requestedBrightness)) >
+          (originalBrightness - requestedBrightness)) >
               Math.abs(brightnessFloat -
-                  (originalColorHsb[2] - oppositeDirectionBrightness)) ?
+                  (originalBrightness - oppositeDirectionBrightness)) ?
                       oppositeDirectionBrightness : requestedBrightness;
-      return formatColorWithAdjustedBrightness(originalColorHsb,
+      return formatColorWithAdjustedBrightness(originalColor,
           chosenBrightness);
     }
 
@@ -1419,7 +1407,7 @@ public class GssFunctions {
    *   color.
    * </ol>
    */
-  public static class MakeContrastingColor implements GssFunction {
+  public static class MakeContrastingColor implements PureGssFunction {
 
     /**
      * Number of iterations to approximate the closest contrasting color.
@@ -1461,50 +1449,54 @@ public class GssFunctions {
       if ("transparent".equalsIgnoreCase(inputColorStr)) {
         return inputColorStr;
       }
-      Color inputColor = ColorParser.parseAny(inputColorStr);
+      int inputColor = ColorParser.parseAny(inputColorStr);
       float similarity = Float.parseFloat(similarityStr);
 
-      float[] distantColor = toHsb(
-          getDistantColor(inputColor, Color.BLACK, Color.WHITE));
-
-      float[] startColor = toHsb(inputColor);
-      float[] endColor = distantColor;
-      float[] closestContrastColor = null;
+      // All the blended colors keep the hue of the input color, only their
+      // saturation and brightness change.
+      float hue = ArgbColors.hue(inputColor);
+      int distantColor =
+          getDistantColor(inputColor, ArgbColors.BLACK, ArgbColors.WHITE);
+      float distantSaturation = ArgbColors.saturation(distantColor);
+      float distantBrightness = ArgbColors.brightness(distantColor);
+
+      float startSaturation = ArgbColors.saturation(inputColor);
+      float startBrightness = ArgbColors.brightness(inputColor);
+      float endSaturation = distantSaturation;
+      float endBrightness = distantBrightness;
+      float closestSaturation = 0;
+      float closestBrightness = 0;
 
       for (int i = 0; i < NUM_ITERATIONS; i++) {
-        closestContrastColor = blendSb(startColor, endColor, 0.5f);
-        if (testContrast(inputColor, hsbToColor(closestContrastColor))) {
-          endColor = closestContrastColor;
+        closestSaturation = mix(startSaturation, endSaturation, 0.5f);
+        closestBrightness = mix(startBrightness, endBrightness, 0.5f);
+        if (testContrast(inputColor,
+            ArgbColors.hsb(hue, closestSaturation, closestBrightness))) {
+          endSaturation = closestSaturation;
+          endBrightness = closestBrightness;
         } else {
-          startColor = closestContrastColor;
+          startSaturation = closestSaturation;
+          startBrightness = closestBrightness;
         }
       }
 
-      float[] resultColor = blendSb(
-          closestContrastColor, distantColor, similarity);
-      return formatColor(hsbToColor(resultColor));
+      return ArgbColors.toHexString(ArgbColors.hsb(hue,
+          mix(closestSaturation, distantSaturation, similarity),
+          mix(closestBrightness, distantBrightness, similarity)));
     }
 
-    private Color getDistantColor(
-        Color color, Color first, Color second) {
+    private int getDistantColor(
+        int color, int first, int second) {
       int firstLuminanceDiff = ColorUtil.luminanceDiff(color, first);
       int secondLuminanceDiff = ColorUtil.luminanceDiff(color, second);
       return firstLuminanceDiff >= secondLuminanceDiff ? first : second;
     }
 
-    private float[] blendSb(float[] keepHue, float[] other, float similarity) {
-      float[] result = Arrays.copyOf(keepHue, keepHue.length);
-      mix(ColorUtil.S, keepHue, other, similarity, result);
-      mix(ColorUtil.B, keepHue, other, similarity, result);
-      return result;
-    }
-
-    private void mix(
-        int componentIdx, float[] sourceHsb, float[] otherColorHsb,
-        float sourceSimilarity, float[] resultHsb) {
-      resultHsb[componentIdx] =
-          sourceHsb[componentIdx] * sourceSimilarity
-          + otherColorHsb[componentIdx] * (1f - sourceSimilarity);
+    private float mix(
+        float sourceComponent, float otherColorComponent,
+        float sourceSimilarity) {
+      return sourceComponent * sourceSimilarity
+          + otherColorComponent * (1f - sourceSimilarity);
     }
   }
 
@@ -1513,7 +1505,7 @@ public class GssFunctions {
    * the RGB components.
    * Usage: makeTranslucent(existingColor, alphaValue);
    */
-  public static class MakeTranslucent implements GssFunction {
+  public static class MakeTranslucent implements PureGssFunction {
     @Override
     public Integer getNumExpectedArguments() {
       return 2;
@@ -1540,21 +1532,23 @@ public class GssFunctions {
     protected CssValueNode makeTranslucent(
         String inputColorStr, String alphaStr,
         @Nullable SourceCodeLocation sourceCodeLocation) {
-      Color inputColor = ColorParser.parseAny(inputColorStr);
+      int inputColor = ColorParser.parseAny(inputColorStr);
       double alpha = Math.min(1.0, Math.max(0, Float.parseFloat(alphaStr)));
 
-      float[] rgb = inputColor.getRGBColorComponents(null);
-      Color outputColor = new Color(rgb[0], rgb[1], rgb[2], (float) alpha);
+      int outputColor = ArgbColors.argb((int) ((float) alpha * 255 + 0.5),
+          ArgbColors.red(inputColor), ArgbColors.green(inputColor),
+          ArgbColors.blue(inputColor));
 
       List<CssValueNode> argList = ImmutableList.<CssValueNode>of(
           new CssLiteralNode(
-              Integer.toString(outputColor.getRed()), sourceCodeLocation),
+              Integer.toString(ArgbColors.red(outputColor)), sourceCodeLocation),
           new CssLiteralNode(
-              Integer.toString(outputColor.getGreen()), sourceCodeLocation),
+              Integer.toString(ArgbColors.green(outputColor)), sourceCodeLocation),
           new CssLiteralNode(
-              Integer.toString(outputColor.getBlue()), sourceCodeLocation),
+              Integer.toString(ArgbColors.blue(outputColor)), sourceCodeLocation),
           new CssLiteralNode(
-              new DecimalFormat("#.###", US_SYMBOLS).format(outputColor.getAlpha() / 255f),
+              new DecimalFormat("#.###", US_SYMBOLS).format(
+                  ArgbColors.alpha(outputColor) / 255f),
               sourceCodeLocation));
       CssValueNode argsValue = new CssCompositeValueNode(
           argList, CssCompositeValueNode.Operator.COMMA,
@@ -1587,7 +1581,7 @@ public class GssFunctions {
    * <p>
    * {@code MYDEF = BAR;}
    */
-  public static class SelectFrom implements GssFunction {
+  public static class SelectFrom implements PureGssFunction {
     @Override
     public Integer getNumExpectedArguments() {
       return 3;
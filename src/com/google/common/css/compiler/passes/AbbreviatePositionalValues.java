@@ -51,8 +51,12 @@ public class AbbreviatePositionalValues extends DefaultTreeVisitor
     this.visitController = visitController;
   }
 
+  /**
+   * Abbreviates the values once they have been visited, so that the values
+   * normalized by the passes this one is fused with compare equal.
+   */
   @Override
-  public boolean enterDeclaration(CssDeclarationNode declaration) {
+  public void leaveDeclaration(CssDeclarationNode declaration) {
     Property property = declaration.getPropertyName().getProperty();
     if (property.hasPositionalParameters()) {
       CssPropertyValueNode valueNode = declaration.getPropertyValue();
@@ -68,7 +72,6 @@ public class AbbreviatePositionalValues extends DefaultTreeVisitor
         visitController.replaceCurrentBlockChildWith(replacementList, false);
       }
     }
-    return true;
   }
 
   /**
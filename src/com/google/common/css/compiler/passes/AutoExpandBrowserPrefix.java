@@ -17,6 +17,7 @@
 package com.google.common.css.compiler.passes;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.css.compiler.ast.CssCommentNode;
 import com.google.common.css.compiler.ast.CssCompilerPass;
 import com.google.common.css.compiler.ast.CssDeclarationNode;
@@ -28,6 +29,8 @@ import com.google.common.css.compiler.ast.DefaultTreeVisitor;
 import com.google.common.css.compiler.ast.MutatingVisitController;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 /**
  * A compiler pass that automatically detects certain properties that need additional
@@ -50,13 +53,42 @@ import java.util.List;
  */
 public class AutoExpandBrowserPrefix extends DefaultTreeVisitor implements CssCompilerPass {
 
+  private static final ImmutableList<BrowserPrefixRule> EXPANSION_RULES =
+      BrowserPrefixGenerator.getExpansionRules();
+
+  /**
+   * The positions in {@link #EXPANSION_RULES} of the rules that match a property name, by property
+   * name.
+   */
+  private static final ImmutableListMultimap<String, Integer> RULES_BY_PROPERTY_NAME;
+
+  /**
+   * The positions in {@link #EXPANSION_RULES} of the rules that match a value alone, by value or
+   * function name.
+   */
+  private static final ImmutableListMultimap<String, Integer> RULES_BY_VALUE;
+
+  static {
+    ImmutableListMultimap.Builder<String, Integer> rulesByPropertyName =
+        ImmutableListMultimap.builder();
+    ImmutableListMultimap.Builder<String, Integer> rulesByValue = ImmutableListMultimap.builder();
+    for (int i = 0; i < EXPANSION_RULES.size(); i++) {
+      BrowserPrefixRule rule = EXPANSION_RULES.get(i);
+      if (rule.getMatchPropertyName() != null) {
+        rulesByPropertyName.put(rule.getMatchPropertyName(), i);
+      } else {
+        rulesByValue.put(rule.getMatchPropertyValue(), i);
+      }
+    }
+    RULES_BY_PROPERTY_NAME = rulesByPropertyName.build();
+    RULES_BY_VALUE = rulesByValue.build();
+  }
+
   private final MutatingVisitController visitController;
-  private final ImmutableList<BrowserPrefixRule> expansionRules;
   private boolean inDefMixinBlock;
 
   public AutoExpandBrowserPrefix(MutatingVisitController visitController) {
     this.visitController = visitController;
-    this.expansionRules = BrowserPrefixGenerator.getExpansionRules();
   }
 
   @Override
@@ -79,19 +111,17 @@ public class AutoExpandBrowserPrefix extends DefaultTreeVisitor implements CssCo
       return true;
     }
     ImmutableList.Builder<CssDeclarationNode> expansionNodes = ImmutableList.builder();
-    for (BrowserPrefixRule rule : expansionRules) {
-      // If the name is present in the rule then it must match the declaration.
-      if (rule.getMatchPropertyName() != null
-          && !rule.getMatchPropertyName().equals(declaration.getPropertyName().getPropertyName())) {
-        continue;
-      }
+    for (int i : getCandidateRules(declaration)) {
+      BrowserPrefixRule rule = EXPANSION_RULES.get(i);
       // Handle case #1 when no property value is available.
       if (rule.getMatchPropertyValue() == null) {
         for (CssDeclarationNode ruleExpansionNode : rule.getExpansionNodes()) {
-          CssDeclarationNode expansionNode = ruleExpansionNode.deepCopy();
-          expansionNode.setPropertyValue(declaration.getPropertyValue().deepCopy());
-          expansionNode.setSourceCodeLocation(declaration.getSourceCodeLocation());
-          expansionNode.setComments(declaration.getComments());
+          CssDeclarationNode expansionNode =
+              new CssDeclarationNode(
+                  ruleExpansionNode.getPropertyName().deepCopy(),
+                  declaration.getPropertyValue().deepCopy(),
+                  declaration.getComments(),
+                  declaration.getSourceCodeLocation());
           expansionNode.appendComment(new CssCommentNode("/* @alternate */", null));
           expansionNodes.add(expansionNode);
         }
@@ -118,6 +148,34 @@ public class AutoExpandBrowserPrefix extends DefaultTreeVisitor implements CssCo
     return true;
   }
 
+  /**
+   * Returns the positions, in order, of the rules that may match the declaration: the rules for its
+   * property name and the value-only rules for its values. A rule for a property name only applies
+   * to declarations of that property, and a value-only rule only to declarations with a value, or
+   * a function, of that name.
+   */
+  private static Iterable<Integer> getCandidateRules(CssDeclarationNode declaration) {
+    ImmutableList<Integer> byPropertyName =
+        RULES_BY_PROPERTY_NAME.get(declaration.getPropertyName().getPropertyName());
+    SortedSet<Integer> candidates = null;
+    for (CssValueNode value : declaration.getPropertyValue().childIterable()) {
+      String key = value instanceof CssFunctionNode
+          ? ((CssFunctionNode) value).getFunctionName()
+          : value.getValue();
+      if (key == null) {
+        continue;
+      }
+      ImmutableList<Integer> byValue = RULES_BY_VALUE.get(key);
+      if (!byValue.isEmpty()) {
+        if (candidates == null) {
+          candidates = new TreeSet<>(byPropertyName);
+        }
+        candidates.addAll(byValue);
+      }
+    }
+    return candidates != null ? candidates : byPropertyName;
+  }
+
   protected ImmutableList<CssDeclarationNode> getNonFunctionValueMatches(
       BrowserPrefixRule rule, CssDeclarationNode declaration) {
     // Ensure that the property value matches exactly.
@@ -19,6 +19,7 @@ package com.google.common.css.compiler.passes;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.css.compiler.ast.CssCommentNode;
 import com.google.common.css.compiler.ast.CssDeclarationNode;
@@ -44,14 +45,16 @@ public final class BrowserPrefixRule {
   private final Optional<String> matchPropertyName;
   private final Optional<String> matchPropertyValue;
   private final boolean isFunction;
-  private final List<CssDeclarationNode> expansionNodes = Lists.newArrayList();
-  private final List<CssPropertyValueNode> valueOnlyExpansionNodes = Lists.newArrayList();
+  private final ImmutableList<CssDeclarationNode> expansionNodes;
+  private final ImmutableList<CssPropertyValueNode> valueOnlyExpansionNodes;
 
   private BrowserPrefixRule(Builder builder) {
     checkState(builder.matchPropertyName != null || builder.matchPropertyValue != null);
     this.matchPropertyName = Optional.fromNullable(builder.matchPropertyName);
     this.matchPropertyValue = Optional.fromNullable(builder.matchPropertyValue);
     this.isFunction = builder.isFunction;
+    ImmutableList.Builder<CssDeclarationNode> expansionNodes = ImmutableList.builder();
+    ImmutableList.Builder<CssPropertyValueNode> valueOnlyExpansionNodes = ImmutableList.builder();
 
     // Pre-compute placeholder expansion nodes for this rule.
     // Either expandPropertyValueList or expandPropertyNameList will be non-empty.
@@ -96,6 +99,8 @@ public final class BrowserPrefixRule {
         }
       }
     }
+    this.expansionNodes = expansionNodes.build();
+    this.valueOnlyExpansionNodes = valueOnlyExpansionNodes.build();
   }
 
   @Nullable
@@ -114,7 +119,8 @@ public final class BrowserPrefixRule {
 
   /**
    * @return A list of expansion nodes that contain a property names, and may contain a value. These
-   *     nodes should be used when replacing declarations by matching property name.
+   *     nodes should be used when replacing declarations by matching property name. They are
+   *     templates shared by all the matching declarations, which must be copied, not modified.
    */
   public List<CssDeclarationNode> getExpansionNodes() {
     return expansionNodes;
@@ -122,7 +128,8 @@ public final class BrowserPrefixRule {
 
   /**
    * @return A list of value-only expansion nodes, meaning they do not contain a property name.
-   * These nodes should be used when replacing declarations by matching the value only.
+   * These nodes should be used when replacing declarations by matching the value only. Like
+   * {@link #getExpansionNodes}, they must be copied, not modified.
    */
   List<CssPropertyValueNode> getValueOnlyExpansionNodes() {
     return valueOnlyExpansionNodes;
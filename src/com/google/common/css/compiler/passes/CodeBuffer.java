@@ -17,6 +17,9 @@
 package com.google.common.css.compiler.passes;
 
 import com.google.common.base.Preconditions;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Arrays;
 import javax.annotation.Nullable;
 
 /**
@@ -29,104 +32,182 @@ import javax.annotation.Nullable;
  *
  * <p>{@code char} is used as operation unit for methods, there is no support for surrogates.
  *
+ * <p>The buffer records the offset at which every line starts in an
+ * {@code int} array, so appending does not allocate and the character and line
+ * indexes are derived from the length of the buffer, even after deleting
+ * several lines at once.
+ *
+ * <p>A buffer created with {@link #CodeBuffer(Appendable)} streams: it only
+ * keeps the last characters written to it, so that they can still be deleted,
+ * and writes the others through to its {@link Appendable}. Its memory use does
+ * not depend on the size of the output, while the character and line indexes
+ * are those of the whole output.
+ *
  * @author steveyang@google.com (Chenyun Yang)
  */
 public class CodeBuffer {
 
-  private final StringBuilder sb;
+  /**
+   * The number of characters a streaming buffer may hold before it writes
+   * them out.
+   */
+  private static final int FLUSH_THRESHOLD = 16 * 1024;
 
   /**
-   * The index within the line of the next character to be written to the buffer.
-   * Indices start at 0, following source map v3.
+   * The number of characters a streaming buffer keeps when it writes out the
+   * others. Printers only delete a few of the last characters they wrote.
    */
-  private int nextCharIndex;
+  private static final int RETAINED_LENGTH = 1024;
+
+  private static final int INITIAL_LINE_CAPACITY = 16;
+
+  /** The characters that have not been written out. */
+  private final StringBuilder sb;
+
+  /** Where a streaming buffer writes its characters, {@code null} otherwise. */
+  @Nullable private final Appendable out;
+
+  /** The number of characters already written out, which can no longer be deleted. */
+  private int flushedLength;
+
+  /** The first error {@link #out} threw, reported by {@link #flush}. */
+  @Nullable private IOException writeException;
 
   /**
-   * The index of the line that will contain the character at nextCharIndex.
-   * Indices start at 0, following source map v3.
+   * The offset within the output at which each line starts, from the line
+   * at {@link #firstLineIndex} to the line at {@link #nextLineIndex}. A
+   * streaming buffer forgets the lines that end before the characters it
+   * keeps.
    */
-  private int nextLineIndex;
+  private int[] lineStarts = new int[INITIAL_LINE_CAPACITY];
+
+  /** The index of the line that starts at {@code lineStarts[0]}. */
+  private int firstLineIndex;
 
   /**
-   * The index of the last character written to the buffer.
-   * Indices start at 0, following source map v3.
+   * The index of the line that will contain the next character to be written
+   * to the buffer. Indices start at 0, following source map v3.
    */
-  private int lastCharIndex;
+  private int nextLineIndex;
 
   public CodeBuffer() {
     this.sb = new StringBuilder();
-    resetIndex();
+    this.out = null;
+  }
+
+  /**
+   * Creates a streaming buffer, which writes its characters through to
+   * {@code out}. The last characters are only written by {@link #flush}.
+   */
+  public CodeBuffer(Appendable out) {
+    this.sb = new StringBuilder(FLUSH_THRESHOLD);
+    this.out = Preconditions.checkNotNull(out);
+  }
+
+  /** Returns whether the buffer writes its characters through to an {@link Appendable}. */
+  public final boolean isStreaming() {
+    return out != null;
   }
 
-  /** Returns buffer as String. */
+  /**
+   * Returns buffer as String.
+   *
+   * @throws IllegalStateException if the buffer is streaming
+   */
   public final String getOutput() {
+    Preconditions.checkState(out == null, "A streaming buffer writes out its output");
     return sb.toString();
   }
 
+  /**
+   * Writes the characters of a streaming buffer that have not been written
+   * yet and flushes its {@link Appendable}. Does nothing if the buffer is not
+   * streaming.
+   *
+   * @throws IOException if writing to the {@link Appendable} failed, now or
+   *     while characters were being appended
+   */
+  public final void flush() throws IOException {
+    if (out != null) {
+      writeOut(sb.length());
+      if (writeException != null) {
+        throw writeException;
+      }
+      if (out instanceof Flushable) {
+        ((Flushable) out).flush();
+      }
+    }
+  }
+
   /** Returns the current length of the buffer. */
   public final int getCurrentLength() {
-    return sb.length();
+    return flushedLength + sb.length();
   }
 
   /** Returns the last character in the buffer. */
   public final char getLastChar() {
+    Preconditions.checkState(sb.length() > 0, "The last character was written out");
     return sb.charAt(sb.length() - 1);
   }
 
   /**
-   * Returns {@link #nextCharIndex}.
+   * Returns the index within the line of the next character to be written to
+   * the buffer. Indices start at 0, following source map v3.
    */
   public final int getNextCharIndex() {
-    return nextCharIndex;
+    return getCurrentLength() - lineStart(nextLineIndex);
   }
 
   /**
-   * Returns {@link #nextLineIndex}.
+   * Returns the index of the line that will contain the character at
+   * {@link #getNextCharIndex}. Indices start at 0, following source map v3.
    */
   public final int getNextLineIndex() {
     return nextLineIndex;
   }
 
   /**
-   * Returns {@link #lastCharIndex}.
+   * Returns the index within its line of the last character written to the
+   * buffer, or -1 if the buffer is empty. Indices start at 0, following
+   * source map v3.
    */
   public final int getLastCharIndex() {
-    return lastCharIndex;
+    int length = getCurrentLength();
+    return length == 0 ? -1 : length - 1 - lineStart(getLastLineIndex());
   }
 
   /**
    * Returns the index of the line which contains the last character at lastCharIndex.
-   * It is always the same or 1 index behind {@link #nextLineIndex}.
+   * It is always the same or 1 index behind {@link #getNextLineIndex}.
    */
   public final int getLastLineIndex() {
-    return nextLineIndex - (
-        (sb.length() > 0 && sb.charAt(sb.length() - 1) == '\n') ? 1 : 0);
+    int length = getCurrentLength();
+    // The last character is a newline when the next line starts right after it.
+    return nextLineIndex - ((length > 0 && lineStart(nextLineIndex) == length) ? 1 : 0);
   }
 
   /**
    * Appends {@code str} to the buffer. The string is safe to contain newlines.
    * {@code nextCharIndex} and {@code nextLineIndex} will be updated accordingly.
-   *
-   * <p>Prefer to use append(char c) API to append characters for efficiency.
    */
   public final CodeBuffer append(@Nullable String str) {
     if (str == null) {
       return this;
     }
 
-    if (str.length() == 1) {
-      append(str.charAt(0));
+    int start = 0;
+    int newline;
+    while ((newline = str.indexOf('\n', start)) != -1) {
+      sb.append(str, start, newline);
+      startNewLine();
+      start = newline + 1;
+    }
+    if (start == 0) {
+      sb.append(str);
     } else {
-      String[] parts = str.split("\n", -1);
-      for (int i = 0; i < parts.length; i++) {
-        sb.append(parts[i]);
-        incrementIndexBy(parts[i].length());
-        if (i != (parts.length - 1)) {
-          startNewLine();
-        }
-      }
+      sb.append(str, start, str.length());
     }
-
+    maybeWriteOut();
     return this;
   }
 
@@ -138,7 +219,7 @@ public class CodeBuffer {
       startNewLine();
     } else {
       sb.append(c);
-      incrementIndexBy(1);
+      maybeWriteOut();
     }
     return this;
   }
@@ -155,7 +236,13 @@ public class CodeBuffer {
    */
   public final CodeBuffer startNewLine() {
     sb.append('\n');
-    incrementIndexForNewline();
+    nextLineIndex++;
+    int line = nextLineIndex - firstLineIndex;
+    if (line == lineStarts.length) {
+      lineStarts = Arrays.copyOf(lineStarts, line * 2);
+    }
+    lineStarts[line] = getCurrentLength();
+    maybeWriteOut();
     return this;
   }
 
@@ -164,29 +251,41 @@ public class CodeBuffer {
    * {@code nextLineIndex}.
    */
   public final CodeBuffer deleteLastChar() {
-    if (getCurrentLength() > 0) {
-      decrementIndex();
-      sb.deleteCharAt(getCurrentLength() - 1);
-    }
-    return this;
+    return deleteLastChars(1);
   }
 
-  /** Deletes last {@code n} characters in the buffer. */
+  /**
+   * Deletes last {@code n} characters in the buffer, or all of them if there
+   * are fewer.
+   *
+   * @throws IllegalStateException if a streaming buffer already wrote out
+   *     some of the characters
+   */
   public final CodeBuffer deleteLastChars(int n) {
-    for (int i = 0; i < n; i++) {
-      deleteLastChar();
+    int length = Math.max(getCurrentLength() - n, 0);
+    Preconditions.checkState(length >= flushedLength,
+        "Cannot delete characters that were written out");
+    sb.setLength(length - flushedLength);
+    while (lineStart(nextLineIndex) > length) {
+      nextLineIndex--;
     }
     return this;
   }
 
   /**
    * Clears the contents of the buffer and resets {@code nextCharIndex}
-   * and {@code nextLineIndex}.
+   * and {@code nextLineIndex}. The characters a streaming buffer already
+   * wrote out are not affected.
    */
   public final CodeBuffer reset() {
-    resetIndex();
     sb.setLength(0);
-    sb.trimToSize();
+    if (out == null) {
+      sb.trimToSize();
+    }
+    flushedLength = 0;
+    firstLineIndex = 0;
+    nextLineIndex = 0;
+    lineStarts[0] = 0;
     return this;
   }
 
@@ -199,82 +298,67 @@ public class CodeBuffer {
    * @param ch the character to delete
    */
   public void deleteLastCharIfCharIs(char ch) {
-    if (getCurrentLength() > 0 && getLastChar() == ch) {
-      deleteLastChar();
+    if (sb.length() > 0 && sb.charAt(sb.length() - 1) == ch) {
+      deleteLastChars(1);
     }
   }
 
   /** Deletes the end of the buffer if it exactly equals {@code s}. */
   public void deleteEndingIfEndingIs(String s) {
-    if (sb.subSequence(sb.length() - s.length(), sb.length()).equals(s)) {
-      deleteLastChars(s.length());
+    int start = sb.length() - s.length();
+    if (start < 0) {
+      return;
+    }
+    for (int i = 0; i < s.length(); i++) {
+      if (sb.charAt(start + i) != s.charAt(i)) {
+        return;
+      }
     }
+    deleteLastChars(s.length());
   }
 
-  /**
-   * Updates character-related indexes before or after writing some non-newline characters
-   * to the buffer. Use {@link #incrementIndexForNewline} when writing '\n'.
-   *
-   * @param step numbers of characters writes to buffer
-   */
-  private void incrementIndexBy(int step) {
-    if (step > 0) {
-      lastCharIndex = nextCharIndex + step - 1;
-      nextCharIndex = nextCharIndex + step;
-    }
+  /** Returns the offset within the output at which {@code lineIndex} starts. */
+  private int lineStart(int lineIndex) {
+    return lineStarts[lineIndex - firstLineIndex];
   }
 
   /**
-   * Updates character-related indexes before/after writing a newline character to the buffer.
+   * Writes out all but the last characters of a streaming buffer once it
+   * holds enough of them.
    */
-  private void incrementIndexForNewline() {
-    // '\n' is written at {@code nextCharIndex}
-    lastCharIndex = nextCharIndex;
-    nextCharIndex = 0;
-
-    // future writing starts at a new line
-    nextLineIndex++;
+  private void maybeWriteOut() {
+    if (out != null && sb.length() >= FLUSH_THRESHOLD) {
+      writeOut(sb.length() - RETAINED_LENGTH);
+    }
   }
 
   /**
-   * Updates character-related indexes <b>before</b> deleting a character in buffer.
-   *
-   * <p>Note: Indexes updates must take place before deletion as the last two chars determine
-   * the behavior.
+   * Writes out the first {@code length} characters of a streaming buffer.
+   * After a write fails, the characters are dropped and the failure is
+   * reported by {@link #flush}, so that appending never throws.
    */
-  private void decrementIndex() {
-    Preconditions.checkState(getCurrentLength() > 0);
-
-    nextCharIndex = lastCharIndex;
-
-    // Need to look at the last character to determine how to update indexes
-    int lastIndex = getCurrentLength() - 1;
-
-    // As a '\n' will be removed, {@code nextLineIndex} should be moved to previous line
-    if (sb.charAt(lastIndex) == '\n') {
-      nextLineIndex--;
-    }
-
-    // When the second to last char is a newline, needs to recalculate the {@code lastCharIndex}
-    if (lastIndex - 1 > 0 && sb.charAt(lastIndex - 1) == '\n') {
-      int lastNewline = sb.lastIndexOf("\n");
-      int secondToLastNewLine = sb.substring(0, lastNewline - 1).lastIndexOf('\n');
-      if (secondToLastNewLine == -1) {
-        // when only one line left after deletion
-        lastCharIndex = lastNewline - 1;
-      } else {
-        // Adjust to 0-based index for {@code lastCharIndex}.
-        lastCharIndex = lastNewline - secondToLastNewLine - 1;
+  private void writeOut(int length) {
+    if (writeException == null) {
+      try {
+        out.append(sb, 0, length);
+      } catch (IOException e) {
+        writeException = e;
       }
-    } else {
-      // Otherwise, when deletion happens on same line, move the index one character to the left
-      lastCharIndex = lastCharIndex - 1;
     }
-  }
-
-  private void resetIndex() {
-    nextCharIndex = 0;
-    nextLineIndex = 0;
-    lastCharIndex = -1;
+    flushedLength += length;
+    sb.delete(0, length);
+
+    // Forget the lines before the one holding the last character written
+    // out, as the indexes of the characters that can still be deleted do not
+    // depend on them.
+    int lastWritten = Math.max(flushedLength - 1, 0);
+    int line = firstLineIndex;
+    while (line < nextLineIndex && lineStart(line + 1) <= lastWritten) {
+      line++;
+    }
+    if (line > firstLineIndex) {
+      System.arraycopy(lineStarts, line - firstLineIndex, lineStarts, 0, nextLineIndex - line + 1);
+      firstLineIndex = line;
+    }
   }
 }
@@ -43,19 +43,20 @@ public abstract class CodePrinter implements CssCompilerPass {
   private final CodeBuffer buffer;
 
   /** The source map generator used by CodePrinter and subclasses. */
-  private final GssSourceMapGenerator generator;
+  private final SourceMappingRecorder generator;
 
   /** Whether or not to preserve special comments in the output. */
   private boolean preserveMarkedComments;
 
   /**
    * Initializes this instance from the given {@link VisitController}, could optionally accept
-   * {@link CodeBuffer} and {@link GssSourceMapGenerator} to use.
+   * {@link CodeBuffer} and {@link GssSourceMapGenerator}, or other
+   * {@link SourceMappingRecorder}, to use.
    */
   protected CodePrinter(
       VisitController visitController,
       @Nullable CodeBuffer buffer,
-      @Nullable GssSourceMapGenerator generator) {
+      @Nullable SourceMappingRecorder generator) {
     this.visitController = visitController;
     this.buffer = buffer != null ? buffer : new CodeBuffer();
     this.generator = generator;
@@ -91,8 +92,13 @@ public abstract class CodePrinter implements CssCompilerPass {
     buffer.reset();
   }
 
+  /**
+   * Returns the printed output, or {@code null} if the buffer is streaming,
+   * as it then writes the output out as it is printed.
+   */
+  @Nullable
   protected final String getOutputBuffer() {
-    return buffer.getOutput();
+    return buffer.isStreaming() ? null : buffer.getOutput();
   }
 
   /**
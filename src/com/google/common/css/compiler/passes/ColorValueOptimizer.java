@@ -30,6 +30,7 @@ import com.google.common.css.compiler.ast.CssNumericNode;
 import com.google.common.css.compiler.ast.CssValueNode;
 import com.google.common.css.compiler.ast.DefaultTreeVisitor;
 import com.google.common.css.compiler.ast.MutatingVisitController;
+import com.google.common.css.compiler.gssfunctions.ArgbColors;
 
 import java.util.List;
 import java.util.logging.Logger;
@@ -107,7 +108,7 @@ public class ColorValueOptimizer extends DefaultTreeVisitor
     CssFunctionArgumentsNode args = function.getArguments();
 
     int numArgs = 0;
-    StringBuilder hexValue = new StringBuilder("#");
+    int color = 0;
     for (CssValueNode rgbValue : args.getChildren()) {
       if (rgbValue instanceof CssNumericNode) {
         numArgs++;
@@ -129,10 +130,7 @@ public class ColorValueOptimizer extends DefaultTreeVisitor
           logger.info("Out of range argument to rgb(): " + numericValue);
           scalarValue = 255;
         }
-        if (scalarValue < 16) {
-          hexValue.append('0');
-        }
-        hexValue.append(Integer.toHexString(scalarValue));
+        color = (color << 8) | scalarValue;
       } else if (rgbValue instanceof CssLiteralNode &&
           ",".equals(rgbValue.getValue())) {
         // Sadly, the comma separators parse as function arguments, just
@@ -147,7 +145,7 @@ public class ColorValueOptimizer extends DefaultTreeVisitor
       throw new NumberFormatException("Invalid number of arguments to rgb().");
     }
 
-    return hexValue.toString();
+    return ArgbColors.toLowerCaseHexString(color);
   }
 
   /**
@@ -28,7 +28,7 @@ public class CompactPrinter extends CodePrinter {
   private String compactedPrintedString = null;
 
   public CompactPrinter(
-      CssNode subtree, @Nullable CodeBuffer buffer, @Nullable GssSourceMapGenerator generator) {
+      CssNode subtree, @Nullable CodeBuffer buffer, @Nullable SourceMappingRecorder generator) {
     super(subtree.getVisitController(), buffer, generator);
   }
 
@@ -41,7 +41,7 @@ public class CompactPrinter extends CodePrinter {
   }
 
   public CompactPrinter(
-      CssTree tree, @Nullable CodeBuffer buffer, @Nullable GssSourceMapGenerator generator) {
+      CssTree tree, @Nullable CodeBuffer buffer, @Nullable SourceMappingRecorder generator) {
     super(tree.getVisitController(), buffer, generator);
   }
 
@@ -57,12 +57,22 @@ public class CompactPrinter extends CodePrinter {
     this(tree, null /* buffer */, null /* generator */);
   }
 
+  protected CompactPrinter(
+      VisitController visitController,
+      @Nullable CodeBuffer buffer,
+      @Nullable SourceMappingRecorder generator) {
+    super(visitController, buffer, generator);
+  }
+
   @Override
   protected CssTreeVisitor createVisitor(VisitController visitController, CodeBuffer buffer) {
     return new CompactPrintingVisitor(visitController, buffer);
   }
 
-  /** Returns the CSS compacted printed output. */
+  /**
+   * Returns the CSS compacted printed output, or {@code null} if it was
+   * printed to a streaming {@link CodeBuffer}.
+   */
   public String getCompactPrintedString() {
     return compactedPrintedString;
   }
@@ -42,6 +42,9 @@ import java.util.List;
  * <p>Source Map Revision 3 Proposal:
  * https://docs.google.com/document/d/1U1RGAehQwRypUTovF1KRlpiOFze0b-_2gc6fAH0KY0k/edit?usp=sharing
  *
+ * <p>{@link StreamingGssSourceMapGenerator} generates the same source map
+ * with less memory, without closure-compiler.
+ *
  * @see com.google.debugging.sourcemap.SourceMapGeneratorV3
  *
  * @author steveyang@google.com (Chenyun Yang)
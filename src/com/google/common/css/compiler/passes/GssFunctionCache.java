@@ -0,0 +1,238 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.css.SourceCodeLocation;
+import com.google.common.css.compiler.ast.CssBooleanExpressionNode;
+import com.google.common.css.compiler.ast.CssCompositeValueNode;
+import com.google.common.css.compiler.ast.CssFunctionArgumentsNode;
+import com.google.common.css.compiler.ast.CssFunctionNode;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssValueNode;
+import com.google.common.css.compiler.ast.ErrorManager;
+import com.google.common.css.compiler.ast.GssFunction;
+import com.google.common.css.compiler.ast.GssFunctionException;
+import com.google.common.css.compiler.ast.PureGssFunction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Memoizes the calls of {@link PureGssFunction}s, so that a function called
+ * with the same constant arguments all over a stylesheet is only evaluated
+ * once. Calls are keyed on the function name and class and on the type and
+ * printed form of every argument. The least recently used results are evicted
+ * once the cache holds its maximum number of them.
+ *
+ * <p>Every call gets its own copy of the results, located at the arguments of
+ * that call. Instances are thread-safe, so one cache may be shared by all the
+ * inputs of a compilation and by successive compilations.
+ */
+public final class GssFunctionCache {
+
+  /** The default maximum number of memoized calls. */
+  public static final long DEFAULT_MAXIMUM_SIZE = 10000;
+
+  /** Marks a result node located at the call rather than at an argument. */
+  private static final int CALL_LOCATION = -1;
+
+  /** Marks a result node without a location. */
+  private static final int NO_LOCATION = -2;
+
+  private final Cache<List<Object>, Results> results;
+
+  public GssFunctionCache() {
+    this(DEFAULT_MAXIMUM_SIZE);
+  }
+
+  /**
+   * @param maximumSize the maximum number of calls to memoize
+   */
+  public GssFunctionCache(long maximumSize) {
+    Preconditions.checkArgument(maximumSize >= 0);
+    this.results = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Calls the given function, unless it is pure and it was already called
+   * with equivalent arguments, in which case a copy of the memoized results
+   * is returned.
+   *
+   * @param functionName the name the function is called by
+   * @param function the function to call
+   * @param arguments the arguments of the call
+   * @param callLocation the location of the call
+   * @param errorManager the error manager passed to the function
+   * @return the results of the call, which the caller owns
+   * @throws GssFunctionException if the function call is invalid
+   */
+  public List<CssValueNode> call(String functionName, GssFunction function,
+      List<CssValueNode> arguments, @Nullable SourceCodeLocation callLocation,
+      ErrorManager errorManager) throws GssFunctionException {
+    if (!(function instanceof PureGssFunction)) {
+      return function.getCallResultNodes(arguments, errorManager);
+    }
+    List<Object> key = createKey(functionName, function, arguments);
+    Results memoized = results.getIfPresent(key);
+    if (memoized != null) {
+      return memoized.copy(arguments, callLocation);
+    }
+    List<CssValueNode> callResults =
+        function.getCallResultNodes(arguments, errorManager);
+    memoized = Results.create(callResults, arguments, callLocation);
+    if (memoized != null) {
+      results.put(key, memoized);
+    }
+    return callResults;
+  }
+
+  /** Returns the number of calls answered from the cache. */
+  public long getHitCount() {
+    return results.stats().hitCount();
+  }
+
+  /** Returns the number of calls of pure functions that were evaluated. */
+  public long getMissCount() {
+    return results.stats().missCount();
+  }
+
+  /** Returns the number of memoized calls. */
+  public long size() {
+    return results.size();
+  }
+
+  private static List<Object> createKey(String functionName,
+      GssFunction function, List<CssValueNode> arguments) {
+    Object[] key = new Object[2 + 2 * arguments.size()];
+    key[0] = functionName;
+    key[1] = function.getClass();
+    for (int i = 0; i < arguments.size(); i++) {
+      CssValueNode argument = arguments.get(i);
+      key[2 + 2 * i] = argument.getClass();
+      key[3 + 2 * i] = argument.toString();
+    }
+    return Arrays.asList(key);
+  }
+
+  /**
+   * Adds the given node and its descendants to {@code nodes} in pre-order.
+   * Returns false if some of the descendants can't be reached.
+   */
+  private static boolean addSubtree(CssNode node, List<CssNode> nodes) {
+    nodes.add(node);
+    if (node instanceof CssCompositeValueNode) {
+      for (CssValueNode value : ((CssCompositeValueNode) node).getValues()) {
+        if (!addSubtree(value, nodes)) {
+          return false;
+        }
+      }
+    } else if (node instanceof CssFunctionNode) {
+      CssFunctionArgumentsNode arguments = ((CssFunctionNode) node).getArguments();
+      return arguments == null || addSubtree(arguments, nodes);
+    } else if (node instanceof CssFunctionArgumentsNode) {
+      for (CssValueNode argument : ((CssFunctionArgumentsNode) node).childIterable()) {
+        if (!addSubtree(argument, nodes)) {
+          return false;
+        }
+      }
+    } else if (node instanceof CssBooleanExpressionNode) {
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * The memoized results of a call, which are never handed out, along with
+   * where each of their nodes is located.
+   */
+  private static final class Results {
+    final List<CssValueNode> nodes;
+    /**
+     * For every node of {@link #nodes} in pre-order, the index of the argument
+     * it is located at, or {@link #CALL_LOCATION} or {@link #NO_LOCATION}.
+     */
+    final int[] locations;
+
+    private Results(List<CssValueNode> nodes, int[] locations) {
+      this.nodes = nodes;
+      this.locations = locations;
+    }
+
+    /**
+     * Memoizes the given results, or returns null if some of their nodes
+     * can't be located relative to the call.
+     */
+    @Nullable
+    static Results create(List<CssValueNode> callResults,
+        List<CssValueNode> arguments, @Nullable SourceCodeLocation callLocation) {
+      List<CssNode> subtrees = new ArrayList<>();
+      for (CssValueNode node : callResults) {
+        if (!addSubtree(node, subtrees)) {
+          return null;
+        }
+      }
+      int[] locations = new int[subtrees.size()];
+      for (int i = 0; i < locations.length; i++) {
+        locations[i] = locate(
+            subtrees.get(i).getSourceCodeLocation(), arguments, callLocation);
+        if (locations[i] == Integer.MIN_VALUE) {
+          return null;
+        }
+      }
+      return new Results(CssNode.deepCopyNodes(callResults), locations);
+    }
+
+    private static int locate(@Nullable SourceCodeLocation location,
+        List<CssValueNode> arguments, @Nullable SourceCodeLocation callLocation) {
+      if (location == null) {
+        return NO_LOCATION;
+      }
+      for (int i = 0; i < arguments.size(); i++) {
+        if (Objects.equal(location, arguments.get(i).getSourceCodeLocation())) {
+          return i;
+        }
+      }
+      return location.equals(callLocation) ? CALL_LOCATION : Integer.MIN_VALUE;
+    }
+
+    /** Returns a copy of the results, located at the given call. */
+    List<CssValueNode> copy(
+        List<CssValueNode> arguments, @Nullable SourceCodeLocation callLocation) {
+      List<CssValueNode> copy = CssNode.deepCopyNodes(nodes);
+      List<CssNode> subtrees = new ArrayList<>(locations.length);
+      for (CssValueNode node : copy) {
+        addSubtree(node, subtrees);
+      }
+      for (int i = 0; i < locations.length; i++) {
+        int location = locations[i];
+        subtrees.get(i).setSourceCodeLocation(
+            location == NO_LOCATION ? null
+                : location == CALL_LOCATION ? callLocation
+                : arguments.get(location).getSourceCodeLocation());
+      }
+      return copy;
+    }
+  }
+}
@@ -25,7 +25,7 @@ import java.io.IOException;
  *
  * @author steveyang@google.com (Chenyun Yang)
  */
-public interface GssSourceMapGenerator {
+public interface GssSourceMapGenerator extends SourceMappingRecorder {
   /** 
    * Appends the generated source map to {@code out}. 
    * 
@@ -34,28 +34,6 @@ public interface GssSourceMapGenerator {
    */
   public void appendOutputTo(Appendable out, String name) throws IOException;
 
-  /**
-   * Starts the source mapping for the given node at the current position.
-   * This is intended to be called before the node is written to the buffer.
-   *
-   * @param node the {@link CssNode} to be processed
-   * @param startLine the first character's line number once it starts writing output
-   * @param startCharIndex the first character's character index once it starts writing output
-   */
-  public void startSourceMapping(CssNode node, int startLine, int startCharIndex);
-
-  /**
-   * Finishes the source mapping for the given node at the current position.
-   * This is intended to be called immediately after the whole node is written to the buffer.
-   *
-   * @param node the {@link CssNode} to be processed
-   * @param endLine the last character's line number when it ends writing output
-   * @param endCharIndex the last character's character index when it ends writing output
-   *     or one less than the corresponding {@link #startSourceMapping startCharIndex} if
-   *     a source mapping is empty.
-   */
-  public void endSourceMapping(CssNode node, int endLine, int endCharIndex);
-
   /**
    * A prefix to be added to the beginning of each source file name.
    * Debuggers expect (prefix + sourceName) to be a URL for loading the source code.
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.base.Preconditions;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * A map from pairs of ints, such as the ids given by a {@link SymbolTable},
+ * to non-null values. The keys are packed into longs and stored with the
+ * values in open-addressing arrays, so that lookups allocate nothing.
+ *
+ * @param <V> the type of the values
+ */
+final class IntPairMap<V> {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private long[] keys = new long[INITIAL_CAPACITY];
+  /** The values, {@code null} marking the empty slots. */
+  private Object[] values = new Object[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * Returns the value of the given pair, or {@code null} if it has none.
+   */
+  @Nullable
+  V get(int first, int second) {
+    long key = pack(first, second);
+    int mask = keys.length - 1;
+    for (int slot = hash(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        @SuppressWarnings("unchecked")
+        V value = (V) values[slot];
+        return value;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Associates the given value with the given pair, replacing its previous
+   * value if there is one.
+   */
+  void put(int first, int second, V value) {
+    Preconditions.checkNotNull(value);
+    if (2 * (size + 1) > keys.length) {
+      resize();
+    }
+    insert(pack(first, second), value);
+  }
+
+  /** Returns the number of pairs that have a value. */
+  int size() {
+    return size;
+  }
+
+  /** Removes all the pairs, keeping the capacity. */
+  void clear() {
+    if (size > 0) {
+      Arrays.fill(values, null);
+      size = 0;
+    }
+  }
+
+  private void insert(long key, Object value) {
+    int mask = keys.length - 1;
+    int slot = hash(key) & mask;
+    while (values[slot] != null) {
+      if (keys[slot] == key) {
+        values[slot] = value;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    size++;
+  }
+
+  private void resize() {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    keys = new long[oldKeys.length * 2];
+    values = new Object[oldValues.length * 2];
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != null) {
+        insert(oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+
+  private static long pack(int first, int second) {
+    return ((long) first << 32) | (second & 0xFFFFFFFFL);
+  }
+
+  private static int hash(long key) {
+    // Spreads both halves over the high bits, then folds them back down.
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h >>> 32) ^ (int) h;
+  }
+}
@@ -18,12 +18,8 @@ package com.google.common.css.compiler.passes;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicates;
-import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Table;
 import com.google.common.css.compiler.ast.CssBlockNode;
 import com.google.common.css.compiler.ast.CssClassSelectorNode;
 import com.google.common.css.compiler.ast.CssCompilerPass;
@@ -37,6 +33,7 @@ import com.google.common.css.compiler.ast.CssTree;
 import com.google.common.css.compiler.ast.CssValueNode;
 import com.google.common.css.compiler.ast.SkippingTreeVisitor;
 import com.google.common.css.compiler.ast.VisitController;
+import java.util.BitSet;
 import java.util.Set;
 
 /**
@@ -70,6 +67,24 @@ public class MarkRemovableRulesetNodes extends SkippingTreeVisitor
   /** The prefix of the class names. TODO(oana): This should be a namespace. */
   private String prefixOfReferencedRules = "";
 
+  /**
+   * The ids of the selectors, property names and class names, which only
+   * hold while the tree doesn't change, so a new table is used for each run.
+   */
+  private SymbolTable symbols;
+
+  /** The ids of the class names whose references have been looked up. */
+  private final BitSet checkedClassNames = new BitSet();
+
+  /** The ids of the class names that are known to be unreferenced. */
+  private final BitSet unreferencedClassNames = new BitSet();
+
+  /**
+   * The already-seen pairs of selector and property name ids of the block
+   * being processed, with the ruleset of each.
+   */
+  private final IntPairMap<CssRulesetNode> rules = new IntPairMap<>();
+
   /**
    * Creates a new pass over the specified tree.
    */
@@ -109,9 +124,9 @@ public class MarkRemovableRulesetNodes extends SkippingTreeVisitor
     // All the children of the block, which are ruleset nodes, are looked at
     // in reverse order, from the last one to the first. We mark as removable
     // those nodes that we are found as overridden already.
-    // Collect the already-seen pairs of selectors and property names in this
-    // table, save the CssRulesetNode also.
-    Table<String, String, CssRulesetNode> rules = HashBasedTable.create();
+    // Collect the already-seen pairs of selectors and property names in
+    // the rules table, save the CssRulesetNode also.
+    rules.clear();
 
     for (int i = block.numChildren() - 1; i >= 0; i--) {
       if (block.getChildAt(i) instanceof CssRulesetNode) {
@@ -135,7 +150,7 @@ public class MarkRemovableRulesetNodes extends SkippingTreeVisitor
           // Make sure the node has only one selector.
           Preconditions.checkArgument(isSkipping() || (ruleset.getSelectors().numChildren() == 1));
 
-          processRuleset(rules, ruleset);
+          processRuleset(ruleset);
         }
       }
     }
@@ -145,15 +160,16 @@ public class MarkRemovableRulesetNodes extends SkippingTreeVisitor
 
   @Override
   public void runPass() {
+    symbols = new SymbolTable();
+    checkedClassNames.clear();
     visitController.startVisit(this);
   }
 
   /**
    * Processes the given ruleset, deciding whether it should be kept
-   * or removed by looking at the given previous rules.
+   * or removed by looking at the previous rules.
    */
-  private void processRuleset(
-      Table<String, String, CssRulesetNode> rules, CssRulesetNode ruleset) {
+  private void processRuleset(CssRulesetNode ruleset) {
     if ((referencedRules != null) && !referencedRules.isEmpty()) {
       // If this rule is not referenced to in the code we remove it.
       if (isSelectorUnreferenced(ruleset.getSelectors().getChildAt(0))) {
@@ -184,27 +200,27 @@ public class MarkRemovableRulesetNodes extends SkippingTreeVisitor
       propertyName = "*" + propertyName;
     }
 
-    String selector = PassUtil.printSelector(
-        ruleset.getSelectors().getChildAt(0));
+    int selector = symbols.getSelectorId(ruleset.getSelectors().getChildAt(0));
+    int property = symbols.getNameId(propertyName);
 
-    CssRulesetNode previousRuleset = rules.get(selector, propertyName);
+    CssRulesetNode previousRuleset = rules.get(selector, property);
     if (previousRuleset != null) {
       // If the new rule is important and the saved was not, then remove the saved one.
       if (isImportantRule(ruleset) && !isImportantRule(previousRuleset)) {
         tree.getRulesetNodesToRemove().addRulesetNode(previousRuleset);
         // Replace the non-important ruleset in the map, keep the important one.
-        rules.put(selector, propertyName, ruleset);
+        rules.put(selector, property, ruleset);
       } else {
         tree.getRulesetNodesToRemove().addRulesetNode(ruleset);
       }
-    } else if (hasOverridingShorthand(propertyNode, selector, rules, ruleset)) {
+    } else if (hasOverridingShorthand(propertyNode, selector, ruleset)) {
       tree.getRulesetNodesToRemove().addRulesetNode(ruleset);
     } else if (PassUtil.hasAlternateAnnotation(declaration)) {
       // The declaration has @alternate, so do not let it mask other
       // declarations that precede it.  However, @alternate rules may be masked
       // by succeeding non-@alternate rules.
     } else {
-      rules.put(selector, propertyName, ruleset);
+      rules.put(selector, property, ruleset);
     }
   }
 
@@ -249,7 +265,21 @@ public class MarkRemovableRulesetNodes extends SkippingTreeVisitor
         && isSelectorUnreferenced(selector.getCombinator().getSelector()));
   }
 
+  /**
+   * Returns whether one of the dash-separated parts of the given class name
+   * is not in the list of referenced rules. The answer is remembered for
+   * each class name, as the same classes are looked up again and again.
+   */
   private boolean isRefinerUnreferenced(String refiner) {
+    int id = symbols.getNameId(refiner);
+    if (!checkedClassNames.get(id)) {
+      unreferencedClassNames.set(id, hasUnreferencedPart(refiner));
+      checkedClassNames.set(id);
+    }
+    return unreferencedClassNames.get(id);
+  }
+
+  private boolean hasUnreferencedPart(String refiner) {
     String[] splits = refiner.split("-");
     for (String s : splits) {
       if (!referencedRules.contains(s)) {
@@ -273,32 +303,33 @@ public class MarkRemovableRulesetNodes extends SkippingTreeVisitor
    * related shorthand property of equal or higher importance.
    *
    * @param propertyNode the property node of the rule to check
-   * @param selector the printed representation of the selector of the rule
-   * @param rules rulesets occurring after the ruleset to check (represented as
-   *     a map from selector/property pairs to rulesets for easy searching)
+   * @param selector the id of the selector of the rule
    * @param ruleset the ruleset to check (assumed to contain one rule)
    * @return whether the given ruleset has an overriding ruleset which uses a
    *     related shorthand property
    */
   private boolean hasOverridingShorthand(
       CssPropertyNode propertyNode,
-      String selector,
-      Table<String, String, CssRulesetNode> rules,
-      final CssRulesetNode ruleset) {
-
-    Supplier<Boolean> rulesetIsImportant = Suppliers.memoize(
-        new Supplier<Boolean>() {
-          @Override
-          public Boolean get() {
-            return isImportantRule(ruleset);
-          }
-        });
+      int selector,
+      CssRulesetNode ruleset) {
+
+    // Whether the ruleset is important, looked up when first needed.
+    Boolean rulesetIsImportant = null;
 
     for (String shorthand : propertyNode.getProperty().getShorthands()) {
-      CssRulesetNode shorthandRuleset = rules.get(selector, shorthand);
-      if ((shorthandRuleset != null)
-          && (!rulesetIsImportant.get() || isImportantRule(shorthandRuleset))) {
-        return true;
+      int property = symbols.findNameId(shorthand);
+      if (property < 0) {
+        // No rule uses the shorthand.
+        continue;
+      }
+      CssRulesetNode shorthandRuleset = rules.get(selector, property);
+      if (shorthandRuleset != null) {
+        if (rulesetIsImportant == null) {
+          rulesetIsImportant = isImportantRule(ruleset);
+        }
+        if (!rulesetIsImportant || isImportantRule(shorthandRuleset)) {
+          return true;
+        }
       }
     }
 
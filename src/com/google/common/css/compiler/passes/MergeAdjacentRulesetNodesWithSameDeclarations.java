@@ -82,9 +82,10 @@ public class MergeAdjacentRulesetNodesWithSameDeclarations
 
       CssRulesetNode currentRule = (CssRulesetNode) node;
 
+      // The declarations are compared by their fingerprints first, so that
+      // they are only compared node by node when they are likely equal.
       if (ruleToMergeTo != null &&
-          ruleToMergeTo.getDeclarations().toString().equals(
-              currentRule.getDeclarations().toString())) {
+          ruleToMergeTo.getDeclarations().isEquivalentTo(currentRule.getDeclarations())) {
         for (CssSelectorNode decl : currentRule.getSelectors().childIterable()) {
           ruleToMergeTo.addSelector(decl);
         }
@@ -16,7 +16,6 @@
 
 package com.google.common.css.compiler.passes;
 
-import com.google.common.base.Preconditions;
 import com.google.common.css.compiler.ast.CssBlockNode;
 import com.google.common.css.compiler.ast.CssCompilerPass;
 import com.google.common.css.compiler.ast.CssNode;
@@ -115,12 +114,15 @@ public class MergeAdjacentRulesetNodesWithSameSelector
    */
   private boolean sameSelectors(
       CssSelectorListNode s1, CssSelectorListNode s2) {
-    if (!PassUtil.printSelectorList(s1).equals(
-        PassUtil.printSelectorList(s2))) {
+    int n = s1.numChildren();
+    if (n != s2.numChildren()) {
       return false;
     }
-    int n = s1.numChildren();
-    Preconditions.checkArgument(n == s2.numChildren());
+    for (int i = 0; i < n; i++) {
+      if (!s1.getChildAt(i).isEquivalentTo(s2.getChildAt(i))) {
+        return false;
+      }
+    }
     for (int i = 0; i < n; i++) {
       Object m1 = s1.getChildAt(i).getChunk();
       Object m2 = s2.getChildAt(i).getChunk();
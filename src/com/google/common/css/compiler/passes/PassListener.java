@@ -0,0 +1,37 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.css.compiler.passes;
+
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssTree;
+
+/**
+ * A {@link PassListener} is notified by {@link PassRunner} around every pass
+ * it runs, for instance to measure where compilation time goes.
+ *
+ * <p>When several trees are compiled concurrently, passes on different trees
+ * are reported from different threads, so implementations must be
+ * thread-safe. Both methods of a given pass are called on the thread that
+ * runs the pass.
+ */
+public interface PassListener {
+
+  /** Called right before {@code pass} runs on {@code tree}. */
+  void passStarted(CssCompilerPass pass, CssTree tree);
+
+  /** Called right after {@code pass} ran on {@code tree}. */
+  void passFinished(CssCompilerPass pass, CssTree tree);
+}
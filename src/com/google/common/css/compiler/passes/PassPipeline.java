@@ -0,0 +1,380 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.css.compiler.passes;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.CssTreeVisitor;
+import com.google.common.css.compiler.ast.MutatingVisitController;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * {@link PassPipeline} is a sequence of compiler passes declared up front,
+ * each with the passes it depends on and whether it is local, so that the
+ * sequence can be checked, reordered and optimized before it runs.
+ *
+ * <p>A pass is local when it is a {@link CssTreeVisitor} that only reads and
+ * rewrites the node it visits and that node's subtree. Consecutive local
+ * passes are fused into a single traversal of the tree through
+ * {@link DelegatingVisitor}: on every node, the {@code enter*} methods of the
+ * fused passes are called in pipeline order and their {@code leave*} methods
+ * in reverse order. So a local pass that depends on the results of the local
+ * passes before it must act on them in its {@code leave*} methods, once the
+ * whole subtree has been visited by all of them. The {@code runPass} method of
+ * a fused pass is not called.
+ *
+ * <p>Only the value returned by the {@code enter*} method of the last fused
+ * pass decides whether the children of a node are visited, so a local pass
+ * must return {@code true} from its {@code enter*} methods. Removing or
+ * replacing the visited node in an {@code enter*} method also ends the visit
+ * of that node for the passes after it, so a local pass may only do that in
+ * its {@code leave*} methods. Passes that don't follow these rules are added
+ * with {@link Builder#add}.
+ *
+ * <p>A pipeline holds no state of its own and may run on several trees
+ * concurrently, as long as the passes it creates allow it.
+ */
+public class PassPipeline {
+
+  /**
+   * Creates a pass to run on a tree.
+   *
+   * @param <P> the type of the pass
+   */
+  public interface PassFactory<P extends CssCompilerPass> {
+    /**
+     * Creates the pass. Local passes must visit the tree with
+     * {@link PassContext#getVisitController()}, which may be shared with the
+     * passes they are fused with. Other passes that don't change the structure
+     * of the tree can visit it faster with {@link CssTree#getVisitController()}.
+     */
+    P create(PassContext context);
+  }
+
+  /**
+   * Gives the passes being created access to the tree and to the passes that
+   * already ran on it.
+   */
+  public static final class PassContext {
+    private final CssTree tree;
+    private MutatingVisitController visitController;
+    private final Map<Class<?>, CssCompilerPass> finishedPasses = new HashMap<>();
+
+    private PassContext(CssTree tree) {
+      this.tree = tree;
+    }
+
+    public CssTree getTree() {
+      return tree;
+    }
+
+    public MutatingVisitController getVisitController() {
+      return visitController;
+    }
+
+    /**
+     * Returns the last pass of the specified class that finished running on
+     * the tree, to read the information it collected. The pass must be a
+     * dependency of the pass being created.
+     */
+    public <P extends CssCompilerPass> P getFinishedPass(Class<P> passClass) {
+      CssCompilerPass pass = finishedPasses.get(passClass);
+      Preconditions.checkState(pass != null, "%s has not run", passClass.getSimpleName());
+      return passClass.cast(pass);
+    }
+  }
+
+  /**
+   * A pass of the pipeline.
+   */
+  public static final class Step {
+    private final Class<? extends CssCompilerPass> passClass;
+    private final boolean local;
+    private final ImmutableSet<Class<? extends CssCompilerPass>> dependencies;
+    private final PassFactory<?> factory;
+
+    private Step(Class<? extends CssCompilerPass> passClass, boolean local,
+        ImmutableSet<Class<? extends CssCompilerPass>> dependencies,
+        PassFactory<?> factory) {
+      this.passClass = passClass;
+      this.local = local;
+      this.dependencies = dependencies;
+      this.factory = factory;
+    }
+
+    public Class<? extends CssCompilerPass> getPassClass() {
+      return passClass;
+    }
+
+    public boolean isLocal() {
+      return local;
+    }
+
+    /** The passes that must run before this one. */
+    public ImmutableSet<Class<? extends CssCompilerPass>> getDependencies() {
+      return dependencies;
+    }
+
+    @Override
+    public String toString() {
+      return passClass.getSimpleName();
+    }
+  }
+
+  /**
+   * The passes of a fused traversal, which the {@link PassListener} of the
+   * pipeline is notified about as a single pass.
+   */
+  public static final class FusedPass implements CssCompilerPass {
+    private final MutatingVisitController visitController;
+    private final ImmutableList<CssCompilerPass> passes;
+
+    private FusedPass(MutatingVisitController visitController,
+        ImmutableList<CssCompilerPass> passes) {
+      this.visitController = visitController;
+      this.passes = passes;
+    }
+
+    public ImmutableList<CssCompilerPass> getPasses() {
+      return passes;
+    }
+
+    @Override
+    public void runPass() {
+      List<CssTreeVisitor> visitors = new ArrayList<>();
+      for (CssCompilerPass pass : passes) {
+        visitors.add((CssTreeVisitor) pass);
+      }
+      visitController.startVisit(DelegatingVisitor.from(visitors));
+    }
+
+    @Override
+    public String toString() {
+      List<String> names = new ArrayList<>();
+      for (CssCompilerPass pass : passes) {
+        names.add(pass.getClass().getSimpleName());
+      }
+      return Joiner.on('+').join(names);
+    }
+  }
+
+  private final ImmutableList<Step> steps;
+
+  private PassPipeline(ImmutableList<Step> steps) {
+    this.steps = steps;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public ImmutableList<Step> getSteps() {
+    return steps;
+  }
+
+  /**
+   * Returns the steps grouped by traversal: each group of more than one step
+   * is fused into a single traversal of the tree.
+   */
+  public ImmutableList<ImmutableList<Step>> getTraversals() {
+    ImmutableList.Builder<ImmutableList<Step>> traversals = ImmutableList.builder();
+    List<Step> fused = new ArrayList<>();
+    for (Step step : steps) {
+      if (!step.local && !fused.isEmpty()) {
+        traversals.add(ImmutableList.copyOf(fused));
+        fused.clear();
+      }
+      if (step.local) {
+        fused.add(step);
+      } else {
+        traversals.add(ImmutableList.of(step));
+      }
+    }
+    if (!fused.isEmpty()) {
+      traversals.add(ImmutableList.copyOf(fused));
+    }
+    return traversals.build();
+  }
+
+  /**
+   * Runs the passes on the specified tree.
+   *
+   * @param listener the listener to notify around every traversal, if any
+   */
+  public void run(CssTree tree, @Nullable PassListener listener) {
+    Execution execution = start(tree, listener);
+    while (execution.hasNext()) {
+      execution.runNext();
+    }
+  }
+
+  /**
+   * Returns an {@link Execution} that runs the passes on the specified tree
+   * one traversal at a time.
+   *
+   * @param listener the listener to notify around every traversal, if any
+   */
+  public Execution start(CssTree tree, @Nullable PassListener listener) {
+    return new Execution(tree, listener);
+  }
+
+  /**
+   * Runs the traversals of the pipeline on a tree one at a time, for callers
+   * that act between them, such as benchmarks of a single traversal.
+   */
+  public final class Execution {
+    private final CssTree tree;
+    @Nullable private final PassListener listener;
+    private final PassContext context;
+    private final ImmutableList<ImmutableList<Step>> traversals = getTraversals();
+    private int next = 0;
+
+    private Execution(CssTree tree, @Nullable PassListener listener) {
+      this.tree = tree;
+      this.listener = listener;
+      this.context = new PassContext(tree);
+    }
+
+    /** Returns whether some traversals have not run yet. */
+    public boolean hasNext() {
+      return next < traversals.size();
+    }
+
+    /**
+     * Runs the next traversal.
+     *
+     * @return the pass that ran, a {@link FusedPass} if the traversal fuses
+     *     several passes
+     */
+    public CssCompilerPass runNext() {
+      Preconditions.checkState(hasNext(), "All the traversals have run");
+      ImmutableList<Step> traversal = traversals.get(next++);
+      context.visitController = tree.getMutatingVisitController();
+      List<CssCompilerPass> passes = new ArrayList<>();
+      for (Step step : traversal) {
+        passes.add(step.factory.create(context));
+      }
+      CssCompilerPass pass = passes.size() == 1
+          ? passes.get(0)
+          : new FusedPass(context.visitController, ImmutableList.copyOf(passes));
+      run(pass, tree, listener);
+      for (int i = 0; i < traversal.size(); i++) {
+        context.finishedPasses.put(traversal.get(i).passClass, passes.get(i));
+      }
+      return pass;
+    }
+  }
+
+  private static void run(CssCompilerPass pass, CssTree tree, @Nullable PassListener listener) {
+    if (listener == null) {
+      pass.runPass();
+    } else {
+      listener.passStarted(pass, tree);
+      pass.runPass();
+      listener.passFinished(pass, tree);
+    }
+  }
+
+  /**
+   * Builds a {@link PassPipeline}.
+   */
+  public static class Builder {
+    private final List<Step> steps = new ArrayList<>();
+
+    /**
+     * Appends a pass that visits the tree on its own.
+     *
+     * @param dependencies the passes that must run before it
+     */
+    @SafeVarargs
+    public final <P extends CssCompilerPass> Builder add(Class<P> passClass,
+        PassFactory<? extends P> factory,
+        Class<? extends CssCompilerPass>... dependencies) {
+      steps.add(new Step(passClass, false, ImmutableSet.copyOf(dependencies), factory));
+      return this;
+    }
+
+    /**
+     * Appends a local pass, which may be fused with the local passes next to
+     * it.
+     *
+     * @param dependencies the passes that must run before it
+     */
+    @SafeVarargs
+    public final <P extends CssCompilerPass & CssTreeVisitor> Builder addLocal(
+        Class<P> passClass, PassFactory<? extends P> factory,
+        Class<? extends CssCompilerPass>... dependencies) {
+      steps.add(new Step(passClass, true, ImmutableSet.copyOf(dependencies), factory));
+      return this;
+    }
+
+    /**
+     * Moves the first step of {@code passClass} right before the first step
+     * of {@code nextPassClass}.
+     */
+    public Builder moveBefore(Class<? extends CssCompilerPass> passClass,
+        Class<? extends CssCompilerPass> nextPassClass) {
+      Step step = steps.remove(indexOf(passClass));
+      steps.add(indexOf(nextPassClass), step);
+      return this;
+    }
+
+    /**
+     * Removes the first step of {@code passClass}.
+     */
+    public Builder remove(Class<? extends CssCompilerPass> passClass) {
+      steps.remove(indexOf(passClass));
+      return this;
+    }
+
+    private int indexOf(Class<? extends CssCompilerPass> passClass) {
+      for (int i = 0; i < steps.size(); i++) {
+        if (steps.get(i).passClass.equals(passClass)) {
+          return i;
+        }
+      }
+      throw new IllegalArgumentException(passClass.getSimpleName() + " is not in the pipeline");
+    }
+
+    /**
+     * Returns the pipeline.
+     *
+     * @throws IllegalStateException if a pass comes before one of its
+     *     dependencies
+     */
+    public PassPipeline build() {
+      Set<Class<? extends CssCompilerPass>> done = new HashSet<>();
+      for (Step step : steps) {
+        for (Class<? extends CssCompilerPass> dependency : step.dependencies) {
+          Preconditions.checkState(done.contains(dependency),
+              "%s must run after %s", step, dependency.getSimpleName());
+        }
+        done.add(step.passClass);
+      }
+      return new PassPipeline(ImmutableList.copyOf(steps));
+    }
+  }
+}
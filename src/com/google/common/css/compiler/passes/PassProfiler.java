@@ -0,0 +1,349 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.css.compiler.passes;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link PassListener} that measures the wall time, CPU time and allocated
+ * bytes of every pass, along with the number of nodes in the tree when it
+ * started and how many nodes it added or removed.
+ *
+ * <p>CPU time and allocated bytes come from the {@link ThreadMXBean} of the
+ * running JVM and are reported as -1 when it cannot measure them. Counting
+ * nodes walks the tree before and after each pass, outside of the measured
+ * interval, so profiling slows down compilation noticeably.
+ */
+public class PassProfiler implements PassListener {
+
+  /** The formats in which the profile can be written. */
+  public enum Format {
+    /** One entry per pass run, followed by totals per pass, slowest first. */
+    JSON,
+    /** The trace event format of chrome://tracing. */
+    CHROME_TRACE
+  }
+
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+  private final long creationNanos = System.nanoTime();
+
+  private final Map<CssCompilerPass, Start> runningPasses =
+      Collections.synchronizedMap(new IdentityHashMap<CssCompilerPass, Start>());
+
+  private final List<PassProfile> profiles =
+      Collections.synchronizedList(new ArrayList<PassProfile>());
+
+  /**
+   * The measurements of one run of a pass.
+   */
+  public static final class PassProfile {
+    private final String passName;
+    private final long threadId;
+    private final long startNanos;
+    private final long wallNanos;
+    private final long cpuNanos;
+    private final long allocatedBytes;
+    private final int treeNodeCount;
+    private final int nodesAdded;
+    private final int nodesRemoved;
+
+    PassProfile(String passName, long threadId, long startNanos, long wallNanos,
+        long cpuNanos, long allocatedBytes, int treeNodeCount, int nodesAdded,
+        int nodesRemoved) {
+      this.passName = passName;
+      this.threadId = threadId;
+      this.startNanos = startNanos;
+      this.wallNanos = wallNanos;
+      this.cpuNanos = cpuNanos;
+      this.allocatedBytes = allocatedBytes;
+      this.treeNodeCount = treeNodeCount;
+      this.nodesAdded = nodesAdded;
+      this.nodesRemoved = nodesRemoved;
+    }
+
+    /** The simple class name of the pass. */
+    public String getPassName() {
+      return passName;
+    }
+
+    public long getThreadId() {
+      return threadId;
+    }
+
+    /** When the pass started, relative to the creation of the profiler. */
+    public long getStartNanos() {
+      return startNanos;
+    }
+
+    public long getWallNanos() {
+      return wallNanos;
+    }
+
+    /** The CPU time of the pass, or -1 if it could not be measured. */
+    public long getCpuNanos() {
+      return cpuNanos;
+    }
+
+    /** The bytes allocated by the pass, or -1 if they could not be measured. */
+    public long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    /** The number of nodes in the tree when the pass started. */
+    public int getTreeNodeCount() {
+      return treeNodeCount;
+    }
+
+    /** The number of nodes in the tree after the pass that were not there before. */
+    public int getNodesAdded() {
+      return nodesAdded;
+    }
+
+    /** The number of nodes in the tree before the pass that are not there after. */
+    public int getNodesRemoved() {
+      return nodesRemoved;
+    }
+  }
+
+  private static final class Start {
+    final Set<CssNode> nodes;
+    final long wallNanos;
+    final long cpuNanos;
+    final long allocatedBytes;
+
+    Start(Set<CssNode> nodes, long wallNanos, long cpuNanos, long allocatedBytes) {
+      this.nodes = nodes;
+      this.wallNanos = wallNanos;
+      this.cpuNanos = cpuNanos;
+      this.allocatedBytes = allocatedBytes;
+    }
+  }
+
+  @Override
+  public void passStarted(CssCompilerPass pass, CssTree tree) {
+    Set<CssNode> nodes = collectNodes(tree);
+    runningPasses.put(pass,
+        new Start(nodes, System.nanoTime(), getCpuNanos(), getAllocatedBytes()));
+  }
+
+  @Override
+  public void passFinished(CssCompilerPass pass, CssTree tree) {
+    long wallNanos = System.nanoTime();
+    long cpuNanos = getCpuNanos();
+    long allocatedBytes = getAllocatedBytes();
+    Start start = runningPasses.remove(pass);
+    if (start == null) {
+      throw new IllegalStateException(pass.getClass().getName() + " was never started");
+    }
+
+    Set<CssNode> nodes = collectNodes(tree);
+    int nodesAdded = Sets.difference(nodes, start.nodes).size();
+    int nodesRemoved = Sets.difference(start.nodes, nodes).size();
+    profiles.add(new PassProfile(
+        getPassName(pass),
+        Thread.currentThread().getId(),
+        start.wallNanos - creationNanos,
+        wallNanos - start.wallNanos,
+        cpuNanos < 0 ? -1 : cpuNanos - start.cpuNanos,
+        allocatedBytes < 0 ? -1 : allocatedBytes - start.allocatedBytes,
+        start.nodes.size(),
+        nodesAdded,
+        nodesRemoved));
+  }
+
+  /** Returns the profiles of all the passes that finished, in order of completion. */
+  public ImmutableList<PassProfile> getProfiles() {
+    synchronized (profiles) {
+      return ImmutableList.copyOf(profiles);
+    }
+  }
+
+  /**
+   * Writes the profiles of all the passes that finished to {@code out}.
+   */
+  public void writeTo(Appendable out, Format format) {
+    JsonObject json;
+    switch (format) {
+      case JSON:
+        json = toJson(getProfiles());
+        break;
+      case CHROME_TRACE:
+        json = toChromeTrace(getProfiles());
+        break;
+      default:
+        throw new AssertionError("Unknown format: " + format);
+    }
+    new GsonBuilder().setPrettyPrinting().create().toJson(json, out);
+  }
+
+  private static JsonObject toJson(List<PassProfile> profiles) {
+    JsonArray passes = new JsonArray();
+    Map<String, PassTotal> totals = new LinkedHashMap<>();
+    for (PassProfile profile : profiles) {
+      JsonObject pass = new JsonObject();
+      pass.addProperty("name", profile.passName);
+      pass.addProperty("thread", profile.threadId);
+      pass.addProperty("startNanos", profile.startNanos);
+      pass.addProperty("wallNanos", profile.wallNanos);
+      pass.addProperty("cpuNanos", profile.cpuNanos);
+      pass.addProperty("allocatedBytes", profile.allocatedBytes);
+      pass.addProperty("treeNodeCount", profile.treeNodeCount);
+      pass.addProperty("nodesAdded", profile.nodesAdded);
+      pass.addProperty("nodesRemoved", profile.nodesRemoved);
+      passes.add(pass);
+
+      PassTotal total = totals.get(profile.passName);
+      if (total == null) {
+        total = new PassTotal(profile.passName);
+        totals.put(profile.passName, total);
+      }
+      total.add(profile);
+    }
+
+    List<PassTotal> sortedTotals = new ArrayList<>(totals.values());
+    Collections.sort(sortedTotals, new Comparator<PassTotal>() {
+      @Override
+      public int compare(PassTotal a, PassTotal b) {
+        return Long.compare(b.wallNanos, a.wallNanos);
+      }
+    });
+    JsonArray totalsJson = new JsonArray();
+    for (PassTotal total : sortedTotals) {
+      JsonObject pass = new JsonObject();
+      pass.addProperty("name", total.passName);
+      pass.addProperty("runs", total.runs);
+      pass.addProperty("wallNanos", total.wallNanos);
+      pass.addProperty("cpuNanos", total.cpuNanos);
+      pass.addProperty("allocatedBytes", total.allocatedBytes);
+      totalsJson.add(pass);
+    }
+
+    JsonObject json = new JsonObject();
+    json.add("passes", passes);
+    json.add("totals", totalsJson);
+    return json;
+  }
+
+  private static JsonObject toChromeTrace(List<PassProfile> profiles) {
+    JsonArray events = new JsonArray();
+    for (PassProfile profile : profiles) {
+      JsonObject args = new JsonObject();
+      args.addProperty("cpuNanos", profile.cpuNanos);
+      args.addProperty("allocatedBytes", profile.allocatedBytes);
+      args.addProperty("treeNodeCount", profile.treeNodeCount);
+      args.addProperty("nodesAdded", profile.nodesAdded);
+      args.addProperty("nodesRemoved", profile.nodesRemoved);
+
+      // A complete event, timestamps are in microseconds.
+      JsonObject event = new JsonObject();
+      event.addProperty("name", profile.passName);
+      event.addProperty("cat", "pass");
+      event.addProperty("ph", "X");
+      event.addProperty("ts", profile.startNanos / 1000.0);
+      event.addProperty("dur", profile.wallNanos / 1000.0);
+      event.addProperty("pid", 1);
+      event.addProperty("tid", profile.threadId);
+      event.add("args", args);
+      events.add(event);
+    }
+    JsonObject json = new JsonObject();
+    json.add("traceEvents", events);
+    json.addProperty("displayTimeUnit", "ms");
+    return json;
+  }
+
+  private static final class PassTotal {
+    final String passName;
+    int runs;
+    long wallNanos;
+    long cpuNanos;
+    long allocatedBytes;
+
+    PassTotal(String passName) {
+      this.passName = passName;
+    }
+
+    void add(PassProfile profile) {
+      runs++;
+      wallNanos += profile.wallNanos;
+      cpuNanos = add(cpuNanos, profile.cpuNanos);
+      allocatedBytes = add(allocatedBytes, profile.allocatedBytes);
+    }
+
+    /** Adds two measurements, either of which may be -1 if unavailable. */
+    private static long add(long a, long b) {
+      return a < 0 || b < 0 ? -1 : a + b;
+    }
+  }
+
+  /**
+   * Names the passes fused by a {@link PassPipeline} after all of them.
+   */
+  private static String getPassName(CssCompilerPass pass) {
+    return pass instanceof PassPipeline.FusedPass
+        ? pass.toString()
+        : pass.getClass().getSimpleName();
+  }
+
+  private static Set<CssNode> collectNodes(CssTree tree) {
+    final Set<CssNode> nodes = Sets.newIdentityHashSet();
+    tree.getVisitController().startVisit(UniformVisitor.Adapters.asVisitor(
+        new UniformVisitor() {
+          @Override
+          public void enter(CssNode node) {
+            nodes.add(node);
+          }
+
+          @Override
+          public void leave(CssNode node) {}
+        }));
+    return nodes;
+  }
+
+  private static long getCpuNanos() {
+    return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()
+        ? THREAD_MX_BEAN.getCurrentThreadCpuTime()
+        : -1;
+  }
+
+  private static long getAllocatedBytes() {
+    if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+      if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+}
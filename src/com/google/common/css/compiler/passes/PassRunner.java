@@ -16,7 +16,9 @@
 
 package com.google.common.css.compiler.passes;
 
+import com.google.common.base.Preconditions;
 import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.css.JobDescription;
@@ -27,6 +29,9 @@ import com.google.common.css.compiler.ast.CssCompilerPass;
 import com.google.common.css.compiler.ast.CssTree;
 import com.google.common.css.compiler.ast.ErrorManager;
 import com.google.common.css.compiler.ast.GssFunction;
+import com.google.common.css.compiler.passes.PassPipeline.PassContext;
+import com.google.common.css.compiler.passes.PassPipeline.PassFactory;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 
@@ -41,9 +46,38 @@ public class PassRunner {
   private static final ImmutableMap<String, GssFunction>
       EMPTY_GSS_FUNCTION_MAP = ImmutableMap.of();
 
+  private static final PassFactory<EliminateUselessRulesetNodes>
+      ELIMINATE_USELESS_RULESET_NODES = new PassFactory<EliminateUselessRulesetNodes>() {
+        @Override
+        public EliminateUselessRulesetNodes create(PassContext context) {
+          return new EliminateUselessRulesetNodes(context.getTree());
+        }
+      };
+
+  /**
+   * The dead code elimination and the merges of rulesets run on the tree of
+   * each chunk, as they run on a tree without chunks.
+   */
+  private static final RunPassesForChunks.ChunkPassesFactory<String> CHUNK_PASSES =
+      new RunPassesForChunks.ChunkPassesFactory<String>() {
+        @Override
+        public List<CssCompilerPass> createPasses(String chunk, CssTree chunkTree) {
+          return ImmutableList.<CssCompilerPass>of(
+              new MarkRemovableRulesetNodesForChunk<>(chunk, chunkTree, false),
+              new EliminateUselessRulesetNodes(chunkTree),
+              new MergeAdjacentRulesetNodesWithSameSelector(chunkTree),
+              new EliminateUselessRulesetNodes(chunkTree),
+              new MergeAdjacentRulesetNodesWithSameDeclarations(chunkTree),
+              new EliminateUselessRulesetNodes(chunkTree));
+        }
+      };
+
   private final JobDescription job;
   private final ErrorManager errorManager;
   private final RecordingSubstitutionMap recordingSubstitutionMap;
+  private final PassPipeline pipeline;
+  @Nullable private volatile PassListener passListener;
+  private volatile GssFunctionCache gssFunctionCache = new GssFunctionCache();
 
   public PassRunner(JobDescription job, ErrorManager errorManager) {
     this(job, errorManager, createSubstitutionMap(job));
@@ -54,6 +88,7 @@ public class PassRunner {
     this.job = job;
     this.errorManager = errorManager;
     this.recordingSubstitutionMap = recordingSubstitutionMap;
+    this.pipeline = createPipeline();
   }
 
   /**
@@ -62,126 +97,366 @@ public class PassRunner {
    * per input file.
    */
   public void runPasses(CssTree cssTree) {
-    new CheckDependencyNodes(cssTree.getMutatingVisitController(),
-        errorManager, job.suppressDependencyCheck).runPass();
-    new CreateStandardAtRuleNodes(cssTree.getMutatingVisitController(),
-        errorManager).runPass();
-    new CreateMixins(cssTree.getMutatingVisitController(),
-        errorManager).runPass();
-    new CreateDefinitionNodes(cssTree.getMutatingVisitController(),
-        errorManager).runPass();
-    new CreateConstantReferences(cssTree.getMutatingVisitController())
-        .runPass();
-    new CreateConditionalNodes(cssTree.getMutatingVisitController(),
-        errorManager).runPass();
-    new CreateForLoopNodes(cssTree.getMutatingVisitController(),
-        errorManager).runPass();
-    new CreateComponentNodes(cssTree.getMutatingVisitController(),
-        errorManager).runPass();
-    new ValidatePropertyValues(cssTree.getVisitController(), errorManager).runPass();
-    new WarnOnCustomProperty(cssTree.getVisitController(), errorManager).runPass();
-
-    new HandleUnknownAtRuleNodes(cssTree.getMutatingVisitController(),
-        errorManager, job.allowedAtRules,
-        true /* report */, false /* remove */).runPass();
-    new ProcessKeyframes(cssTree.getMutatingVisitController(),
-        errorManager, job.allowKeyframes || job.allowWebkitKeyframes,
-        job.simplifyCss).runPass();
-    new CreateVendorPrefixedKeyframes(cssTree.getMutatingVisitController(),
-        errorManager).runPass();
-    new EvaluateCompileConstants(cssTree.getMutatingVisitController(),
-        job.compileConstants).runPass();
-    new UnrollLoops(cssTree.getMutatingVisitController(), errorManager).runPass();
-    new ProcessRefiners(cssTree.getMutatingVisitController(), errorManager,
-        job.simplifyCss).runPass();
-
-    // Eliminate conditional nodes.
-    new EliminateConditionalNodes(
-        cssTree.getMutatingVisitController(),
-        ImmutableSet.copyOf(job.trueConditionNames)).runPass();
-
-    // Collect mixin definitions and replace mixins
-    CollectMixinDefinitions collectMixinDefinitions =
-        new CollectMixinDefinitions(cssTree.getMutatingVisitController(),
-            errorManager);
-    collectMixinDefinitions.runPass();
-    new ReplaceMixins(cssTree.getMutatingVisitController(), errorManager,
-        collectMixinDefinitions.getDefinitions()).runPass();
-
-    new ProcessComponents<Object>(cssTree.getMutatingVisitController(),
-        errorManager).runPass();
-    // Collect constant definitions.
-    CollectConstantDefinitions collectConstantDefinitionsPass =
-        new CollectConstantDefinitions(cssTree);
-    collectConstantDefinitionsPass.runPass();
-    // Replace constant references.
-    ReplaceConstantReferences replaceConstantReferences =
-        new ReplaceConstantReferences(cssTree,
-            collectConstantDefinitionsPass.getConstantDefinitions(),
-            true /* removeDefs */, errorManager, job.allowUndefinedConstants);
-    replaceConstantReferences.runPass();
-
-    Map<String, GssFunction> gssFunctionMap = getGssFunctionMap();
-    new ResolveCustomFunctionNodes(
-        cssTree.getMutatingVisitController(), errorManager,
-        gssFunctionMap, job.allowUnrecognizedFunctions,
-        job.allowedNonStandardFunctions)
-        .runPass();
+    runPassesExceptRenaming(cssTree);
+    runRenamingPass(cssTree);
+  }
+
+  /**
+   * Runs all the passes except for class renaming on the specified
+   * {@link CssTree}. None of these passes touch state shared between trees, so
+   * this may be invoked concurrently for different trees as long as the
+   * {@link ErrorManager} is thread-safe.
+   */
+  public void runPassesExceptRenaming(CssTree cssTree) {
+    pipeline.run(cssTree, passListener);
+  }
+
+  /**
+   * Returns the passes run by {@link #runPassesExceptRenaming}.
+   */
+  public PassPipeline getPipeline() {
+    return pipeline;
+  }
+
+  private PassPipeline createPipeline() {
+    PassPipeline.Builder pipeline = PassPipeline.builder()
+        .add(CheckDependencyNodes.class, new PassFactory<CheckDependencyNodes>() {
+          @Override
+          public CheckDependencyNodes create(PassContext context) {
+            return new CheckDependencyNodes(context.getVisitController(),
+                errorManager, job.suppressDependencyCheck);
+          }
+        })
+        .add(CreateStandardAtRuleNodes.class, new PassFactory<CreateStandardAtRuleNodes>() {
+          @Override
+          public CreateStandardAtRuleNodes create(PassContext context) {
+            return new CreateStandardAtRuleNodes(context.getVisitController(), errorManager);
+          }
+        })
+        .add(CreateMixins.class, new PassFactory<CreateMixins>() {
+          @Override
+          public CreateMixins create(PassContext context) {
+            return new CreateMixins(context.getVisitController(), errorManager);
+          }
+        })
+        .add(CreateDefinitionNodes.class, new PassFactory<CreateDefinitionNodes>() {
+          @Override
+          public CreateDefinitionNodes create(PassContext context) {
+            return new CreateDefinitionNodes(context.getVisitController(), errorManager);
+          }
+        })
+        .add(CreateConstantReferences.class, new PassFactory<CreateConstantReferences>() {
+          @Override
+          public CreateConstantReferences create(PassContext context) {
+            return new CreateConstantReferences(context.getVisitController());
+          }
+        }, CreateDefinitionNodes.class)
+        .add(CreateConditionalNodes.class, new PassFactory<CreateConditionalNodes>() {
+          @Override
+          public CreateConditionalNodes create(PassContext context) {
+            return new CreateConditionalNodes(context.getVisitController(), errorManager);
+          }
+        })
+        .add(CreateForLoopNodes.class, new PassFactory<CreateForLoopNodes>() {
+          @Override
+          public CreateForLoopNodes create(PassContext context) {
+            return new CreateForLoopNodes(context.getVisitController(), errorManager);
+          }
+        })
+        .add(CreateComponentNodes.class, new PassFactory<CreateComponentNodes>() {
+          @Override
+          public CreateComponentNodes create(PassContext context) {
+            return new CreateComponentNodes(context.getVisitController(), errorManager);
+          }
+        })
+        .addLocal(ValidatePropertyValues.class, new PassFactory<ValidatePropertyValues>() {
+          @Override
+          public ValidatePropertyValues create(PassContext context) {
+            return new ValidatePropertyValues(context.getVisitController(), errorManager);
+          }
+        })
+        .addLocal(WarnOnCustomProperty.class, new PassFactory<WarnOnCustomProperty>() {
+          @Override
+          public WarnOnCustomProperty create(PassContext context) {
+            return new WarnOnCustomProperty(context.getVisitController(), errorManager);
+          }
+        })
+        // Reports the at-rules that none of the passes above recognized.
+        .add(HandleUnknownAtRuleNodes.class, new PassFactory<HandleUnknownAtRuleNodes>() {
+          @Override
+          public HandleUnknownAtRuleNodes create(PassContext context) {
+            return new HandleUnknownAtRuleNodes(context.getVisitController(),
+                errorManager, job.allowedAtRules,
+                true /* report */, false /* remove */);
+          }
+        }, CreateStandardAtRuleNodes.class, CreateMixins.class, CreateDefinitionNodes.class,
+            CreateConditionalNodes.class, CreateForLoopNodes.class, CreateComponentNodes.class)
+        .add(ProcessKeyframes.class, new PassFactory<ProcessKeyframes>() {
+          @Override
+          public ProcessKeyframes create(PassContext context) {
+            return new ProcessKeyframes(context.getTree().getVisitController(),
+                errorManager, job.allowKeyframes || job.allowWebkitKeyframes,
+                job.simplifyCss);
+          }
+        }, CreateStandardAtRuleNodes.class)
+        .add(CreateVendorPrefixedKeyframes.class,
+            new PassFactory<CreateVendorPrefixedKeyframes>() {
+              @Override
+              public CreateVendorPrefixedKeyframes create(PassContext context) {
+                return new CreateVendorPrefixedKeyframes(context.getVisitController(),
+                    errorManager);
+              }
+            }, ProcessKeyframes.class)
+        .add(EvaluateCompileConstants.class, new PassFactory<EvaluateCompileConstants>() {
+          @Override
+          public EvaluateCompileConstants create(PassContext context) {
+            return new EvaluateCompileConstants(context.getVisitController(),
+                job.compileConstants);
+          }
+        }, CreateForLoopNodes.class)
+        .add(UnrollLoops.class, new PassFactory<UnrollLoops>() {
+          @Override
+          public UnrollLoops create(PassContext context) {
+            return new UnrollLoops(context.getVisitController(), errorManager);
+          }
+        }, EvaluateCompileConstants.class)
+        .add(ProcessRefiners.class, new PassFactory<ProcessRefiners>() {
+          @Override
+          public ProcessRefiners create(PassContext context) {
+            return new ProcessRefiners(context.getVisitController(), errorManager,
+                job.simplifyCss);
+          }
+        }, UnrollLoops.class)
+        // Eliminate conditional nodes.
+        .add(EliminateConditionalNodes.class, new PassFactory<EliminateConditionalNodes>() {
+          @Override
+          public EliminateConditionalNodes create(PassContext context) {
+            return new EliminateConditionalNodes(context.getVisitController(),
+                ImmutableSet.copyOf(job.trueConditionNames));
+          }
+        }, CreateConditionalNodes.class)
+        // Collect mixin definitions and replace mixins
+        .add(CollectMixinDefinitions.class, new PassFactory<CollectMixinDefinitions>() {
+          @Override
+          public CollectMixinDefinitions create(PassContext context) {
+            return new CollectMixinDefinitions(context.getVisitController(), errorManager);
+          }
+        }, CreateMixins.class, EliminateConditionalNodes.class)
+        .add(ReplaceMixins.class, new PassFactory<ReplaceMixins>() {
+          @Override
+          public ReplaceMixins create(PassContext context) {
+            return new ReplaceMixins(context.getVisitController(), errorManager,
+                context.getFinishedPass(CollectMixinDefinitions.class).getDefinitions());
+          }
+        }, CollectMixinDefinitions.class)
+        .add(ProcessComponents.class, new PassFactory<ProcessComponents<Object>>() {
+          @Override
+          public ProcessComponents<Object> create(PassContext context) {
+            return new ProcessComponents<Object>(context.getVisitController(), errorManager);
+          }
+        }, CreateComponentNodes.class);
+    if (!job.fileToChunk.isEmpty()) {
+      // Marks the nodes with the chunks of their inputs, once all the nodes
+      // that can be copied from other inputs have been created.
+      pipeline.add(MapChunkAwareNodesToChunk.class,
+          new PassFactory<MapChunkAwareNodesToChunk<String>>() {
+            @Override
+            public MapChunkAwareNodesToChunk<String> create(PassContext context) {
+              return new MapChunkAwareNodesToChunk<>(context.getTree(), job.fileToChunk);
+            }
+          }, CreateStandardAtRuleNodes.class, CreateDefinitionNodes.class,
+          CreateVendorPrefixedKeyframes.class, UnrollLoops.class, ReplaceMixins.class,
+          ProcessComponents.class);
+    }
+    pipeline
+        // Collect constant definitions.
+        .add(CollectConstantDefinitions.class, new PassFactory<CollectConstantDefinitions>() {
+          @Override
+          public CollectConstantDefinitions create(PassContext context) {
+            return new CollectConstantDefinitions(context.getTree());
+          }
+        }, CreateDefinitionNodes.class, EliminateConditionalNodes.class,
+            ProcessComponents.class)
+        // Replace constant references.
+        .add(ReplaceConstantReferences.class, new PassFactory<ReplaceConstantReferences>() {
+          @Override
+          public ReplaceConstantReferences create(PassContext context) {
+            return new ReplaceConstantReferences(context.getTree(),
+                context.getFinishedPass(CollectConstantDefinitions.class)
+                    .getConstantDefinitions(),
+                true /* removeDefs */, errorManager, job.allowUndefinedConstants);
+          }
+        }, CreateConstantReferences.class, CollectConstantDefinitions.class)
+        .add(ResolveCustomFunctionNodes.class, new PassFactory<ResolveCustomFunctionNodes>() {
+          @Override
+          public ResolveCustomFunctionNodes create(PassContext context) {
+            return new ResolveCustomFunctionNodes(
+                context.getVisitController(), errorManager,
+                getGssFunctionMap(), job.allowUnrecognizedFunctions,
+                job.allowedNonStandardFunctions, gssFunctionCache);
+          }
+        }, ReplaceConstantReferences.class);
 
     if (job.simplifyCss) {
-      // Eliminate empty rules.
-      new EliminateEmptyRulesetNodes(cssTree.getMutatingVisitController())
-          .runPass();
-      // Eliminating units for zero values.
-      new EliminateUnitsFromZeroNumericValues(
-          cssTree.getMutatingVisitController()).runPass();
-      // Optimize color values.
-      new ColorValueOptimizer(
-          cssTree.getMutatingVisitController()).runPass();
-      // Compress redundant top-right-bottom-left value lists.
-      new AbbreviatePositionalValues(
-          cssTree.getMutatingVisitController()).runPass();
+      // Removing empty rulesets and replacing colors happen in enter*, so
+      // these two passes can't be fused with the local passes around them.
+      pipeline
+          // Eliminate empty rules.
+          .add(EliminateEmptyRulesetNodes.class,
+              new PassFactory<EliminateEmptyRulesetNodes>() {
+                @Override
+                public EliminateEmptyRulesetNodes create(PassContext context) {
+                  return new EliminateEmptyRulesetNodes(context.getVisitController());
+                }
+              }, ReplaceMixins.class)
+          // Eliminating units for zero values.
+          .addLocal(EliminateUnitsFromZeroNumericValues.class,
+              new PassFactory<EliminateUnitsFromZeroNumericValues>() {
+                @Override
+                public EliminateUnitsFromZeroNumericValues create(PassContext context) {
+                  return new EliminateUnitsFromZeroNumericValues(context.getVisitController());
+                }
+              }, ResolveCustomFunctionNodes.class)
+          // Optimize color values.
+          .add(ColorValueOptimizer.class, new PassFactory<ColorValueOptimizer>() {
+            @Override
+            public ColorValueOptimizer create(PassContext context) {
+              return new ColorValueOptimizer(context.getVisitController());
+            }
+          }, ResolveCustomFunctionNodes.class)
+          // Compress redundant top-right-bottom-left value lists.
+          .addLocal(AbbreviatePositionalValues.class,
+              new PassFactory<AbbreviatePositionalValues>() {
+                @Override
+                public AbbreviatePositionalValues create(PassContext context) {
+                  return new AbbreviatePositionalValues(context.getVisitController());
+                }
+              }, EliminateUnitsFromZeroNumericValues.class, ColorValueOptimizer.class);
     }
     if (job.eliminateDeadStyles) {
-      // Report errors for duplicate declarations
-      new DisallowDuplicateDeclarations(
-          cssTree.getVisitController(), errorManager).runPass();
-      // Split rules by selector and declaration.
-      new SplitRulesetNodes(cssTree.getMutatingVisitController()).runPass();
-      // Dead code elimination.
-      new MarkRemovableRulesetNodes(cssTree).runPass();
-      new EliminateUselessRulesetNodes(cssTree).runPass();
-      // Merge of rules with same selector.
-      new MergeAdjacentRulesetNodesWithSameSelector(cssTree).runPass();
-      new EliminateUselessRulesetNodes(cssTree).runPass();
-      // Merge of rules with same styles.
-      new MergeAdjacentRulesetNodesWithSameDeclarations(cssTree).runPass();
-      new EliminateUselessRulesetNodes(cssTree).runPass();
+      pipeline
+          // Report errors for duplicate declarations
+          .add(DisallowDuplicateDeclarations.class,
+              new PassFactory<DisallowDuplicateDeclarations>() {
+                @Override
+                public DisallowDuplicateDeclarations create(PassContext context) {
+                  return new DisallowDuplicateDeclarations(
+                      context.getTree().getVisitController(), errorManager);
+                }
+              }, ReplaceMixins.class)
+          // Split rules by selector and declaration.
+          .add(SplitRulesetNodes.class, new PassFactory<SplitRulesetNodes>() {
+            @Override
+            public SplitRulesetNodes create(PassContext context) {
+              return new SplitRulesetNodes(context.getVisitController());
+            }
+          });
+      if (job.fileToChunk.isEmpty()) {
+        pipeline
+            // Dead code elimination.
+            .add(MarkRemovableRulesetNodes.class,
+                new PassFactory<MarkRemovableRulesetNodes>() {
+                  @Override
+                  public MarkRemovableRulesetNodes create(PassContext context) {
+                    return new MarkRemovableRulesetNodes(context.getTree());
+                  }
+                }, SplitRulesetNodes.class)
+            .add(EliminateUselessRulesetNodes.class, ELIMINATE_USELESS_RULESET_NODES,
+                MarkRemovableRulesetNodes.class)
+            // Merge of rules with same selector.
+            .add(MergeAdjacentRulesetNodesWithSameSelector.class,
+                new PassFactory<MergeAdjacentRulesetNodesWithSameSelector>() {
+                  @Override
+                  public MergeAdjacentRulesetNodesWithSameSelector create(PassContext context) {
+                    return new MergeAdjacentRulesetNodesWithSameSelector(context.getTree());
+                  }
+                }, SplitRulesetNodes.class)
+            .add(EliminateUselessRulesetNodes.class, ELIMINATE_USELESS_RULESET_NODES)
+            // Merge of rules with same styles.
+            .add(MergeAdjacentRulesetNodesWithSameDeclarations.class,
+                new PassFactory<MergeAdjacentRulesetNodesWithSameDeclarations>() {
+                  @Override
+                  public MergeAdjacentRulesetNodesWithSameDeclarations create(
+                      PassContext context) {
+                    return new MergeAdjacentRulesetNodesWithSameDeclarations(
+                        context.getTree());
+                  }
+                }, SplitRulesetNodes.class)
+            .add(EliminateUselessRulesetNodes.class, ELIMINATE_USELESS_RULESET_NODES);
+      } else {
+        // Dead code elimination and merges within each chunk, as the chunks
+        // are loaded on their own.
+        pipeline.add(RunPassesForChunks.class,
+            new PassFactory<RunPassesForChunks<String>>() {
+              @Override
+              public RunPassesForChunks<String> create(PassContext context) {
+                RunPassesForChunks<String> pass = new RunPassesForChunks<>(
+                    context.getTree(), job.getChunks(), CHUNK_PASSES);
+                // The inputs compiled on their own already run in parallel.
+                if (job.allowDefPropagation) {
+                  pass.setNumThreads(job.numThreads);
+                }
+                return pass;
+              }
+            }, SplitRulesetNodes.class, MapChunkAwareNodesToChunk.class);
+      }
     }
     // Perform BiDi flipping if required.
     if (job.needsBiDiFlipping()) {
-      new MarkNonFlippableNodes(cssTree.getVisitController(),
-          errorManager).runPass();
-      new BiDiFlipper(cssTree.getMutatingVisitController(),
-                        job.swapLtrRtlInUrl, job.swapLeftRightInUrl).runPass();
+      pipeline
+          .add(MarkNonFlippableNodes.class, new PassFactory<MarkNonFlippableNodes>() {
+            @Override
+            public MarkNonFlippableNodes create(PassContext context) {
+              return new MarkNonFlippableNodes(
+                  context.getTree().getVisitController(), errorManager);
+            }
+          })
+          .add(BiDiFlipper.class, new PassFactory<BiDiFlipper>() {
+            @Override
+            public BiDiFlipper create(PassContext context) {
+              return new BiDiFlipper(context.getVisitController(),
+                  job.swapLtrRtlInUrl, job.swapLeftRightInUrl);
+            }
+          }, MarkNonFlippableNodes.class);
     }
     // If specified, remove all vendor-specific properties except for the
     // whitelisted vendor.
     if (job.vendor != null) {
-      new RemoveVendorSpecificProperties(job.vendor,
-          cssTree.getMutatingVisitController()).runPass();
+      pipeline.add(RemoveVendorSpecificProperties.class,
+          new PassFactory<RemoveVendorSpecificProperties>() {
+            @Override
+            public RemoveVendorSpecificProperties create(PassContext context) {
+              return new RemoveVendorSpecificProperties(job.vendor,
+                  context.getVisitController());
+            }
+          });
     }
     // Unless all unrecognized properties are allowed, check for unrecognized
     // properties.
     if (!job.allowUnrecognizedProperties) {
-      new VerifyRecognizedProperties(job.allowedUnrecognizedProperties,
-          cssTree.getVisitController(), errorManager).runPass();
+      pipeline.add(VerifyRecognizedProperties.class,
+          new PassFactory<VerifyRecognizedProperties>() {
+            @Override
+            public VerifyRecognizedProperties create(PassContext context) {
+              return new VerifyRecognizedProperties(job.allowedUnrecognizedProperties,
+                  context.getTree().getVisitController(), errorManager);
+            }
+          });
     }
-    // Rename class names
+    return pipeline.build();
+  }
+
+  /**
+   * Renames the CSS classes of the specified {@link CssTree} using the
+   * {@link RecordingSubstitutionMap}, if any. Renamed values depend on the
+   * order in which classes are first seen, so trees should be renamed in input
+   * order to get a deterministic renaming map.
+   */
+  public void runRenamingPass(CssTree cssTree) {
     if (recordingSubstitutionMap != null) {
-      new CssClassRenaming(
+      run(cssTree, new CssClassRenaming(
           cssTree.getMutatingVisitController(),
-          recordingSubstitutionMap, null).runPass();
+          recordingSubstitutionMap, null));
     }
   }
 
@@ -189,6 +464,45 @@ public class PassRunner {
     return recordingSubstitutionMap;
   }
 
+  /**
+   * Sets the listener to notify around every pass, or {@code null} for none.
+   */
+  public void setPassListener(@Nullable PassListener passListener) {
+    this.passListener = passListener;
+  }
+
+  /**
+   * Sets the cache memoizing the calls of pure GSS functions. By default,
+   * each runner has its own cache, which is shared by all the trees it runs
+   * the passes on; setting the same cache on several runners shares it
+   * between compilations as well.
+   */
+  public void setGssFunctionCache(GssFunctionCache gssFunctionCache) {
+    this.gssFunctionCache = Preconditions.checkNotNull(gssFunctionCache);
+  }
+
+  public GssFunctionCache getGssFunctionCache() {
+    return gssFunctionCache;
+  }
+
+  /**
+   * Runs the specified pass on {@code cssTree}, notifying the
+   * {@link PassListener}, if any.
+   *
+   * @return the pass, for passes that collect information for later ones
+   */
+  private <P extends CssCompilerPass> P run(CssTree cssTree, P pass) {
+    PassListener listener = passListener;
+    if (listener == null) {
+      pass.runPass();
+    } else {
+      listener.passStarted(pass, cssTree);
+      pass.runPass();
+      listener.passFinished(pass, cssTree);
+    }
+    return pass;
+  }
+
   /**
    * Creates the CSS class substitution map from the provider, if any.
    * Wraps it in a substitution map that optionally prefixes all of the renamed
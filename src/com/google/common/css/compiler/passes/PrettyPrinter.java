@@ -37,7 +37,7 @@ public class PrettyPrinter extends CodePrinter implements CssCompilerPass {
 
   public PrettyPrinter(VisitController visitController, 
       @Nullable CodeBuffer buffer,
-      @Nullable GssSourceMapGenerator generator) {
+      @Nullable SourceMappingRecorder generator) {
     super(visitController, buffer, generator);
   }
 
@@ -69,6 +69,10 @@ public class PrettyPrinter extends CodePrinter implements CssCompilerPass {
     return this;
   }
 
+  /**
+   * Returns the pretty printed output, or {@code null} if it was printed to a
+   * streaming {@link CodeBuffer}.
+   */
   public String getPrettyPrintedString() {
     return prettyPrintedString;
   }
@@ -24,6 +24,7 @@ import com.google.common.css.compiler.ast.CssCompilerPass;
 import com.google.common.css.compiler.ast.CssCompositeValueNode;
 import com.google.common.css.compiler.ast.CssConstantReferenceNode;
 import com.google.common.css.compiler.ast.CssDefinitionNode;
+import com.google.common.css.compiler.ast.CssFunctionNode;
 import com.google.common.css.compiler.ast.CssLiteralNode;
 import com.google.common.css.compiler.ast.CssTree;
 import com.google.common.css.compiler.ast.CssValueNode;
@@ -104,6 +105,29 @@ public class ReplaceConstantReferences extends DefaultTreeVisitor
     return enterValueNode(node);
   }
 
+  /**
+   * Only visits the arguments of functions that hold references, so that the
+   * arguments that function proxies share are not copied for nothing.
+   */
+  @Override
+  public boolean enterFunctionNode(CssFunctionNode node) {
+    return hasConstantReference(node.getArguments().getChildren());
+  }
+
+  /** Returns whether any of the given values holds a constant reference. */
+  private static boolean hasConstantReference(List<CssValueNode> values) {
+    for (CssValueNode value : values) {
+      if (value instanceof CssConstantReferenceNode
+          || (value instanceof CssFunctionNode
+              && hasConstantReference(((CssFunctionNode) value).getArguments().getChildren()))
+          || (value instanceof CssCompositeValueNode
+              && hasConstantReference(((CssCompositeValueNode) value).getValues()))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @VisibleForTesting
   void replaceConstantReference(CssConstantReferenceNode node) {
     if (constantDefinitions == null) {
@@ -139,13 +163,9 @@ public class ReplaceConstantReferences extends DefaultTreeVisitor
         // for function args
         temp.add(new CssLiteralNode(" ", n.getSourceCodeLocation()));
       }
-      if (n instanceof Proxiable) {
-        @SuppressWarnings("unchecked")
-        Proxiable<CssValueNode> proxiable = (Proxiable<CssValueNode>) n;
-        temp.add(proxiable.createProxy());
-      } else {
-        temp.add(n.deepCopy());
-      }
+      // Function nodes and composite values are shared with the definition
+      // through proxies rather than copied at every reference.
+      temp.add(CssValueNode.proxyOrDeepCopy(n));
       intermediate = true;
     }
     // The composite value is used so that we can store nodes with different
@@ -160,8 +180,9 @@ public class ReplaceConstantReferences extends DefaultTreeVisitor
 
   @Override
   public void runPass() {
-    // Replace the original custom function node with a proxy to stop
-    // propagation of changes of the original node to nodes that proxy it.
+    // Replace the original function nodes and composite values with proxies to
+    // stop propagation of changes of the original nodes to nodes that proxy
+    // them.
     if (constantDefinitions != null) {
       for (String constantName : constantDefinitions.getConstantsNames()) {
         CssDefinitionNode node =
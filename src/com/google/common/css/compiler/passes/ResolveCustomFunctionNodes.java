@@ -29,11 +29,11 @@ import com.google.common.css.compiler.ast.GssError;
 import com.google.common.css.compiler.ast.GssFunction;
 import com.google.common.css.compiler.ast.GssFunctionException;
 import com.google.common.css.compiler.ast.MutatingVisitController;
-import com.google.common.css.compiler.ast.Proxiable;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * This compiler pass replaces {@link CssCustomFunctionNode} instances with the
@@ -48,6 +48,7 @@ public class ResolveCustomFunctionNodes extends DefaultTreeVisitor
   private final ErrorManager errorManager;
   private final boolean allowUnknownFunctions;
   private final Set<String> allowedNonStandardFunctions;
+  @Nullable private final GssFunctionCache functionCache;
 
   /**
    * Constructs the pass.
@@ -96,6 +97,29 @@ public class ResolveCustomFunctionNodes extends DefaultTreeVisitor
                                     Map<String, GssFunction> functionMap,
                                     boolean allowUnknownFunctions,
                                     Set<String> allowedNonStandardFunctions) {
+    this(visitController, errorManager, functionMap, allowUnknownFunctions,
+        allowedNonStandardFunctions, null /* functionCache */);
+  }
+
+  /**
+   * Constructs the pass.
+   *
+   * @param visitController The visit controller
+   * @param errorManager The error manager
+   * @param functionMap The map from function names to resolve to GSS functions
+   * @param allowUnknownFunctions Whether to allow unknown function calls,
+   *     leaving them as is, instead of reporting an error
+   * @param allowedNonStandardFunctions functions that should not yield a
+   *     warning if they appear in a stylesheet
+   * @param functionCache the cache memoizing the calls of pure functions, or
+   *     {@code null} to evaluate every call
+   */
+  public ResolveCustomFunctionNodes(MutatingVisitController visitController,
+                                    ErrorManager errorManager,
+                                    Map<String, GssFunction> functionMap,
+                                    boolean allowUnknownFunctions,
+                                    Set<String> allowedNonStandardFunctions,
+                                    @Nullable GssFunctionCache functionCache) {
     Preconditions.checkNotNull(functionMap);
     this.visitController = visitController;
     this.errorManager = errorManager;
@@ -103,11 +127,12 @@ public class ResolveCustomFunctionNodes extends DefaultTreeVisitor
     this.allowUnknownFunctions = allowUnknownFunctions;
     this.allowedNonStandardFunctions = ImmutableSet.copyOf(
         allowedNonStandardFunctions);
+    this.functionCache = functionCache;
   }
 
   @Override
   public void leaveFunctionNode(CssFunctionNode functionNode) {
-    if (!(functionNode instanceof Proxiable)) {
+    if (!(functionNode instanceof CssCustomFunctionNode)) {
       return;
     }
 
@@ -178,8 +203,10 @@ public class ResolveCustomFunctionNodes extends DefaultTreeVisitor
       List<CssValueNode> arguments,
       ErrorManager errorManager) throws GssFunctionException {
 
-    List<CssValueNode> functionResult =
-        function.getCallResultNodes(arguments, errorManager);
+    List<CssValueNode> functionResult = functionCache != null
+        ? functionCache.call(node.getFunctionName(), function, arguments,
+            node.getSourceCodeLocation(), errorManager)
+        : function.getCallResultNodes(arguments, errorManager);
     node.setResult(functionResult);
     return functionResult;
   }
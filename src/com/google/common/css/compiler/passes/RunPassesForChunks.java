@@ -0,0 +1,340 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.css.compiler.ast.ChunkAware;
+import com.google.common.css.compiler.ast.CssBlockNode;
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssLiteralNode;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssRootNode;
+import com.google.common.css.compiler.ast.CssRulesetNode;
+import com.google.common.css.compiler.ast.CssSelectorNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.CssUnknownAtRuleNode;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+
+/**
+ * Runs chunk-local passes, such as {@link MarkRemovableRulesetNodesForChunk}
+ * followed by {@link EliminateUselessRulesetNodes}, on the nodes of each
+ * chunk separately, so that the chunks can be processed in parallel and each
+ * pass only visits the nodes of its chunk.
+ *
+ * <p>The top-level nodes of the tree that belong to one of the chunks are
+ * moved to a tree of their chunk: a ruleset whose selectors all belong to the
+ * chunk, and a {@link ChunkAware} node of the chunk, like a media rule or a
+ * definition. The passes of a chunk are run on its tree, and see neither the
+ * nodes of other chunks nor the nodes that stay in the tree, like rulesets
+ * with selectors of several chunks.
+ *
+ * <p>Where other nodes separated two nodes of a chunk in the tree, the chunk
+ * tree has a barrier between them, an unknown at-rule that the passes skip
+ * but don't merge rulesets across, so that rulesets are only merged if they
+ * are adjacent in the tree. The barriers are dropped when the nodes are put
+ * back.
+ *
+ * <p>Function node proxies created by {@link ReplaceConstantReferences} may
+ * share their arguments with proxies in other chunks. Passes changing them
+ * through a {@link com.google.common.css.compiler.ast.MutatingVisitController}
+ * change a copy of their own, so the passes of a chunk never change nodes
+ * seen by another chunk.
+ *
+ * <p>The nodes of the chunk trees are then put back into the tree. A node
+ * keeps the place in the tree of the chunk node that precedes it in its chunk
+ * tree, and the order doesn't depend on how the chunks were scheduled.
+ *
+ * <p>This pass can only be used if {@link MapChunkAwareNodesToChunk} pass has
+ * been run before.
+ *
+ * @param <T> type of chunk id objects
+ */
+public class RunPassesForChunks<T> implements CssCompilerPass {
+
+  private static final String BARRIER_NAME = "-gss-chunk-barrier";
+
+  /**
+   * Creates the passes to run on the tree of a chunk.
+   *
+   * @param <T> type of chunk id objects
+   */
+  public interface ChunkPassesFactory<T> {
+    /**
+     * Creates the passes to run, in order, on the tree holding the top-level
+     * nodes of the given chunk. This is called on the thread running this
+     * pass, but the passes of different chunks can run concurrently, so they
+     * must not share state that is not thread safe.
+     */
+    List<? extends CssCompilerPass> createPasses(T chunk, CssTree chunkTree);
+  }
+
+  private final CssTree tree;
+  private final ImmutableSet<T> chunks;
+  private final ChunkPassesFactory<T> passesFactory;
+  private int numThreads = 1;
+
+  /**
+   * Creates a pass running the passes of the given factory on each chunk.
+   *
+   * @param tree CSS AST whose chunks are processed
+   * @param chunks the chunks to run the passes on, in the order in which their
+   *     passes are created
+   * @param passesFactory the factory of the passes of each chunk
+   */
+  public RunPassesForChunks(
+      CssTree tree, Iterable<T> chunks, ChunkPassesFactory<T> passesFactory) {
+    this.tree = tree;
+    this.chunks = ImmutableSet.copyOf(chunks);
+    this.passesFactory = passesFactory;
+  }
+
+  /**
+   * Sets the number of threads on which {@link #runPass()} runs the passes of
+   * the chunks. By default, they all run on the calling thread.
+   */
+  public void setNumThreads(int numThreads) {
+    Preconditions.checkArgument(numThreads > 0);
+    this.numThreads = numThreads;
+  }
+
+  @Override
+  public void runPass() {
+    if (numThreads == 1) {
+      runPass(MoreExecutors.newDirectExecutorService());
+      return;
+    }
+    ForkJoinPool pool = new ForkJoinPool(numThreads);
+    try {
+      runPass(pool);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Runs the pass, running the passes of the chunks in parallel on the given
+   * executor, such as a {@link java.util.concurrent.ForkJoinPool}.
+   */
+  public void runPass(ExecutorService executor) {
+    CssBlockNode body = tree.getRoot().getBody();
+    List<CssNode> nodes = new ArrayList<>(body.getChildren());
+    Map<T, List<CssNode>> nodesByChunk = sortTopLevelNodes(nodes);
+    Set<CssNode> barriers = new HashSet<>();
+    Map<T, CssTree> chunkTrees = splitTree(nodes, nodesByChunk, barriers);
+    try {
+      List<Future<Void>> tasks = new ArrayList<>();
+      for (Map.Entry<T, CssTree> entry : chunkTrees.entrySet()) {
+        final List<? extends CssCompilerPass> passes =
+            passesFactory.createPasses(entry.getKey(), entry.getValue());
+        tasks.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            for (CssCompilerPass pass : passes) {
+              pass.runPass();
+            }
+            return null;
+          }
+        }));
+      }
+      waitForAll(tasks);
+    } finally {
+      mergeTrees(nodes, nodesByChunk, chunkTrees, barriers);
+    }
+  }
+
+  /**
+   * Returns the top-level nodes of each chunk that has any, in the order of
+   * the tree.
+   */
+  private Map<T, List<CssNode>> sortTopLevelNodes(List<CssNode> nodes) {
+    Map<T, List<CssNode>> nodesByChunk = new LinkedHashMap<>();
+    for (T chunk : chunks) {
+      nodesByChunk.put(chunk, new ArrayList<CssNode>());
+    }
+    for (CssNode node : nodes) {
+      List<CssNode> chunkNodes = nodesByChunk.get(getChunk(node));
+      if (chunkNodes != null) {
+        chunkNodes.add(node);
+      }
+    }
+    for (T chunk : chunks) {
+      if (nodesByChunk.get(chunk).isEmpty()) {
+        nodesByChunk.remove(chunk);
+      }
+    }
+    return nodesByChunk;
+  }
+
+  /**
+   * Returns the chunk of a top-level node, or {@code null} if it doesn't
+   * belong to a single chunk.
+   */
+  @Nullable
+  private static Object getChunk(CssNode node) {
+    if (node instanceof CssRulesetNode) {
+      List<CssSelectorNode> selectors = ((CssRulesetNode) node).getSelectors().getChildren();
+      if (selectors.isEmpty()) {
+        return null;
+      }
+      Object chunk = selectors.get(0).getChunk();
+      for (CssSelectorNode selector : selectors) {
+        if (!Objects.equal(chunk, selector.getChunk())) {
+          return null;
+        }
+      }
+      return chunk;
+    }
+    if (node instanceof ChunkAware) {
+      return ((ChunkAware) node).getChunk();
+    }
+    return null;
+  }
+
+  /**
+   * Moves the nodes of each chunk from the tree to a tree of their own, with
+   * a barrier wherever other nodes separated them, which is added to
+   * {@code barriers}.
+   */
+  private Map<T, CssTree> splitTree(List<CssNode> nodes, Map<T, List<CssNode>> nodesByChunk,
+      Set<CssNode> barriers) {
+    Set<CssNode> chunkNodes = new HashSet<>();
+    for (List<CssNode> chunk : nodesByChunk.values()) {
+      chunkNodes.addAll(chunk);
+    }
+    tree.getRoot().getBody().removeChildren(chunkNodes);
+
+    Map<CssNode, Integer> positions = getPositions(nodes);
+    Map<T, CssTree> chunkTrees = new LinkedHashMap<>();
+    for (Map.Entry<T, List<CssNode>> entry : nodesByChunk.entrySet()) {
+      CssBlockNode body = new CssBlockNode(false /* isEnclosedWithBraces */);
+      int previousPosition = -1;
+      for (CssNode node : entry.getValue()) {
+        int position = positions.get(node);
+        if (previousPosition >= 0 && position > previousPosition + 1) {
+          CssNode barrier = new CssUnknownAtRuleNode(
+              new CssLiteralNode(BARRIER_NAME), false /* hasBlock */);
+          barriers.add(barrier);
+          body.addChildToBack(barrier);
+        }
+        body.addChildToBack(node);
+        previousPosition = position;
+      }
+      chunkTrees.put(entry.getKey(), new CssTree(tree.getSourceCode(), new CssRootNode(body)));
+    }
+    return chunkTrees;
+  }
+
+  /**
+   * Puts the nodes of the chunk trees back into the tree, each one at the
+   * place of the last node of the original tree that precedes it in its
+   * chunk tree.
+   */
+  private void mergeTrees(List<CssNode> nodes, Map<T, List<CssNode>> nodesByChunk,
+      Map<T, CssTree> chunkTrees, Set<CssNode> barriers) {
+    Map<CssNode, Integer> positions = getPositions(nodes);
+    // The nodes with their places, which are sorted with a counting sort that
+    // keeps the nodes with the same place in the order in which they are
+    // added: the nodes of the chunks in the order of the chunks.
+    CssBlockNode body = tree.getRoot().getBody();
+    List<CssNode> mergedNodes = new ArrayList<>(body.getChildren());
+    int[] places = new int[nodes.size()];
+    int[] counts = new int[nodes.size() + 1];
+    for (int i = 0; i < mergedNodes.size(); i++) {
+      places[i] = positions.get(mergedNodes.get(i));
+      counts[places[i] + 1]++;
+    }
+    for (Map.Entry<T, CssTree> entry : chunkTrees.entrySet()) {
+      // The nodes a pass adds before the first node of its chunk go there.
+      int place = positions.get(nodesByChunk.get(entry.getKey()).get(0));
+      for (CssNode node : entry.getValue().getRoot().getBody().childIterable()) {
+        if (barriers.contains(node)) {
+          continue;
+        }
+        Integer position = positions.get(node);
+        if (position != null && position > place) {
+          place = position;
+        }
+        if (mergedNodes.size() == places.length) {
+          places = Arrays.copyOf(places, places.length * 2);
+        }
+        places[mergedNodes.size()] = place;
+        mergedNodes.add(node);
+        counts[place + 1]++;
+      }
+    }
+    for (int i = 1; i < counts.length; i++) {
+      counts[i] += counts[i - 1];
+    }
+    CssNode[] sortedNodes = new CssNode[mergedNodes.size()];
+    for (int i = 0; i < mergedNodes.size(); i++) {
+      sortedNodes[counts[places[i]]++] = mergedNodes.get(i);
+    }
+
+    body.removeChildren(ImmutableSet.copyOf(body.getChildren()));
+    for (CssNode node : sortedNodes) {
+      body.addChildToBack(node);
+    }
+  }
+
+  /** Returns the index of each node in the given list. */
+  private static Map<CssNode, Integer> getPositions(List<CssNode> nodes) {
+    Map<CssNode, Integer> positions = Maps.newHashMapWithExpectedSize(nodes.size());
+    for (int i = 0; i < nodes.size(); i++) {
+      positions.put(nodes.get(i), i);
+    }
+    return positions;
+  }
+
+  /**
+   * Waits for all the tasks, then rethrows the first exception thrown by one
+   * of them.
+   */
+  private static void waitForAll(List<Future<Void>> tasks) {
+    ExecutionException exception = null;
+    for (Future<Void> task : tasks) {
+      try {
+        Uninterruptibles.getUninterruptibly(task);
+      } catch (ExecutionException e) {
+        if (exception == null) {
+          exception = e;
+        }
+      }
+    }
+    if (exception != null) {
+      Throwables.throwIfUnchecked(exception.getCause());
+      throw new RuntimeException(exception.getCause());
+    }
+  }
+}
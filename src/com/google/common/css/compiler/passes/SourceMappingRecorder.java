@@ -0,0 +1,49 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.css.compiler.ast.CssNode;
+
+/**
+ * Receives the output positions of the {@link CssNode}s written by a
+ * {@link CodePrinter}. A {@link GssSourceMapGenerator} turns them into a
+ * source map; other implementations only record them, for instance to hand
+ * them to the source map generator of a larger output later.
+ */
+public interface SourceMappingRecorder {
+  /**
+   * Starts the source mapping for the given node at the current position.
+   * This is intended to be called before the node is written to the buffer.
+   *
+   * @param node the {@link CssNode} to be processed
+   * @param startLine the first character's line number once it starts writing output
+   * @param startCharIndex the first character's character index once it starts writing output
+   */
+  public void startSourceMapping(CssNode node, int startLine, int startCharIndex);
+
+  /**
+   * Finishes the source mapping for the given node at the current position.
+   * This is intended to be called immediately after the whole node is written to the buffer.
+   *
+   * @param node the {@link CssNode} to be processed
+   * @param endLine the last character's line number when it ends writing output
+   * @param endCharIndex the last character's character index when it ends writing output
+   *     or one less than the corresponding {@link #startSourceMapping startCharIndex} if
+   *     a source mapping is empty.
+   */
+  public void endSourceMapping(CssNode node, int endLine, int endCharIndex);
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.base.Preconditions;
+import com.google.common.css.JobDescription.SourceMapDetailLevel;
+import com.google.common.css.SourceCodeLocation;
+import com.google.common.css.compiler.ast.CssNode;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class to collect and generate source map(v3) for Gss compiler, with the
+ * same output as {@link DefaultGssSourceMapGenerator} but without building
+ * the source map with closure-compiler's generator.
+ *
+ * <p>The mappings are kept in parallel arrays in the order in which they are
+ * started, which for the printers is the order of their output positions, so
+ * they need not be sorted. The Base64 VLQ encoded segments of the
+ * {@code mappings} field are then appended straight to the output.
+ */
+public final class StreamingGssSourceMapGenerator implements GssSourceMapGenerator {
+
+  private static final String BASE64_DIGITS =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+  private static final String HEX_DIGITS = "0123456789abcdef";
+
+  /** The 0-based output line and column at which each mapping starts. */
+  private int[] startLines = new int[64];
+  private int[] startColumns = new int[64];
+
+  /** The 0-based output line and column before which each mapping ends. */
+  private int[] endLines = new int[64];
+  private int[] endColumns = new int[64];
+
+  /**
+   * The index in {@link #sourceFiles} of the source of each mapping, or -1 if
+   * the location of its node is not precise enough for the source map.
+   */
+  private int[] sources = new int[64];
+
+  /** The 0-based line and the character index of the node of each mapping. */
+  private int[] sourceLines = new int[64];
+  private int[] sourceColumns = new int[64];
+
+  private int mappingCount = 0;
+
+  /** Whether the mappings were started in the order of their start positions. */
+  private boolean startedInOrder = true;
+
+  /** The mappings that have been started but not finished yet, and their nodes. */
+  private int[] openMappings = new int[16];
+  private CssNode[] openNodes = new CssNode[16];
+  private int openMappingCount = 0;
+
+  private final List<String> sourceFiles = new ArrayList<>();
+  private final Map<String, Integer> sourceFileIndices = new HashMap<>();
+
+  private String sourceRoot;
+
+  /**
+   * Constructor to get source map class to use.
+   *
+   * @param sourceMapDetailLevel used to control the output details of source
+   *     map, as for {@link DefaultGssSourceMapGenerator}, which currently maps
+   *     every node with a source location at all levels
+   */
+  public StreamingGssSourceMapGenerator(SourceMapDetailLevel sourceMapDetailLevel) {
+    Preconditions.checkState(sourceMapDetailLevel != null);
+  }
+
+  @Override
+  public void startSourceMapping(CssNode node, int startLine, int startCharIndex) {
+    Preconditions.checkState(node != null);
+    Preconditions.checkState(startLine >= 0);
+    Preconditions.checkState(startCharIndex >= 0);
+    SourceCodeLocation location = node.getSourceCodeLocation();
+    if (location == null) {
+      return;
+    }
+    if (mappingCount == startLines.length) {
+      growMappings();
+    }
+    int mapping = mappingCount++;
+    startLines[mapping] = startLine;
+    startColumns[mapping] = startCharIndex;
+    // A mapping that is not finished ends where it starts.
+    endLines[mapping] = startLine;
+    endColumns[mapping] = startCharIndex;
+    String sourceFile = location.isUnknown() ? null : location.getSourceCode().getFileName();
+    if (sourceFile == null) {
+      sources[mapping] = -1;
+    } else {
+      sources[mapping] = getSourceFileIndex(sourceFile);
+      sourceLines[mapping] = location.getLineNumber() - 1;
+      // As in DefaultGssSourceMapGenerator, the source column is the
+      // character index of the node in its file.
+      sourceColumns[mapping] = location.getCharacterIndex();
+    }
+    if (mapping > 0 && (startLine < startLines[mapping - 1]
+        || (startLine == startLines[mapping - 1]
+            && startCharIndex < startColumns[mapping - 1]))) {
+      startedInOrder = false;
+    }
+    if (openMappingCount == openMappings.length) {
+      openMappings = Arrays.copyOf(openMappings, 2 * openMappingCount);
+      openNodes = Arrays.copyOf(openNodes, 2 * openMappingCount);
+    }
+    openMappings[openMappingCount] = mapping;
+    openNodes[openMappingCount++] = node;
+  }
+
+  @Override
+  public void endSourceMapping(CssNode node, int endLine, int endCharIndex) {
+    Preconditions.checkState(node != null);
+    Preconditions.checkState(endLine >= 0);
+    // -1 when a node contributes no content at the start of the buffer.
+    Preconditions.checkState(endCharIndex >= -1);
+    if (openMappingCount > 0 && openNodes[openMappingCount - 1] == node) {
+      int mapping = openMappings[--openMappingCount];
+      openNodes[openMappingCount] = null;
+      endLines[mapping] = endLine;
+      endColumns[mapping] = endCharIndex + 1;
+    }
+  }
+
+  @Override
+  public void setSourceRoot(String path) {
+    sourceRoot = path;
+  }
+
+  @Override
+  public void appendOutputTo(Appendable out, String name) throws IOException {
+    int[] order = startedInOrder ? null : sortByStart();
+    LineCounter lineCounter = new LineCounter(order);
+    lineCounter.traverse();
+    int lineCount = lineCounter.maxLine + 1;
+
+    out.append("{\n\"version\":3,\n\"file\":");
+    appendString(out, name);
+    out.append(",\n\"lineCount\":").append(String.valueOf(lineCount));
+    if (sourceRoot != null && !sourceRoot.isEmpty()) {
+      out.append(",\n\"sourceRoot\":");
+      appendString(out, sourceRoot);
+    }
+    out.append(",\n\"mappings\":\"");
+    SegmentWriter segmentWriter = new SegmentWriter(order, out, lineCount);
+    segmentWriter.traverse();
+    out.append(";\",\n\"sources\":[");
+    for (int i = 0; i < segmentWriter.writtenSourceFiles.size(); i++) {
+      if (i > 0) {
+        out.append(',');
+      }
+      appendString(out, segmentWriter.writtenSourceFiles.get(i));
+    }
+    out.append("],\n\"names\":[]\n}\n");
+  }
+
+  private int getSourceFileIndex(String sourceFile) {
+    Integer index = sourceFileIndices.get(sourceFile);
+    if (index == null) {
+      index = sourceFiles.size();
+      sourceFiles.add(sourceFile);
+      sourceFileIndices.put(sourceFile, index);
+    }
+    return index;
+  }
+
+  private void growMappings() {
+    int capacity = 2 * mappingCount;
+    startLines = Arrays.copyOf(startLines, capacity);
+    startColumns = Arrays.copyOf(startColumns, capacity);
+    endLines = Arrays.copyOf(endLines, capacity);
+    endColumns = Arrays.copyOf(endColumns, capacity);
+    sources = Arrays.copyOf(sources, capacity);
+    sourceLines = Arrays.copyOf(sourceLines, capacity);
+    sourceColumns = Arrays.copyOf(sourceColumns, capacity);
+  }
+
+  /**
+   * Returns the mappings ordered by their start positions, mappings starting
+   * at the same position being kept in the order in which they were started.
+   * This is only needed if the mappings were not started in order.
+   */
+  private int[] sortByStart() {
+    Integer[] mappings = new Integer[mappingCount];
+    for (int i = 0; i < mappingCount; i++) {
+      mappings[i] = i;
+    }
+    // The sort is stable.
+    Arrays.sort(mappings, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer m1, Integer m2) {
+        int delta = startLines[m1] - startLines[m2];
+        return delta != 0 ? delta : startColumns[m1] - startColumns[m2];
+      }
+    });
+    int[] order = new int[mappingCount];
+    for (int i = 0; i < mappingCount; i++) {
+      order[i] = mappings[i];
+    }
+    return order;
+  }
+
+  /**
+   * Walks the output from start to end, visiting each span of it with the
+   * innermost mapping that covers it, or -1 for the spans that no mapping
+   * covers. The mappings of nodes without a precise location are left out.
+   *
+   * <p>The mappings are nested as their nodes are, so a stack of the
+   * mappings enclosing the current position is enough to find the innermost
+   * one.
+   */
+  private abstract class MappingTraversal {
+    private final int[] order;
+    private int line = 0;
+    private int column = 0;
+
+    MappingTraversal(int[] order) {
+      this.order = order;
+    }
+
+    /**
+     * Visits the span of output from {@code line} and {@code column} up to
+     * {@code nextLine} and {@code nextColumn}, which is mapped by
+     * {@code mapping}.
+     */
+    abstract void visit(int mapping, int line, int column, int nextLine, int nextColumn)
+        throws IOException;
+
+    void traverse() throws IOException {
+      int[] enclosingMappings = new int[16];
+      int depth = 0;
+      for (int i = 0; i < mappingCount; i++) {
+        int mapping = order == null ? i : order[i];
+        if (sources[mapping] < 0) {
+          continue;
+        }
+        // The mappings that end before this one starts are done.
+        while (depth > 0 && !encloses(enclosingMappings[depth - 1], mapping)) {
+          int previous = enclosingMappings[--depth];
+          visitUpTo(previous, endLines[previous], endColumns[previous]);
+        }
+        // The output up to the start of this mapping belongs to its parent.
+        visitUpTo(depth > 0 ? enclosingMappings[depth - 1] : -1,
+            startLines[mapping], startColumns[mapping]);
+        if (depth == enclosingMappings.length) {
+          enclosingMappings = Arrays.copyOf(enclosingMappings, 2 * depth);
+        }
+        enclosingMappings[depth++] = mapping;
+      }
+      while (depth > 0) {
+        int previous = enclosingMappings[--depth];
+        visitUpTo(previous, endLines[previous], endColumns[previous]);
+      }
+    }
+
+    /** Returns whether a mapping does not end before the other one starts. */
+    private boolean encloses(int mapping, int other) {
+      return endLines[mapping] > startLines[other]
+          || (endLines[mapping] == startLines[other]
+              && endColumns[mapping] >= startColumns[other]);
+    }
+
+    private void visitUpTo(int mapping, int nextLine, int nextColumn) throws IOException {
+      if (line < nextLine || (line == nextLine && column < nextColumn)) {
+        visit(mapping, line, column, nextLine, nextColumn);
+        line = nextLine;
+        column = nextColumn;
+      }
+    }
+  }
+
+  /** Finds the last output line with a mapped span. */
+  private final class LineCounter extends MappingTraversal {
+    int maxLine = 0;
+
+    LineCounter(int[] order) {
+      super(order);
+    }
+
+    @Override
+    void visit(int mapping, int line, int column, int nextLine, int nextColumn) {
+      if (mapping >= 0) {
+        maxLine = Math.max(maxLine, endLines[mapping]);
+      }
+    }
+  }
+
+  /**
+   * Appends a segment for each visited span of the first {@code lineCount}
+   * lines, and a {@code ';'} at the end of each line but the last one.
+   */
+  private final class SegmentWriter extends MappingTraversal {
+    private final Appendable out;
+    private final int lineCount;
+
+    /** The source files in the order of their first segments. */
+    final List<String> writtenSourceFiles = new ArrayList<>();
+    private final int[] writtenSourceIndices;
+
+    private int previousLine = -1;
+    private int previousColumn = 0;
+    private int previousSource = 0;
+    private int previousSourceLine = 0;
+    private int previousSourceColumn = 0;
+
+    SegmentWriter(int[] order, Appendable out, int lineCount) {
+      super(order);
+      this.out = out;
+      this.lineCount = lineCount;
+      writtenSourceIndices = new int[sourceFiles.size()];
+      Arrays.fill(writtenSourceIndices, -1);
+    }
+
+    @Override
+    void visit(int mapping, int line, int column, int nextLine, int nextColumn)
+        throws IOException {
+      if (previousLine != line) {
+        previousColumn = 0;
+      }
+      if (line < lineCount) {
+        if (previousLine == line) {
+          out.append(',');
+        }
+        writeSegment(mapping, column);
+        previousLine = line;
+      }
+      for (int i = line; i < nextLine && i < lineCount; i++) {
+        out.append(';');
+      }
+    }
+
+    /**
+     * Appends the fields of a segment, relative to the ones of the previous
+     * segment: only the column for an unmapped span, and then the source
+     * file, line and column for a mapped one.
+     */
+    private void writeSegment(int mapping, int column) throws IOException {
+      appendVlq(out, column - previousColumn);
+      previousColumn = column;
+      if (mapping >= 0) {
+        int source = writtenSourceIndices[sources[mapping]];
+        if (source < 0) {
+          source = writtenSourceFiles.size();
+          writtenSourceFiles.add(sourceFiles.get(sources[mapping]));
+          writtenSourceIndices[sources[mapping]] = source;
+        }
+        appendVlq(out, source - previousSource);
+        previousSource = source;
+        appendVlq(out, sourceLines[mapping] - previousSourceLine);
+        previousSourceLine = sourceLines[mapping];
+        appendVlq(out, sourceColumns[mapping] - previousSourceColumn);
+        previousSourceColumn = sourceColumns[mapping];
+      }
+    }
+  }
+
+  /**
+   * Appends a value as a Base64 VLQ: its sign is the least significant bit,
+   * and each digit holds five bits, least significant first, and whether
+   * more digits follow.
+   */
+  private static void appendVlq(Appendable out, int value) throws IOException {
+    int vlq = value < 0 ? (-value << 1) | 1 : value << 1;
+    do {
+      int digit = vlq & 31;
+      vlq >>>= 5;
+      if (vlq != 0) {
+        digit |= 32;
+      }
+      out.append(BASE64_DIGITS.charAt(digit));
+    } while (vlq != 0);
+  }
+
+  /** Appends a string as a quoted JSON string. */
+  private static void appendString(Appendable out, String s) throws IOException {
+    out.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '"':
+          out.append("\\\"");
+          break;
+        case '\\':
+          out.append("\\\\");
+          break;
+        case '\n':
+          out.append("\\n");
+          break;
+        case '\r':
+          out.append("\\r");
+          break;
+        case '\t':
+          out.append("\\t");
+          break;
+        default:
+          if (c > 31 && c <= 127) {
+            out.append(c);
+          } else {
+            out.append("\\u")
+                .append(HEX_DIGITS.charAt(c >> 12))
+                .append(HEX_DIGITS.charAt((c >> 8) & 15))
+                .append(HEX_DIGITS.charAt((c >> 4) & 15))
+                .append(HEX_DIGITS.charAt(c & 15));
+          }
+      }
+    }
+    out.append('"');
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.collect.Maps;
+import com.google.common.css.compiler.ast.CssSelectorNode;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Interns the names and selectors a pass looks at as small ints, numbered
+ * from 0 in the order they are first seen. Names get the same id when they
+ * are equal, and selectors when they are
+ * {@linkplain CssSelectorNode#isEquivalentTo equivalent}. The ids can then
+ * key {@link IntPairMap}s and index arrays instead of strings.
+ *
+ * <p>The selectors must not change while the table is in use.
+ */
+final class SymbolTable {
+
+  private final Map<String, Integer> nameIds = Maps.newHashMap();
+
+  /** The first selector seen with each id. */
+  private CssSelectorNode[] selectors = new CssSelectorNode[32];
+  /** The fingerprints of {@link #selectors}. */
+  private int[] selectorFingerprints = new int[32];
+  private int selectorCount;
+  /**
+   * Open-addressing hash table of the selectors, holding their ids plus one
+   * so that 0 marks the empty slots.
+   */
+  private int[] selectorSlots = new int[64];
+
+  /**
+   * Returns the id of the given name, assigning it a new one if it hasn't
+   * been seen before.
+   */
+  int getNameId(String name) {
+    Integer id = nameIds.get(name);
+    if (id == null) {
+      id = nameIds.size();
+      nameIds.put(name, id);
+    }
+    return id;
+  }
+
+  /**
+   * Returns the id of the given name, or -1 if it hasn't been seen before.
+   */
+  int findNameId(String name) {
+    Integer id = nameIds.get(name);
+    return id == null ? -1 : id;
+  }
+
+  /** Returns the number of names that have an id. */
+  int getNameCount() {
+    return nameIds.size();
+  }
+
+  /**
+   * Returns the id of the given selector, assigning it a new one if no
+   * equivalent selector has been seen before.
+   */
+  int getSelectorId(CssSelectorNode selector) {
+    int fingerprint = selector.getFingerprint();
+    int mask = selectorSlots.length - 1;
+    int slot = spread(fingerprint) & mask;
+    for (int entry = selectorSlots[slot]; entry != 0; entry = selectorSlots[slot]) {
+      int id = entry - 1;
+      if (selectorFingerprints[id] == fingerprint && selectors[id].isEquivalentTo(selector)) {
+        return id;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    int id = selectorCount++;
+    if (id == selectors.length) {
+      selectors = Arrays.copyOf(selectors, 2 * id);
+      selectorFingerprints = Arrays.copyOf(selectorFingerprints, 2 * id);
+    }
+    selectors[id] = selector;
+    selectorFingerprints[id] = fingerprint;
+    selectorSlots[slot] = id + 1;
+    if (2 * selectorCount > selectorSlots.length) {
+      rehashSelectors();
+    }
+    return id;
+  }
+
+  /** Returns the number of selectors that have an id. */
+  int getSelectorCount() {
+    return selectorCount;
+  }
+
+  private void rehashSelectors() {
+    selectorSlots = new int[2 * selectorSlots.length];
+    int mask = selectorSlots.length - 1;
+    for (int id = 0; id < selectorCount; id++) {
+      int slot = spread(selectorFingerprints[id]) & mask;
+      while (selectorSlots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      selectorSlots[slot] = id + 1;
+    }
+  }
+
+  private static int spread(int hash) {
+    int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
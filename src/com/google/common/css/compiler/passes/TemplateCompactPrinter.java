@@ -19,6 +19,7 @@ package com.google.common.css.compiler.passes;
 import com.google.common.css.compiler.ast.CssTree;
 import com.google.common.css.compiler.ast.CssTreeVisitor;
 import com.google.common.css.compiler.ast.VisitController;
+import javax.annotation.Nullable;
 
 /**
  * Printer for templates, which outputs GSS with holes to be filled
@@ -68,6 +69,20 @@ public class TemplateCompactPrinter<T> extends CompactPrinter {
     this.chunk = chunk;
   }
 
+  /**
+   * Create a template printer for a given chunk, which prints what the
+   * specified visit controller visits.
+   *
+   * @param visitController the visit controller for the nodes to be printed
+   * @param chunk the chunk selected for printing
+   * @param generator the source map generator to use, if any
+   */
+  TemplateCompactPrinter(VisitController visitController, T chunk,
+      @Nullable GssSourceMapGenerator generator) {
+    super(visitController, new CodeBufferForTemplate(), generator);
+    this.chunk = chunk;
+  }
+
   @Override
   protected CssTreeVisitor createVisitor(VisitController visitController, CodeBuffer buffer) {
     return new TemplateCompactPrintingVisitor<>(visitController, chunk, buffer);
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.css.compiler.ast.ChunkAware;
+import com.google.common.css.compiler.ast.CssBlockNode;
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssFontFaceNode;
+import com.google.common.css.compiler.ast.CssImportBlockNode;
+import com.google.common.css.compiler.ast.CssKeyframesNode;
+import com.google.common.css.compiler.ast.CssMediaRuleNode;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssRootNode;
+import com.google.common.css.compiler.ast.CssRulesetNode;
+import com.google.common.css.compiler.ast.CssSelectorNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.CssTreeVisitor;
+import com.google.common.css.compiler.ast.VisitController;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+
+/**
+ * Prints the templates of several chunks of a tree, as a
+ * {@link TemplateCompactPrinter} for each of them would, without visiting
+ * the whole tree for each chunk.
+ *
+ * <p>The top-level nodes of the tree are first sorted into the chunks that
+ * print them: a ruleset goes to the chunks of its selectors, a
+ * {@link ChunkAware} media rule, font face or keyframes rule to its chunk,
+ * and any other node to all the chunks. Each chunk then only visits its own
+ * nodes, into its own buffer and source map generator, so the chunks can also
+ * be printed in parallel.
+ *
+ * <p>As only the nodes of a chunk are visited, the marked comments it
+ * preserves are only the ones of its nodes.
+ *
+ * <p>This pass can only be used if {@link MapChunkAwareNodesToChunk} pass has
+ * been run before.
+ *
+ * @param <T> type of chunk id objects
+ */
+public class TemplateCompactPrinterForChunks<T> implements CssCompilerPass {
+
+  private final CssTree tree;
+  private final ImmutableSet<T> chunks;
+  private final Map<T, GssSourceMapGenerator> generators = new HashMap<>();
+  private boolean preserveMarkedComments;
+  private ImmutableMap<T, String> printedStrings = null;
+
+  /**
+   * Creates a template printer for the given chunks.
+   *
+   * @param tree CSS AST to be printed
+   * @param chunks the chunks selected for printing
+   */
+  public TemplateCompactPrinterForChunks(CssTree tree, Iterable<T> chunks) {
+    this.tree = tree;
+    this.chunks = ImmutableSet.copyOf(chunks);
+  }
+
+  /**
+   * Sets the source map generator of the output of a chunk. The output of the
+   * chunks without one is printed without a source map.
+   */
+  public void setSourceMapGenerator(T chunk, GssSourceMapGenerator generator) {
+    Preconditions.checkArgument(chunks.contains(chunk), "Unknown chunk %s", chunk);
+    generators.put(chunk, generator);
+  }
+
+  /**
+   * Whether special comments in the CSS nodes are preserved in the printed
+   * output, as with {@link CodePrinter#setPreserveMarkedComments}.
+   */
+  public void setPreserveMarkedComments(boolean preserveMarkedComments) {
+    this.preserveMarkedComments = preserveMarkedComments;
+  }
+
+  /**
+   * Returns the printed template of each chunk, in the order in which the
+   * chunks were given, or {@code null} if the pass has not run.
+   */
+  public ImmutableMap<T, String> getCompactPrintedStrings() {
+    return printedStrings;
+  }
+
+  @Override
+  public void runPass() {
+    ImmutableMap.Builder<T, String> builder = ImmutableMap.builder();
+    for (Map.Entry<T, List<CssNode>> entry : sortTopLevelNodes().entrySet()) {
+      builder.put(entry.getKey(), print(entry.getKey(), entry.getValue()));
+    }
+    printedStrings = builder.build();
+  }
+
+  /**
+   * Runs the pass, printing the chunks in parallel on the given executor. The
+   * source map generators of different chunks must not be shared.
+   */
+  public void runPass(ExecutorService executor) {
+    Map<T, Future<String>> outputs = new LinkedHashMap<>();
+    for (final Map.Entry<T, List<CssNode>> entry : sortTopLevelNodes().entrySet()) {
+      outputs.put(entry.getKey(), executor.submit(new Callable<String>() {
+        @Override
+        public String call() {
+          return print(entry.getKey(), entry.getValue());
+        }
+      }));
+    }
+    ImmutableMap.Builder<T, String> builder = ImmutableMap.builder();
+    for (Map.Entry<T, Future<String>> entry : outputs.entrySet()) {
+      builder.put(entry.getKey(), getResult(entry.getValue()));
+    }
+    printedStrings = builder.build();
+  }
+
+  /**
+   * Returns the top-level nodes printed by each chunk, in the order of the
+   * tree.
+   */
+  private Map<T, List<CssNode>> sortTopLevelNodes() {
+    Map<T, List<CssNode>> nodes = new LinkedHashMap<>();
+    for (T chunk : chunks) {
+      nodes.put(chunk, new ArrayList<CssNode>());
+    }
+    for (CssNode node : tree.getRoot().getBody().childIterable()) {
+      if (node instanceof CssRulesetNode) {
+        for (CssSelectorNode selector : ((CssRulesetNode) node).getSelectors().childIterable()) {
+          addNode(nodes.get(selector.getChunk()), node);
+        }
+      } else if (node instanceof CssMediaRuleNode
+          || node instanceof CssFontFaceNode
+          || node instanceof CssKeyframesNode) {
+        addNode(nodes.get(((ChunkAware) node).getChunk()), node);
+      } else {
+        for (List<CssNode> chunkNodes : nodes.values()) {
+          chunkNodes.add(node);
+        }
+      }
+    }
+    return nodes;
+  }
+
+  private static void addNode(@Nullable List<CssNode> chunkNodes, CssNode node) {
+    // The selectors of a ruleset may belong to the same chunk.
+    if (chunkNodes != null
+        && (chunkNodes.isEmpty() || chunkNodes.get(chunkNodes.size() - 1) != node)) {
+      chunkNodes.add(node);
+    }
+  }
+
+  private String print(T chunk, List<CssNode> nodes) {
+    // The nodes are in the order of the tree, so a chunk with as many nodes as
+    // the body prints all of them.
+    VisitController visitController =
+        nodes.size() == tree.getRoot().getBody().numChildren()
+            ? tree.getVisitController()
+            : new TopLevelNodesVisitController(tree.getRoot(), nodes);
+    TemplateCompactPrinter<T> printer =
+        new TemplateCompactPrinter<>(visitController, chunk, generators.get(chunk));
+    printer.setPreserveMarkedComments(preserveMarkedComments);
+    printer.runPass();
+    return printer.getCompactPrintedString();
+  }
+
+  /**
+   * Waits for the result of a task, rethrowing whatever the task threw.
+   */
+  private static <V> V getResult(Future<V> future) {
+    try {
+      return Uninterruptibles.getUninterruptibly(future);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  /**
+   * Visits a tree as {@link CssTree#getVisitController()} does, except that
+   * only the given top-level nodes of its body are visited.
+   */
+  private static class TopLevelNodesVisitController implements VisitController {
+    private final CssRootNode root;
+    private final List<CssNode> nodes;
+    private VisitController nodeVisitController = null;
+    private boolean stopVisitCalled;
+
+    TopLevelNodesVisitController(CssRootNode root, List<CssNode> nodes) {
+      this.root = root;
+      this.nodes = nodes;
+    }
+
+    @Override
+    public void startVisit(CssTreeVisitor visitor) {
+      stopVisitCalled = false;
+      visitor.enterTree(root);
+      CssImportBlockNode importBlock = root.getImportRules();
+      if (visitor.enterImportBlock(importBlock)) {
+        for (CssNode node : importBlock.childIterable()) {
+          if (!visitNode(node, visitor)) {
+            return;
+          }
+        }
+        visitor.leaveImportBlock(importBlock);
+      }
+      CssBlockNode body = root.getBody();
+      if (visitor.enterBlock(body)) {
+        for (CssNode node : nodes) {
+          if (!visitNode(node, visitor)) {
+            return;
+          }
+        }
+        visitor.leaveBlock(body);
+      }
+      visitor.leaveTree(root);
+    }
+
+    /**
+     * Visits a top-level node and returns whether the visit goes on.
+     */
+    private boolean visitNode(CssNode node, CssTreeVisitor visitor) {
+      nodeVisitController = node.getVisitController();
+      nodeVisitController.startVisit(visitor);
+      nodeVisitController = null;
+      return !stopVisitCalled;
+    }
+
+    @Override
+    public void stopVisit() {
+      Preconditions.checkState(nodeVisitController != null);
+      stopVisitCalled = true;
+      nodeVisitController.stopVisit();
+    }
+  }
+}
@@ -16,23 +16,20 @@
 
 package com.google.common.css.compiler.passes;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
-import com.google.common.collect.TreeMultimap;
 import com.google.common.css.compiler.ast.*;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
 
 // TODO(user): Consider adding an annotation of which classes
 //     co-occur (or more generally, of which selectors with the same
@@ -54,6 +51,14 @@ import java.util.Set;
  * might conflict say if a {@code span} DOM element has a parent with
  * a {@code FOO} class and a grandparent with a {@code BAR} class.
  *
+ * <p>The pass interns the declarations and selectors it collects as ints
+ * and groups the selectors of each declaration in a {@link BitSet}, so that
+ * it prints every node only once. As merging looks at every
+ * declaration/selector pair of the stylesheet at once, it can be given a
+ * budget of pairs; beyond it, the pass only merges adjacent rulesets as
+ * {@link MergeAdjacentRulesetNodesWithSameSelector} and
+ * {@link MergeAdjacentRulesetNodesWithSameDeclarations} do, which is safe.
+ *
  */
 public class UnsafeMergeRulesetNodes implements CssCompilerPass {
 
@@ -63,6 +68,8 @@ public class UnsafeMergeRulesetNodes implements CssCompilerPass {
   private final CssTree tree;
   private final boolean byPartition;
   private final boolean skipping;
+  private final long maxPairs;
+  private boolean fellBackToSafeMerge;
 
   /**
    * Constructor.
@@ -84,117 +91,126 @@ public class UnsafeMergeRulesetNodes implements CssCompilerPass {
    */
   public UnsafeMergeRulesetNodes(
       CssTree tree, boolean byPartition, boolean skipping) {
+    this(tree, byPartition, skipping, Long.MAX_VALUE);
+  }
+
+  /**
+   * Constructor for a pass with a budget. The memory and time the merge takes
+   * grow with the number of declaration/selector pairs in the rulesets it
+   * may modify: a ruleset with three selectors and two declarations has six.
+   * If there are more than {@code maxPairs} of them, the pass falls back to
+   * merging adjacent rulesets only.
+   *
+   * @param tree the tree to run the pass on
+   * @param byPartition whether to group <em>all</em> declarations by partition
+   *     (and not just the ones such as border where order matters)
+   * @param skipping whether to skip certain properties as defined by
+   *      {@link SkippingTreeVisitor}
+   * @param maxPairs the maximum number of declaration/selector pairs to merge
+   */
+  public UnsafeMergeRulesetNodes(
+      CssTree tree, boolean byPartition, boolean skipping, long maxPairs) {
+    Preconditions.checkArgument(maxPairs >= 0, "Negative budget: %s", maxPairs);
     this.tree = tree;
     this.byPartition = byPartition;
     this.skipping = skipping;
+    this.maxPairs = maxPairs;
   }
 
   @Override
   public void runPass() {
-    replace(collect());
-  }
-
-  /**
-   * Performs the collect phase by traversing the tree, collecting all the
-   * rules and placing a placeholder ruleset.
-   */
-  private CollectPhaseTreeVisitor collect() {
+    fellBackToSafeMerge = false;
     CollectPhaseTreeVisitor collectPhaseVisitor =
-        new CollectPhaseTreeVisitor(tree.getMutatingVisitController(), byPartition, skipping);
+        new CollectPhaseTreeVisitor(tree.getVisitController(), skipping);
     collectPhaseVisitor.runPass();
-    return collectPhaseVisitor;
-  }
-
-  /**
-   * Performs the replace phase, by using the structures from the collect phase
-   * to compute a new list of rulesets and traversing the tree to replace the
-   * placeholder with the new list.
-   */
-  private void replace(CollectPhaseTreeVisitor collectPhaseVisitor) {
-    // If we don't have a placeholder, then nothing has been collected, and
-    // nothing is to be done.
-    if (collectPhaseVisitor.getPlaceholderRuleset() == null) {
+    List<CssRulesetNode> collected = collectPhaseVisitor.getRulesets();
+    // If nothing has been collected, nothing is to be done.
+    if (collected.isEmpty()) {
       return;
     }
-
-    List<CssNode> rulesets = Lists.newArrayList();
-
-    for (Map.Entry<CssDeclarationNode, Collection<CssSelectorNode>> entry
-        : collectPhaseVisitor.getDecToSels()) {
-      rulesets.add(makeOneDeclarationRuleset(entry.getKey(), entry.getValue()));
-    }
-
-    for (Map.Entry<Collection<CssDeclarationNode>, Set<CssSelectorNode>> entry
-        : collectPhaseVisitor.getPartitions()) {
-      rulesets.add(makePartitionRuleset(entry.getKey(), entry.getValue()));
+    if (collectPhaseVisitor.getPairCount() > maxPairs) {
+      fellBackToSafeMerge = true;
+      safeMerge();
+      return;
     }
-
-    new ReplacePhaseTreeVisitor(
-        tree.getMutatingVisitController(),
-        rulesets,
-        collectPhaseVisitor.getPlaceholderRuleset())
-        .runPass();
+    replace(collected);
   }
 
   /**
-   * Makes a ruleset with many selectors and one declaration.
+   * Returns whether the last run of the pass exceeded its budget, and so
+   * merged adjacent rulesets only.
    */
-  private CssRulesetNode makeOneDeclarationRuleset(
-      CssDeclarationNode dec, Iterable<CssSelectorNode> sels) {
-    CssRulesetNode ruleset = new CssRulesetNode(new CssDeclarationBlockNode());
-    ruleset.addDeclaration(dec);
-    for (CssSelectorNode sel : sels) {
-      ruleset.addSelector(sel.deepCopy());
-    }
-    return ruleset;
+  public boolean fellBackToSafeMerge() {
+    return fellBackToSafeMerge;
   }
 
   /**
-   * Makes a ruleset with many selectors and many declarations, whose
-   * properties are assumed to be from the same partition.
+   * Performs the replace phase, by computing a new list of rulesets from the
+   * collected ones and putting it in place of the first collected ruleset,
+   * removing the others from their blocks.
    */
-  private CssRulesetNode makePartitionRuleset(
-      Iterable<CssDeclarationNode> decs, Iterable<CssSelectorNode> sels) {
-    CssRulesetNode ruleset = new CssRulesetNode(new CssDeclarationBlockNode());
-    for (CssDeclarationNode dec : decs) {
-      ruleset.addDeclaration(dec.deepCopy());
+  private void replace(List<CssRulesetNode> collected) {
+    Merger merger = new Merger(byPartition);
+    for (CssRulesetNode ruleset : collected) {
+      merger.addSelectors(ruleset);
+    }
+    merger.rankSelectors();
+    for (CssRulesetNode ruleset : collected) {
+      merger.addPairs(ruleset);
     }
-    for (CssSelectorNode sel : sels) {
-      ruleset.addSelector(sel.deepCopy());
+    List<CssNode> rulesets = merger.makeRulesets();
+
+    // Blocks can hold many thousands of rulesets, so they are removed all at
+    // once rather than through the visit controller.
+    Set<CssRulesetNode> toRemove = Sets.newIdentityHashSet();
+    Set<CssAbstractBlockNode> blocks = Sets.newIdentityHashSet();
+    for (CssRulesetNode ruleset : collected) {
+      toRemove.add(ruleset);
+      blocks.add(getBlock(ruleset));
     }
-    return ruleset;
+    CssRulesetNode first = collected.get(0);
+    toRemove.remove(first);
+    CssAbstractBlockNode firstBlock = getBlock(first);
+    firstBlock.replaceChildAt(firstBlock.getChildren().indexOf(first), rulesets);
+    for (CssAbstractBlockNode block : blocks) {
+      block.removeChildren(toRemove);
+    }
+  }
+
+  private static CssAbstractBlockNode getBlock(CssRulesetNode ruleset) {
+    Preconditions.checkState(ruleset.getParent() instanceof CssAbstractBlockNode);
+    return (CssAbstractBlockNode) ruleset.getParent();
+  }
+
+  /** Merges the adjacent rulesets that have the same selector or declarations. */
+  private void safeMerge() {
+    new MergeAdjacentRulesetNodesWithSameSelector(tree, skipping).runPass();
+    new EliminateUselessRulesetNodes(tree).runPass();
+    new MergeAdjacentRulesetNodesWithSameDeclarations(tree, skipping).runPass();
+    new EliminateUselessRulesetNodes(tree).runPass();
   }
 
   /**
-   * The tree visitor for the collect phase, which collects all the rules
-   * replacing them with one placeholder rule.
+   * The tree visitor for the collect phase, which collects all the rulesets
+   * the pass may modify and counts their declaration/selector pairs.
    */
   private static class CollectPhaseTreeVisitor extends SkippingTreeVisitor
       implements CssCompilerPass {
-    private final MutatingVisitController visitController;
-    private final boolean byPartition;
-    private final Multimap<CssDeclarationNode, CssSelectorNode> decToSel =
-        TreeMultimap.create(DECLARATION_COMPARATOR, TO_STRING_COMPARATOR);
-    private final Partitioner partitioner = new Partitioner();
-    private CssRulesetNode placeholderRuleset = null;
+    private final VisitController visitController;
+    private final List<CssRulesetNode> rulesets = Lists.newArrayList();
+    private long pairCount;
 
-    public CollectPhaseTreeVisitor(
-        MutatingVisitController visitController, boolean byPartition, boolean skipping) {
+    public CollectPhaseTreeVisitor(VisitController visitController, boolean skipping) {
       super(skipping);
       this.visitController = visitController;
-      this.byPartition = byPartition;
     }
 
-    /**
-     * Processes a ruleset when allowed by collecting it and then deleting it
-     * from the tree. If this is the first ruleset to be deleted, adds a
-     * placeholder ruleset to be replaced in the {#replacePhase}.
-     */
     @Override
     public boolean enterRuleset(CssRulesetNode ruleset) {
       if (canModifyRuleset(ruleset)) {
-        collectRuleset(ruleset);
-        deleteRuleset();
+        rulesets.add(ruleset);
+        pairCount += (long) ruleset.getDeclarations().numChildren()
+            * ruleset.getSelectors().numChildren();
       }
       return true;
     }
@@ -204,297 +220,403 @@ public class UnsafeMergeRulesetNodes implements CssCompilerPass {
       visitController.startVisit(this);
     }
 
+    /** Returns the collected rulesets, in the order of the tree. */
+    List<CssRulesetNode> getRulesets() {
+      return rulesets;
+    }
+
+    /** Returns the number of declaration/selector pairs of the rulesets. */
+    long getPairCount() {
+      return pairCount;
+    }
+  }
+
+  /**
+   * Computes the merged rulesets from the declaration/selector pairs of the
+   * collected ones.
+   *
+   * <p>Declarations and selectors are identified by their string
+   * representation, and numbered: declarations in the order they are first
+   * seen, selectors in the order of their strings, so that iterating over a
+   * {@link BitSet} of selectors visits them sorted. Each declaration or
+   * selector is printed once, and the original nodes make up the new
+   * rulesets; a node is only copied when it appears in more than one of
+   * them. Where several nodes have the same string representation, the ones
+   * kept are those a sorted set of nodes would keep: the first added.
+   */
+  private static final class Merger {
+    private final boolean byPartition;
+
+    /** Declaration ids by string representation. */
+    private final Map<String, Integer> declarationIds = Maps.newHashMap();
+    /** The first declaration seen with each id. */
+    private final List<CssDeclarationNode> declarations = Lists.newArrayList();
+    private final List<String> declarationStrings = Lists.newArrayList();
+    private final List<Property> declarationProperties = Lists.newArrayList();
     /**
-     * Returns entries of declaration/selectors grouped by declarations.
+     * Orders declaration ids so that shorthand properties come before their
+     * related properties, and by their string representation otherwise.
      */
-    Iterable<Map.Entry<CssDeclarationNode, Collection<CssSelectorNode>>> getDecToSels() {
-      return decToSel.asMap().entrySet();
-    }
+    private final Comparator<Integer> declarationOrdering = new Comparator<Integer>() {
+      @Override
+      public int compare(Integer id1, Integer id2) {
+        Property property1 = declarationProperties.get(id1);
+        Property property2 = declarationProperties.get(id2);
+        if (property1.getShorthands().contains(property2.getName())) {
+          return 1;
+        } else if (property2.getShorthands().contains(property1.getName())) {
+          return -1;
+        } else {
+          return declarationStrings.get(id1).compareTo(declarationStrings.get(id2));
+        }
+      }
+    };
+    /** Orders lists of declaration ids by the string representations of their elements. */
+    private final Comparator<List<Integer>> declarationListOrdering =
+        new Comparator<List<Integer>>() {
+          @Override
+          public int compare(List<Integer> list1, List<Integer> list2) {
+            int size = Math.min(list1.size(), list2.size());
+            for (int i = 0; i < size; i++) {
+              int c = declarationStrings.get(list1.get(i))
+                  .compareTo(declarationStrings.get(list2.get(i)));
+              if (c != 0) {
+                return c;
+              }
+            }
+            return Integer.compare(list1.size(), list2.size());
+          }
+        };
+
+    /** Selector ids, in the order they are first seen, by string representation. */
+    private final Map<String, Integer> selectorIds = Maps.newHashMap();
+    /** The first selector seen with each id. */
+    private final List<CssSelectorNode> selectors = Lists.newArrayList();
+    private final List<String> selectorStrings = Lists.newArrayList();
+    /** The ids of the selectors of the collected rulesets, in order. */
+    private final List<int[]> rulesetSelectorIds = Lists.newArrayList();
+    /** The index in {@link #rulesetSelectorIds} of the next ruleset to add pairs of. */
+    private int nextRuleset;
+    /** The rank of each selector id in the order of their strings. */
+    private int[] selectorRanks;
+    /** The first selector seen with each rank. */
+    private CssSelectorNode[] selectorsByRank;
 
     /**
-     * Returns entries of declarations/selectors grouped by partitions, then
-     * selectors.
+     * The selectors of the unpartitioned declarations, keyed by declaration id
+     * and sorted. This is looked up for every pair, like the sorted multimap
+     * the pass used to keep: a declaration comparator whose shorthand rule
+     * conflicts with the string order for some declarations can then make it
+     * miss a key, and the merged rulesets must be the same.
      */
-    Iterable<Map.Entry<Collection<CssDeclarationNode>, Set<CssSelectorNode>>> getPartitions() {
-      return partitioner.getMap().entrySet();
+    private final SortedMap<Integer, SelectorGroup> selectorGroups =
+        Maps.newTreeMap(declarationOrdering);
+
+    private final Map<String, Partition> partitions = Maps.newHashMap();
+
+    /** The nodes that already are in a merged ruleset. */
+    private final Set<CssNode> usedNodes = Sets.newIdentityHashSet();
+
+    Merger(boolean byPartition) {
+      this.byPartition = byPartition;
+    }
+
+    /** Numbers the selectors of the given ruleset. */
+    void addSelectors(CssRulesetNode ruleset) {
+      CssSelectorListNode selectorList = ruleset.getSelectors();
+      int[] ids = new int[selectorList.numChildren()];
+      for (int i = 0; i < ids.length; i++) {
+        CssSelectorNode selector = selectorList.getChildAt(i);
+        String string = selector.toString();
+        Integer id = selectorIds.get(string);
+        if (id == null) {
+          id = selectors.size();
+          selectorIds.put(string, id);
+          selectors.add(selector);
+          selectorStrings.add(string);
+        }
+        ids[i] = id;
+      }
+      rulesetSelectorIds.add(ids);
     }
 
     /**
-     * Returns the placeholder ruleset, to be replaced.
+     * Ranks the selectors by their string representation, once all of them
+     * have been added.
      */
-    CssRulesetNode getPlaceholderRuleset() {
-      return placeholderRuleset;
+    void rankSelectors() {
+      Integer[] ids = new Integer[selectors.size()];
+      for (int id = 0; id < ids.length; id++) {
+        ids[id] = id;
+      }
+      Arrays.sort(ids, new Comparator<Integer>() {
+        @Override
+        public int compare(Integer id1, Integer id2) {
+          return selectorStrings.get(id1).compareTo(selectorStrings.get(id2));
+        }
+      });
+      selectorRanks = new int[ids.length];
+      selectorsByRank = new CssSelectorNode[ids.length];
+      for (int rank = 0; rank < ids.length; rank++) {
+        selectorRanks[ids[rank]] = rank;
+        selectorsByRank[rank] = selectors.get(ids[rank]);
+      }
     }
 
-    private void collectRuleset(CssRulesetNode ruleset) {
+    /**
+     * Adds the declaration/selector pairs of the given ruleset. The rulesets
+     * must be added in the same order as to {@link #addSelectors}.
+     */
+    void addPairs(CssRulesetNode ruleset) {
+      int[] ids = rulesetSelectorIds.get(nextRuleset++);
+      CssSelectorListNode selectorList = ruleset.getSelectors();
       for (CssNode abstractDecl : ruleset.getDeclarations().childIterable()) {
         Preconditions.checkState(abstractDecl instanceof CssDeclarationNode);
         CssDeclarationNode dec = (CssDeclarationNode) abstractDecl;
-        boolean inPartition = byPartition
-            || ORDER_DEPENDENT_PARTITIONS.contains(dec.getPropertyName().getPartition());
-        for (CssSelectorNode sel : ruleset.getSelectors().childIterable()) {
+        int declaration = getDeclarationId(dec);
+        String partitionName = dec.getPropertyName().getPartition();
+        boolean inPartition = byPartition || ORDER_DEPENDENT_PARTITIONS.contains(partitionName);
+        for (int i = 0; i < ids.length; i++) {
+          CssSelectorNode selector = selectorList.getChildAt(i);
+          int rank = selectorRanks[ids[i]];
           if (inPartition) {
-            partitioner.add(dec, sel);
+            getPartition(partitionName).add(declaration, dec, rank, selector);
           } else {
-            decToSel.put(dec, sel);
+            addToGroup(declaration, dec, rank, selector);
           }
         }
       }
     }
 
-    private void deleteRuleset() {
-      if (placeholderRuleset == null) {
-        // We don't have a place holder yet. Create one.
-        placeholderRuleset = new CssRulesetNode(new CssDeclarationBlockNode());
-        visitController.replaceCurrentBlockChildWith(
-            ImmutableList.of((CssNode) placeholderRuleset), false);
-      } else {
-        visitController.removeCurrentNode();
+    /**
+     * Returns the merged rulesets: first one for each unpartitioned
+     * declaration, with all its selectors, then one for each group of
+     * selectors that have the same declarations in a partition.
+     */
+    List<CssNode> makeRulesets() {
+      List<CssNode> rulesets = Lists.newArrayList();
+      for (SelectorGroup group : selectorGroups.values()) {
+        CssRulesetNode ruleset = new CssRulesetNode(new CssDeclarationBlockNode());
+        ruleset.addDeclaration(group.declaration);
+        BitSet ranks = group.selectorRanks;
+        for (int rank = ranks.nextSetBit(0); rank >= 0; rank = ranks.nextSetBit(rank + 1)) {
+          ruleset.addSelector(use(group.getSelector(rank, selectorsByRank[rank])));
+        }
+        rulesets.add(ruleset);
       }
-    }
-  }
 
-  /**
-   * The tree visitor for the replace phase, which replaces the placeholder with
-   * the new computed rulesets.
-   */
-  private static class ReplacePhaseTreeVisitor extends DefaultTreeVisitor
-      implements CssCompilerPass {
-    private final MutatingVisitController visitController;
-    private final List<CssNode> rulesets;
-    private final CssRulesetNode placeholderRuleset;
-
-    public ReplacePhaseTreeVisitor(
-        MutatingVisitController visitController,
-        List<CssNode> rulesets,
-        CssRulesetNode placeholderRuleset) {
-      this.visitController = visitController;
-      this.rulesets = rulesets;
-      this.placeholderRuleset = placeholderRuleset;
+      Map<List<Integer>, PartitionGroup> groups = Maps.newTreeMap(declarationListOrdering);
+      for (Partition partition : partitions.values()) {
+        partition.addTo(groups);
+      }
+      for (PartitionGroup group : groups.values()) {
+        CssRulesetNode ruleset = new CssRulesetNode(new CssDeclarationBlockNode());
+        for (CssDeclarationNode dec : group.declarations) {
+          ruleset.addDeclaration(use(dec));
+        }
+        for (CssSelectorNode sel : group.selectors) {
+          ruleset.addSelector(use(sel));
+        }
+        rulesets.add(ruleset);
+      }
+      return rulesets;
     }
 
-    @Override
-    public boolean enterRuleset(CssRulesetNode ruleset) {
-      if (ruleset == placeholderRuleset) {
-        visitController.replaceCurrentBlockChildWith(rulesets, false);
+    private int getDeclarationId(CssDeclarationNode declaration) {
+      String string = declaration.toString();
+      Integer id = declarationIds.get(string);
+      if (id == null) {
+        id = declarations.size();
+        declarationIds.put(string, id);
+        declarations.add(declaration);
+        declarationStrings.add(string);
+        declarationProperties.add(declaration.getPropertyName().getProperty());
       }
-      return true;
+      return id;
     }
 
-    @Override
-    public void runPass() {
-      visitController.startVisit(this);
+    private void addToGroup(
+        int declaration, CssDeclarationNode node, int rank, CssSelectorNode selector) {
+      SelectorGroup group = selectorGroups.get(declaration);
+      if (group == null) {
+        group = new SelectorGroup(node);
+        selectorGroups.put(declaration, group);
+      }
+      if (!group.selectorRanks.get(rank)) {
+        group.selectorRanks.set(rank);
+        CssSelectorNode first = selectorsByRank[rank];
+        if (selector != first && !selector.isEquivalentTo(first)) {
+          group.addOtherSelector(rank, selector);
+        }
+      }
     }
-  }
 
-  /**
-   * A partition organizes pairs of declaration/selector.
-   */
-  private static abstract class Partition {
-    @SuppressWarnings("unused")
-    protected final String partition;
-
-    protected Partition(String partition) {
-      this.partition = partition;
+    private Partition getPartition(String partitionName) {
+      Partition partition = partitions.get(partitionName);
+      if (partition == null) {
+        partition = ORDER_DEPENDENT_PARTITIONS.contains(partitionName)
+            ? new OrderDependentPartition()
+            : new OrderIndependentPartition();
+        partitions.put(partitionName, partition);
+      }
+      return partition;
     }
 
     /**
-     * Creates a new partition.
+     * Returns the given node if it isn't in a merged ruleset yet, or a copy
+     * of it otherwise.
      */
-    public static Partition newPartition(String partition) {
-      return ORDER_DEPENDENT_PARTITIONS.contains(partition)
-          ? new OrderDependentPartition(partition)
-          : new OrderIndependentPartition(partition);
+    private CssSelectorNode use(CssSelectorNode selector) {
+      return usedNodes.add(selector) ? selector : selector.deepCopy();
     }
 
-    /**
-     * Adds the given pair of declaration/selector to the partition. Assumes
-     * that the selector belongs to this partition.
-     */
-    public abstract void add(CssDeclarationNode declaration, CssSelectorNode selector);
+    private CssDeclarationNode use(CssDeclarationNode declaration) {
+      return usedNodes.add(declaration) ? declaration : declaration.deepCopy();
+    }
 
     /**
-     * Adds the pairs of this partition to the given map.
+     * A partition organizes pairs of declaration/selector by selector rank.
      */
-    public abstract void addTo(Map<Collection<CssDeclarationNode>, Set<CssSelectorNode>> outMap);
+    private abstract class Partition {
+      /** The first selector added with each rank. */
+      private final SortedMap<Integer, CssSelectorNode> selectors = Maps.newTreeMap();
+
+      /** Adds the given pair of declaration/selector to the partition. */
+      void add(int declaration, CssDeclarationNode node, int rank, CssSelectorNode selector) {
+        if (!selectors.containsKey(rank)) {
+          selectors.put(rank, selector);
+        }
+        addDeclaration(rank, declaration, node);
+      }
 
-    /**
-     * Returns the selectors keyed by the given declarations in the given map.
-     */
-    protected Set<CssSelectorNode> getSelectorsByDeclarations(
-        Collection<CssDeclarationNode> declarations,
-        Map<Collection<CssDeclarationNode>, Set<CssSelectorNode>> map) {
-      Set<CssSelectorNode> selectors = map.get(declarations);
-      if (selectors == null) {
-        selectors = Sets.newTreeSet(TO_STRING_COMPARATOR);
-        map.put(declarations, selectors);
+      /**
+       * Adds the selectors of this partition to the groups of the given map,
+       * keyed by the ids of their declarations.
+       */
+      void addTo(Map<List<Integer>, PartitionGroup> groups) {
+        for (Map.Entry<Integer, CssSelectorNode> entry : selectors.entrySet()) {
+          List<Integer> declarationIds = getDeclarationIds(entry.getKey());
+          PartitionGroup group = groups.get(declarationIds);
+          if (group == null) {
+            group = new PartitionGroup(getDeclarations(entry.getKey()));
+            groups.put(declarationIds, group);
+          }
+          group.selectors.add(entry.getValue());
+        }
       }
-      return selectors;
-    }
-  }
 
-  /**
-   * A partition whose declarations are order-independent.
-   */
-  private static class OrderIndependentPartition extends Partition {
-    private final Multimap<CssSelectorNode, CssDeclarationNode> inMap;
+      protected abstract void addDeclaration(
+          int rank, int declaration, CssDeclarationNode node);
 
-    private OrderIndependentPartition(String partition) {
-      super(partition);
-      this.inMap = TreeMultimap.create(TO_STRING_COMPARATOR, DECLARATION_COMPARATOR);
-    }
+      /** Returns the ids of the declarations of the selector with the given rank. */
+      protected abstract List<Integer> getDeclarationIds(int rank);
 
-    @Override
-    public void add(CssDeclarationNode declaration, CssSelectorNode selector) {
-      inMap.put(selector, declaration);
+      /** Returns the declarations of the selector with the given rank. */
+      protected abstract List<CssDeclarationNode> getDeclarations(int rank);
     }
 
-    @Override
-    public void addTo(Map<Collection<CssDeclarationNode>, Set<CssSelectorNode>> outMap) {
-      for (Map.Entry<CssSelectorNode, Collection<CssDeclarationNode>> entry
-          : inMap.asMap().entrySet()) {
-        getSelectorsByDeclarations(entry.getValue(), outMap).add(entry.getKey());
+    /**
+     * A partition whose declarations are order-independent: they are sorted,
+     * and a declaration added twice to a selector is kept once.
+     */
+    private class OrderIndependentPartition extends Partition {
+      private final Map<Integer, SortedMap<Integer, CssDeclarationNode>> declarationsByRank =
+          Maps.newHashMap();
+
+      @Override
+      protected void addDeclaration(int rank, int declaration, CssDeclarationNode node) {
+        SortedMap<Integer, CssDeclarationNode> nodes = declarationsByRank.get(rank);
+        if (nodes == null) {
+          nodes = Maps.newTreeMap(declarationOrdering);
+          declarationsByRank.put(rank, nodes);
+        }
+        if (!nodes.containsKey(declaration)) {
+          nodes.put(declaration, node);
+        }
       }
-    }
-  }
 
-  /**
-   * A partition whose declarations are order-dependent.
-   */
-  private static class OrderDependentPartition extends Partition {
-    private final Map<CssSelectorNode, List<CssDeclarationNode>> inMap;
+      @Override
+      protected List<Integer> getDeclarationIds(int rank) {
+        return ImmutableList.copyOf(declarationsByRank.get(rank).keySet());
+      }
 
-    private OrderDependentPartition(String partition) {
-      super(partition);
-      this.inMap = Maps.newTreeMap(TO_STRING_COMPARATOR);
+      @Override
+      protected List<CssDeclarationNode> getDeclarations(int rank) {
+        return ImmutableList.copyOf(declarationsByRank.get(rank).values());
+      }
     }
 
-    @Override
-    public void add(CssDeclarationNode declaration, CssSelectorNode selector) {
-      getDeclarations(selector).add(declaration);
-    }
+    /**
+     * A partition whose declarations are order-dependent: they are kept in
+     * the order they are added.
+     */
+    private class OrderDependentPartition extends Partition {
+      private final Map<Integer, List<Integer>> declarationIdsByRank = Maps.newHashMap();
+      private final Map<Integer, List<CssDeclarationNode>> declarationsByRank =
+          Maps.newHashMap();
 
-    @Override
-    public void addTo(Map<Collection<CssDeclarationNode>, Set<CssSelectorNode>> outMap) {
-      for (Map.Entry<CssSelectorNode, List<CssDeclarationNode>> entry
-          : inMap.entrySet()) {
-        getSelectorsByDeclarations(entry.getValue(), outMap).add(entry.getKey());
+      @Override
+      protected void addDeclaration(int rank, int declaration, CssDeclarationNode node) {
+        List<Integer> ids = declarationIdsByRank.get(rank);
+        if (ids == null) {
+          ids = Lists.newArrayList();
+          declarationIdsByRank.put(rank, ids);
+          declarationsByRank.put(rank, Lists.<CssDeclarationNode>newArrayList());
+        }
+        ids.add(declaration);
+        declarationsByRank.get(rank).add(node);
       }
-    }
 
-    private List<CssDeclarationNode> getDeclarations(CssSelectorNode selector) {
-      List<CssDeclarationNode> declarations = inMap.get(selector);
-      if (declarations == null) {
-        declarations = Lists.newLinkedList();
-        inMap.put(selector, declarations);
+      @Override
+      protected List<Integer> getDeclarationIds(int rank) {
+        return declarationIdsByRank.get(rank);
+      }
+
+      @Override
+      protected List<CssDeclarationNode> getDeclarations(int rank) {
+        return declarationsByRank.get(rank);
       }
-      return declarations;
     }
   }
 
-  /**
-   * A partitioner adds up pairs of declaration/selector to build a map from
-   * groups of declarations in the same partition to selectors.
-   */
-  private static class Partitioner {
+  /** The selectors of a ruleset merged by declaration. */
+  private static final class SelectorGroup {
+    final CssDeclarationNode declaration;
+    final BitSet selectorRanks = new BitSet();
     /**
-     * This map stores all the declaration/selector pairs added to the
-     * partitioner, grouped by partitions.
+     * The selectors that have the same string representation as the first
+     * selector with their rank, but are printed differently, by rank.
      */
-    private final Map<String, Partition> partitions = Maps.newHashMap();
+    private Map<Integer, CssSelectorNode> otherSelectors;
 
-    /**
-     * Adds a declaration/selector pair to the partitioner.
-     *
-     * @param declaration the declaration of the pair to add
-     * @param selector the selector of the pair to add
-     */
-    public void add(CssDeclarationNode declaration, CssSelectorNode selector) {
-      String partitionName = declaration.getPropertyName().getPartition();
-      getPartition(partitionName).add(declaration, selector);
+    SelectorGroup(CssDeclarationNode declaration) {
+      this.declaration = declaration;
     }
 
-    /**
-     * Computes a conveninent map from groups of declarations to sets of
-     * selectors from all the additions to the partitioner.
-     *
-     * @return a map conveniently summarizing all the additions to the partitioner
-     */
-    public Map<Collection<CssDeclarationNode>, Set<CssSelectorNode>> getMap() {
-      Map<Collection<CssDeclarationNode>, Set<CssSelectorNode>> map =
-          Maps.newTreeMap(TO_STRING_ITERABLE_COMPARATOR);
-      for (Partition partition : partitions.values()) {
-        partition.addTo(map);
+    void addOtherSelector(int rank, CssSelectorNode selector) {
+      if (otherSelectors == null) {
+        otherSelectors = Maps.newHashMap();
       }
-      return map;
+      otherSelectors.put(rank, selector);
     }
 
-    private Partition getPartition(String partitionName) {
-      Partition partition = partitions.get(partitionName);
-      if (partition == null) {
-        partition = Partition.newPartition(partitionName);
-        partitions.put(partitionName, partition);
-      }
-      return partition;
+    /**
+     * Returns the selector of the group with the given rank, given the first
+     * selector seen with that rank.
+     */
+    CssSelectorNode getSelector(int rank, CssSelectorNode first) {
+      CssSelectorNode selector = otherSelectors == null ? null : otherSelectors.get(rank);
+      return selector != null ? selector : first;
     }
   }
 
-  /** Compares objects by their string representation. */
-  @VisibleForTesting
-  static final Comparator<Object> TO_STRING_COMPARATOR = Ordering.usingToString();
-
-  /**
-   * Create a comparator for iterables that compares element pairwise using the
-   * given element comparator.
-   */
-  private static <T> Comparator<Iterable<? extends T>> createIterableComparator(
-      final Comparator<T> elementComparator) {
-    return new Comparator<Iterable<? extends T>>() {
-      @Override
-      public int compare(Iterable<? extends T> o1, Iterable<? extends T> o2) {
-        Iterator<? extends T> i1 = o1.iterator();
-        Iterator<? extends T> i2 = o2.iterator();
-        while (true) {
-          if (i1.hasNext() && !i2.hasNext()) {
-            return 1;
-          } else if (!i1.hasNext() && i2.hasNext()) {
-            return -1;
-          } else if (!i1.hasNext() && !i2.hasNext()) {
-            return 0;
-          } else {
-            int c = elementComparator.compare(i1.next(), i2.next());
-            if (c != 0) {
-              return c;
-            }
-          }
-        }
-      }
-    };
-  }
-
-  /** Compares iterables by their extended string representation. */
-  @VisibleForTesting
-  static final Comparator<Iterable<?>> TO_STRING_ITERABLE_COMPARATOR =
-      createIterableComparator(TO_STRING_COMPARATOR);
+  /** The declarations and selectors of a ruleset merged by partition. */
+  private static final class PartitionGroup {
+    final List<CssDeclarationNode> declarations;
+    final List<CssSelectorNode> selectors = Lists.newArrayList();
 
-  /**
-   * Compare declarations, ensuring that shorthand properties appear before
-   * their related properties and using their string representation otherwise.
-   */
-  @VisibleForTesting
-  static final Comparator<CssDeclarationNode> DECLARATION_COMPARATOR =
-      new Comparator<CssDeclarationNode>() {
-    @Override
-    public int compare(CssDeclarationNode o1, CssDeclarationNode o2) {
-      Property property1 = o1.getPropertyName().getProperty();
-      Property property2 = o2.getPropertyName().getProperty();
-      if (property1.getShorthands().contains(property2.getName())) {
-        return 1;
-      } else if (property2.getShorthands().contains(property1.getName())) {
-        return -1;
-      } else {
-        return TO_STRING_COMPARATOR.compare(o1, o2);
-      }
+    PartitionGroup(List<CssDeclarationNode> declarations) {
+      this.declarations = declarations;
     }
-  };
+  }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Test for ConcurrentMinimalSubstitutionMap.
+ */
+@RunWith(JUnit4.class)
+public class ConcurrentMinimalSubstitutionMapTest {
+
+  private static final char[] START_CHARS = new char[] { 'a' };
+
+  private static final char[] CHARS = new char[] { '1', '2' };
+
+  @Test
+  public void testGetMatchesMinimalSubstitutionMap() {
+    ConcurrentMinimalSubstitutionMap map = new ConcurrentMinimalSubstitutionMap(
+        START_CHARS, CHARS, ImmutableSet.of("a"));
+
+    // Same values as MinimalSubstitutionMapTest.testGetWithBlacklist().
+    assertThat(map.get("foo")).isEqualTo("a2");
+    assertThat(map.get("bar")).isEqualTo("a1");
+    assertThat(map.get("foo")).isEqualTo("a2");
+  }
+
+  @Test
+  public void testInitializeWithMappings() {
+    ConcurrentMinimalSubstitutionMap map = new ConcurrentMinimalSubstitutionMap(
+        START_CHARS, CHARS, ImmutableSet.<String>of());
+    map.initializeWithMappings(ImmutableMap.of("foo", "a"));
+
+    assertThat(map.get("foo")).isEqualTo("a");
+    assertThat(map.get("bar")).isEqualTo("a2");
+  }
+
+  @Test
+  public void testConcurrentGetReturnsUniqueValues() throws Exception {
+    final ConcurrentMinimalSubstitutionMap map =
+        new ConcurrentMinimalSubstitutionMap(ImmutableSet.of("b", "c"));
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<List<String>>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        futures.add(executor.submit(new Callable<List<String>>() {
+          @Override
+          public List<String> call() {
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+              values.add(map.get("class" + i));
+            }
+            return values;
+          }
+        }));
+      }
+
+      List<String> expected = futures.get(0).get();
+      for (Future<List<String>> future : futures) {
+        assertThat(future.get()).isEqualTo(expected);
+      }
+      Set<String> unique = Sets.newHashSet(expected);
+      assertThat(unique).hasSize(1000);
+      assertThat(unique).containsNoneOf("b", "c");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ConcurrentRecordingSubstitutionMapTest {
+
+  private static final ImmutableSet<String> OUTPUT_BLACKLIST = ImmutableSet.of("c", "e", "i");
+
+  private static final ImmutableList<ImmutableList<String>> UNITS = ImmutableList.of(
+      ImmutableList.of("apple", "banana", "figgy-goop"),
+      ImmutableList.of("banana", "durian", "honeydew-apple"),
+      ImmutableList.of("jalapeno", "apple", "kiwi"),
+      ImmutableList.of("lime-durian", "mango"));
+
+  @Test
+  public void testGetMatchesRecordingSubstitutionMap() {
+    RecordingSubstitutionMap sequential = new RecordingSubstitutionMap.Builder()
+        .withSubstitutionMap(new PrefixingSubstitutionMap(
+            new SplittingSubstitutionMap(new MinimalSubstitutionMap(OUTPUT_BLACKLIST)), "x-"))
+        .build();
+    ConcurrentRecordingSubstitutionMap concurrent = new ConcurrentRecordingSubstitutionMap.Builder()
+        .withSubstitutionMap(new PrefixingSubstitutionMap(new SplittingSubstitutionMap(
+            new ConcurrentMinimalSubstitutionMap(OUTPUT_BLACKLIST)), "x-"))
+        .build();
+
+    for (List<String> unit : UNITS) {
+      for (String key : unit) {
+        assertThat(concurrent.get(key)).isEqualTo(sequential.get(key));
+      }
+    }
+    assertThat(concurrent.getMappings()).containsExactlyEntriesIn(sequential.getMappings())
+        .inOrder();
+  }
+
+  @Test
+  public void testCompilationUnitsAreRenamedInOrder() throws Exception {
+    RecordingSubstitutionMap sequential = new RecordingSubstitutionMap.Builder()
+        .withSubstitutionMap(new MinimalSubstitutionMap(OUTPUT_BLACKLIST))
+        .build();
+    List<String> expected = new ArrayList<>();
+    for (List<String> unit : UNITS) {
+      for (String key : unit) {
+        expected.add(sequential.get(key));
+      }
+    }
+
+    final ConcurrentRecordingSubstitutionMap concurrent =
+        new ConcurrentRecordingSubstitutionMap.Builder()
+            .withSubstitutionMap(new ConcurrentMinimalSubstitutionMap(OUTPUT_BLACKLIST))
+            .build();
+    // Fewer threads than units, so that a unit can only start once an
+    // earlier one has completed.
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      List<Future<List<String>>> futures = new ArrayList<>();
+      for (int i = 0; i < UNITS.size(); i++) {
+        final int index = i;
+        final SubstitutionMap view = concurrent.forCompilationUnit(index);
+        futures.add(executor.submit(new Callable<List<String>>() {
+          @Override
+          public List<String> call() throws InterruptedException {
+            // Makes later units try to rename their classes first.
+            Thread.sleep(10 * (UNITS.size() - index));
+            List<String> values = new ArrayList<>();
+            for (String key : UNITS.get(index)) {
+              values.add(view.get(key));
+            }
+            concurrent.completeCompilationUnit(index);
+            return values;
+          }
+        }));
+      }
+
+      List<String> actual = new ArrayList<>();
+      for (Future<List<String>> future : futures) {
+        actual.addAll(future.get());
+      }
+      assertThat(actual).isEqualTo(expected);
+      assertThat(concurrent.getMappings()).containsExactlyEntriesIn(sequential.getMappings())
+          .inOrder();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCompilationUnitViewsMustBeCreatedInOrder() {
+    ConcurrentRecordingSubstitutionMap map = new ConcurrentRecordingSubstitutionMap.Builder()
+        .build();
+    map.forCompilationUnit(1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCompilationUnitsMustCompleteInOrder() {
+    ConcurrentRecordingSubstitutionMap map = new ConcurrentRecordingSubstitutionMap.Builder()
+        .build();
+    map.completeCompilationUnit(1);
+  }
+}
@@ -17,8 +17,10 @@
 package com.google.common.css;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import java.util.List;
@@ -201,4 +203,29 @@ public class JobDescriptionBuilderTest {
     job = builder.getJobDescription();
     assertThat(job.allowUndefinedConstants).isTrue();
   }
+
+  @Test
+  public void testFileToChunk() {
+    builder.addInput(new SourceCode("a.css", "")).addInput(new SourceCode("b.css", ""))
+        .addInput(new SourceCode("c.css", ""))
+        .setFileToChunk(ImmutableMap.of("a.css", "A", "b.css", "B", "c.css", "A"));
+    job = builder.getJobDescription();
+    assertThat(job.getChunks()).containsExactly("A", "B").inOrder();
+
+    builder = job.toBuilder();
+    job = builder.getJobDescription();
+    assertThat(job.fileToChunk).containsExactly("a.css", "A", "b.css", "B", "c.css", "A");
+  }
+
+  @Test
+  public void testEveryInputMustHaveAChunk() {
+    builder.addInput(new SourceCode("a.css", "")).addInput(new SourceCode("b.css", ""))
+        .setFileToChunk(ImmutableMap.of("a.css", "A"));
+    try {
+      builder.getJobDescription();
+      fail("b.css does not have a chunk");
+    } catch (IllegalArgumentException expected) {
+      // OK
+    }
+  }
 }
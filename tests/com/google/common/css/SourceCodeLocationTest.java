@@ -64,6 +64,57 @@ public class SourceCodeLocationTest {
     }
   }
 
+  @Test
+  public void testLineAndColumnFollowFromCharacterIndices() {
+    SourceCode sourceCode = new SourceCode("testfile", "abc\ndefg\n\nh");
+    // A token that ends with a new line ends on the line of the new line.
+    SourceCodeLocation l = new SourceCodeLocation(sourceCode, 4, 2, 1, 9, 2, 6);
+    assertThat(l).hasSpan(2, 1, 2, 6);
+    assertThat(l).matches("defg\n");
+    assertThat(l.getBegin().getLineNumber()).isEqualTo(2);
+    assertThat(l.getEnd().getIndexInLine()).isEqualTo(6);
+
+    SourceCodeLocation last = new SourceCodeLocation(sourceCode, 10, 4, 1, 11, 4, 2);
+    assertThat(last).hasSpan(4, 1, 4, 2);
+    assertThat(last).matches("h");
+    assertThat(SourceCodeLocation.merge(l, last)).hasSpan(2, 1, 4, 2);
+  }
+
+  @Test
+  public void testLineAndColumnThatDontFollowFromCharacterIndices() {
+    SourceCode sourceCode = new SourceCode("testfile", "abc\ndefg");
+    SourceCodeLocation l = new SourceCodeLocation(sourceCode, 4, 1, 5, 6, 7, 1);
+    assertThat(l).hasSpan(1, 5, 7, 1);
+    SourceCodeLocation derived = new SourceCodeLocation(sourceCode, 4, 2, 1, 6, 2, 3);
+    assertThat(derived).hasSpan(2, 1, 2, 3);
+    assertThat(l.compareTo(derived)).isEqualTo(0);
+
+    SourceCodeLocation noContents =
+        new SourceCodeLocation(new SourceCode("testfile", null), 4, 2, 1, 6, 2, 3);
+    assertThat(noContents).hasSpan(2, 1, 2, 3);
+  }
+
+  @Test
+  public void testEmptyLocationAtStartOfSourceWithoutContents() {
+    SourceCodeLocation l =
+        new SourceCodeLocation(new SourceCode("testfile", null), 0, 1, 1, 0, 1, 1);
+    assertThat(l).hasSpan(1, 1, 1, 1);
+    assertThat(l.getEndLineNumber()).isEqualTo(1);
+    assertThat(l.getEndIndexInLine()).isEqualTo(1);
+  }
+
+  @Test
+  public void testEqualityOfComputedAndGivenPoints() {
+    SourceCode sourceCode = new SourceCode("testfile", "abc\ndefg");
+    SourceCodeLocation l1 = new SourceCodeLocation(sourceCode, 1, 1, 2, 5, 2, 2);
+    SourceCodeLocation l2 = new SourceCodeLocation(sourceCode, 1, 1, 2, 5, 2, 2);
+    SourceCodeLocation l3 = new SourceCodeLocation(sourceCode, l1.getBegin(), l1.getEnd());
+    assertThat(l1.equals(l2)).isTrue();
+    assertThat(l1.equals(l3)).isTrue();
+    assertThat(l2.equals(l3)).isTrue();
+    assertThat(l3.hashCode()).isEqualTo(l2.hashCode());
+  }
+
   @Test
   public void testComparisonOfEqualLocations1() {
     SourceCode sourceCode = new SourceCode("testfile", "abcdef");
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link SourceCode}.
+ */
+@RunWith(JUnit4.class)
+public class SourceCodeTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testGivenContents() {
+    SourceCode sourceCode = new SourceCode("a.css", "a {}\nb {}");
+    assertThat(sourceCode.isReadLazily()).isFalse();
+    assertThat(sourceCode.getFileContentsLength()).isEqualTo(9);
+    assertThat(sourceCode.getLineStarts()).asList().containsExactly(0, 5).inOrder();
+
+    sourceCode.releaseFileContents();
+    assertThat(sourceCode.getFileContents()).isEqualTo("a {}\nb {}");
+  }
+
+  @Test
+  public void testContentsReadWhenFirstNeeded() throws IOException {
+    File file = write("a.css", "a { content: 'é' }");
+    SourceCode sourceCode = new SourceCode("a.css", file, UTF_8);
+    assertThat(sourceCode.isReadLazily()).isTrue();
+    assertThat(sourceCode.getFileName()).isEqualTo("a.css");
+    // The size of the file until it is read.
+    assertThat(sourceCode.getFileContentsLength()).isEqualTo(19);
+
+    Files.write("b {}\né {}", file, UTF_8);
+    assertThat(sourceCode.getFileContents()).isEqualTo("b {}\né {}");
+    assertThat(sourceCode.getFileContentsLength()).isEqualTo(9);
+  }
+
+  @Test
+  public void testReleasedContentsAreReadAgain() throws IOException {
+    File file = write("a.css", "a {}\nb {}\n");
+    SourceCode sourceCode = new SourceCode("a.css", file, UTF_8);
+    assertThat(sourceCode.getFileContents()).isEqualTo("a {}\nb {}\n");
+    Files.write("c {}", file, UTF_8);
+    assertThat(sourceCode.getFileContents()).isEqualTo("a {}\nb {}\n");
+
+    sourceCode.releaseFileContents();
+    assertThat(sourceCode.getLineStarts()).asList().containsExactly(0, 5, 10).inOrder();
+    assertThat(sourceCode.getFileContents()).isEqualTo("c {}");
+    // The line starts were kept.
+    assertThat(sourceCode.getLineStarts()).asList().containsExactly(0, 5, 10).inOrder();
+  }
+
+  @Test
+  public void testOnlyUtf8FilesAreMapped() throws IOException {
+    File file = write("a.css", "a {}");
+    assertThat(new SourceCode("a.css", file, UTF_8).mapFileContents()).isNotNull();
+    assertThat(new SourceCode("a.css", file, ISO_8859_1).mapFileContents()).isNull();
+    assertThat(new SourceCode("a.css", "a {}").mapFileContents()).isNull();
+
+    SourceCode sourceCode = new SourceCode("a.css", file, UTF_8);
+    sourceCode.getFileContents();
+    // Contents that were already read are parsed as they are.
+    assertThat(sourceCode.mapFileContents()).isNull();
+  }
+
+  @Test
+  public void testParserReadsMappedFiles() throws Exception {
+    File fileA = write("a.css", "a {}\n\nb {}");
+    SourceCode a = new SourceCode("a.css", fileA, UTF_8);
+    SourceCode b = new SourceCode("b.css", write("b.css", "c { content: 'é' }\n d {}"), UTF_8);
+    SourceCode c = new SourceCode("c.css", write("c.css", ""), UTF_8);
+    SourceCode d = new SourceCode("d.css", write("d.css", "e {}\n f {}"), ISO_8859_1);
+    CssTree tree = new GssParser(ImmutableList.of(a, b, c, d)).parse();
+    Files.write("x {}", fileA, UTF_8);
+
+    ImmutableList.Builder<String> nodes = ImmutableList.builder();
+    for (CssNode node : tree.getRoot().getBody().childIterable()) {
+      SourceCodeLocation location = node.getSourceCodeLocation();
+      nodes.add(location.getSourceCode().getFileName() + ":" + location.getLineNumber()
+          + ":" + location.getIndexInLine() + " " + node);
+    }
+    // The lines of the nodes are known without the contents.
+    assertThat(nodes.build())
+        .containsExactly("a.css:1:1 [a]{[]}", "a.css:3:1 [b]{[]}",
+            "b.css:1:1 [c]{[content:['\\e9']]}", "b.css:2:2 [d]{[]}", "d.css:1:1 [e]{[]}",
+            "d.css:2:2 [f]{[]}")
+        .inOrder();
+    assertThat(a.getFileContents()).isEqualTo("x {}");
+    assertThat(b.getLineStarts()).asList().containsExactly(0, 19).inOrder();
+    assertThat(c.getLineStarts()).asList().containsExactly(0);
+    // The file in another encoding was read as a string.
+    d.releaseFileContents();
+    assertThat(d.getLineStarts()).asList().containsExactly(0, 5).inOrder();
+  }
+
+  private File write(String fileName, String contents) throws IOException {
+    File file = folder.newFile(fileName);
+    Files.write(contents, file, UTF_8);
+    return file;
+  }
+}
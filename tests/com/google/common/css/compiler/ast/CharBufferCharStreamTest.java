@@ -0,0 +1,155 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.ast;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.css.SourceCode;
+import com.google.common.css.SourceCodeLocation;
+import com.google.common.css.compiler.passes.UniformVisitor;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for the {@link CharStream} implementations that read buffers, which
+ * must behave as a {@link StringCharStream} of the same input.
+ */
+@RunWith(JUnit4.class)
+public class CharBufferCharStreamTest {
+
+  private static final String INPUT = "01234\n6789\n\nbcd\n";
+
+  @Test
+  public void testCharBuffer() throws Exception {
+    CharBuffer buffer = CharBuffer.wrap("xx" + INPUT + "yy");
+    buffer.position(2).limit(2 + INPUT.length());
+    CharBufferCharStream s = new CharBufferCharStream(buffer);
+    assertSameAsStringCharStream(s, INPUT);
+    // The buffer was not moved.
+    assertThat(buffer.position()).isEqualTo(2);
+
+    s.reset(CharBuffer.wrap("a\nb"));
+    assertSameAsStringCharStream(s, "a\nb");
+  }
+
+  @Test
+  public void testAsciiBytesAreNotDecoded() throws Exception {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(INPUT.length() + 1);
+    buffer.put((byte) 'x').put(INPUT.getBytes(UTF_8)).position(1);
+    AbstractCharStream s = AbstractCharStream.forUtf8(buffer);
+    assertThat(s).isInstanceOf(AsciiCharStream.class);
+    assertSameAsStringCharStream(s, INPUT);
+    assertThat(buffer.position()).isEqualTo(1);
+  }
+
+  @Test
+  public void testNonAsciiBytesAreDecoded() throws Exception {
+    String input = "a { content: 'é中' }\n/* 😀 */ b {}";
+    AbstractCharStream s = AbstractCharStream.forUtf8(ByteBuffer.wrap(input.getBytes(UTF_8)));
+    assertThat(s).isInstanceOf(CharBufferCharStream.class);
+    assertSameAsStringCharStream(s, input);
+  }
+
+  @Test
+  public void testIsAscii() {
+    byte[] bytes = "0123456789abcdefghij".getBytes(UTF_8);
+    assertThat(AsciiCharStream.isAscii(ByteBuffer.wrap(bytes))).isTrue();
+    for (int i = 0; i < bytes.length; i++) {
+      byte[] nonAscii = bytes.clone();
+      nonAscii[i] = (byte) 0xc3;
+      assertThat(AsciiCharStream.isAscii(ByteBuffer.wrap(nonAscii))).isFalse();
+      // Only the bytes between the position and the limit are checked.
+      assertThat(AsciiCharStream.isAscii(ByteBuffer.wrap(nonAscii, i + 1, bytes.length - i - 1)))
+          .isTrue();
+    }
+  }
+
+  @Test
+  public void testParserReadsBuffer() throws Exception {
+    String input = "@def A 1px;\n.a { margin: A; content: 'x\\'y' }\n"
+        + "/* @preserve c */\n@media print {\n  .b { color: red }\n}\n";
+    SourceCode sourceCode = new SourceCode("a.css", input);
+    CssTree expectedTree = new GssParser(sourceCode).parse();
+
+    CssBlockNode globalBlock = new CssBlockNode(false);
+    new GssParserCC(AbstractCharStream.forUtf8(ByteBuffer.wrap(input.getBytes(UTF_8))),
+        globalBlock, sourceCode).parse();
+    CssTree tree = new CssTree(sourceCode, new CssRootNode(globalBlock));
+
+    assertThat(describe(tree)).isEqualTo(describe(expectedTree));
+  }
+
+  /**
+   * Checks that reading the whole stream, backing up and taking the images
+   * of tokens gives the same characters and locations as for a
+   * {@link StringCharStream} of the given input.
+   */
+  private static void assertSameAsStringCharStream(AbstractCharStream s, String input)
+      throws IOException {
+    assertThat(read(s)).containsExactlyElementsIn(read(new StringCharStream(input))).inOrder();
+  }
+
+  private static List<String> read(AbstractCharStream s) throws IOException {
+    List<String> steps = new ArrayList<>();
+    while (true) {
+      try {
+        s.BeginToken();
+        s.readChar();
+        s.readChar();
+      } catch (IOException e) {
+        break;
+      }
+      steps.add(s.getBeginLine() + ":" + s.getBeginColumn() + "-" + s.getEndLine() + ":"
+          + s.getEndColumn() + " " + s.getCharIndex() + " " + s.GetImage() + " "
+          + new String(s.GetSuffix(2)));
+      s.backup(2);
+      steps.add(s.getEndLine() + ":" + s.getEndColumn() + " " + s.getCharIndex());
+    }
+    for (int line = 1; line <= s.getEndLine(); line++) {
+      steps.add("line " + line + " at " + s.convertToCharacterIndex(line, 1));
+    }
+    return steps;
+  }
+
+  /** Returns the nodes of a tree with their locations. */
+  private static List<String> describe(CssTree tree) {
+    final ImmutableList.Builder<String> nodes = ImmutableList.builder();
+    tree.getVisitController().startVisit(UniformVisitor.Adapters.asVisitor(
+        new UniformVisitor() {
+          @Override
+          public void enter(CssNode node) {
+            SourceCodeLocation location = node.getSourceCodeLocation();
+            nodes.add(node.getClass().getSimpleName() + " " + node + " "
+                + (location == null ? "" : location.getBeginCharacterIndex() + "-"
+                    + location.getEndCharacterIndex() + " " + location.getLineNumber() + ":"
+                    + location.getIndexInLine()));
+          }
+
+          @Override
+          public void leave(CssNode node) {}
+        }));
+    return nodes.build();
+  }
+}
@@ -17,6 +17,7 @@
 package com.google.common.css.compiler.ast;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import java.util.List;
 import org.junit.Assert;
@@ -108,6 +109,23 @@ public class CssAbstractBlockNodeTest {
     }
   }
 
+  @Test
+  public void testRemoveChildren() {
+    CssNode a = new CssLiteralNode("a");
+    CssNode b = new CssLiteralNode("b");
+    CssNode c = new CssLiteralNode("c");
+    TestBlock testBlock = new TestBlock(validSuperclasses);
+    testBlock.addChildToBack(a);
+    testBlock.addChildToBack(b);
+    testBlock.addChildToBack(c);
+
+    testBlock.removeChildren(ImmutableSet.of(a, c, new CssLiteralNode("b")));
+    Assert.assertEquals(ImmutableList.of(b), testBlock.getChildren());
+    Assert.assertNull(a.getParent());
+    Assert.assertSame(testBlock, b.getParent());
+    Assert.assertNull(c.getParent());
+  }
+
   private class TestBlock extends CssAbstractBlockNode {
 
     public TestBlock(
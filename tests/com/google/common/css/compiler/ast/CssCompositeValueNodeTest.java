@@ -55,4 +55,28 @@ public class CssCompositeValueNodeTest {
     assertThat(clonedChild2.getClass()).isEqualTo(node.getValues().get(1).getClass());
     assertThat(clonedChild2.getValue()).isEqualTo("bar");
   }
+
+  @Test
+  public void testProxy() throws Exception {
+    CssFunctionNode function =
+        new CssFunctionNode(CssFunctionNode.Function.byName("rgb"), null);
+    CssCompositeValueNode node = new CssCompositeValueNode(
+        ImmutableList.<CssValueNode>of(new CssLiteralNode("foo"), function),
+        CssCompositeValueNode.Operator.COMMA, null);
+
+    CssCompositeValueNode proxy = node.createProxy();
+    assertThat(proxy).isNotSameAs(node);
+    assertThat(proxy.getValues()).isNotSameAs(node.getValues());
+    assertThat(proxy.getOperator()).isSameAs(node.getOperator());
+    assertThat(proxy.toString()).isEqualTo(node.toString());
+
+    CssValueNode copiedChild = proxy.getValues().get(0);
+    assertThat(copiedChild).isNotSameAs(node.getValues().get(0));
+    assertThat(copiedChild.getParent()).isSameAs(proxy);
+
+    CssFunctionNode proxiedChild = (CssFunctionNode) proxy.getValues().get(1);
+    assertThat(proxiedChild).isInstanceOf(CssFunctionNode.CssFunctionNodeProxy.class);
+    assertThat(proxiedChild.getArguments()).isSameAs(function.getArguments());
+    assertThat(proxiedChild.getParent()).isSameAs(proxy);
+  }
 }
@@ -110,4 +110,43 @@ public class CssDeclarationNodeTest extends AstUtilityTestCase {
     
     deepEquals(node1, node2);
   }
+
+  private static CssDeclarationNode createMarginDeclaration() {
+    CssPropertyValueNode propertyValue = new CssPropertyValueNode();
+    propertyValue.addChildToBack(new CssNumericNode("0", CssNumericNode.NO_UNITS));
+    propertyValue.addChildToBack(new CssNumericNode("1", "px"));
+    return new CssDeclarationNode(new CssPropertyNode("margin"), propertyValue, null);
+  }
+
+  @Test
+  public void testIsEquivalentTo() {
+    CssDeclarationNode node1 = createMarginDeclaration();
+    CssDeclarationNode node2 = createMarginDeclaration();
+    assertThat(node1.getFingerprint()).isEqualTo(node2.getFingerprint());
+    assertThat(node1.isEquivalentTo(node2)).isTrue();
+
+    node2.appendComment(new CssCommentNode("/* @alternate */", null));
+    assertThat(node1.isEquivalentTo(node2)).isFalse();
+  }
+
+  @Test
+  public void testFingerprintIsInvalidatedByDescendants() {
+    CssDeclarationBlockNode block1 = new CssDeclarationBlockNode();
+    block1.addChildToBack(createMarginDeclaration());
+    CssDeclarationBlockNode block2 = new CssDeclarationBlockNode();
+    CssDeclarationNode declaration = createMarginDeclaration();
+    block2.addChildToBack(declaration);
+    int fingerprint = block2.getFingerprint();
+    assertThat(block1.isEquivalentTo(block2)).isTrue();
+
+    CssNumericNode value = (CssNumericNode) declaration.getPropertyValue().getChildAt(1);
+    value.setNumericPart("2");
+    assertThat(block2.getFingerprint()).isNotEqualTo(fingerprint);
+    assertThat(block1.isEquivalentTo(block2)).isFalse();
+
+    value.setNumericPart("1");
+    assertThat(block2.getFingerprint()).isEqualTo(fingerprint);
+    declaration.setStarHack(true);
+    assertThat(block1.isEquivalentTo(block2)).isFalse();
+  }
 }
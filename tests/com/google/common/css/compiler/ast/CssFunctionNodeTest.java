@@ -69,4 +69,79 @@ public class CssFunctionNodeTest {
     assertThat(function.toString()).isEqualTo("rgb(test)");
     assertThat(function.getValue()).isEqualTo("rgb(test)");
   }
+
+  @Test
+  public void testProxySharesArgumentsUntilTheyAreSet() {
+    CssFunctionNode function = new CssFunctionNode(RGB, null);
+    function.getArguments().addChildToBack(new CssLiteralNode("test"));
+    function.setChunk("chunk");
+
+    CssFunctionNode proxy = function.createProxy();
+    assertThat(proxy).isInstanceOf(CssFunctionNode.CssFunctionNodeProxy.class);
+    assertThat(proxy.getArguments()).isSameAs(function.getArguments());
+    assertThat(proxy.getChunk()).isEqualTo("chunk");
+    assertThat(proxy.toString()).isEqualTo("rgb(test)");
+    assertThat(proxy.isEquivalentTo(function)).isTrue();
+    assertThat(function.isEquivalentTo(proxy)).isTrue();
+    assertThat(proxy.createProxy().getArguments()).isSameAs(function.getArguments());
+
+    CssFunctionNode copy = proxy.deepCopy();
+    assertThat(copy.getClass()).isEqualTo(CssFunctionNode.class);
+    assertThat(copy.getArguments()).isNotSameAs(function.getArguments());
+
+    CssFunctionArgumentsNode args = new CssFunctionArgumentsNode();
+    args.addChildToBack(new CssLiteralNode("other"));
+    proxy.setArguments(args);
+    assertThat(proxy.toString()).isEqualTo("rgb(other)");
+    assertThat(function.toString()).isEqualTo("rgb(test)");
+    assertThat(proxy.createProxy().getArguments()).isSameAs(args);
+  }
+
+  @Test
+  public void testMutatingVisitCopiesSharedArguments() {
+    CssFunctionNode function = new CssFunctionNode(RGB, null);
+    function.getArguments().addChildToBack(new CssLiteralNode("test"));
+    CssFunctionNode proxy = function.createProxy();
+    CssFunctionNode otherProxy = function.createProxy();
+    int fingerprint = otherProxy.getFingerprint();
+
+    renameLiterals(proxy, "proxy");
+    assertThat(proxy.toString()).isEqualTo("rgb(proxy)");
+    assertThat(proxy.getArguments().getParent()).isSameAs(proxy);
+    assertThat(function.toString()).isEqualTo("rgb(test)");
+    assertThat(otherProxy.getArguments()).isSameAs(function.getArguments());
+
+    renameLiterals(function, "function");
+    assertThat(function.toString()).isEqualTo("rgb(function)");
+    assertThat(proxy.toString()).isEqualTo("rgb(proxy)");
+    assertThat(otherProxy.toString()).isEqualTo("rgb(test)");
+    assertThat(otherProxy.getFingerprint()).isEqualTo(fingerprint);
+    assertThat(otherProxy.isEquivalentTo(function)).isFalse();
+  }
+
+  @Test
+  public void testReadOnlyVisitSharesArguments() {
+    CssFunctionNode function = new CssFunctionNode(RGB, null);
+    function.getArguments().addChildToBack(new CssLiteralNode("test"));
+    CssFunctionNode proxy = function.createProxy();
+    proxy.getVisitController().startVisit(new DefaultTreeVisitor());
+    assertThat(proxy.getArguments()).isSameAs(function.getArguments());
+  }
+
+  @Test
+  public void testCustomFunctionProxy() {
+    CssCustomFunctionNode function = new CssCustomFunctionNode("foo", null);
+    assertThat(function.createProxy())
+        .isInstanceOf(CssCustomFunctionNode.CssCustomFunctionNodeProxy.class);
+  }
+
+  private static void renameLiterals(CssFunctionNode function, final String name) {
+    new DefaultVisitController(function, true).startVisit(new DefaultTreeVisitor() {
+      @Override
+      public boolean enterArgumentNode(CssValueNode argument) {
+        argument.setValue(name);
+        return true;
+      }
+    });
+  }
 }
@@ -17,7 +17,9 @@
 package com.google.common.css.compiler.ast;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 
+import com.google.common.collect.ImmutableList;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -38,6 +40,32 @@ public class CssNodeTest {
     assertThat(node.getSourceCodeLocation()).isNull();
   }
 
+  @Test
+  public void testCommentsAreOnlyStoredWhenThereAreSome() {
+    CssLiteralNode node = new CssLiteralNode("");
+    CssLiteralNode other = new CssLiteralNode("");
+    assertThat(node.getComments()).isEmpty();
+    assertThat(node.getComments()).isSameAs(other.getComments());
+    assertThat(node.deepCopy().getComments()).isSameAs(other.getComments());
+    try {
+      node.getComments().add(new CssCommentNode("/* x */", null));
+      fail("The empty list of comments should be immutable");
+    } catch (UnsupportedOperationException expected) {
+      // Comments are added with appendComment.
+    }
+
+    CssCommentNode comment = new CssCommentNode("/* @noflip */", null);
+    node.appendComment(comment);
+    assertThat(node.getComments()).containsExactly(comment);
+    assertThat(comment.getParent()).isSameAs(node);
+    assertThat(node.hasComment("/* @noflip */")).isTrue();
+    assertThat(other.getComments()).isEmpty();
+
+    node.setComments(ImmutableList.<CssCommentNode>of());
+    assertThat(node.getComments()).isSameAs(other.getComments());
+    assertThat(comment.getParent()).isNull();
+  }
+
   @Test
   public void testBecomeParent() {
     CssPropertyValueNode parentNode = new CssPropertyValueNode();
@@ -53,6 +53,49 @@ public class CssSelectorNodeTest extends NewFunctionalTestBase {
         .isEqualTo(node.getRefiners().getChildAt(0).getComments());
   }
 
+  @Test
+  public void testIsEquivalentTo() throws Exception {
+    parseAndRun("a.b > c:nth-child(2n + 1) {}\n"
+        + "a.b>c:nth-child(2n+1) {}\n"
+        + "a.b c:nth-child(2n+1) {}\n"
+        + "a[href=x] {}\n"
+        + "a[href=y] {}\n"
+        + "a[href=x] {}\n");
+    CssSelectorNode child = getSelector(0);
+    CssSelectorNode sameChild = getSelector(1);
+    CssSelectorNode descendant = getSelector(2);
+    assertThat(child.isEquivalentTo(sameChild)).isTrue();
+    assertThat(child.getFingerprint()).isEqualTo(sameChild.getFingerprint());
+    assertThat(child.isEquivalentTo(descendant)).isFalse();
+
+    // The attributes are compared, although the string representations
+    // leave them out.
+    CssSelectorNode href = getSelector(3);
+    assertThat(href.toString()).isEqualTo(getSelector(4).toString());
+    assertThat(href.isEquivalentTo(getSelector(4))).isFalse();
+    assertThat(href.isEquivalentTo(getSelector(5))).isTrue();
+  }
+
+  @Test
+  public void testFingerprintIsInvalidatedByRefiners() throws Exception {
+    parseAndRun(".a.b {}\n.a {}\n");
+    CssSelectorNode selector = getSelector(0);
+    CssSelectorNode other = getSelector(1);
+    assertThat(selector.isEquivalentTo(other)).isFalse();
+
+    other.getRefiners().addChildToBack(new CssClassSelectorNode("b", null));
+    assertThat(selector.getFingerprint()).isEqualTo(other.getFingerprint());
+    assertThat(selector.isEquivalentTo(other)).isTrue();
+
+    other.setSelectorName("div");
+    assertThat(selector.isEquivalentTo(other)).isFalse();
+  }
+
+  private CssSelectorNode getSelector(int index) {
+    CssRulesetNode ruleset = (CssRulesetNode) tree.getRoot().getBody().getChildAt(index);
+    return ruleset.getSelectors().getChildAt(0);
+  }
+
   // Examples from http://www.w3.org/TR/CSS2/cascade.html#specificity
 
   @Test
@@ -1138,6 +1138,21 @@ public class GssParserTest {
     testValid(".class { width: var(--test, calc(100% - 20px)); }");
   }
 
+  @Test
+  public void testParserIsReusedAfterError() throws Exception {
+    try {
+      parse(".a { color: red; }\n.b {");
+      Assert.fail("The block is not closed");
+    } catch (GssParserException expected) {
+      assertThat(expected.getGssError().getLocation().getLineNumber()).isEqualTo(2);
+    }
+    CssTree tree = parse(".c {\n  color: blue;\n}");
+    CssNode ruleset = tree.getRoot().getBody().getChildAt(0);
+    assertThat(CompactPrinter.printCompactly(ruleset)).isEqualTo(".c{color:blue}");
+    assertThat(ruleset.getSourceCodeLocation().getLineNumber()).isEqualTo(1);
+    assertThat(ruleset.getSourceCodeLocation().getEndCharacterIndex()).isEqualTo(21);
+  }
+
   private CssTree parse(List<SourceCode> sources) throws GssParserException {
     GssParser parser = new GssParser(sources);
     return parser.parse();
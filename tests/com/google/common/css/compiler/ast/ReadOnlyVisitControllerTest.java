@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.ast;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Joiner;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.passes.CreateComponentNodes;
+import com.google.common.css.compiler.passes.CreateConditionalNodes;
+import com.google.common.css.compiler.passes.CreateConstantReferences;
+import com.google.common.css.compiler.passes.CreateDefinitionNodes;
+import com.google.common.css.compiler.passes.CreateForLoopNodes;
+import com.google.common.css.compiler.passes.CreateMixins;
+import com.google.common.css.compiler.passes.CreateStandardAtRuleNodes;
+import com.google.common.css.compiler.passes.CreateVendorPrefixedKeyframes;
+import com.google.common.css.compiler.passes.DummyErrorManager;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link ReadOnlyVisitController}, which must call visitors
+ * exactly as {@link DefaultVisitController} does.
+ */
+@RunWith(JUnit4.class)
+public class ReadOnlyVisitControllerTest {
+
+  private static final String STYLESHEET = Joiner.on('\n').join(
+      "@provide 'a.b';",
+      "@require 'c.d';",
+      "@def WIDTH 10px;",
+      "@def BORDER 1px solid rgb(1, 2, 3);",
+      "@def FONTS Arial, 'Times New Roman', serif;",
+      "@def SUM add(WIDTH, 2px);",
+      "@defmixin size(W, H) { width: W; height: H; }",
+      "@if (COND) { .a { color: red } } @elseif (OTHER) { .b { color: blue } }",
+      "@else { .c { color: green } }",
+      "@for $i from 1 to 3 { .d-$i { margin: $i; } }",
+      "@component X { @def C 1px; .e { padding: C } }",
+      "html > body .f:hover, #g ~ h + i, a[href^='x']::before, :not(.j) {",
+      "  @mixin size(1px, 2px);",
+      "  font: 12px/1.5 FONTS;",
+      "  border: BORDER;",
+      "  margin: -WIDTH calc(1px + 2%) !important;",
+      "  background: url(x.png) no-repeat, linear-gradient(top, #fff 0%, #000 100%);",
+      "  filter: progid:DXImageTransform.Microsoft.Alpha(Opacity=80);",
+      "}",
+      "li:nth-child(2n+1), li:lang(en) { color: #123 }",
+      "@media screen and (max-width: 100px), print {",
+      "  .k { top: 0 }",
+      "  @page :first { margin: 1in; }",
+      "}",
+      "@font-face { font-family: x; src: url(x.ttf); }",
+      "@page { size: auto; }",
+      "@keyframes spin { from { left: 0 } 50%, 75% { left: 1px } to { left: 2px } }",
+      "@-webkit-keyframes spin { 0% { top: 0 } }",
+      "@unknown a b, c { .l { color: red } }",
+      "@other x;");
+
+  @Test
+  public void testSameCallsOnParsedTree() throws Exception {
+    assertSameCalls(parse());
+  }
+
+  @Test
+  public void testSameCallsAfterCreatingNodes() throws Exception {
+    CssTree tree = parse();
+    DummyErrorManager errorManager = new DummyErrorManager();
+    new CreateStandardAtRuleNodes(tree.getMutatingVisitController(), errorManager).runPass();
+    new CreateMixins(tree.getMutatingVisitController(), errorManager).runPass();
+    new CreateDefinitionNodes(tree.getMutatingVisitController(), errorManager).runPass();
+    new CreateConstantReferences(tree.getMutatingVisitController()).runPass();
+    new CreateConditionalNodes(tree.getMutatingVisitController(), errorManager).runPass();
+    new CreateForLoopNodes(tree.getMutatingVisitController(), errorManager).runPass();
+    new CreateComponentNodes(tree.getMutatingVisitController(), errorManager).runPass();
+    new CreateVendorPrefixedKeyframes(tree.getMutatingVisitController(), errorManager)
+        .runPass();
+    assertSameCalls(tree);
+  }
+
+  @Test
+  public void testSameCallsOnSubtree() throws Exception {
+    CssTree tree = parse();
+    CssNode ruleset = null;
+    for (CssNode child : tree.getRoot().getBody().childIterable()) {
+      if (child instanceof CssRulesetNode) {
+        ruleset = child;
+        break;
+      }
+    }
+    assertThat(ruleset).isNotNull();
+    assertThat(visit(new ReadOnlyVisitController(ruleset), Entering.ALWAYS, -1))
+        .containsExactlyElementsIn(
+            visit(new DefaultVisitController(ruleset, false), Entering.ALWAYS, -1))
+        .inOrder();
+  }
+
+  @Test
+  public void testStopVisit() throws Exception {
+    CssTree tree = parse();
+    List<String> calls =
+        visit(new ReadOnlyVisitController(tree), Entering.ALWAYS, 20);
+    assertThat(calls).hasSize(20);
+    assertThat(calls)
+        .containsExactlyElementsIn(
+            visit(new DefaultVisitController(tree, false), Entering.ALWAYS, 20))
+        .inOrder();
+  }
+
+  private static CssTree parse() throws GssParserException {
+    return new GssParser(new SourceCode("test", STYLESHEET)).parse();
+  }
+
+  private static void assertSameCalls(CssTree tree) {
+    for (Entering entering : Entering.values()) {
+      List<String> expected =
+          visit(new DefaultVisitController(tree, false), entering, -1);
+      assertThat(visit(new ReadOnlyVisitController(tree), entering, -1))
+          .containsExactlyElementsIn(expected)
+          .inOrder();
+    }
+  }
+
+  /** What a recording visitor returns from its {@code enter} methods. */
+  private enum Entering {
+    ALWAYS, NEVER, ALTERNATELY
+  }
+
+  /**
+   * Visits with a visitor that records the methods called and the nodes they
+   * were called with, stopping the visit after the specified number of calls
+   * if it is not negative.
+   */
+  private static List<String> visit(final VisitController controller,
+      final Entering entering, final int stopAfter) {
+    final List<String> calls = new ArrayList<>();
+    InvocationHandler handler = new InvocationHandler() {
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) {
+        Object node = args == null ? null : args[0];
+        calls.add(method.getName() + " " + System.identityHashCode(node) + " " + node);
+        if (calls.size() == stopAfter) {
+          controller.stopVisit();
+        }
+        if (method.getReturnType() != boolean.class) {
+          return null;
+        }
+        switch (entering) {
+          case ALWAYS:
+            return true;
+          case NEVER:
+            return false;
+          default:
+            return calls.size() % 2 == 0;
+        }
+      }
+    };
+    CssTreeVisitor visitor = (CssTreeVisitor) Proxy.newProxyInstance(
+        CssTreeVisitor.class.getClassLoader(), new Class<?>[] {CssTreeVisitor.class}, handler);
+    controller.startVisit(visitor);
+    return calls;
+  }
+}
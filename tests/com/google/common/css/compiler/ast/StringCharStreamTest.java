@@ -131,6 +131,21 @@ public class StringCharStreamTest {
     checkCharacterIndex(s, 3, 3, 13);
   }
 
+  @Test
+  public void testReset() throws Exception {
+    StringCharStream s = new StringCharStream("a\nb\nc\nd\ne\nf\ng\nh\ni\nj\nk\nl\nm\nn\no\np\nq\nr");
+    checkCharacterIndex(s, 18, 1, 34);
+    readCharCheckLocation(s, 'a',  1, 1, 0);
+    readCharCheckLocation(s, '\n',  1, 2, 1);
+
+    s.reset("01234\n6789");
+    checkLocation(s, 1, 0, -1);
+    readCharCheckLocation(s, '0',  1, 1, 0);
+    checkCharacterIndex(s, 1, 5, 4);
+    checkCharacterIndex(s, 2, 1, 6);
+    checkCharacterIndex(s, 2, 4, 9);
+  }
+
   @Test
   public void testGetImageAndGetSuffix() throws Exception {
     StringCharStream s = new StringCharStream(
@@ -16,16 +16,27 @@
 package com.google.common.css.compiler.commandline;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.fail;
 
+import com.google.common.base.CharMatcher;
+import com.google.common.collect.ObjectArrays;
+import com.google.common.css.AbstractCommandLineCompiler;
 import com.google.common.css.ExitCodeHandler;
 import com.google.common.css.JobDescription;
 import com.google.common.css.JobDescriptionBuilder;
 import com.google.common.css.SourceCode;
 import com.google.common.css.compiler.ast.ErrorManager;
 import com.google.common.css.compiler.ast.testing.NewFunctionalTestBase;
+import com.google.common.css.compiler.passes.PassProfiler;
+import com.google.common.css.compiler.passes.TemplateCompactPrinter;
 import com.google.common.io.Files;
+import com.google.debugging.sourcemap.SourceMapConsumerV3;
+import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import java.io.File;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -41,6 +52,10 @@ public class ClosureCommandLineCompilerTest {
         }
       };
 
+  private static final CharMatcher TEMPLATE_MARKERS = CharMatcher.anyOf(new String(new char[] {
+      TemplateCompactPrinter.RULE_START, TemplateCompactPrinter.RULE_END,
+      TemplateCompactPrinter.DECLARATION_START, TemplateCompactPrinter.DECLARATION_END}));
+
   @Test
   public void testMixinPropagation() throws Exception {
     ErrorManager errorManager = new NewFunctionalTestBase.TestErrorManager(new String[0]);
@@ -74,6 +89,269 @@ public class ClosureCommandLineCompilerTest {
     assertThat(jobDescription.allowDefPropagation).isTrue();
   }
 
+  @Test
+  public void testNoAllowDefPropagation() throws Exception {
+    ClosureCommandLineCompiler.Flags flags = ClosureCommandLineCompiler.parseArgs(
+        new String[] {"--no-allow-def-propagation", "--num-threads", "4", "/dev/null"},
+        EXIT_CODE_HANDLER);
+    JobDescription jobDescription = flags.createJobDescription();
+    assertThat(jobDescription.allowDefPropagation).isFalse();
+    assertThat(jobDescription.numThreads).isEqualTo(4);
+  }
+
+  @Test
+  public void testNumThreadsMustBePositive() throws Exception {
+    final List<Integer> exitCodes = new ArrayList<>();
+    ClosureCommandLineCompiler.Flags flags = ClosureCommandLineCompiler.parseArgs(
+        new String[] {"--num-threads", "0", "/dev/null"},
+        new ExitCodeHandler() {
+          @Override
+          public void processExitCode(int exitCode) {
+            exitCodes.add(exitCode);
+          }
+        });
+    assertThat(flags).isNull();
+    assertThat(exitCodes).containsExactly(AbstractCommandLineCompiler.ERROR_MESSAGE_EXIT_CODE);
+  }
+
+  @Test
+  public void testParallelCompilationFromCommandLine() throws Exception {
+    File dir = Files.createTempDir();
+    List<String> inputs = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      File input = new File(dir, "input" + i + ".gss");
+      Files.write("@def COLOR #ff0000; .foo-" + i + " .bar { color: COLOR; margin: 0px 1px }",
+          input, UTF_8);
+      inputs.add(input.getPath());
+    }
+
+    File sequentialOutput = new File(dir, "sequential.css");
+    File sequentialRenameFile = new File(dir, "sequential.json");
+    File parallelOutput = new File(dir, "parallel.css");
+    File parallelRenameFile = new File(dir, "parallel.json");
+    ClosureCommandLineCompiler.main(ObjectArrays.concat(
+        new String[] {"--no-allow-def-propagation", "--rename", "CLOSURE",
+            "--output-file", sequentialOutput.getPath(),
+            "--output-renaming-map", sequentialRenameFile.getPath()},
+        inputs.toArray(new String[0]), String.class));
+    ClosureCommandLineCompiler.main(ObjectArrays.concat(
+        new String[] {"--no-allow-def-propagation", "--num-threads", "4", "--rename", "CLOSURE",
+            "--output-file", parallelOutput.getPath(),
+            "--output-renaming-map", parallelRenameFile.getPath()},
+        inputs.toArray(new String[0]), String.class));
+
+    assertThat(Files.toString(sequentialOutput, UTF_8)).contains(".a-b .c{color:#f00");
+    assertThat(Files.toString(parallelOutput, UTF_8))
+        .isEqualTo(Files.toString(sequentialOutput, UTF_8));
+    assertThat(Files.toString(parallelRenameFile, UTF_8))
+        .isEqualTo(Files.toString(sequentialRenameFile, UTF_8));
+  }
+
+  @Test
+  public void testChunkTemplatesFromCommandLine() throws Exception {
+    File dir = Files.createTempDir();
+    File a = new File(dir, "a.gss");
+    File b = new File(dir, "b.gss");
+    File c = new File(dir, "c.gss");
+    Files.write("@def COLOR #ff0000; .x { color: COLOR } .y { top: 0 } .x { color: blue }",
+        a, UTF_8);
+    Files.write(".x { color: green } @media print { .y { top: 1px } }", b, UTF_8);
+    Files.write(".y { top: 2px } .y { left: 0 }", c, UTF_8);
+    String[] chunks = {
+        "--chunk", "A:" + a.getPath() + "," + c.getPath(), "--chunk", "B:" + b.getPath()};
+    String[] inputs = {a.getPath(), b.getPath(), c.getPath()};
+
+    File sequentialDir = new File(dir, "sequential");
+    File parallelDir = new File(dir, "parallel");
+    File separateDir = new File(dir, "separate");
+    sequentialDir.mkdir();
+    parallelDir.mkdir();
+    separateDir.mkdir();
+    ClosureCommandLineCompiler.main(ObjectArrays.concat(ObjectArrays.concat(chunks,
+        new String[] {"--output-file", new File(dir, "sequential.css").getPath(),
+            "--chunk-template-dir", sequentialDir.getPath()}, String.class),
+        inputs, String.class));
+    ClosureCommandLineCompiler.main(ObjectArrays.concat(ObjectArrays.concat(chunks,
+        new String[] {"--num-threads", "2",
+            "--output-file", new File(dir, "parallel.css").getPath(),
+            "--chunk-template-dir", parallelDir.getPath()}, String.class),
+        inputs, String.class));
+    ClosureCommandLineCompiler.main(ObjectArrays.concat(ObjectArrays.concat(chunks,
+        new String[] {"--no-allow-def-propagation", "--num-threads", "2",
+            "--output-file", new File(dir, "separate.css").getPath(),
+            "--chunk-template-dir", separateDir.getPath()}, String.class),
+        new String[] {b.getPath(), c.getPath()}, String.class));
+
+    // The rulesets of a chunk are only overridden by rulesets of the same
+    // chunk.
+    String templateA = Files.toString(new File(sequentialDir, "A.tmpl"), UTF_8);
+    String templateB = Files.toString(new File(sequentialDir, "B.tmpl"), UTF_8);
+    assertThat(TEMPLATE_MARKERS.removeFrom(templateA))
+        .isEqualTo(".x{color:blue}.y{top:2px;left:0}");
+    assertThat(TEMPLATE_MARKERS.removeFrom(templateB))
+        .isEqualTo(".x{color:green}@media print{.y{top:1px}}");
+    assertThat(Files.toString(new File(dir, "sequential.css"), UTF_8))
+        .isEqualTo(".x{color:blue}.x{color:green}@media print{.y{top:1px}}.y{top:2px;left:0}");
+    assertThat(Files.toString(new File(parallelDir, "A.tmpl"), UTF_8)).isEqualTo(templateA);
+    assertThat(Files.toString(new File(parallelDir, "B.tmpl"), UTF_8)).isEqualTo(templateB);
+    assertThat(Files.toString(new File(dir, "parallel.css"), UTF_8))
+        .isEqualTo(Files.toString(new File(dir, "sequential.css"), UTF_8));
+    // Each input compiled on its own is only printed in its chunk.
+    assertThat(TEMPLATE_MARKERS.removeFrom(Files.toString(new File(separateDir, "A.tmpl"), UTF_8)))
+        .isEqualTo(".y{top:2px;left:0}");
+    assertThat(Files.toString(new File(separateDir, "B.tmpl"), UTF_8)).isEqualTo(templateB);
+  }
+
+  @Test
+  public void testEveryInputMustBeInOneChunk() throws Exception {
+    final List<Integer> exitCodes = new ArrayList<>();
+    ExitCodeHandler exitCodeHandler = new ExitCodeHandler() {
+      @Override
+      public void processExitCode(int exitCode) {
+        exitCodes.add(exitCode);
+      }
+    };
+    assertThat(ClosureCommandLineCompiler.parseArgs(
+        new String[] {"--chunk", "A:a.gss", "a.gss", "b.gss"}, exitCodeHandler)).isNull();
+    assertThat(ClosureCommandLineCompiler.parseArgs(
+        new String[] {"--chunk", "A:a.gss", "--chunk", "B:a.gss", "a.gss"}, exitCodeHandler))
+        .isNull();
+    assertThat(ClosureCommandLineCompiler.parseArgs(
+        new String[] {"--chunk", "a.gss", "a.gss"}, exitCodeHandler)).isNull();
+    assertThat(exitCodes).containsExactly(AbstractCommandLineCompiler.ERROR_MESSAGE_EXIT_CODE,
+        AbstractCommandLineCompiler.ERROR_MESSAGE_EXIT_CODE,
+        AbstractCommandLineCompiler.ERROR_MESSAGE_EXIT_CODE);
+  }
+
+  @Test
+  public void testProfilePassesFlags() throws Exception {
+    ClosureCommandLineCompiler.Flags flags = ClosureCommandLineCompiler.parseArgs(
+        new String[] {
+            "--profile-passes", "profile.json", "--profile-passes-format", "CHROME_TRACE",
+            "/dev/null"},
+        EXIT_CODE_HANDLER);
+    ClosureCommandLineCompiler.OutputInfo outputInfo = flags.createOutputInfo();
+    assertThat(outputInfo.profileFile).isEqualTo(new File("profile.json"));
+    assertThat(outputInfo.profileFormat).isEqualTo(PassProfiler.Format.CHROME_TRACE);
+  }
+
+  @Test
+  public void testParallelCompilationMatchesSequentialCompilation() throws Exception {
+    JobDescriptionBuilder builder =
+        new JobDescriptionBuilder()
+            .setAllowDefPropagation(false)
+            .setSimplifyCss(true)
+            .setEliminateDeadStyles(true)
+            .setCssSubstitutionMapProvider(
+                RenamingType.CLOSURE.getCssSubstitutionMapProvider())
+            .setCreateSourceMap(true);
+    for (int i = 0; i < 20; i++) {
+      builder.addInput(new SourceCode("input" + i + ".gss",
+          "@def COLOR #ff0000; .foo-" + i + " .bar { color: COLOR; margin: 0px 1px 0px 1px }"
+          + " .baz-" + (i % 3) + " { padding: 0px }"));
+    }
+    JobDescription sequentialJob = builder.getJobDescription();
+    JobDescription parallelJob = sequentialJob.toBuilder().setNumThreads(4).getJobDescription();
+
+    File sequentialDir = Files.createTempDir();
+    File sequentialRenameFile = new File(sequentialDir, "renaming.json");
+    File sequentialSourceMapFile = new File(sequentialDir, "sourceMap");
+    File parallelDir = Files.createTempDir();
+    File parallelRenameFile = new File(parallelDir, "renaming.json");
+    File parallelSourceMapFile = new File(parallelDir, "sourceMap");
+
+    String sequentialOutput =
+        new ClosureCommandLineCompiler(
+                sequentialJob,
+                EXIT_CODE_HANDLER,
+                new NewFunctionalTestBase.TestErrorManager(new String[0]))
+            .execute(sequentialRenameFile, sequentialSourceMapFile);
+    String parallelOutput =
+        new ClosureCommandLineCompiler(
+                parallelJob,
+                EXIT_CODE_HANDLER,
+                new NewFunctionalTestBase.TestErrorManager(new String[0]))
+            .execute(parallelRenameFile, parallelSourceMapFile);
+
+    assertThat(parallelOutput).isEqualTo(sequentialOutput);
+    assertThat(Files.toString(parallelRenameFile, UTF_8))
+        .isEqualTo(Files.toString(sequentialRenameFile, UTF_8));
+    assertThat(Files.toString(parallelSourceMapFile, UTF_8))
+        .isEqualTo(Files.toString(sequentialSourceMapFile, UTF_8));
+  }
+
+  @Test
+  public void testSourceMapOfInputsCompiledOnTheirOwn() throws Exception {
+    for (int numThreads : new int[] {1, 2}) {
+      JobDescription job =
+          new JobDescriptionBuilder()
+              .addInput(new SourceCode("a.gss", ".a { color: red }"))
+              .addInput(new SourceCode("b.gss", ".b { color: blue }"))
+              .setAllowDefPropagation(false)
+              .setNumThreads(numThreads)
+              .setCopyrightNotice("/* Copyright */\n")
+              .setCreateSourceMap(true)
+              .getJobDescription();
+
+      File sourceMapFile = new File(Files.createTempDir(), "sourceMap");
+      String output =
+          new ClosureCommandLineCompiler(
+                  job, EXIT_CODE_HANDLER, new NewFunctionalTestBase.TestErrorManager(new String[0]))
+              .execute(null /* renameFile */, sourceMapFile);
+      assertThat(output).isEqualTo("/* Copyright */\n.a{color:red}.b{color:blue}");
+
+      SourceMapConsumerV3 sourceMap = new SourceMapConsumerV3();
+      sourceMap.parse(Files.toString(sourceMapFile, UTF_8));
+      // Lines and columns start at 1. The second input starts at column 14.
+      OriginalMapping a = sourceMap.getMappingForLine(2, 1);
+      assertThat(a.getOriginalFile()).isEqualTo("a.gss");
+      assertThat(a.getLineNumber()).isEqualTo(1);
+      OriginalMapping b = sourceMap.getMappingForLine(2, 14);
+      assertThat(b.getOriginalFile()).isEqualTo("b.gss");
+      assertThat(b.getLineNumber()).isEqualTo(1);
+      assertThat(sourceMap.getMappingForLine(2, 18).getOriginalFile()).isEqualTo("b.gss");
+      assertThat(sourceMap.getMappingForLine(1, 1)).isNull();
+    }
+  }
+
+  @Test
+  public void testStreamedOutputMatchesOutput() throws Exception {
+    StringBuilder large = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      large.append(".foo-").append(i).append(" { color: #ff0000; margin: 0px 1px }\n");
+    }
+    for (JobDescription.OutputFormat outputFormat : JobDescription.OutputFormat.values()) {
+      JobDescription job =
+          new JobDescriptionBuilder()
+              .addInput(new SourceCode("large.gss", large.toString()))
+              .addInput(new SourceCode("small.gss", ".bar { padding: 0px }"))
+              .setAllowDefPropagation(false)
+              .setCopyrightNotice("/* Copyright */\n")
+              .setOutputFormat(outputFormat)
+              .setCreateSourceMap(true)
+              .getJobDescription();
+
+      File dir = Files.createTempDir();
+      File sourceMapFile = new File(dir, "sourceMap");
+      File streamedSourceMapFile = new File(dir, "streamedSourceMap");
+      String output =
+          new ClosureCommandLineCompiler(
+                  job, EXIT_CODE_HANDLER, new NewFunctionalTestBase.TestErrorManager(new String[0]))
+              .execute(null /* renameFile */, sourceMapFile);
+      StringWriter streamedOutput = new StringWriter();
+      boolean completed =
+          new ClosureCommandLineCompiler(
+                  job, EXIT_CODE_HANDLER, new NewFunctionalTestBase.TestErrorManager(new String[0]))
+              .execute(streamedOutput, null /* renameFile */, streamedSourceMapFile);
+
+      assertThat(completed).isTrue();
+      assertThat(output.length()).isGreaterThan(50000);
+      assertThat(streamedOutput.toString()).isEqualTo(output);
+      assertThat(Files.toString(streamedSourceMapFile, UTF_8).replace("streamedSourceMap", ""))
+          .isEqualTo(Files.toString(sourceMapFile, UTF_8).replace("sourceMap", ""));
+    }
+  }
+
   @Test
 
   public void testEmptyImportBlocks() throws Exception {
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.commandline;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ObjectArrays;
+import com.google.common.css.AbstractCommandLineCompiler;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class CompilerDaemonTest {
+
+  private File dir;
+  private File defs;
+  private File main;
+
+  @Before
+  public void setUp() throws Exception {
+    dir = Files.createTempDir();
+    defs = new File(dir, "defs.gss");
+    main = new File(dir, "main.gss");
+    Files.asCharSink(defs, UTF_8).write(
+        "/* Definitions. */\n"
+        + "@def BG_COLOR #ff0000;\n"
+        + "@defmixin size(W, H) { width: W; height: H; }\n");
+    Files.asCharSink(main, UTF_8).write(
+        ".goog-button { background: BG_COLOR; @mixin size(10px, 0px); }\n"
+        + "@if (FOO) { .goog-menu { margin: 0px 1px 0px 1px } }\n"
+        + "@else { .goog-menu-item { color: #aabbcc } }\n");
+  }
+
+  private static CompilerDaemon.Request request(String... arguments) {
+    CompilerDaemon.Request request = new CompilerDaemon.Request();
+    request.arguments = ImmutableList.copyOf(arguments);
+    return request;
+  }
+
+  @Test
+  public void testResponsesMatchCommandLineCompiler() throws Exception {
+    File outputFile = new File(dir, "out.css");
+    File renameFile = new File(dir, "renaming.json");
+    File sourceMapFile = new File(dir, "out.css.map");
+    String[] arguments = {
+        "--rename", "CLOSURE",
+        "--output-file", outputFile.getPath(),
+        "--output-renaming-map", renameFile.getPath(),
+        "--output-source-map", sourceMapFile.getPath(),
+        defs.getPath(), main.getPath()};
+    ClosureCommandLineCompiler.main(arguments);
+    // The daemon writes the same files.
+    String output = Files.toString(outputFile, UTF_8);
+    String renamingMap = Files.toString(renameFile, UTF_8);
+    String sourceMap = Files.toString(sourceMapFile, UTF_8);
+
+    CompilerDaemon daemon = new CompilerDaemon();
+    CompilerDaemon.Response cold = daemon.handle(request(arguments));
+    CompilerDaemon.Response warm = daemon.handle(request(arguments));
+
+    for (CompilerDaemon.Response response : ImmutableList.of(cold, warm)) {
+      assertThat(response.exitCode).isEqualTo(AbstractCommandLineCompiler.SUCCESS_EXIT_CODE);
+      assertThat(response.output).isEqualTo(output);
+      assertThat(response.renamingMap).isEqualTo(renamingMap);
+      assertThat(response.sourceMap).isEqualTo(sourceMap);
+    }
+    assertThat(daemon.getCacheHitCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testOutputFilesAreWritten() throws Exception {
+    File outputFile = new File(dir, "out.css");
+    File renameFile = new File(dir, "renaming.json");
+    File sourceMapFile = new File(dir, "out.css.map");
+    File profileFile = new File(dir, "profile.json");
+    CompilerDaemon.Response response = new CompilerDaemon().handle(request(
+        "--rename", "CLOSURE",
+        "--output-file", outputFile.getPath(),
+        "--output-renaming-map", renameFile.getPath(),
+        "--output-source-map", sourceMapFile.getPath(),
+        "--profile-passes", profileFile.getPath(),
+        defs.getPath(), main.getPath()));
+
+    assertThat(response.exitCode).isEqualTo(AbstractCommandLineCompiler.SUCCESS_EXIT_CODE);
+    assertThat(Files.toString(outputFile, UTF_8)).isEqualTo(response.output);
+    assertThat(Files.toString(renameFile, UTF_8)).isEqualTo(response.renamingMap);
+    assertThat(Files.toString(sourceMapFile, UTF_8)).isEqualTo(response.sourceMap);
+    assertThat(response.profile).contains("\"name\": \"ReplaceConstantReferences\"");
+    assertThat(Files.toString(profileFile, UTF_8)).isEqualTo(response.profile);
+  }
+
+  @Test
+  public void testChunkTemplatesMatchCommandLineCompiler() throws Exception {
+    File commandLineDir = new File(dir, "command-line");
+    File daemonDir = new File(dir, "daemon");
+    commandLineDir.mkdir();
+    daemonDir.mkdir();
+    String[] chunks = {"--chunk", "defs:" + defs.getPath(), "--chunk", "main:" + main.getPath()};
+    ClosureCommandLineCompiler.main(ObjectArrays.concat(chunks, new String[] {
+        "--output-file", new File(dir, "out.css").getPath(),
+        "--chunk-template-dir", commandLineDir.getPath(),
+        defs.getPath(), main.getPath()}, String.class));
+
+    CompilerDaemon.Response response = new CompilerDaemon().handle(request(ObjectArrays.concat(
+        chunks, new String[] {
+            "--chunk-template-dir", daemonDir.getPath(), defs.getPath(), main.getPath()},
+        String.class)));
+
+    assertThat(response.exitCode).isEqualTo(AbstractCommandLineCompiler.SUCCESS_EXIT_CODE);
+    assertThat(response.chunkTemplates.keySet()).containsExactly("defs", "main").inOrder();
+    for (String chunk : response.chunkTemplates.keySet()) {
+      String template = Files.toString(new File(commandLineDir, chunk + ".tmpl"), UTF_8);
+      assertThat(response.chunkTemplates.get(chunk)).isEqualTo(template);
+      assertThat(Files.toString(new File(daemonDir, chunk + ".tmpl"), UTF_8)).isEqualTo(template);
+    }
+    assertThat(response.chunkTemplates.get("main")).contains(".goog-button");
+  }
+
+  @Test
+  public void testChangedInputIsReparsed() throws Exception {
+    CompilerDaemon daemon = new CompilerDaemon();
+    Files.asCharSink(main, UTF_8).write(".goog-button { color: #ff0000 }");
+    CompilerDaemon.Response before = daemon.handle(request(main.getPath()));
+    assertThat(before.output).isEqualTo(".goog-button{color:#f00}");
+
+    Files.asCharSink(main, UTF_8).write(".goog-button { color: #aabbcc }");
+    CompilerDaemon.Response after = daemon.handle(request(main.getPath()));
+    assertThat(after.output).isEqualTo(".goog-button{color:#abc}");
+    assertThat(daemon.getCacheHitCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testFunctionCallsAreMemoizedAcrossRequests() throws Exception {
+    CompilerDaemon daemon = new CompilerDaemon();
+    Files.asCharSink(main, UTF_8).write(".goog-button { color: darken(#ff0000, 10) }");
+    CompilerDaemon.Response before = daemon.handle(request(main.getPath()));
+    assertThat(daemon.getFunctionCache().getMissCount()).isEqualTo(1);
+
+    Files.asCharSink(main, UTF_8).write(".goog-menu { color: darken(#ff0000, 10) }");
+    CompilerDaemon.Response after = daemon.handle(request(main.getPath()));
+    assertThat(daemon.getFunctionCache().getHitCount()).isEqualTo(1);
+    assertThat(after.output).isEqualTo(before.output.replace("button", "menu"));
+  }
+
+  @Test
+  public void testServe() throws Exception {
+    StringWriter out = new StringWriter();
+    new CompilerDaemon().serve(
+        new StringReader("{\"arguments\": [\"" + defs.getPath() + "\", \"" + main.getPath()
+            + "\"]}\n\n{\"arguments\": []}\n"),
+        out);
+
+    String[] responses = out.toString().split("\n");
+    assertThat(responses).hasLength(2);
+    assertThat(responses[0]).contains("\"exitCode\":0");
+    assertThat(responses[0]).contains(".goog-menu-item{color:#abc}");
+    assertThat(responses[1]).contains("\"exitCode\":1");
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.commandline;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.css.JobDescription;
+import com.google.common.css.JobDescriptionBuilder;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.passes.DummyErrorManager;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class IncrementalCompilerTest {
+
+  private static final SourceCode DEFS = new SourceCode("defs.gss",
+      "@provide 'defs';\n"
+      + "@def BG_COLOR #ff0000;\n"
+      + "@defmixin size(W, H) { width: W; height: H; }\n");
+  private static final SourceCode BUTTON = new SourceCode("button.gss",
+      "@require 'defs';\n"
+      + ".goog-button { background: BG_COLOR; @mixin size(10px, 0px); }\n");
+  private static final SourceCode MENU = new SourceCode("menu.gss",
+      ".goog-menu { margin: 0px 1px 0px 1px }\n");
+
+  private JobDescription job;
+
+  @Before
+  public void setUp() {
+    job = new JobDescriptionBuilder()
+        .setOutputFormat(JobDescription.OutputFormat.COMPRESSED)
+        .setCssSubstitutionMapProvider(RenamingType.CLOSURE.getCssSubstitutionMapProvider())
+        .setSimplifyCss(true)
+        .setCreateSourceMap(true)
+        .getJobDescription();
+  }
+
+  @Test
+  public void testOnlyChangedInputsAndDependentsAreRecompiled() throws Exception {
+    IncrementalCompiler compiler = new IncrementalCompiler(job);
+    IncrementalCompiler.Result first = compiler.compile(
+        ImmutableList.of(DEFS, BUTTON, MENU), DummyErrorManager.getInstance());
+    assertThat(first.getOutput())
+        .isEqualTo(".a-b{background:#f00;width:10px;height:0}.a-c{margin:0 1px}");
+    assertThat(first.getRecompiledInputs())
+        .containsExactly("defs.gss", "button.gss", "menu.gss").inOrder();
+
+    IncrementalCompiler.Result unchanged = compiler.compile(
+        ImmutableList.of(DEFS, BUTTON, MENU), DummyErrorManager.getInstance());
+    assertThat(unchanged.getOutput()).isEqualTo(first.getOutput());
+    assertThat(unchanged.getRecompiledInputs()).isEmpty();
+
+    SourceCode newDefs = new SourceCode("defs.gss",
+        "@provide 'defs';\n"
+        + "@def BG_COLOR #aabbcc;\n"
+        + "@defmixin size(W, H) { width: W; height: H; }\n");
+    IncrementalCompiler.Result changed = compiler.compile(
+        ImmutableList.of(newDefs, BUTTON, MENU), DummyErrorManager.getInstance());
+    assertThat(changed.getOutput())
+        .isEqualTo(".a-b{background:#abc;width:10px;height:0}.a-c{margin:0 1px}");
+    assertThat(changed.getRecompiledInputs())
+        .containsExactly("defs.gss", "button.gss").inOrder();
+  }
+
+  @Test
+  public void testRenamingIsStableAcrossCompilations() throws Exception {
+    IncrementalCompiler compiler = new IncrementalCompiler(job);
+    compiler.compile(ImmutableList.of(DEFS, BUTTON, MENU), DummyErrorManager.getInstance());
+
+    SourceCode newMenu = new SourceCode("menu.gss",
+        ".goog-toolbar { color: red }\n"
+        + ".goog-menu { margin: 0px 1px 0px 1px }\n");
+    IncrementalCompiler.Result result = compiler.compile(
+        ImmutableList.of(DEFS, BUTTON, newMenu), DummyErrorManager.getInstance());
+    assertThat(result.getOutput()).isEqualTo(
+        ".a-b{background:#f00;width:10px;height:0}.a-d{color:red}.a-c{margin:0 1px}");
+    assertThat(result.getRenamingMappings()).containsEntry("goog", "a");
+    assertThat(result.getRenamingMappings()).containsEntry("menu", "c");
+    assertThat(result.getRenamingMappings()).containsEntry("toolbar", "d");
+    assertThat(result.getRecompiledInputs()).containsExactly("menu.gss");
+  }
+
+  @Test
+  public void testSourceMapMatchesFreshCompilation() throws Exception {
+    IncrementalCompiler compiler = new IncrementalCompiler(job);
+    compiler.compile(ImmutableList.of(DEFS, BUTTON, MENU), DummyErrorManager.getInstance());
+    IncrementalCompiler.Result cached = compiler.compile(
+        ImmutableList.of(DEFS, BUTTON, MENU), DummyErrorManager.getInstance());
+    IncrementalCompiler.Result fresh = new IncrementalCompiler(job).compile(
+        ImmutableList.of(DEFS, BUTTON, MENU), DummyErrorManager.getInstance());
+
+    StringBuilder cachedSourceMap = new StringBuilder();
+    cached.appendSourceMapTo(cachedSourceMap, "out.css.map");
+    StringBuilder freshSourceMap = new StringBuilder();
+    fresh.appendSourceMapTo(freshSourceMap, "out.css.map");
+    assertThat(cachedSourceMap.toString()).isEqualTo(freshSourceMap.toString());
+    assertThat(cachedSourceMap.toString()).contains("button.gss");
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.gssfunctions;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link ArgbColors}.
+ */
+@RunWith(JUnit4.class)
+public class ArgbColorsTest {
+
+  @Test
+  public void testComponents() {
+    int color = ArgbColors.argb(0x80, 0x12, 0x34, 0xFE);
+    assertThat(color).isEqualTo(0x801234FE);
+    assertThat(ArgbColors.alpha(color)).isEqualTo(0x80);
+    assertThat(ArgbColors.red(color)).isEqualTo(0x12);
+    assertThat(ArgbColors.green(color)).isEqualTo(0x34);
+    assertThat(ArgbColors.blue(color)).isEqualTo(0xFE);
+    assertThat(ArgbColors.rgb(0x12, 0x34, 0xFE)).isEqualTo(0xFF1234FE);
+  }
+
+  @Test
+  public void testHsb() {
+    int orange = 0xFFFF8000;
+    assertThat(ArgbColors.hue(orange)).isWithin(0.001f).of(30 / 360f);
+    assertThat(ArgbColors.saturation(orange)).isEqualTo(1f);
+    assertThat(ArgbColors.brightness(orange)).isEqualTo(1f);
+    assertThat(ArgbColors.hsb(30 / 360f, 1, 1)).isEqualTo(orange);
+    // Hues wrap around.
+    assertThat(ArgbColors.hsb(1 + 30 / 360f, 1, 1)).isEqualTo(orange);
+
+    assertThat(ArgbColors.hue(ArgbColors.BLACK)).isEqualTo(0f);
+    assertThat(ArgbColors.saturation(ArgbColors.BLACK)).isEqualTo(0f);
+    assertThat(ArgbColors.brightness(ArgbColors.WHITE)).isEqualTo(1f);
+    assertThat(ArgbColors.hsb(0.5f, 0, 1)).isEqualTo(ArgbColors.WHITE);
+  }
+
+  @Test
+  public void testHsl() {
+    int color = 0xFFBF4040;
+    assertThat(ArgbColors.hue(color)).isEqualTo(0f);
+    assertThat(ArgbColors.hslSaturation(color)).isWithin(0.01f).of(0.5f);
+    assertThat(ArgbColors.lightness(color)).isWithin(0.01f).of(0.5f);
+    assertThat(ArgbColors.hsl(0, 0.5f, 0.5f)).isEqualTo(color);
+    assertThat(ArgbColors.hsl(ArgbColors.hue(color), ArgbColors.hslSaturation(color),
+        ArgbColors.lightness(color))).isEqualTo(color);
+  }
+
+  @Test
+  public void testHexStrings() {
+    assertThat(ArgbColors.toHexString(0x80ABC0DE)).isEqualTo("#ABC0DE");
+    assertThat(ArgbColors.toLowerCaseHexString(0x80ABC0DE)).isEqualTo("#abc0de");
+    assertThat(ArgbColors.toHexString(ArgbColors.BLACK)).isEqualTo("#000000");
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.gssfunctions;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link ColorParser}.
+ */
+@RunWith(JUnit4.class)
+public class ColorParserTest {
+
+  private static void assertParsesAs(String value, int expected) {
+    assertThat(Integer.toHexString(ColorParser.parseAny(value)))
+        .isEqualTo(Integer.toHexString(expected));
+  }
+
+  private static void assertDoesNotParse(String value) {
+    try {
+      ColorParser.parseAny(value);
+      fail(value);
+    } catch (IllegalArgumentException expected) {
+      assertThat(expected).hasMessageThat().endsWith(": " + value.trim());
+    }
+  }
+
+  @Test
+  public void testHex() {
+    assertParsesAs("#f6E43a", 0xFFF6E43A);
+    assertParsesAs("#c4d", 0xFFCC44DD);
+    assertParsesAs("  #c4d\n", 0xFFCC44DD);
+    assertDoesNotParse("#c4");
+    assertDoesNotParse("#c4dd");
+    assertDoesNotParse("#f6e43g");
+    assertDoesNotParse("f6e43a");
+  }
+
+  @Test
+  public void testHexWithAlpha() {
+    ColorParser parser = new ColorParser(ColorParser.Format.HEX4, ColorParser.Format.HEX8);
+    assertThat(parser.parse("#c4d8")).isEqualTo(0x88CC44DD);
+    assertThat(parser.parse("#f6e43a80")).isEqualTo(0x80F6E43A);
+  }
+
+  @Test
+  public void testRgb() {
+    assertParsesAs("rgb(255, 10, 0)", 0xFFFF0A00);
+    assertParsesAs("rgb(\t255,10 ,+0 )", 0xFFFF0A00);
+    assertParsesAs("rgb(300, -10, 99999999999)", 0xFFFF00FF);
+    assertParsesAs("rgb(100%, 0%, 10%)", 0xFFFF001A);
+    assertParsesAs("rgb(50.5%, .5%, 150%)", 0xFF8101FF);
+    assertDoesNotParse("rgb(1.5, 10, 0)");
+    assertDoesNotParse("rgb(100%, 10, 0)");
+    assertDoesNotParse("rgb(1., 10, 0)");
+    assertDoesNotParse("rgb(255, 10)");
+    assertDoesNotParse("rgb(255, 10, 0, 1)");
+    assertDoesNotParse("rgb(255, 10, 0)x");
+    assertDoesNotParse("RGB(255, 10, 0)");
+  }
+
+  @Test
+  public void testRgba() {
+    assertParsesAs("rgba(255, 10, 0, 0.5)", 0x80FF0A00);
+    assertParsesAs("rgba(100%, 0%, 10%, .25)", 0x40FF001A);
+    assertParsesAs("rgba(255, 10, 0, 2)", 0xFFFF0A00);
+    assertDoesNotParse("rgba(255, 10, 0, 50%)");
+    assertDoesNotParse("rgba(255, 10, 0)");
+  }
+
+  @Test
+  public void testKeywords() {
+    assertParsesAs("red", 0xFFFF0000);
+    assertParsesAs("AliceBlue", 0xFFF0F8FF);
+    assertThat(new ColorParser(ColorParser.Format.CSS_KEYWORDS).parse("orange"))
+        .isEqualTo(0xFFFFA500);
+    assertDoesNotParse("transparent");
+    try {
+      new ColorParser(ColorParser.Format.HTML_KEYWORDS).parse("orange");
+      fail();
+    } catch (IllegalArgumentException expected) {
+      assertThat(expected).hasMessageThat().isEqualTo(
+          "Illegal color value, does not match any of [HTML_KEYWORDS]: orange");
+    }
+  }
+}
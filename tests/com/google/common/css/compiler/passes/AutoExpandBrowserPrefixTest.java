@@ -47,6 +47,22 @@ public class AutoExpandBrowserPrefixTest extends PassesTestBase {
         + "[/* @alternate */]flex-grow:[[1]];]}]");
   }
 
+  @Test
+  public void testMatchOnPropertyNameOrValue() {
+    testTreeConstruction(linesToString(
+        "p {",
+        "  cursor: grab;",
+        "  color: grab;",
+        "  margin: calc;",
+        "  width: calc(1px + 2px);",
+        "}"),
+        "[[p]{[[/* @alternate */]cursor:[[-moz-grab]];[/* @alternate */]cursor:[[-webkit-grab]];"
+        + "[/* @alternate */]cursor:[[grab]];color:[[grab]];margin:[[calc]];"
+        + "[/* @alternate */]width:[-webkit-calc([[1px] + [2px]])];"
+        + "[/* @alternate */]width:[-moz-calc([[1px] + [2px]])];"
+        + "[/* @alternate */]width:[calc([[1px] + [2px]])];]}]");
+  }
+
   @Test
   public void testMatchFunction() {
     testTreeConstruction(linesToString(
@@ -17,7 +17,12 @@
 package com.google.common.css.compiler.passes;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 
+import com.google.common.base.Strings;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -238,4 +243,141 @@ public class CodeBufferTest {
     assertThat(buffer.getLastCharIndex()).isEqualTo(0);
     assertThat(buffer.getLastLineIndex()).isEqualTo(1);
   }
+
+  @Test
+  public void testDeleteLastCharForNewLineOnFirstLine() {
+    CodeBuffer buffer = new CodeBuffer();
+    buffer.append("foo\nc");
+    buffer.deleteLastChar();
+    assertThat(buffer.getNextCharIndex()).isEqualTo(0);
+    assertThat(buffer.getNextLineIndex()).isEqualTo(1);
+    assertThat(buffer.getLastCharIndex()).isEqualTo(3);
+    assertThat(buffer.getLastLineIndex()).isEqualTo(0);
+  }
+
+  @Test
+  public void testDeleteTrailingNewLine() {
+    CodeBuffer buffer = new CodeBuffer();
+    buffer.append("foo\nba\n");
+    buffer.deleteLastChar();
+    assertThat(buffer.getOutput()).isEqualTo("foo\nba");
+    assertThat(buffer.getNextCharIndex()).isEqualTo(2);
+    assertThat(buffer.getNextLineIndex()).isEqualTo(1);
+    assertThat(buffer.getLastCharIndex()).isEqualTo(1);
+    assertThat(buffer.getLastLineIndex()).isEqualTo(1);
+
+    buffer.append("\n\n\n");
+    buffer.deleteLastChars(2);
+    assertThat(buffer.getOutput()).isEqualTo("foo\nba\n");
+    assertThat(buffer.getNextCharIndex()).isEqualTo(0);
+    assertThat(buffer.getNextLineIndex()).isEqualTo(2);
+    assertThat(buffer.getLastCharIndex()).isEqualTo(2);
+    assertThat(buffer.getLastLineIndex()).isEqualTo(1);
+  }
+
+  @Test
+  public void testDeleteLastCharsAcrossLines() {
+    CodeBuffer buffer = new CodeBuffer();
+    buffer.append("foo\nbarrr\n\nbaz\nqux");
+    buffer.deleteLastChars(11);
+    assertThat(buffer.getOutput()).isEqualTo("foo\nbar");
+    assertThat(buffer.getNextCharIndex()).isEqualTo(3);
+    assertThat(buffer.getNextLineIndex()).isEqualTo(1);
+    assertThat(buffer.getLastCharIndex()).isEqualTo(2);
+    assertThat(buffer.getLastLineIndex()).isEqualTo(1);
+  }
+
+  @Test
+  public void testStreaming() throws Exception {
+    StringWriter out = new StringWriter();
+    CodeBuffer buffer = new CodeBuffer(out);
+    String line = Strings.repeat("a", 99);
+    for (int i = 0; i < 1000; i++) {
+      buffer.append(line).startNewLine();
+    }
+    buffer.append("bc;");
+    // Most of the output has been written out already.
+    assertThat(out.getBuffer().length()).isGreaterThan(90000);
+    assertThat(buffer.isStreaming()).isTrue();
+    assertThat(buffer.getCurrentLength()).isEqualTo(100003);
+    assertThat(buffer.getNextLineIndex()).isEqualTo(1000);
+    assertThat(buffer.getLastCharIndex()).isEqualTo(2);
+
+    buffer.deleteLastCharIfCharIs(';');
+    buffer.deleteLastChars(2);
+    assertThat(buffer.getNextCharIndex()).isEqualTo(0);
+    assertThat(buffer.getLastCharIndex()).isEqualTo(99);
+    assertThat(buffer.getLastLineIndex()).isEqualTo(999);
+    buffer.flush();
+    assertThat(out.toString()).isEqualTo(Strings.repeat(line + "\n", 1000));
+  }
+
+  @Test
+  public void testStreamingLongLine() throws Exception {
+    StringWriter out = new StringWriter();
+    CodeBuffer buffer = new CodeBuffer(out);
+    buffer.append("x\n");
+    String line = Strings.repeat("a", 50000);
+    buffer.append(line);
+    buffer.startNewLine();
+    buffer.append('b');
+    buffer.deleteLastChar();
+    // The line started before the characters that were written out.
+    assertThat(buffer.getLastCharIndex()).isEqualTo(50000);
+    assertThat(buffer.getLastLineIndex()).isEqualTo(1);
+    buffer.flush();
+    assertThat(out.toString()).isEqualTo("x\n" + line + "\n");
+  }
+
+  @Test
+  public void testStreamingCannotDeleteWrittenCharacters() throws Exception {
+    CodeBuffer buffer = new CodeBuffer(new StringWriter());
+    buffer.append("foo");
+    buffer.flush();
+    assertThat(buffer.getCurrentLength()).isEqualTo(3);
+    try {
+      buffer.deleteLastChar();
+      fail("The characters were written out");
+    } catch (IllegalStateException expected) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testStreamingReportsWriteErrorsOnFlush() {
+    final IOException error = new IOException("disk full");
+    CodeBuffer buffer = new CodeBuffer(new Writer() {
+      @Override
+      public void write(char[] cbuf, int off, int len) throws IOException {
+        throw error;
+      }
+
+      @Override
+      public void flush() {}
+
+      @Override
+      public void close() {}
+    });
+    buffer.append(Strings.repeat("a", 100000));
+    try {
+      buffer.flush();
+      fail("The writer failed");
+    } catch (IOException expected) {
+      assertThat(expected).isSameAs(error);
+    }
+  }
+
+  @Test
+  public void testStreamingReset() throws Exception {
+    StringWriter out = new StringWriter();
+    CodeBuffer buffer = new CodeBuffer(out);
+    buffer.append(Strings.repeat("a\n", 20000));
+    buffer.reset();
+    buffer.append("bc");
+    assertThat(buffer.getNextCharIndex()).isEqualTo(2);
+    assertThat(buffer.getNextLineIndex()).isEqualTo(0);
+    assertThat(buffer.getLastCharIndex()).isEqualTo(1);
+    buffer.flush();
+    assertThat(out.toString()).endsWith("a\nbc");
+  }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.CssValueNode;
+import com.google.common.css.compiler.ast.DefaultTreeVisitor;
+import com.google.common.css.compiler.ast.ErrorManager;
+import com.google.common.css.compiler.ast.GssFunction;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.PureGssFunction;
+import com.google.common.css.compiler.gssfunctions.GssFunctions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link GssFunctionCache}.
+ */
+@RunWith(JUnit4.class)
+public class GssFunctionCacheTest {
+
+  private static final String INPUT =
+      ".a { width: add(1px, 2px); color: lighten(#102030, 10) }\n"
+      + ".b { width: add(1px,2px); color: lighten(#102030, 20) }\n"
+      + ".c { width: add(1px, 3px); color: lighten(#102030, 10) }\n";
+
+  private final List<String> calls = new ArrayList<>();
+
+  private final Map<String, GssFunction> functions = ImmutableMap.<String, GssFunction>of(
+      "add", new GssFunctions.AddToNumericValue(),
+      "lighten", new GssFunctions.Lighten(),
+      "impure", new Recording(),
+      "pure", new PureRecording());
+
+  private CssTree compile(String input, GssFunctionCache cache) throws Exception {
+    CssTree tree = new GssParser(new SourceCode("test.gss", input)).parse();
+    new ResolveCustomFunctionNodes(tree.getMutatingVisitController(),
+        DummyErrorManager.getInstance(), functions, false /* allowUnknownFunctions */,
+        ImmutableSet.<String>of(), cache).runPass();
+    return tree;
+  }
+
+  private static String print(CssTree tree) {
+    CompactPrinter printer = new CompactPrinter(tree);
+    printer.runPass();
+    return printer.getCompactPrintedString();
+  }
+
+  @Test
+  public void testMemoizedResultsMatchEvaluatedResults() throws Exception {
+    GssFunctionCache cache = new GssFunctionCache();
+    String expected = print(compile(INPUT, null));
+
+    assertThat(print(compile(INPUT, cache))).isEqualTo(expected);
+    assertThat(cache.getHitCount()).isEqualTo(2);
+    assertThat(cache.getMissCount()).isEqualTo(4);
+
+    // The cache is shared by the next compilation.
+    assertThat(print(compile(INPUT, cache))).isEqualTo(expected);
+    assertThat(cache.getHitCount()).isEqualTo(8);
+    assertThat(cache.getMissCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void testMemoizedResultsAreLocatedAtTheirCall() throws Exception {
+    GssFunctionCache cache = new GssFunctionCache();
+    String input = ".a { width: add(1px, 2px) }\n.b { width: add(1px, 2px) }";
+    CssTree expected = compile(input, null);
+    CssTree actual = compile(input, cache);
+    assertThat(cache.getHitCount()).isEqualTo(1);
+
+    List<CssValueNode> expectedValues = collectValues(expected);
+    List<CssValueNode> actualValues = collectValues(actual);
+    assertThat(actualValues).hasSize(2);
+    for (int i = 0; i < actualValues.size(); i++) {
+      assertThat(actualValues.get(i).getSourceCodeLocation().getBeginCharacterIndex())
+          .isEqualTo(expectedValues.get(i).getSourceCodeLocation().getBeginCharacterIndex());
+      assertThat(actualValues.get(i).getSourceCodeLocation().getEndCharacterIndex())
+          .isEqualTo(expectedValues.get(i).getSourceCodeLocation().getEndCharacterIndex());
+    }
+    assertThat(actualValues.get(0).getSourceCodeLocation().getBeginCharacterIndex())
+        .isNotEqualTo(actualValues.get(1).getSourceCodeLocation().getBeginCharacterIndex());
+  }
+
+  @Test
+  public void testOnlyPureFunctionsAreMemoized() throws Exception {
+    GssFunctionCache cache = new GssFunctionCache();
+    compile(".a { width: impure(1); height: impure(1) }", cache);
+    compile(".a { width: pure(1); height: pure(1) }", cache);
+    assertThat(calls).containsExactly("impure", "impure", "pure").inOrder();
+    assertThat(cache.getHitCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testFailedCallsAreNotMemoized() throws Exception {
+    GssFunctionCache cache = new GssFunctionCache();
+    compile(".a { width: add(1px, 2em) } .b { width: add(1px, 2em) }", cache);
+    assertThat(cache.getHitCount()).isEqualTo(0);
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void testMaximumSize() throws Exception {
+    GssFunctionCache cache = new GssFunctionCache(1);
+    compile(INPUT, cache);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  private static List<CssValueNode> collectValues(CssTree tree) {
+    final List<CssValueNode> values = new ArrayList<>();
+    tree.getVisitController().startVisit(new DefaultTreeVisitor() {
+      @Override
+      public boolean enterValueNode(CssValueNode value) {
+        values.add(value);
+        return true;
+      }
+    });
+    return values;
+  }
+
+  private class Recording implements GssFunction {
+    @Override
+    public Integer getNumExpectedArguments() {
+      return 1;
+    }
+
+    @Override
+    public List<CssValueNode> getCallResultNodes(
+        List<CssValueNode> args, ErrorManager errorManager) {
+      calls.add(toString());
+      return ImmutableList.of(args.get(0).deepCopy());
+    }
+
+    @Override
+    public String getCallResultString(List<String> args) {
+      return args.get(0);
+    }
+
+    @Override
+    public String toString() {
+      return "impure";
+    }
+  }
+
+  private class PureRecording extends Recording implements PureGssFunction {
+    @Override
+    public String toString() {
+      return "pure";
+    }
+  }
+}
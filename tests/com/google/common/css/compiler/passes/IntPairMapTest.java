@@ -0,0 +1,61 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link IntPairMap}.
+ */
+@RunWith(JUnit4.class)
+public class IntPairMapTest {
+
+  @Test
+  public void testPutAndGet() {
+    IntPairMap<String> map = new IntPairMap<>();
+    map.put(1, 2, "a");
+    map.put(2, 1, "b");
+    map.put(-1, 0, "c");
+    map.put(1, 2, "d");
+
+    assertThat(map.size()).isEqualTo(3);
+    assertThat(map.get(1, 2)).isEqualTo("d");
+    assertThat(map.get(2, 1)).isEqualTo("b");
+    assertThat(map.get(-1, 0)).isEqualTo("c");
+    assertThat(map.get(0, -1)).isNull();
+  }
+
+  @Test
+  public void testGrowsAndClears() {
+    IntPairMap<Integer> map = new IntPairMap<>();
+    for (int i = 0; i < 1000; i++) {
+      map.put(i / 10, i % 10, i);
+    }
+    assertThat(map.size()).isEqualTo(1000);
+    for (int i = 0; i < 1000; i++) {
+      assertThat(map.get(i / 10, i % 10)).isEqualTo(i);
+    }
+
+    map.clear();
+    assertThat(map.size()).isEqualTo(0);
+    assertThat(map.get(5, 5)).isNull();
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.passes.PassPipeline.PassContext;
+import com.google.common.css.compiler.passes.PassPipeline.PassFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link PassPipeline}.
+ */
+@RunWith(JUnit4.class)
+public class PassPipelineTest {
+
+  private static final String INPUT =
+      ".a { margin: 0px 1px 0 1px; color: #ff0000 }\n"
+      + ".b { }\n"
+      + ".c { padding: 2px 0em 2px 0px; border-color: #aabbcc #aabbcc }\n";
+
+  private static final PassFactory<EliminateEmptyRulesetNodes> ELIMINATE_EMPTY =
+      new PassFactory<EliminateEmptyRulesetNodes>() {
+        @Override
+        public EliminateEmptyRulesetNodes create(PassContext context) {
+          return new EliminateEmptyRulesetNodes(context.getVisitController());
+        }
+      };
+
+  private static final PassFactory<EliminateUnitsFromZeroNumericValues> ELIMINATE_UNITS =
+      new PassFactory<EliminateUnitsFromZeroNumericValues>() {
+        @Override
+        public EliminateUnitsFromZeroNumericValues create(PassContext context) {
+          return new EliminateUnitsFromZeroNumericValues(context.getVisitController());
+        }
+      };
+
+  private static final PassFactory<ColorValueOptimizer> OPTIMIZE_COLORS =
+      new PassFactory<ColorValueOptimizer>() {
+        @Override
+        public ColorValueOptimizer create(PassContext context) {
+          return new ColorValueOptimizer(context.getVisitController());
+        }
+      };
+
+  private static final PassFactory<AbbreviatePositionalValues> ABBREVIATE =
+      new PassFactory<AbbreviatePositionalValues>() {
+        @Override
+        public AbbreviatePositionalValues create(PassContext context) {
+          return new AbbreviatePositionalValues(context.getVisitController());
+        }
+      };
+
+  private static String compile(PassPipeline pipeline, PassListener listener) throws Exception {
+    CssTree tree = new GssParser(new SourceCode("test.gss", INPUT)).parse();
+    pipeline.run(tree, listener);
+    CompactPrinter printer = new CompactPrinter(tree);
+    printer.runPass();
+    return printer.getCompactPrintedString();
+  }
+
+  @Test
+  public void testFusedPassesMatchSequentialPasses() throws Exception {
+    PassPipeline sequential = PassPipeline.builder()
+        .add(EliminateEmptyRulesetNodes.class, ELIMINATE_EMPTY)
+        .add(ColorValueOptimizer.class, OPTIMIZE_COLORS)
+        .add(EliminateUnitsFromZeroNumericValues.class, ELIMINATE_UNITS)
+        .add(AbbreviatePositionalValues.class, ABBREVIATE,
+            EliminateUnitsFromZeroNumericValues.class, ColorValueOptimizer.class)
+        .build();
+    // The passes that remove or replace the node they enter can't be fused.
+    PassPipeline fused = PassPipeline.builder()
+        .add(EliminateEmptyRulesetNodes.class, ELIMINATE_EMPTY)
+        .add(ColorValueOptimizer.class, OPTIMIZE_COLORS)
+        .addLocal(EliminateUnitsFromZeroNumericValues.class, ELIMINATE_UNITS)
+        .addLocal(AbbreviatePositionalValues.class, ABBREVIATE,
+            EliminateUnitsFromZeroNumericValues.class, ColorValueOptimizer.class)
+        .build();
+
+    RecordingListener sequentialListener = new RecordingListener();
+    RecordingListener fusedListener = new RecordingListener();
+    String expected = ".a{margin:0 1px;color:#f00}.c{padding:2px 0;border-color:#abc}";
+    assertThat(compile(sequential, sequentialListener)).isEqualTo(expected);
+    assertThat(compile(fused, fusedListener)).isEqualTo(expected);
+
+    assertThat(sequentialListener.passNames).hasSize(4);
+    assertThat(fusedListener.passNames).containsExactly(
+        "EliminateEmptyRulesetNodes", "ColorValueOptimizer",
+        "EliminateUnitsFromZeroNumericValues+AbbreviatePositionalValues").inOrder();
+  }
+
+  @Test
+  public void testOnlyConsecutiveLocalPassesAreFused() {
+    PassPipeline pipeline = PassPipeline.builder()
+        .addLocal(EliminateUnitsFromZeroNumericValues.class, ELIMINATE_UNITS)
+        .addLocal(AbbreviatePositionalValues.class, ABBREVIATE)
+        .add(EliminateEmptyRulesetNodes.class, ELIMINATE_EMPTY)
+        .addLocal(EliminateUnitsFromZeroNumericValues.class, ELIMINATE_UNITS)
+        .build();
+
+    ImmutableList<ImmutableList<PassPipeline.Step>> traversals = pipeline.getTraversals();
+    assertThat(traversals).hasSize(3);
+    assertThat(traversals.get(0).toString())
+        .isEqualTo("[EliminateUnitsFromZeroNumericValues, AbbreviatePositionalValues]");
+    assertThat(traversals.get(1).toString()).isEqualTo("[EliminateEmptyRulesetNodes]");
+    assertThat(traversals.get(2).toString())
+        .isEqualTo("[EliminateUnitsFromZeroNumericValues]");
+  }
+
+  @Test
+  public void testExecutionRunsOneTraversalAtATime() throws Exception {
+    PassPipeline pipeline = PassPipeline.builder()
+        .addLocal(EliminateUnitsFromZeroNumericValues.class, ELIMINATE_UNITS)
+        .addLocal(AbbreviatePositionalValues.class, ABBREVIATE)
+        .add(EliminateEmptyRulesetNodes.class, ELIMINATE_EMPTY)
+        .build();
+    CssTree tree = new GssParser(new SourceCode("test.gss", INPUT)).parse();
+    RecordingListener listener = new RecordingListener();
+    PassPipeline.Execution execution = pipeline.start(tree, listener);
+
+    assertThat(execution.runNext().toString())
+        .isEqualTo("EliminateUnitsFromZeroNumericValues+AbbreviatePositionalValues");
+    assertThat(execution.hasNext()).isTrue();
+    assertThat(execution.runNext()).isInstanceOf(EliminateEmptyRulesetNodes.class);
+    assertThat(execution.hasNext()).isFalse();
+    assertThat(listener.passNames).hasSize(2);
+  }
+
+  @Test
+  public void testMoveBefore() {
+    PassPipeline pipeline = PassPipeline.builder()
+        .addLocal(EliminateUnitsFromZeroNumericValues.class, ELIMINATE_UNITS)
+        .add(EliminateEmptyRulesetNodes.class, ELIMINATE_EMPTY)
+        .addLocal(AbbreviatePositionalValues.class, ABBREVIATE)
+        .moveBefore(AbbreviatePositionalValues.class, EliminateEmptyRulesetNodes.class)
+        .build();
+
+    assertThat(pipeline.getTraversals()).hasSize(2);
+    assertThat(pipeline.getSteps().toString()).isEqualTo("[EliminateUnitsFromZeroNumericValues, "
+        + "AbbreviatePositionalValues, EliminateEmptyRulesetNodes]");
+  }
+
+  @Test
+  public void testMissingDependency() {
+    PassPipeline.Builder builder = PassPipeline.builder()
+        .addLocal(AbbreviatePositionalValues.class, ABBREVIATE,
+            EliminateUnitsFromZeroNumericValues.class)
+        .addLocal(EliminateUnitsFromZeroNumericValues.class, ELIMINATE_UNITS);
+    try {
+      builder.build();
+      fail("AbbreviatePositionalValues runs before its dependency");
+    } catch (IllegalStateException expected) {
+      assertThat(expected).hasMessageThat().isEqualTo(
+          "AbbreviatePositionalValues must run after EliminateUnitsFromZeroNumericValues");
+    }
+  }
+
+  @Test
+  public void testRemovingADependencyFails() {
+    PassPipeline.Builder builder = PassPipeline.builder()
+        .addLocal(EliminateUnitsFromZeroNumericValues.class, ELIMINATE_UNITS)
+        .addLocal(AbbreviatePositionalValues.class, ABBREVIATE,
+            EliminateUnitsFromZeroNumericValues.class)
+        .remove(EliminateUnitsFromZeroNumericValues.class);
+    try {
+      builder.build();
+      fail("AbbreviatePositionalValues lost its dependency");
+    } catch (IllegalStateException expected) {
+      // expected
+    }
+  }
+
+  private static class RecordingListener implements PassListener {
+    final List<String> passNames = new ArrayList<>();
+
+    @Override
+    public void passStarted(CssCompilerPass pass, CssTree tree) {
+      passNames.add(pass instanceof PassPipeline.FusedPass
+          ? pass.toString()
+          : pass.getClass().getSimpleName());
+    }
+
+    @Override
+    public void passFinished(CssCompilerPass pass, CssTree tree) {}
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.css.JobDescription;
+import com.google.common.css.JobDescriptionBuilder;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link PassProfiler}.
+ */
+@RunWith(JUnit4.class)
+public class PassProfilerTest {
+
+  private PassProfiler profiler;
+
+  @Before
+  public void setUp() throws Exception {
+    JobDescription job = new JobDescriptionBuilder()
+        .setSimplifyCss(true)
+        .setEliminateDeadStyles(true)
+        .getJobDescription();
+    CssTree tree = new GssParser(new SourceCode("test.gss",
+        "@def COLOR #ff0000;\n"
+        + ".foo { color: COLOR; margin: 0px 1px 0px 1px }\n"
+        + ".bar { color: COLOR; }\n")).parse();
+    profiler = new PassProfiler();
+    PassRunner passRunner = new PassRunner(job, DummyErrorManager.getInstance());
+    passRunner.setPassListener(profiler);
+    passRunner.runPasses(tree);
+  }
+
+  @Test
+  public void testProfilesEveryPass() {
+    Map<String, PassProfiler.PassProfile> profiles = new HashMap<>();
+    List<String> passNames = new ArrayList<>();
+    for (PassProfiler.PassProfile profile : profiler.getProfiles()) {
+      profiles.put(profile.getPassName(), profile);
+      passNames.add(profile.getPassName());
+      assertThat(profile.getWallNanos()).isAtLeast(0L);
+      assertThat(profile.getTreeNodeCount()).isGreaterThan(0);
+    }
+    assertThat(passNames).containsAllOf(
+        "CheckDependencyNodes", "CreateDefinitionNodes",
+        // The validation passes are fused into a single traversal.
+        "ValidatePropertyValues+WarnOnCustomProperty", "ReplaceConstantReferences",
+        "EliminateEmptyRulesetNodes", "ColorValueOptimizer",
+        "MergeAdjacentRulesetNodesWithSameDeclarations")
+        .inOrder();
+
+    // The definition of COLOR is removed and its references replaced.
+    assertThat(profiles.get("ReplaceConstantReferences").getNodesRemoved()).isGreaterThan(0);
+    assertThat(profiles.get("ReplaceConstantReferences").getNodesAdded()).isGreaterThan(0);
+    // Checking dependencies does not change the tree.
+    assertThat(profiles.get("CheckDependencyNodes").getNodesAdded()).isEqualTo(0);
+    assertThat(profiles.get("CheckDependencyNodes").getNodesRemoved()).isEqualTo(0);
+  }
+
+  @Test
+  public void testWriteJson() {
+    StringBuilder out = new StringBuilder();
+    profiler.writeTo(out, PassProfiler.Format.JSON);
+
+    JsonObject json = new JsonParser().parse(out.toString()).getAsJsonObject();
+    JsonArray passes = json.getAsJsonArray("passes");
+    assertThat(passes.size()).isEqualTo(profiler.getProfiles().size());
+    assertThat(passes.get(0).getAsJsonObject().get("name").getAsString())
+        .isEqualTo("CheckDependencyNodes");
+    JsonArray totals = json.getAsJsonArray("totals");
+    // EliminateUselessRulesetNodes runs three times.
+    for (int i = 0; i < totals.size(); i++) {
+      JsonObject total = totals.get(i).getAsJsonObject();
+      if (total.get("name").getAsString().equals("EliminateUselessRulesetNodes")) {
+        assertThat(total.get("runs").getAsInt()).isEqualTo(3);
+      }
+    }
+  }
+
+  @Test
+  public void testWriteChromeTrace() {
+    StringBuilder out = new StringBuilder();
+    profiler.writeTo(out, PassProfiler.Format.CHROME_TRACE);
+
+    JsonObject json = new JsonParser().parse(out.toString()).getAsJsonObject();
+    JsonArray events = json.getAsJsonArray("traceEvents");
+    assertThat(events.size()).isEqualTo(profiler.getProfiles().size());
+    JsonObject event = events.get(0).getAsJsonObject();
+    assertThat(event.get("ph").getAsString()).isEqualTo("X");
+    assertThat(event.get("name").getAsString()).isEqualTo("CheckDependencyNodes");
+    assertThat(event.getAsJsonObject("args").has("allocatedBytes")).isTrue();
+  }
+
+  @Test
+  public void testNoProfilesWithoutPasses() {
+    assertThat(new PassProfiler().getProfiles()).isEqualTo(ImmutableList.of());
+  }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.css.JobDescription;
+import com.google.common.css.JobDescriptionBuilder;
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssBlockNode;
+import com.google.common.css.compiler.ast.CssCompilerPass;
+import com.google.common.css.compiler.ast.CssFunctionNode;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssNumericNode;
+import com.google.common.css.compiler.ast.CssRulesetNode;
+import com.google.common.css.compiler.ast.CssSelectorNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.CssValueNode;
+import com.google.common.css.compiler.ast.DefaultTreeVisitor;
+import com.google.common.css.compiler.ast.GssParser;
+import com.google.common.css.compiler.ast.GssParserException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link RunPassesForChunks}.
+ */
+@RunWith(JUnit4.class)
+public class RunPassesForChunksTest {
+
+  private static final ImmutableList<String> CHUNKS = ImmutableList.of("A", "B", "C");
+
+  private static final ImmutableMap<String, String> FILE_TO_CHUNK =
+      ImmutableMap.of("a", "A", "b", "B", "c", "C", "d", "D");
+
+  /** Marks and removes the overridden rulesets of each chunk. */
+  private static final RunPassesForChunks.ChunkPassesFactory<String> ELIMINATE_DEAD_STYLES =
+      new RunPassesForChunks.ChunkPassesFactory<String>() {
+        @Override
+        public List<CssCompilerPass> createPasses(String chunk, CssTree chunkTree) {
+          return ImmutableList.<CssCompilerPass>of(
+              new MarkRemovableRulesetNodesForChunk<>(chunk, chunkTree, true),
+              new EliminateUselessRulesetNodes(chunkTree));
+        }
+      };
+
+  @Test
+  public void testSameOutputAsMarkingTheWholeTreeForEachChunk() throws Exception {
+    CssTree tree = compile(ImmutableMap.of(
+        "a", ".x { color: red } .y { top: 0 } .x { color: blue }",
+        "b", ".x { color: green } .y { top: 1px } .y { top: 2px; left: 0 }",
+        "c", ".z { left: 0 } @media print { .z { left: 1px } } .z { left: 2px }",
+        "d", ".x { color: black } .x { color: white }"));
+    new SplitRulesetNodes(tree.getMutatingVisitController(), true).runPass();
+    CssTree expectedTree = new CssTree(tree);
+    for (String chunk : CHUNKS) {
+      new MarkRemovableRulesetNodesForChunk<>(chunk, expectedTree, true).runPass();
+    }
+    new EliminateUselessRulesetNodes(expectedTree).runPass();
+    String expected = print(expectedTree);
+    assertThat(expected).isEqualTo(
+        ".y{top:0}.x{color:blue}.x{color:green}.y{top:2px}.y{left:0}"
+            + "@media print{.z{left:1px}}.z{left:2px}"
+            + ".x{color:black}.x{color:white}");
+
+    CssTree parallelTree = new CssTree(tree);
+    new RunPassesForChunks<>(tree, CHUNKS, ELIMINATE_DEAD_STYLES).runPass();
+    assertThat(print(tree)).isEqualTo(expected);
+
+    ForkJoinPool pool = new ForkJoinPool(CHUNKS.size());
+    try {
+      new RunPassesForChunks<>(parallelTree, CHUNKS, ELIMINATE_DEAD_STYLES).runPass(pool);
+    } finally {
+      pool.shutdownNow();
+    }
+    assertThat(print(parallelTree)).isEqualTo(expected);
+  }
+
+  @Test
+  public void testAddedNodesFollowTheNodesOfTheirChunk() throws Exception {
+    CssTree tree = new GssParser(new SourceCode("a",
+        ".a1 {} @page { margin: 0 } .b1 {} .a2, .b2 {} .a3 {} .b3 {}")).parse();
+    Map<String, String> selectorToChunk = new ImmutableMap.Builder<String, String>()
+        .put(".a1", "A")
+        .put(".a2", "A")
+        .put(".a3", "A")
+        .put(".b1", "B")
+        .put(".b2", "B")
+        .put(".b3", "B")
+        .build();
+    new TemplateCompactPrinterTest.SetSelectorChunk(tree, selectorToChunk).runPass();
+
+    new RunPassesForChunks<>(tree, CHUNKS,
+        new RunPassesForChunks.ChunkPassesFactory<String>() {
+          @Override
+          public List<CssCompilerPass> createPasses(final String chunk, final CssTree chunkTree) {
+            return ImmutableList.<CssCompilerPass>of(new CssCompilerPass() {
+              @Override
+              public void runPass() {
+                CssBlockNode body = chunkTree.getRoot().getBody();
+                body.replaceChildAt(0, ImmutableList.of(
+                    createRuleset(".first-" + chunk), body.getChildAt(0)));
+                body.addChildToBack(createRuleset(".last-" + chunk));
+              }
+            });
+          }
+        }).runPass();
+
+    assertThat(print(tree)).isEqualTo(
+        ".first-A{}.a1{}@page{margin:0}.first-B{}.b1{}.a2,.b2{}.a3{}.last-A{}.b3{}.last-B{}");
+    for (CssNode node : tree.getRoot().getBody().childIterable()) {
+      assertThat(node.getParent()).isSameAs(tree.getRoot().getBody());
+    }
+  }
+
+  @Test
+  public void testChunksDoNotShareFunctionArguments() throws Exception {
+    CssTree tree = compile(ImmutableMap.of(
+        "a", "@def COLOR rgb(1, 2, 3); .x { color: COLOR }",
+        "b", ".y { color: COLOR }"));
+    List<CssFunctionNode> functions = getFunctions(tree);
+    assertThat(functions).hasSize(2);
+    assertThat(functions.get(0).getArguments()).isSameAs(functions.get(1).getArguments());
+
+    new RunPassesForChunks<>(tree, CHUNKS,
+        new RunPassesForChunks.ChunkPassesFactory<String>() {
+          @Override
+          public List<CssCompilerPass> createPasses(final String chunk, final CssTree chunkTree) {
+            return ImmutableList.<CssCompilerPass>of(new CssCompilerPass() {
+              @Override
+              public void runPass() {
+                if (chunk.equals("A")) {
+                  chunkTree.getMutatingVisitController().startVisit(new DefaultTreeVisitor() {
+                    @Override
+                    public boolean enterArgumentNode(CssValueNode argument) {
+                      if (argument.toString().equals("1")) {
+                        ((CssNumericNode) argument).setNumericPart("9");
+                      }
+                      return true;
+                    }
+                  });
+                }
+              }
+            });
+          }
+        }).runPass();
+
+    assertThat(print(tree)).isEqualTo(".x{color:rgb(9,2,3)}.y{color:rgb(1,2,3)}");
+  }
+
+  @Test
+  public void testPassRunnerEliminatesDeadStylesOfEachChunk() throws Exception {
+    JobDescription job = new JobDescriptionBuilder()
+        .addInput(new SourceCode("a", ".x { color: red } .y { top: 0 } .y { top: 1px }"))
+        .addInput(new SourceCode("b", ".x { color: blue } .z { top: 0 }"))
+        .addInput(new SourceCode("c", ".x { color: green } .z { top: 1px }"))
+        .setAllowDefPropagation(true)
+        .setEliminateDeadStyles(true)
+        .setFileToChunk(ImmutableMap.of("a", "A", "b", "B", "c", "B"))
+        .getJobDescription();
+    for (int numThreads : new int[] {1, 2}) {
+      JobDescription chunkJob = job.toBuilder().setNumThreads(numThreads).getJobDescription();
+      CssTree tree = new GssParser(chunkJob.inputs).parse();
+      new PassRunner(chunkJob, new DummyErrorManager()).runPasses(tree);
+      // Only the rulesets overridden in their own chunk are removed.
+      assertThat(print(tree)).isEqualTo(".x{color:red}.y{top:1px}.x{color:green}.z{top:1px}");
+    }
+  }
+
+  @Test
+  public void testNodesOutsideTheChunkAreMergeBarriers() throws Exception {
+    JobDescription job = new JobDescriptionBuilder()
+        .addInput(new SourceCode("a", ".a { color: red } @page { margin: 1in } .c { color: red }"
+            + " .d { top: 0 } .e { top: 0 }"))
+        .setAllowDefPropagation(true)
+        .setEliminateDeadStyles(true)
+        .getJobDescription();
+    String expected = ".a{color:red}@page{margin:1in}.c{color:red}.d,.e{top:0}";
+    assertThat(compile(job)).isEqualTo(expected);
+    // The page rule stays in the tree, but the rulesets around it are not merged.
+    JobDescription chunkJob =
+        job.toBuilder().setFileToChunk(ImmutableMap.of("a", "A")).getJobDescription();
+    for (int numThreads : new int[] {1, 2}) {
+      assertThat(compile(chunkJob.toBuilder().setNumThreads(numThreads).getJobDescription()))
+          .isEqualTo(expected);
+    }
+
+    // Nor are the rulesets of a chunk around the ones of another chunk.
+    job = new JobDescriptionBuilder()
+        .addInput(new SourceCode("a", ".a { color: red }"))
+        .addInput(new SourceCode("b", ".b { color: blue }"))
+        .addInput(new SourceCode("c", ".c { color: red } .d { color: red }"))
+        .setAllowDefPropagation(true)
+        .setEliminateDeadStyles(true)
+        .setFileToChunk(ImmutableMap.of("a", "A", "b", "B", "c", "A"))
+        .getJobDescription();
+    assertThat(compile(job)).isEqualTo(".a{color:red}.b{color:blue}.c,.d{color:red}");
+  }
+
+  /** Runs the passes of the job on its inputs and prints the result. */
+  private static String compile(JobDescription job) throws GssParserException {
+    CssTree tree = new GssParser(job.inputs).parse();
+    new PassRunner(job, new DummyErrorManager()).runPasses(tree);
+    return print(tree);
+  }
+
+  private static CssTree compile(Map<String, String> fileToGss) throws GssParserException {
+    List<SourceCode> inputs = new ArrayList<>();
+    for (Map.Entry<String, String> entry : fileToGss.entrySet()) {
+      inputs.add(new SourceCode(entry.getKey(), entry.getValue()));
+    }
+    CssTree tree = new GssParser(inputs).parse();
+    DummyErrorManager errorManager = new DummyErrorManager();
+    new CreateDefinitionNodes(tree.getMutatingVisitController(), errorManager).runPass();
+    new CreateConstantReferences(tree.getMutatingVisitController()).runPass();
+    new MapChunkAwareNodesToChunk<>(tree, FILE_TO_CHUNK).runPass();
+    CollectConstantDefinitions definitions = new CollectConstantDefinitions(tree);
+    definitions.runPass();
+    new ReplaceConstantReferences(tree, definitions.getConstantDefinitions()).runPass();
+    return tree;
+  }
+
+  private static CssRulesetNode createRuleset(String selector) {
+    CssRulesetNode ruleset = new CssRulesetNode();
+    ruleset.addSelector(new CssSelectorNode(selector));
+    return ruleset;
+  }
+
+  private static List<CssFunctionNode> getFunctions(CssTree tree) {
+    final List<CssFunctionNode> functions = new ArrayList<>();
+    tree.getVisitController().startVisit(new DefaultTreeVisitor() {
+      @Override
+      public boolean enterFunctionNode(CssFunctionNode function) {
+        functions.add(function);
+        return true;
+      }
+    });
+    return functions;
+  }
+
+  private static String print(CssTree tree) {
+    CompactPrinter printer = new CompactPrinter(tree);
+    printer.runPass();
+    return printer.getCompactPrintedString();
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.css.JobDescription.SourceMapDetailLevel;
+import com.google.common.css.SourceCode;
+import com.google.common.css.SourceCodeLocation;
+import com.google.common.css.compiler.ast.CssLiteralNode;
+import com.google.common.css.compiler.ast.CssNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link StreamingGssSourceMapGenerator}.
+ */
+@RunWith(JUnit4.class)
+public class StreamingGssSourceMapGeneratorTest {
+
+  private static final ImmutableList<SourceCode> INPUTS = ImmutableList.of(
+      new SourceCode("a.css",
+          "/* @preserve Copyright */\n"
+          + "@def COLOR red;\n"
+          + ".a, .b > .c { color: COLOR; margin: 0 1px 2px }\n"
+          + "@media print {\n"
+          + "  .d:hover { background: url('x.png') no-repeat; }\n"
+          + "}\n"),
+      new SourceCode("dir/b.css",
+          ".e { font: 12px/1.5 'Helvetica Neue', sans-serif }\n"
+          + "@font-face { font-family: f; src: url(f.woff) }\n"
+          + ".f {}\n"),
+      new SourceCode("a.css", ".g { width: 10px; height: 20px }"));
+
+  @Test
+  public void testOutput() throws Exception {
+    CssTree tree = new GssParser(new SourceCode("a.css", ".a { color: red }\n.b {}")).parse();
+    assertThat(printCompact(tree, new StreamingGssSourceMapGenerator(SourceMapDetailLevel.ALL),
+        "out.css.map"))
+        .isEqualTo("{\n"
+            + "\"version\":3,\n"
+            + "\"file\":\"out.css.map\",\n"
+            + "\"lineCount\":1,\n"
+            + "\"mappings\":\"AAAC,EAAI,CAAA,MAAO,IACO,EAAD,CAAA;\",\n"
+            + "\"sources\":[\"a.css\"],\n"
+            + "\"names\":[]\n"
+            + "}\n");
+  }
+
+  @Test
+  public void testSameOutputAsDefaultGenerator() throws Exception {
+    for (SourceMapDetailLevel level : SourceMapDetailLevel.values()) {
+      for (String sourceRoot : new String[] {null, "", "http://x/"}) {
+        GssSourceMapGenerator expected = new DefaultGssSourceMapGenerator(level);
+        GssSourceMapGenerator actual = new StreamingGssSourceMapGenerator(level);
+        if (sourceRoot != null) {
+          expected.setSourceRoot(sourceRoot);
+          actual.setSourceRoot(sourceRoot);
+        }
+        CssTree tree = new GssParser(INPUTS).parse();
+        assertThat(printCompact(tree, actual, "a\"é.map"))
+            .isEqualTo(printCompact(tree, expected, "a\"é.map"));
+
+        expected = new DefaultGssSourceMapGenerator(level);
+        actual = new StreamingGssSourceMapGenerator(level);
+        assertThat(printPretty(tree, actual)).isEqualTo(printPretty(tree, expected));
+      }
+    }
+  }
+
+  @Test
+  public void testNoMappings() throws Exception {
+    GssSourceMapGenerator expected = new DefaultGssSourceMapGenerator(SourceMapDetailLevel.ALL);
+    GssSourceMapGenerator actual = new StreamingGssSourceMapGenerator(SourceMapDetailLevel.ALL);
+    assertThat(appendOutput(actual, "x.map")).isEqualTo(appendOutput(expected, "x.map"));
+  }
+
+  @Test
+  public void testMappingsStartedOutOfOrder() throws Exception {
+    SourceCode sourceCode = new SourceCode("a.css", "abc\ndef\nghi\n");
+    List<CssNode> nodes = ImmutableList.<CssNode>of(
+        literal(sourceCode, 0, 2),
+        literal(sourceCode, 4, 6),
+        literal(sourceCode, 8, 10),
+        new CssLiteralNode("x", (SourceCodeLocation) null),
+        literal(sourceCode, -1, -1));
+    GssSourceMapGenerator expected = new DefaultGssSourceMapGenerator(SourceMapDetailLevel.ALL);
+    GssSourceMapGenerator actual = new StreamingGssSourceMapGenerator(SourceMapDetailLevel.ALL);
+    for (GssSourceMapGenerator generator : ImmutableList.of(expected, actual)) {
+      // The second node is printed on the second line, the third one on the
+      // first line, and the last ones, which are left out, on the third line.
+      generator.startSourceMapping(nodes.get(0), 0, 0);
+      generator.startSourceMapping(nodes.get(1), 1, 2);
+      generator.endSourceMapping(nodes.get(1), 1, 5);
+      generator.endSourceMapping(nodes.get(0), 1, 7);
+      generator.startSourceMapping(nodes.get(2), 0, 1);
+      generator.endSourceMapping(nodes.get(2), 0, 3);
+      generator.startSourceMapping(nodes.get(3), 2, 0);
+      generator.endSourceMapping(nodes.get(3), 2, 3);
+      generator.startSourceMapping(nodes.get(4), 2, 4);
+      generator.endSourceMapping(nodes.get(4), 2, 5);
+    }
+    assertThat(appendOutput(actual, "x.map")).isEqualTo(appendOutput(expected, "x.map"));
+  }
+
+  private static CssLiteralNode literal(SourceCode sourceCode, int begin, int end) {
+    int line = begin < 0 ? 0 : begin / 4 + 1;
+    int column = begin < 0 ? 0 : begin % 4 + 1;
+    return new CssLiteralNode("x", new SourceCodeLocation(sourceCode,
+        begin, line, column, end, end < 0 ? 0 : line, end < 0 ? 0 : column + end - begin));
+  }
+
+  private static String printCompact(CssTree tree, GssSourceMapGenerator generator, String name)
+      throws Exception {
+    CompactPrinter printer = new CompactPrinter(tree, generator);
+    printer.runPass();
+    return appendOutput(generator, name);
+  }
+
+  private static String printPretty(CssTree tree, GssSourceMapGenerator generator)
+      throws Exception {
+    PrettyPrinter printer = new PrettyPrinter(tree.getVisitController(), null, generator);
+    printer.runPass();
+    return appendOutput(generator, "pretty.css.map");
+  }
+
+  private static String appendOutput(GssSourceMapGenerator generator, String name)
+      throws Exception {
+    StringBuilder out = new StringBuilder();
+    generator.appendOutputTo(out, name);
+    return out.toString();
+  }
+}
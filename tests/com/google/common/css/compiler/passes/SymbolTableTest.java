@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.css.SourceCode;
+import com.google.common.css.compiler.ast.CssRulesetNode;
+import com.google.common.css.compiler.ast.CssSelectorNode;
+import com.google.common.css.compiler.ast.CssTree;
+import com.google.common.css.compiler.ast.GssParser;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link SymbolTable}.
+ */
+@RunWith(JUnit4.class)
+public class SymbolTableTest {
+
+  @Test
+  public void testNameIds() {
+    SymbolTable symbols = new SymbolTable();
+    assertThat(symbols.findNameId("color")).isEqualTo(-1);
+    assertThat(symbols.getNameId("color")).isEqualTo(0);
+    assertThat(symbols.getNameId("margin")).isEqualTo(1);
+    assertThat(symbols.getNameId("color")).isEqualTo(0);
+    assertThat(symbols.findNameId("margin")).isEqualTo(1);
+    assertThat(symbols.getNameCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testEquivalentSelectorsShareIds() throws Exception {
+    StringBuilder input = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      input.append(".a").append(i).append(" > b {}\n");
+      input.append(".a").append(i).append(">b {}\n");
+    }
+    CssTree tree = new GssParser(new SourceCode("test", input.toString())).parse();
+
+    SymbolTable symbols = new SymbolTable();
+    for (int i = 0; i < 100; i++) {
+      assertThat(symbols.getSelectorId(getSelector(tree, 2 * i))).isEqualTo(i);
+      assertThat(symbols.getSelectorId(getSelector(tree, 2 * i + 1))).isEqualTo(i);
+    }
+    assertThat(symbols.getSelectorCount()).isEqualTo(100);
+    assertThat(symbols.getSelectorId(getSelector(tree, 0))).isEqualTo(0);
+  }
+
+  private static CssSelectorNode getSelector(CssTree tree, int index) {
+    CssRulesetNode ruleset = (CssRulesetNode) tree.getRoot().getBody().getChildAt(index);
+    return ruleset.getSelectors().getChildAt(0);
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.common.css.compiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.css.compiler.ast.CssTree;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link TemplateCompactPrinterForChunks}.
+ */
+@RunWith(JUnit4.class)
+public class TemplateCompactPrinterForChunksTest extends AbstractCompactPrinterTest {
+
+  private static final ImmutableList<String> CHUNKS = ImmutableList.of("foo", "bar", "baz");
+
+  private static final char R_S = TemplateCompactPrinter.RULE_START;
+  private static final char rE = TemplateCompactPrinter.RULE_END;
+
+  @Override
+  protected CssTree parseStyleSheet(String sourceCode) {
+    CssTree newTree = super.parseStyleSheet(sourceCode);
+    Map<String, String> selectorToChunk =
+        new ImmutableMap.Builder<String, String>()
+            .put("foo", "foo")
+            .put("a", "foo")
+            .put("a#a", "foo")
+            .put("b+i", "foo")
+            .put(".bar", "bar")
+            .put("b", "bar")
+            .put("b>i+em", "bar")
+            .put("hr", "baz")
+            .put("i", "baz")
+            .put("a i", "baz")
+            .put("my-animation", "bar")
+            .put("print", "foo")
+            .put("screen", "baz")
+            .build();
+    new TemplateCompactPrinterTest.SetSelectorChunk(newTree, selectorToChunk).runPass();
+    return newTree;
+  }
+
+  @Test
+  public void testSameOutputAsOneChunkPrinters() {
+    parseStyleSheet(
+        "@import 'x.css';"
+            + "foo,hr,.bar,i{color:red} "
+            + "a,i{} "
+            + "b,hr{} "
+            + "a#a{} "
+            + "i,hr,i{top:0}"
+            + "a i{}"
+            + "b > i + em, a#a b {}"
+            + "b + i, a+i {}"
+            + "unknown {}"
+            + "@media print { foo {} b {} }"
+            + "@media screen { i { left: 0 } }"
+            + "@keyframes my-animation { 0% {} }"
+            + "@font-face { font-family:'Roboto'; }"
+            + "@page :first { margin: 0 }"
+            + "@unknown-rule x { a { b: c } hr { d: e } }");
+
+    TemplateCompactPrinterForChunks<String> printer =
+        new TemplateCompactPrinterForChunks<>(newTree, CHUNKS);
+    printer.runPass();
+
+    assertThat(printer.getCompactPrintedStrings().keySet())
+        .containsExactlyElementsIn(CHUNKS)
+        .inOrder();
+    for (String chunk : CHUNKS) {
+      TemplateCompactPrinter<String> oneChunkPrinter = new TemplateCompactPrinter<>(newTree, chunk);
+      oneChunkPrinter.runPass();
+      assertThat(printer.getCompactPrintedStrings())
+          .containsEntry(chunk, oneChunkPrinter.getCompactPrintedString());
+    }
+  }
+
+  @Test
+  public void testParallelPrinting() {
+    parseStyleSheet("foo{} b{} hr{} a{} @media screen { i {} } .bar{}");
+    TemplateCompactPrinterForChunks<String> printer =
+        new TemplateCompactPrinterForChunks<>(newTree, CHUNKS);
+    printer.runPass();
+    ImmutableMap<String, String> expected = printer.getCompactPrintedStrings();
+
+    ExecutorService executor = Executors.newFixedThreadPool(CHUNKS.size());
+    try {
+      printer.runPass(executor);
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(printer.getCompactPrintedStrings()).containsExactlyEntriesIn(expected).inOrder();
+    assertThat(expected)
+        .containsExactly(
+            "foo", R_S + "foo{}" + rE + R_S + "a{}" + rE,
+            "bar", R_S + "b{}" + rE + R_S + ".bar{}" + rE,
+            "baz", R_S + "hr{}" + rE + R_S + "@media screen{" + R_S + "i{}" + rE + "}" + rE)
+        .inOrder();
+  }
+
+  @Test
+  public void testChunksOnlyPreserveTheCommentsOfTheirNodes() {
+    parseStyleSheet(
+        "/* @preserve Preserved comment 1 */ foo{} "
+            + "/* @preserve Preserved comment 2 */ b{}");
+    TemplateCompactPrinterForChunks<String> printer =
+        new TemplateCompactPrinterForChunks<>(newTree, ImmutableList.of("foo", "bar"));
+    printer.setPreserveMarkedComments(true);
+    printer.runPass();
+
+    assertThat(printer.getCompactPrintedStrings())
+        .containsExactly(
+            "foo", R_S + "\n/* @preserve Preserved comment 1 */\nfoo{}" + rE,
+            "bar", R_S + "\n/* @preserve Preserved comment 2 */\nb{}" + rE)
+        .inOrder();
+  }
+
+  @Test
+  public void testChunkWithoutNodes() {
+    parseStyleSheet("foo{}");
+    TemplateCompactPrinterForChunks<String> printer =
+        new TemplateCompactPrinterForChunks<>(newTree, ImmutableList.of("foo", "qux"));
+    printer.runPass();
+
+    assertThat(printer.getCompactPrintedStrings())
+        .containsExactly("foo", R_S + "foo{}" + rE, "qux", "")
+        .inOrder();
+  }
+}
@@ -16,6 +16,8 @@
 
 package com.google.common.css.compiler.passes;
 
+import static com.google.common.truth.Truth.assertThat;
+
 import com.google.common.css.compiler.ast.FunctionalTestBase;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -28,6 +30,8 @@ import org.junit.runners.JUnit4;
 @RunWith(JUnit4.class)
 public class UnsafeMergeRulesetNodesFunctionalTest extends FunctionalTestBase {
   private boolean byPartition = false;
+  private long maxPairs = Long.MAX_VALUE;
+  private UnsafeMergeRulesetNodes pass;
 
   @Test
   public void testSorting() {
@@ -76,6 +80,24 @@ public class UnsafeMergeRulesetNodesFunctionalTest extends FunctionalTestBase {
         + "[c]{[border-left:[red], border-color:[blue]]}]");
   }
 
+  @Test
+  public void testWithinBudget() {
+    maxPairs = 3;
+    testEachTreeConstruction(
+        "b {x: 1px;} c {y: 2px;} a {x: 1px;}",
+        "[[a, b]{[x:[1px]]}, [c]{[y:[2px]]}]");
+    assertThat(pass.fellBackToSafeMerge()).isFalse();
+  }
+
+  @Test
+  public void testOverBudgetMergesAdjacentRulesetsOnly() {
+    maxPairs = 2;
+    testEachTreeConstruction(
+        "b {x: 1px;} c {y: 2px;} a {x: 1px;} d, e {x: 1px; y: 2px}",
+        "[[b]{[x:[1px]]}, [c]{[y:[2px]]}, [a]{[x:[1px]]}, [d, e]{[x:[1px], y:[2px]]}]");
+    assertThat(pass.fellBackToSafeMerge()).isTrue();
+  }
+
   private void testEachTreeConstruction(String input, String output) {
     testEachTreeConstruction(input, output, output);
   }
@@ -95,6 +117,7 @@ public class UnsafeMergeRulesetNodesFunctionalTest extends FunctionalTestBase {
 
     new EliminateUselessRulesetNodes(tree).runPass();
 
-    new UnsafeMergeRulesetNodes(tree, byPartition, true).runPass();
+    pass = new UnsafeMergeRulesetNodes(tree, byPartition, true, maxPairs);
+    pass.runPass();
   }
 }